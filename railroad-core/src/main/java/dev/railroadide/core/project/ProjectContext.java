@@ -4,8 +4,8 @@ import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
 import java.nio.file.Path;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @EqualsAndHashCode
 @ToString
@@ -13,7 +13,8 @@ public final class ProjectContext {
     private final ProjectData data;
     private final Path projectDir;
 
-    private final Map<Key<?>, Object> extras = new HashMap<>();
+    // Steps of a pipeline run at the same time
+    private final Map<Key<?>, Object> extras = new ConcurrentHashMap<>();
 
     public ProjectContext(ProjectData data, Path projectDir) {
         this.data = data;
@@ -29,7 +30,11 @@ public final class ProjectContext {
     }
 
     public <T> void put(Key<T> key, T value) {
-        extras.put(key, value);
+        if (value == null) {
+            extras.remove(key);
+        } else {
+            extras.put(key, value);
+        }
     }
 
     @SuppressWarnings("unchecked")
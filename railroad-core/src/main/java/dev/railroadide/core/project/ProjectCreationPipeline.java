@@ -4,25 +4,247 @@ import dev.railroadide.core.project.creation.CreationStep;
 import dev.railroadide.core.project.creation.ProgressReporter;
 import lombok.Getter;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 
+/**
+ * Runs the steps creating a project, as many at a time as their dependencies and resources allow (see
+ * {@link CreationStep}), on a pool of at most {@link #getParallelism()} threads.
+ * <p>
+ * If a step fails, no more steps are started, the ones already running are left to finish and the failure is thrown.
+ */
 @Getter
 public class ProjectCreationPipeline {
+    private static final int DEFAULT_PARALLELISM = Math.clamp(Runtime.getRuntime().availableProcessors(), 2, 4);
+
     private final List<CreationStep> steps;
+    private final int parallelism;
 
     public ProjectCreationPipeline(List<CreationStep> steps) {
+        this(steps, DEFAULT_PARALLELISM);
+    }
+
+    public ProjectCreationPipeline(List<CreationStep> steps, int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1, was " + parallelism);
+
         this.steps = new ArrayList<>(steps);
+        this.parallelism = parallelism;
     }
 
     public void run(ProjectContext ctx, ProgressReporter reporter) throws Exception {
-        for (int i = 0; i < steps.size(); i++) {
-            var step = steps.get(i);
-            reporter.progress(i, steps.size());
-            reporter.info("→ " + step.translationKey());
-            step.run(ctx, reporter);
+        int count = this.steps.size();
+        BitSet[] successors = buildGraph();
+        int[] remaining = new int[count];
+        for (BitSet stepSuccessors : successors) {
+            stepSuccessors.stream().forEach(successor -> remaining[successor]++);
+        }
+
+        var synchronizedReporter = new SynchronizedProgressReporter(reporter);
+        synchronizedReporter.progress(0, count);
+        if (count == 0)
+            return;
+
+        BlockingQueue<Completion> completions = new LinkedBlockingQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.parallelism, count), Thread.ofPlatform()
+            .name("project-creation-", 0)
+            .daemon()
+            .factory());
+        try {
+            int running = 0;
+            int completed = 0;
+            Throwable failure = null;
+            for (int index = 0; index < count; index++) {
+                if (remaining[index] == 0) {
+                    submit(executor, index, ctx, synchronizedReporter, completions);
+                    running++;
+                }
+            }
+
+            while (running > 0) {
+                Completion completion = completions.take();
+                running--;
+                if (completion.failure() != null) {
+                    if (failure == null) {
+                        failure = completion.failure();
+                    } else {
+                        failure.addSuppressed(completion.failure());
+                    }
+
+                    continue;
+                }
+
+                completed++;
+                CreationStep step = this.steps.get(completion.index());
+                synchronizedReporter.stepFinished(step, completion.elapsed());
+                synchronizedReporter.progress(completed, count);
+                if (failure != null)
+                    continue;
+
+                for (int successor = successors[completion.index()].nextSetBit(0); successor >= 0;
+                     successor = successors[completion.index()].nextSetBit(successor + 1)) {
+                    if (--remaining[successor] == 0) {
+                        submit(executor, successor, ctx, synchronizedReporter, completions);
+                        running++;
+                    }
+                }
+            }
+
+            if (failure instanceof Exception exception)
+                throw exception;
+            if (failure instanceof Error error)
+                throw error;
+        } finally {
+            // Nothing is running by now, unless the thread creating the project was interrupted
+            executor.shutdownNow();
+        }
+    }
+
+    private void submit(ExecutorService executor, int index, ProjectContext ctx, ProgressReporter reporter,
+                        BlockingQueue<Completion> completions) {
+        CreationStep step = this.steps.get(index);
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                reporter.stepStarted(step);
+                step.run(ctx, reporter);
+                completions.add(new Completion(index, Duration.ofNanos(System.nanoTime() - start), null));
+            } catch (Throwable throwable) {
+                completions.add(new Completion(index, Duration.ofNanos(System.nanoTime() - start), throwable));
+            }
+        });
+    }
+
+    /**
+     * Works out which steps have to wait for which: a step waits for the steps it depends on, and for the steps
+     * registered before it that it conflicts with.
+     *
+     * @return The steps waiting for each step, by index.
+     * @throws IllegalStateException If the dependencies form a cycle.
+     */
+    private BitSet[] buildGraph() {
+        int count = this.steps.size();
+        var successors = new BitSet[count];
+        Map<String, List<Integer>> indexesById = new HashMap<>();
+        for (int index = 0; index < count; index++) {
+            successors[index] = new BitSet(count);
+            indexesById.computeIfAbsent(this.steps.get(index).id(), id -> new ArrayList<>()).add(index);
+        }
+
+        for (int index = 0; index < count; index++) {
+            CreationStep step = this.steps.get(index);
+            for (int earlier = 0; earlier < index; earlier++) {
+                if (conflicts(this.steps.get(earlier), step)) {
+                    successors[earlier].set(index);
+                }
+            }
+
+            for (String dependency : step.dependencies()) {
+                for (int dependencyIndex : indexesById.getOrDefault(dependency, List.of())) {
+                    if (dependencyIndex != index) {
+                        successors[dependencyIndex].set(index);
+                    }
+                }
+            }
+        }
+
+        // Kahn's algorithm, only to check that every step can be reached
+        int[] remaining = new int[count];
+        for (BitSet stepSuccessors : successors) {
+            stepSuccessors.stream().forEach(successor -> remaining[successor]++);
+        }
+
+        Deque<Integer> ready = new ArrayDeque<>();
+        for (int index = 0; index < count; index++) {
+            if (remaining[index] == 0) {
+                ready.add(index);
+            }
+        }
+
+        int visited = 0;
+        while (!ready.isEmpty()) {
+            int index = ready.poll();
+            visited++;
+            successors[index].stream().forEach(successor -> {
+                if (--remaining[successor] == 0) {
+                    ready.add(successor);
+                }
+            });
+        }
+
+        if (visited != count) {
+            List<String> cycle = new ArrayList<>();
+            for (int index = 0; index < count; index++) {
+                if (remaining[index] > 0) {
+                    cycle.add(this.steps.get(index).id());
+                }
+            }
+
+            throw new IllegalStateException("Creation steps depend on each other in a cycle: " + cycle);
         }
 
-        reporter.progress(steps.size(), steps.size());
+        return successors;
+    }
+
+    private static boolean conflicts(CreationStep first, CreationStep second) {
+        Set<String> firstWrites = first.writes();
+        Set<String> secondWrites = second.writes();
+        return overlaps(firstWrites, secondWrites)
+            || overlaps(firstWrites, second.reads())
+            || overlaps(first.reads(), secondWrites);
+    }
+
+    private static boolean overlaps(Set<String> first, Set<String> second) {
+        for (String resource : first) {
+            for (String other : second) {
+                if (contains(resource, other) || contains(other, resource))
+                    return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean contains(String resource, String other) {
+        return resource.equals(CreationStep.ALL_RESOURCES)
+            || resource.equals(other)
+            || (other.startsWith(resource) && other.charAt(resource.length()) == '/');
+    }
+
+    private record Completion(int index, Duration elapsed, Throwable failure) {
+    }
+
+    /**
+     * Passes calls on to a reporter one at a time, as steps running at the same time report their progress.
+     */
+    private record SynchronizedProgressReporter(ProgressReporter delegate) implements ProgressReporter {
+        @Override
+        public synchronized void progress(int stepIndex, int total) {
+            this.delegate.progress(stepIndex, total);
+        }
+
+        @Override
+        public synchronized void info(String line) {
+            this.delegate.info(line);
+        }
+
+        @Override
+        public synchronized void setArg(Object... args) {
+            this.delegate.setArg(args);
+        }
+
+        @Override
+        public synchronized void stepStarted(CreationStep step) {
+            this.delegate.stepStarted(step);
+        }
+
+        @Override
+        public synchronized void stepFinished(CreationStep step, Duration elapsed) {
+            this.delegate.stepFinished(step, elapsed);
+        }
     }
 }
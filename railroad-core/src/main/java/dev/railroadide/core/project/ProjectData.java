@@ -2,10 +2,12 @@ package dev.railroadide.core.project;
 
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 
 public final class ProjectData {
-    private final Map<String, Object> data = new HashMap<>(); // TODO: Consider whether this should be concurrent
+    // Concurrent, as the steps of a pipeline run at the same time
+    private final Map<String, Object> data = new ConcurrentHashMap<>();
 
     public Object get(String key) {
         return data.get(key);
@@ -220,7 +222,11 @@ public final class ProjectData {
     }
 
     public void set(String key, Object value) {
-        data.put(key, value);
+        if (value == null) {
+            data.remove(key);
+        } else {
+            data.put(key, value);
+        }
     }
 
     public void remove(String key) {
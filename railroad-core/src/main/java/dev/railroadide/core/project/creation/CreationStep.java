@@ -2,10 +2,48 @@ package dev.railroadide.core.project.creation;
 
 import dev.railroadide.core.project.ProjectContext;
 
+import java.util.Set;
+
+/**
+ * One unit of work of a {@link dev.railroadide.core.project.ProjectCreationPipeline}.
+ * <p>
+ * Steps run at the same time as each other unless they depend on one another, or one writes a resource the other
+ * reads or writes, in which case they run in the order they were registered. A resource is a name such as
+ * {@code project/build.gradle}, and includes every resource whose name continues it after a {@code /}, so a step
+ * writing {@code project} conflicts with one reading {@code project/build.gradle}.
+ */
 public interface CreationStep {
+    /**
+     * The resource standing for everything, which a step writes unless it says otherwise, so steps that do not
+     * declare their resources run strictly in order.
+     */
+    String ALL_RESOURCES = "*";
+
     String id();
 
     String translationKey();
 
     void run(ProjectContext ctx, ProgressReporter reporter) throws Exception;
+
+    /**
+     * @return The ids of the steps that must finish before this one starts, on top of those it conflicts with.
+     * Steps that are not in the pipeline are ignored.
+     */
+    default Set<String> dependencies() {
+        return Set.of();
+    }
+
+    /**
+     * @return The resources this step reads.
+     */
+    default Set<String> reads() {
+        return Set.of();
+    }
+
+    /**
+     * @return The resources this step creates, changes or deletes.
+     */
+    default Set<String> writes() {
+        return Set.of(ALL_RESOURCES);
+    }
 }
@@ -5,6 +5,11 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
+/**
+ * The steps of a pipeline, in order. Steps that conflict over a resource run in this order, and steps that do not
+ * declare their resources run after every step before them and before every step after them, so
+ * {@link #addBefore(String, CreationStep)} and {@link #addAfter(String, CreationStep)} place them exactly.
+ */
 public final class CreationStepRegistry {
     private final List<CreationStep> steps = new ArrayList<>();
 
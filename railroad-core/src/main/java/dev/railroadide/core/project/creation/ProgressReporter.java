@@ -1,9 +1,27 @@
 package dev.railroadide.core.project.creation;
 
+import java.time.Duration;
+
 public interface ProgressReporter {
     void progress(int stepIndex, int total);
 
     void info(String line);
 
     void setArg(Object... args);
+
+    /**
+     * Called as a step starts to run.
+     */
+    default void stepStarted(CreationStep step) {
+        info("→ " + step.translationKey());
+    }
+
+    /**
+     * Called once a step has run successfully.
+     *
+     * @param elapsed How long the step took to run.
+     */
+    default void stepFinished(CreationStep step, Duration elapsed) {
+        info("✓ " + step.translationKey() + " (" + elapsed.toMillis() + " ms)");
+    }
 }
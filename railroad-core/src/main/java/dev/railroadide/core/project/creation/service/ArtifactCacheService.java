@@ -0,0 +1,30 @@
+package dev.railroadide.core.project.creation.service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * A store of downloaded artifacts shared between projects, so creating another project from the same MDK or example
+ * mod does not download it again.
+ */
+public interface ArtifactCacheService {
+    /**
+     * Copies an artifact with a known checksum to a destination file, downloading it into the store first if it is
+     * not there.
+     *
+     * @param sha256 The expected SHA-256 of the artifact, in hex.
+     * @throws IOException If the artifact cannot be downloaded, or the download does not match the checksum.
+     */
+    void fetch(URI uri, Path dest, String sha256) throws IOException;
+
+    /**
+     * Copies an artifact to a destination file, using the stored copy if it was downloaded from the same URL within
+     * the given age, and downloading it again otherwise. For URLs whose content can change, such as the head of a
+     * branch.
+     *
+     * @return The SHA-256 of the artifact, in lower case hex.
+     */
+    String fetch(URI uri, Path dest, Duration maxAge) throws IOException;
+}
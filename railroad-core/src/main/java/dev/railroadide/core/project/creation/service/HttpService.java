@@ -1,8 +1,12 @@
 package dev.railroadide.core.project.creation.service;
 
+import dev.railroadide.core.project.creation.ProjectServiceRegistry;
+import dev.railroadide.core.utility.ServiceLocator;
+
 import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Path;
+import java.util.Locale;
 
 public interface HttpService {
     /**
@@ -10,6 +14,28 @@ public interface HttpService {
      */
     void download(URI uri, Path dest) throws IOException;
 
+    /**
+     * Downloads a resource to a destination file and computes its checksum. By default the file is read again once
+     * downloaded, using the bound {@link ChecksumService}; implementations can compute it as the content streams in
+     * instead.
+     *
+     * @param algorithm The digest algorithm to use (e.g. SHA-256).
+     * @return The checksum of the downloaded content, in lower case hex.
+     */
+    default String download(URI uri, Path dest, String algorithm) throws IOException {
+        download(uri, dest);
+        try {
+            return ServiceLocator.getService(ProjectServiceRegistry.class)
+                .get(ChecksumService.class)
+                .compute(dest, algorithm)
+                .toLowerCase(Locale.ROOT);
+        } catch (IOException exception) {
+            throw exception;
+        } catch (Exception exception) {
+            throw new IOException("Failed to compute the " + algorithm + " checksum of " + dest, exception);
+        }
+    }
+
     /**
      * Checks if the URL returns 404 (or not found).
      */
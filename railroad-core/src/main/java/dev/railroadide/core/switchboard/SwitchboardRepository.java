@@ -2,10 +2,25 @@ package dev.railroadide.core.switchboard;
 
 import dev.railroadide.core.registry.Registry;
 import dev.railroadide.core.registry.RegistryManager;
+import dev.railroadide.core.switchboard.cache.CacheKeySpec;
+import dev.railroadide.core.switchboard.cache.CacheStats;
+
+import java.util.Optional;
 
 /**
- * Marker interface for repositories that interact with the Switchboard metadata service.
+ * Interface for repositories that interact with the Switchboard metadata service.
  */
 public interface SwitchboardRepository {
     Registry<SwitchboardRepository> REGISTRY = RegistryManager.createRegistry("railroad:switchboard_repository", SwitchboardRepository.class);
+
+    /**
+     * @return How this repository's lookups have been answered: from the cache, after a 304, or by fetching them.
+     */
+    CacheStats getCacheStats();
+
+    /**
+     * @return How the values this repository caches under the key are stored, or empty if the key is not one of its
+     * own. Used to fill the cache from a metadata snapshot.
+     */
+    Optional<CacheKeySpec<?>> getKeySpec(String key);
 }
@@ -0,0 +1,23 @@
+package dev.railroadide.core.switchboard.cache;
+
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * How the values cached under a key are stored.
+ *
+ * @param type   The type of the values.
+ * @param policy How long the values are used for.
+ */
+public record CacheKeySpec<T>(TypeToken<T> type, CachePolicy policy) {
+    public static <T> CacheKeySpec<T> of(Class<T> type, CachePolicy policy) {
+        return new CacheKeySpec<>(TypeToken.get(type), policy);
+    }
+
+    /**
+     * @return Whether the key is the given key, or one nested under it, such as {@code forge:versions:1.20.1} under
+     * {@code forge:versions}.
+     */
+    public static boolean matches(String key, String base) {
+        return key.equals(base) || (key.startsWith(base) && key.charAt(base.length()) == ':');
+    }
+}
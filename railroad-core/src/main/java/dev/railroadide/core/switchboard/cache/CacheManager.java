@@ -1,10 +1,14 @@
 package dev.railroadide.core.switchboard.cache;
 
 import com.google.gson.reflect.TypeToken;
+import dev.railroadide.core.utility.ServiceLocator;
+import dev.railroadide.logger.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
@@ -16,12 +20,35 @@ public interface CacheManager {
         return get(key, TypeToken.get(type));
     }
 
+    /**
+     * Like {@link #get(String, TypeToken)}, but also returns an entry that has expired, if it is still stored, so it
+     * can be served while it is fetched again. Backends that drop expired entries return none.
+     */
+    default <T> CompletableFuture<Optional<MetadataCacheEntry<T>>> getIncludingExpired(String key, TypeToken<@NotNull T> typeToken) {
+        return get(key, typeToken);
+    }
+
     <T> T put(String key, MetadataCacheEntry<T> entry);
 
     default <T> T put(String key, T data, Duration ttl, TypeToken<@NotNull T> typeToken) {
         return put(key, new MetadataCacheEntry<>(data, Instant.now(), typeToken, ttl, null));
     }
 
+    /**
+     * Caches many entries at once, which backends may write together rather than one by one.
+     */
+    default void putAll(Map<String, MetadataCacheEntry<?>> entries) {
+        entries.forEach(this::put);
+    }
+
+    /**
+     * Records that a cached entry is still current, after the server said it has not changed. Only its fetch time, TTL
+     * and ETag differ from the stored entry, so backends may update those without writing the data again.
+     */
+    default <T> void touch(String key, MetadataCacheEntry<T> entry) {
+        put(key, entry);
+    }
+
     void invalidate(String key);
 
     default <T> CompletableFuture<T> getOrFetch(
@@ -30,13 +57,7 @@ public interface CacheManager {
         Duration ttl,
         Supplier<CompletableFuture<T>> fetcher
     ) {
-        return get(key, typeToken).thenCompose(opt ->
-            opt.map(entry -> CompletableFuture.completedFuture(entry.data()))
-                .orElseGet(() -> fetcher.get().thenApply(fresh -> {
-                    put(key, fresh, ttl, typeToken);
-                    return fresh;
-                }))
-        );
+        return getOrFetch(key, typeToken, CachePolicy.of(ttl), fetcher);
     }
 
     default <T> CompletableFuture<T> getOrFetch(
@@ -48,19 +69,50 @@ public interface CacheManager {
         return getOrFetch(key, TypeToken.get(typeToken), ttl, fetcher);
     }
 
+    default <T> CompletableFuture<T> getOrFetch(
+        String key,
+        Class<T> typeToken,
+        CachePolicy policy,
+        Supplier<CompletableFuture<T>> fetcher
+    ) {
+        return getOrFetch(key, TypeToken.get(typeToken), policy, fetcher);
+    }
+
+    default <T> CompletableFuture<T> getOrFetch(
+        String key,
+        TypeToken<T> typeToken,
+        CachePolicy policy,
+        Supplier<CompletableFuture<T>> fetcher
+    ) {
+        return getOrFetch(key, typeToken, policy,
+            ConditionalFetcher.unconditional(() -> fetcher.get().thenApply(Optional::ofNullable)));
+    }
+
+    default <T> CompletableFuture<T> getOrFetch(
+        String key,
+        Class<T> typeToken,
+        CachePolicy policy,
+        ConditionalFetcher<T> fetcher
+    ) {
+        return getOrFetch(key, TypeToken.get(typeToken), policy, fetcher);
+    }
+
+    default <T> CompletableFuture<T> getOrFetch(
+        String key,
+        TypeToken<T> typeToken,
+        CachePolicy policy,
+        ConditionalFetcher<T> fetcher
+    ) {
+        return getOrFetchOptional(key, typeToken, policy, fetcher).thenApply(opt -> opt.orElse(null));
+    }
+
     default <T> CompletableFuture<Optional<T>> getOrFetchOptional(
         String key,
         TypeToken<T> typeToken,
         Duration ttl,
         Supplier<CompletableFuture<Optional<T>>> fetcher
     ) {
-        return get(key, typeToken).thenCompose(opt ->
-            opt.map(entry -> CompletableFuture.completedFuture(Optional.of(entry.data())))
-                .orElseGet(() -> fetcher.get().thenApply(freshOpt -> {
-                    freshOpt.ifPresent(fresh -> put(key, fresh, ttl, typeToken));
-                    return freshOpt;
-                }))
-        );
+        return getOrFetchOptional(key, typeToken, CachePolicy.of(ttl), fetcher);
     }
 
     default <T> CompletableFuture<Optional<T>> getOrFetchOptional(
@@ -71,4 +123,93 @@ public interface CacheManager {
     ) {
         return getOrFetchOptional(key, TypeToken.get(typeToken), ttl, fetcher);
     }
+
+    default <T> CompletableFuture<Optional<T>> getOrFetchOptional(
+        String key,
+        Class<T> typeToken,
+        CachePolicy policy,
+        Supplier<CompletableFuture<Optional<T>>> fetcher
+    ) {
+        return getOrFetchOptional(key, TypeToken.get(typeToken), policy, fetcher);
+    }
+
+    default <T> CompletableFuture<Optional<T>> getOrFetchOptional(
+        String key,
+        TypeToken<T> typeToken,
+        CachePolicy policy,
+        Supplier<CompletableFuture<Optional<T>>> fetcher
+    ) {
+        return getOrFetchOptional(key, typeToken, policy, ConditionalFetcher.unconditional(fetcher));
+    }
+
+    default <T> CompletableFuture<Optional<T>> getOrFetchOptional(
+        String key,
+        Class<T> typeToken,
+        CachePolicy policy,
+        ConditionalFetcher<T> fetcher
+    ) {
+        return getOrFetchOptional(key, TypeToken.get(typeToken), policy, fetcher);
+    }
+
+    /**
+     * Returns the cached value if it is fresh, or if the policy allows serving it stale, in which case it is
+     * revalidated in the background. Otherwise the value is revalidated, or fetched if nothing is cached, and returned.
+     * <p>
+     * This does not coalesce concurrent fetches of the same key; implementations that are shared between callers,
+     * such as {@link dev.railroadide.core.switchboard.cache.impl.DelegatingCacheManager}, do.
+     */
+    default <T> CompletableFuture<Optional<T>> getOrFetchOptional(
+        String key,
+        TypeToken<T> typeToken,
+        CachePolicy policy,
+        ConditionalFetcher<T> fetcher
+    ) {
+        return getIncludingExpired(key, typeToken).thenCompose(opt -> {
+            MetadataCacheEntry<T> cached = opt.orElse(null);
+            if (cached != null) {
+                if (!cached.isExpired())
+                    return CompletableFuture.completedFuture(Optional.of(cached.data()));
+
+                if (policy.canServeStale(cached)) {
+                    revalidate(key, typeToken, policy, cached, fetcher).exceptionally(throwable -> {
+                        ServiceLocator.getService(Logger.class).warn("Failed to revalidate cache entry: {}", key, throwable);
+                        return Optional.empty();
+                    });
+                    return CompletableFuture.completedFuture(Optional.of(cached.data()));
+                }
+            }
+
+            return revalidate(key, typeToken, policy, cached, fetcher);
+        });
+    }
+
+    /**
+     * Fetches a value and caches it, if there is one. The ETag of the cached entry is sent along, and if the server
+     * answers that it has not changed, the entry is kept for another TTL without being fetched again.
+     *
+     * @param cached The entry cached for the key, expired or not, or null if there is none.
+     */
+    default <T> CompletableFuture<Optional<T>> revalidate(
+        String key,
+        TypeToken<T> typeToken,
+        CachePolicy policy,
+        @Nullable MetadataCacheEntry<T> cached,
+        ConditionalFetcher<T> fetcher
+    ) {
+        return fetcher.fetch(cached == null ? null : cached.etag()).thenApply(result -> {
+            if (result.notModified()) {
+                if (cached == null)
+                    throw new IllegalStateException("Server reported no change to uncached key: " + key);
+
+                String etag = result.etag() != null ? result.etag() : cached.etag();
+                touch(key, new MetadataCacheEntry<>(cached.data(), Instant.now(), typeToken, policy.ttl(), etag));
+                return Optional.of(cached.data());
+            }
+
+            if (result.data() != null)
+                put(key, new MetadataCacheEntry<>(result.data(), Instant.now(), typeToken, policy.ttl(), result.etag()));
+
+            return Optional.ofNullable(result.data());
+        });
+    }
 }
@@ -0,0 +1,42 @@
+package dev.railroadide.core.switchboard.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * How long a value fetched through {@link CacheManager#getOrFetch} is used for.
+ *
+ * @param ttl                  How long a value is fresh for once fetched.
+ * @param staleWhileRevalidate How long after it expires a value is still returned straight away, while a new one is
+ *                             fetched in the background. Zero to wait for the new value instead.
+ */
+public record CachePolicy(Duration ttl, Duration staleWhileRevalidate) {
+    public CachePolicy {
+        Objects.requireNonNull(ttl, "ttl");
+        Objects.requireNonNull(staleWhileRevalidate, "staleWhileRevalidate");
+        if (ttl.isNegative() || staleWhileRevalidate.isNegative())
+            throw new IllegalArgumentException("Durations must not be negative");
+    }
+
+    /**
+     * @return A policy whose values are fetched again, and waited for, as soon as they expire.
+     */
+    public static CachePolicy of(Duration ttl) {
+        return new CachePolicy(ttl, Duration.ZERO);
+    }
+
+    public static CachePolicy staleWhileRevalidate(Duration ttl, Duration staleFor) {
+        return new CachePolicy(ttl, staleFor);
+    }
+
+    /**
+     * @return Whether an expired entry may still be returned while it is fetched again.
+     */
+    public boolean canServeStale(MetadataCacheEntry<?> entry) {
+        if (this.staleWhileRevalidate.isZero())
+            return false;
+
+        return Instant.now().isBefore(entry.lastFetched().plus(entry.ttl()).plus(this.staleWhileRevalidate));
+    }
+}
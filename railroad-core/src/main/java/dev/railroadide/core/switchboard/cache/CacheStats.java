@@ -0,0 +1,75 @@
+package dev.railroadide.core.switchboard.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how lookups through {@link CacheManager#getOrFetch} were answered.
+ */
+public class CacheStats {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder fetched = new LongAdder();
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordStaleHit() {
+        staleHits.increment();
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    public void recordNotModified() {
+        notModified.increment();
+    }
+
+    public void recordFetched() {
+        fetched.increment();
+    }
+
+    /**
+     * @return How many lookups found a value that had not expired.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return How many lookups found a value that had expired, and so was revalidated.
+     */
+    public long getStaleHits() {
+        return staleHits.sum();
+    }
+
+    /**
+     * @return How many lookups found nothing cached.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return How many requests the server answered with 304 Not Modified, so the cached value was kept.
+     */
+    public long getNotModified() {
+        return notModified.sum();
+    }
+
+    /**
+     * @return How many requests returned a new value.
+     */
+    public long getFetched() {
+        return fetched.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats[hits=" + getHits() + ", staleHits=" + getStaleHits() + ", misses=" + getMisses()
+            + ", notModified=" + getNotModified() + ", fetched=" + getFetched() + "]";
+    }
+}
@@ -0,0 +1,31 @@
+package dev.railroadide.core.switchboard.cache;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Fetches a value that may already be cached, passing on the ETag of the cached copy so the server can answer that it
+ * has not changed instead of sending it again.
+ */
+@FunctionalInterface
+public interface ConditionalFetcher<T> {
+    /**
+     * @param etag The ETag of the cached value, or null if nothing is cached.
+     */
+    CompletableFuture<FetchResult<T>> fetch(@Nullable String etag);
+
+    default <R> ConditionalFetcher<R> map(Function<? super T, ? extends R> mapper) {
+        return etag -> fetch(etag).thenApply(result -> result.map(mapper));
+    }
+
+    /**
+     * @return A fetcher that always fetches the value again, for sources that do not support ETags.
+     */
+    static <T> ConditionalFetcher<T> unconditional(Supplier<CompletableFuture<Optional<T>>> fetcher) {
+        return etag -> fetcher.get().thenApply(opt -> FetchResult.of(opt.orElse(null), null));
+    }
+}
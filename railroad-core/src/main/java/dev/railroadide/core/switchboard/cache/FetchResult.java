@@ -0,0 +1,30 @@
+package dev.railroadide.core.switchboard.cache;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.Function;
+
+/**
+ * The outcome of a {@link ConditionalFetcher}: either a new value, or word from the server that the cached value has
+ * not changed.
+ *
+ * @param data        The fetched value, or null if there is none or it was not modified.
+ * @param etag        The ETag the server sent with the response, if any.
+ * @param notModified Whether the server said the cached value is still current, without sending it again.
+ */
+public record FetchResult<T>(@Nullable T data, @Nullable String etag, boolean notModified) {
+    public static <T> FetchResult<T> of(@Nullable T data, @Nullable String etag) {
+        return new FetchResult<>(data, etag, false);
+    }
+
+    public static <T> FetchResult<T> notModified(@Nullable String etag) {
+        return new FetchResult<>(null, etag, true);
+    }
+
+    public <R> FetchResult<R> map(Function<? super T, ? extends R> mapper) {
+        if (this.data == null)
+            return new FetchResult<>(null, this.etag, this.notModified);
+
+        return new FetchResult<>(mapper.apply(this.data), this.etag, false);
+    }
+}
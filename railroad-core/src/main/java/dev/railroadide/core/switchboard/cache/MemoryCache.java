@@ -0,0 +1,310 @@
+package dev.railroadide.core.switchboard.cache;
+
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.RecordComponent;
+import java.time.Duration;
+import java.time.temporal.Temporal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, in-memory tier in front of a cache backend. Entries are weighed by an estimate of how much heap they take
+ * up, and the least recently used ones are evicted once the total weight goes over {@link #getMaxWeight()}. Expired
+ * entries are also swept out every so often, rather than waiting for their key to be read again; backends keep them
+ * for as long as they may be served stale.
+ */
+public class MemoryCache implements AutoCloseable {
+    public static final long DEFAULT_MAX_WEIGHT = 16L * 1024 * 1024;
+    public static final Duration DEFAULT_SWEEP_INTERVAL = Duration.ofMinutes(1);
+    private static final int MAX_TRACKED_WRITES = 4096;
+
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+        .name("switchboard-cache-sweeper")
+        .daemon()
+        .factory());
+
+    private final Map<String, Node> entries = new LinkedHashMap<>(16, 0.75f, true);
+    @Getter
+    private final long maxWeight;
+    private final ScheduledFuture<?> sweepTask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    // The stamp of the last write to each key, for telling whether a load raced with one
+    private final Map<String, Long> writeStamps = new HashMap<>();
+    private long weight;
+    private long writeStamp;
+    // Loads that began before this stamp are dropped, for keys whose write stamps are no longer tracked
+    private long forgottenStamp;
+
+    public MemoryCache() {
+        this(DEFAULT_MAX_WEIGHT, DEFAULT_SWEEP_INTERVAL);
+    }
+
+    public MemoryCache(long maxWeight, Duration sweepInterval) {
+        if (maxWeight < 1)
+            throw new IllegalArgumentException("Max weight must be at least 1, was " + maxWeight);
+        if (sweepInterval.isNegative() || sweepInterval.isZero())
+            throw new IllegalArgumentException("Sweep interval must be positive, was " + sweepInterval);
+
+        this.maxWeight = maxWeight;
+        long intervalMillis = sweepInterval.toMillis();
+        this.sweepTask = SWEEPER.scheduleWithFixedDelay(this::sweepExpired, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param includeExpired Whether to return an entry that has expired. If not, an expired entry is removed.
+     * @return The entry cached for the key, or null if there is none.
+     */
+    public synchronized <T> @Nullable MetadataCacheEntry<T> get(String key, boolean includeExpired) {
+        Node node = entries.get(key);
+        if (node != null && !includeExpired && node.entry().isExpired()) {
+            remove(key);
+            expirations.increment();
+            node = null;
+        }
+
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        // Keys are only ever used with one type
+        @SuppressWarnings("unchecked")
+        MetadataCacheEntry<T> entry = (MetadataCacheEntry<T>) node.entry();
+        return entry;
+    }
+
+    public void put(String key, MetadataCacheEntry<?> entry) {
+        // Weighed before locking, as large lists take a while to walk
+        long entryWeight = weigh(key, entry);
+        synchronized (this) {
+            recordWrite(key);
+            insert(key, entry, entryWeight);
+        }
+    }
+
+    /**
+     * @return A stamp to pass to {@link #putLoaded} once an entry has been read from the backend.
+     */
+    public synchronized long writeStamp() {
+        return writeStamp;
+    }
+
+    /**
+     * Caches an entry read from the backend, unless the key was written to or invalidated since the read began, in
+     * which case the entry may already be out of date.
+     */
+    public void putLoaded(String key, MetadataCacheEntry<?> entry, long stamp) {
+        long entryWeight = weigh(key, entry);
+        synchronized (this) {
+            if (stamp >= forgottenStamp && stamp >= writeStamps.getOrDefault(key, 0L)) {
+                insert(key, entry, entryWeight);
+            }
+        }
+    }
+
+    public synchronized void invalidate(String key) {
+        recordWrite(key);
+        remove(key);
+    }
+
+    public synchronized void clear() {
+        writeStamp++;
+        forgottenStamp = writeStamp;
+        writeStamps.clear();
+        entries.clear();
+        weight = 0;
+    }
+
+    private void recordWrite(String key) {
+        writeStamp++;
+        // Rather than tracking every key ever written, forget them all at once, turning away the loads in flight
+        if (writeStamps.size() >= MAX_TRACKED_WRITES && !writeStamps.containsKey(key)) {
+            forgottenStamp = writeStamp;
+            writeStamps.clear();
+        }
+
+        writeStamps.put(key, writeStamp);
+    }
+
+    /**
+     * Removes every entry that has expired.
+     */
+    public synchronized void sweepExpired() {
+        Iterator<Node> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Node node = iterator.next();
+            if (node.entry().isExpired()) {
+                iterator.remove();
+                weight -= node.weight();
+                expirations.increment();
+            }
+        }
+    }
+
+    private static long weigh(String key, MetadataCacheEntry<?> entry) {
+        return estimateWeight(key) + estimateWeight(entry.data());
+    }
+
+    private void insert(String key, MetadataCacheEntry<?> entry, long entryWeight) {
+        remove(key);
+
+        // Caching an entry heavier than the whole cache would only evict everything else
+        if (entryWeight > maxWeight)
+            return;
+
+        entries.put(key, new Node(entry, entryWeight));
+        weight += entryWeight;
+        if (weight <= maxWeight)
+            return;
+
+        sweepExpired();
+        Iterator<Node> iterator = entries.values().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            Node eldest = iterator.next();
+            iterator.remove();
+            weight -= eldest.weight();
+            evictions.increment();
+        }
+    }
+
+    private void remove(String key) {
+        Node removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.weight();
+        }
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * @return The estimated size of the cached entries, in bytes.
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return How many entries were removed to make room for others.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return How many entries were removed because they expired.
+     */
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    @Override
+    public void close() {
+        sweepTask.cancel(false);
+        clear();
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryCache[size=" + getSize() + ", weight=" + getWeight() + "/" + maxWeight + ", hits=" + getHits()
+            + ", misses=" + getMisses() + ", evictions=" + getEvictions() + ", expirations=" + getExpirations() + "]";
+    }
+
+    /**
+     * Roughly estimates how many bytes of heap a value takes up, following collections, maps, arrays and records.
+     * Objects reachable more than once are only counted once.
+     */
+    public static long estimateWeight(@Nullable Object value) {
+        return estimateWeight(value, Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    private static long estimateWeight(@Nullable Object value, Set<Object> seen) {
+        if (value == null)
+            return 0;
+        if (value instanceof CharSequence text)
+            return 40 + 2L * text.length();
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character
+            || value instanceof Enum<?> || value instanceof Temporal || value instanceof Duration)
+            return 24;
+        if (!seen.add(value))
+            return 0;
+
+        if (value instanceof Collection<?> collection) {
+            long total = 32 + 8L * collection.size();
+            for (Object element : collection) {
+                total += estimateWeight(element, seen);
+            }
+
+            return total;
+        }
+
+        if (value instanceof Map<?, ?> map) {
+            long total = 48 + 40L * map.size();
+            for (Map.Entry<?, ?> mapEntry : map.entrySet()) {
+                total += estimateWeight(mapEntry.getKey(), seen) + estimateWeight(mapEntry.getValue(), seen);
+            }
+
+            return total;
+        }
+
+        Class<?> type = value.getClass();
+        if (type.isArray()) {
+            int length = Array.getLength(value);
+            if (type.getComponentType().isPrimitive())
+                return 16 + (long) length * 8;
+
+            long total = 16 + 8L * length;
+            for (int index = 0; index < length; index++) {
+                total += estimateWeight(Array.get(value, index), seen);
+            }
+
+            return total;
+        }
+
+        if (type.isRecord()) {
+            RecordComponent[] components = type.getRecordComponents();
+            long total = 16 + 8L * components.length;
+            for (RecordComponent component : components) {
+                try {
+                    total += estimateWeight(component.getAccessor().invoke(value), seen);
+                } catch (ReflectiveOperationException | RuntimeException exception) {
+                    total += 16;
+                }
+            }
+
+            return total;
+        }
+
+        return 64;
+    }
+
+    private record Node(MetadataCacheEntry<?> entry, long weight) {
+    }
+}
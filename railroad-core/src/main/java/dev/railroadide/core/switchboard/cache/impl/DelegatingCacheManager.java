@@ -2,22 +2,46 @@ package dev.railroadide.core.switchboard.cache.impl;
 
 import com.google.gson.reflect.TypeToken;
 import dev.railroadide.core.switchboard.cache.CacheManager;
+import dev.railroadide.core.switchboard.cache.CachePolicy;
+import dev.railroadide.core.switchboard.cache.ConditionalFetcher;
+import dev.railroadide.core.switchboard.cache.MemoryCache;
 import dev.railroadide.core.switchboard.cache.MetadataCacheEntry;
+import lombok.Getter;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Passes calls on to a backend that can be switched while in use, keeping the entries used most recently in a
+ * {@link MemoryCache} in front of it.
+ * <p>
+ * Fetches of the same key through {@link #getOrFetch} are coalesced, so callers asking for a value that is not cached
+ * yet, or that needs revalidating, share a single request for it.
+ */
 public class DelegatingCacheManager implements CacheManager {
+    private final Map<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+    @Getter
+    private final MemoryCache memoryCache;
     private volatile CacheManager delegate;
 
     public DelegatingCacheManager(CacheManager initial) {
+        this(initial, new MemoryCache());
+    }
+
+    public DelegatingCacheManager(CacheManager initial, MemoryCache memoryCache) {
         this.delegate = initial;
+        this.memoryCache = memoryCache;
     }
 
     public void switchBackend(CacheManager newBackend, boolean migrate) {
         if (migrate) {
             migrate(delegate, newBackend);
+        } else {
+            memoryCache.clear();
         }
 
         this.delegate = newBackend;
@@ -25,20 +49,89 @@ public class DelegatingCacheManager implements CacheManager {
 
     @Override
     public <T> CompletableFuture<Optional<MetadataCacheEntry<T>>> get(String key, TypeToken<@NotNull T> typeToken) {
-        return delegate.get(key, typeToken);
+        MetadataCacheEntry<T> cached = memoryCache.get(key, false);
+        if (cached != null)
+            return CompletableFuture.completedFuture(Optional.of(cached));
+
+        long stamp = memoryCache.writeStamp();
+        return delegate.get(key, typeToken).thenApply(opt -> load(key, opt, stamp));
+    }
+
+    @Override
+    public <T> CompletableFuture<Optional<MetadataCacheEntry<T>>> getIncludingExpired(String key, TypeToken<@NotNull T> typeToken) {
+        MetadataCacheEntry<T> cached = memoryCache.get(key, true);
+        if (cached != null)
+            return CompletableFuture.completedFuture(Optional.of(cached));
+
+        long stamp = memoryCache.writeStamp();
+        return delegate.getIncludingExpired(key, typeToken).thenApply(opt -> load(key, opt, stamp));
+    }
+
+    private <T> Optional<MetadataCacheEntry<T>> load(String key, Optional<MetadataCacheEntry<T>> entry, long stamp) {
+        entry.ifPresent(value -> memoryCache.putLoaded(key, value, stamp));
+        return entry;
     }
 
     @Override
     public <T> T put(String key, MetadataCacheEntry<T> entry) {
+        memoryCache.put(key, entry);
         delegate.put(key, entry);
         return entry.data();
     }
 
+    @Override
+    public <T> void touch(String key, MetadataCacheEntry<T> entry) {
+        memoryCache.put(key, entry);
+        delegate.touch(key, entry);
+    }
+
+    @Override
+    public void putAll(Map<String, MetadataCacheEntry<?>> entries) {
+        entries.forEach(memoryCache::put);
+        delegate.putAll(entries);
+    }
+
     @Override
     public void invalidate(String key) {
+        memoryCache.invalidate(key);
         delegate.invalidate(key);
     }
 
+    @Override
+    public <T> CompletableFuture<Optional<T>> revalidate(
+        String key,
+        TypeToken<T> typeToken,
+        CachePolicy policy,
+        @Nullable MetadataCacheEntry<T> cached,
+        ConditionalFetcher<T> fetcher
+    ) {
+        var created = new CompletableFuture<Optional<T>>();
+        // Keys are only ever used with one type
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Optional<T>> existing = (CompletableFuture<Optional<T>>) inFlight.putIfAbsent(key, created);
+        if (existing != null)
+            return existing.copy();
+
+        CompletableFuture<Optional<T>> fetched;
+        try {
+            fetched = CacheManager.super.revalidate(key, typeToken, policy, cached, fetcher);
+        } catch (RuntimeException exception) {
+            fetched = CompletableFuture.failedFuture(exception);
+        }
+
+        // The value is cached before the fetch is forgotten, so later callers find it there
+        fetched.whenComplete((value, throwable) -> {
+            inFlight.remove(key, created);
+            if (throwable == null) {
+                created.complete(value);
+            } else {
+                created.completeExceptionally(throwable);
+            }
+        });
+
+        return created.copy();
+    }
+
     private void migrate(CacheManager oldBackend, CacheManager newBackend) {
 
     }
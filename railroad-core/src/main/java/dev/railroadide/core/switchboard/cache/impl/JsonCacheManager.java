@@ -19,17 +19,18 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
+/**
+ * Stores each entry in its own JSON file. Entries are read from disk every time, so this is meant to be used behind a
+ * {@link DelegatingCacheManager}, which keeps the ones in use in memory.
+ */
 public class JsonCacheManager implements IterableCacheManager {
     private final Path baseDir;
     private final Gson gson;
-    private final Map<String, MetadataCacheEntry<?>> memoryCache = new ConcurrentHashMap<>();
 
     public JsonCacheManager(Path baseDir, Gson gson) throws UncheckedIOException {
         this.baseDir = baseDir;
@@ -44,14 +45,16 @@ public class JsonCacheManager implements IterableCacheManager {
 
     @Override
     public <T> CompletableFuture<Optional<MetadataCacheEntry<T>>> get(String key, TypeToken<@NotNull T> typeToken) {
-        return CompletableFuture.supplyAsync(() -> {
-            // First check in-memory cache
-            @SuppressWarnings("unchecked")
-            MetadataCacheEntry<T> memEntry = (MetadataCacheEntry<T>) memoryCache.get(key);
-            if (memEntry != null && !memEntry.isExpired())
-                return Optional.of(memEntry);
+        return read(key, typeToken, false);
+    }
 
-            // Fallback to disk
+    @Override
+    public <T> CompletableFuture<Optional<MetadataCacheEntry<T>>> getIncludingExpired(String key, TypeToken<@NotNull T> typeToken) {
+        return read(key, typeToken, true);
+    }
+
+    private <T> CompletableFuture<Optional<MetadataCacheEntry<T>>> read(String key, TypeToken<@NotNull T> typeToken, boolean includeExpired) {
+        return CompletableFuture.supplyAsync(() -> {
             Path file = toPath(key);
             if (Files.notExists(file))
                 return Optional.empty();
@@ -63,10 +66,8 @@ public class JsonCacheManager implements IterableCacheManager {
                 if (entry == null)
                     return Optional.empty();
 
-                if (!entry.isExpired()) {
-                    memoryCache.put(key, entry);
+                if (includeExpired || !entry.isExpired())
                     return Optional.of(entry);
-                }
             } catch (IOException exception) {
                 ServiceLocator.getService(Logger.class).warn("Failed to read cache file: {}", file, exception);
                 invalidate(key);
@@ -77,8 +78,6 @@ public class JsonCacheManager implements IterableCacheManager {
 
     @Override
     public <T> T put(String key, MetadataCacheEntry<T> entry) {
-        memoryCache.put(key, entry);
-
         Path file = toPath(key);
         try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
             StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
@@ -92,7 +91,6 @@ public class JsonCacheManager implements IterableCacheManager {
 
     @Override
     public void invalidate(String key) {
-        memoryCache.remove(key);
         Path file = toPath(key);
         try {
             Files.deleteIfExists(file);
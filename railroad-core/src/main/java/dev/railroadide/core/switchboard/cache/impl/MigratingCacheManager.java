@@ -10,6 +10,7 @@ import lombok.Getter;
 import lombok.Setter;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
@@ -44,6 +45,16 @@ public class MigratingCacheManager implements CacheManager {
         });
     }
 
+    @Override
+    public <T> CompletableFuture<Optional<MetadataCacheEntry<T>>> getIncludingExpired(String key, TypeToken<@NotNull T> typeToken) {
+        return newBackend.getIncludingExpired(key, typeToken).thenCompose(opt -> {
+            if (opt.isPresent())
+                return CompletableFuture.completedFuture(opt);
+
+            return oldBackend.getIncludingExpired(key, typeToken);
+        });
+    }
+
     @Override
     public <T> T put(String key, MetadataCacheEntry<T> entry) {
         // we only want to write to the new backend
@@ -51,6 +62,11 @@ public class MigratingCacheManager implements CacheManager {
         return entry.data();
     }
 
+    @Override
+    public void putAll(Map<String, MetadataCacheEntry<?>> entries) {
+        newBackend.putAll(entries);
+    }
+
     @Override
     public void invalidate(String key) {
         // we only want to invalidate in the new backend, otherwise we might re-migrate it
@@ -0,0 +1,98 @@
+package dev.railroadide.core.switchboard.cache.impl;
+
+import com.google.gson.reflect.TypeToken;
+import dev.railroadide.core.switchboard.cache.CacheManager;
+import dev.railroadide.core.switchboard.cache.CachePolicy;
+import dev.railroadide.core.switchboard.cache.CacheStats;
+import dev.railroadide.core.switchboard.cache.ConditionalFetcher;
+import dev.railroadide.core.switchboard.cache.MetadataCacheEntry;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A view of a cache that counts how the lookups made through it are answered, so callers sharing a cache can each see
+ * their own {@link CacheStats}.
+ */
+public class RecordingCacheManager implements CacheManager {
+    private final CacheManager delegate;
+    @Getter
+    private final CacheStats stats;
+
+    public RecordingCacheManager(CacheManager delegate) {
+        this(delegate, new CacheStats());
+    }
+
+    public RecordingCacheManager(CacheManager delegate, CacheStats stats) {
+        this.delegate = delegate;
+        this.stats = stats;
+    }
+
+    @Override
+    public <T> CompletableFuture<Optional<MetadataCacheEntry<T>>> get(String key, TypeToken<@NotNull T> typeToken) {
+        return delegate.get(key, typeToken);
+    }
+
+    /**
+     * Looks up an entry for {@link #getOrFetch}, counting whether it was found and whether it had expired.
+     */
+    @Override
+    public <T> CompletableFuture<Optional<MetadataCacheEntry<T>>> getIncludingExpired(String key, TypeToken<@NotNull T> typeToken) {
+        return delegate.getIncludingExpired(key, typeToken).thenApply(opt -> {
+            if (opt.isEmpty()) {
+                stats.recordMiss();
+            } else if (opt.get().isExpired()) {
+                stats.recordStaleHit();
+            } else {
+                stats.recordHit();
+            }
+
+            return opt;
+        });
+    }
+
+    @Override
+    public <T> T put(String key, MetadataCacheEntry<T> entry) {
+        return delegate.put(key, entry);
+    }
+
+    @Override
+    public <T> void touch(String key, MetadataCacheEntry<T> entry) {
+        delegate.touch(key, entry);
+    }
+
+    @Override
+    public void putAll(Map<String, MetadataCacheEntry<?>> entries) {
+        delegate.putAll(entries);
+    }
+
+    @Override
+    public void invalidate(String key) {
+        delegate.invalidate(key);
+    }
+
+    @Override
+    public <T> CompletableFuture<Optional<T>> revalidate(
+        String key,
+        TypeToken<T> typeToken,
+        CachePolicy policy,
+        @Nullable MetadataCacheEntry<T> cached,
+        ConditionalFetcher<T> fetcher
+    ) {
+        // Only counted when the request is actually made, not when it is shared with another caller
+        ConditionalFetcher<T> recording = etag -> fetcher.fetch(etag).thenApply(result -> {
+            if (result.notModified()) {
+                stats.recordNotModified();
+            } else {
+                stats.recordFetched();
+            }
+
+            return result;
+        });
+        return delegate.revalidate(key, typeToken, policy, cached, recording);
+    }
+}
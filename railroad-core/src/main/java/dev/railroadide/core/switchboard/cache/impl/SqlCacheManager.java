@@ -9,6 +9,7 @@ import dev.railroadide.core.switchboard.cache.MetadataCacheEntry;
 import dev.railroadide.core.utility.ServiceLocator;
 import dev.railroadide.logger.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.nio.file.Path;
 import java.sql.*;
@@ -18,27 +19,97 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
 
-public class SqlCacheManager implements IterableCacheManager {
-    private final Connection connection;
-    private final Map<String, MetadataCacheEntry<?>> memoryCache = new ConcurrentHashMap<>();
+/**
+ * Caches entries in a SQLite database, in WAL mode so reads are not blocked by writes.
+ * <p>
+ * Writes are queued and made by a single writer thread, which commits whatever has queued up in one transaction. Until
+ * a write is committed, reads of its key are answered from the queue. Reads use a small pool of connections, on their
+ * own threads, so cache I/O neither waits on the common pool nor runs on the caller's thread.
+ */
+public class SqlCacheManager implements IterableCacheManager, AutoCloseable {
+    private static final int DEFAULT_READ_CONNECTIONS = 2;
+    private static final int MAX_BATCH_SIZE = 256;
+
+    private static final String SELECT_SQL = "SELECT value, type, last_fetched, ttl_seconds, etag FROM cache_entries WHERE key = ?";
+    private static final String UPSERT_SQL = """
+            INSERT INTO cache_entries (key, value, type, last_fetched, ttl_seconds, etag)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT(key) DO UPDATE SET
+                value = excluded.value,
+                type = excluded.type,
+                last_fetched = excluded.last_fetched,
+                ttl_seconds = excluded.ttl_seconds,
+                etag = excluded.etag
+        """;
+    private static final String TOUCH_SQL = "UPDATE cache_entries SET last_fetched = ?, ttl_seconds = ?, etag = ? WHERE key = ?";
+    private static final String DELETE_SQL = "DELETE FROM cache_entries WHERE key = ?";
+
+    /**
+     * The latest write of each key that is not committed yet, so reads do not see what it replaces.
+     */
+    private final Map<String, Write> pendingWrites = new ConcurrentHashMap<>();
+    private final BlockingQueue<Write> writeQueue = new LinkedBlockingQueue<>();
+    private final BlockingQueue<ReadConnection> readConnections;
+    private final ExecutorService readExecutor;
+    private final Thread writerThread;
+    private final Connection writeConnection;
     private final ObjectMapper objectMapper = new ObjectMapper()
         .registerModule(new JavaTimeModule())
         .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private volatile boolean closed;
+    private volatile boolean writerStopped;
 
     public SqlCacheManager(String uri) throws SQLException {
-        this.connection = DriverManager.getConnection(uri);
-        initSchema();
+        this(uri, DEFAULT_READ_CONNECTIONS);
     }
 
     public SqlCacheManager(Path dbFile) throws SQLException {
         this("jdbc:sqlite:" + dbFile.toAbsolutePath());
     }
 
-    private void initSchema() throws SQLException {
+    public SqlCacheManager(String uri, int readConnectionCount) throws SQLException {
+        if (readConnectionCount < 1)
+            throw new IllegalArgumentException("At least one read connection is needed, was " + readConnectionCount);
+
+        this.writeConnection = openConnection(uri);
+        initSchema();
+
+        this.readConnections = new ArrayBlockingQueue<>(readConnectionCount);
+        try {
+            for (int index = 0; index < readConnectionCount; index++) {
+                Connection connection = openConnection(uri);
+                this.readConnections.add(new ReadConnection(connection, connection.prepareStatement(SELECT_SQL)));
+            }
+        } catch (SQLException exception) {
+            closeQuietly();
+            throw exception;
+        }
+
+        this.readExecutor = Executors.newFixedThreadPool(readConnectionCount, Thread.ofPlatform()
+            .name("switchboard-cache-reader-", 0)
+            .daemon()
+            .factory());
+        this.writerThread = Thread.ofPlatform()
+            .name("switchboard-cache-writer")
+            .daemon()
+            .start(this::runWriter);
+    }
+
+    private static Connection openConnection(String uri) throws SQLException {
+        Connection connection = DriverManager.getConnection(uri);
         try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = 5000");
+            stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute("PRAGMA synchronous = NORMAL");
+        }
+
+        return connection;
+    }
+
+    private void initSchema() throws SQLException {
+        try (Statement stmt = writeConnection.createStatement()) {
             stmt.executeUpdate("""
                     CREATE TABLE IF NOT EXISTS cache_entries (
                         key TEXT PRIMARY KEY,
@@ -54,23 +125,35 @@ public class SqlCacheManager implements IterableCacheManager {
 
     @Override
     public <T> CompletableFuture<Optional<MetadataCacheEntry<T>>> get(String key, TypeToken<@NotNull T> typeToken) {
-        // first check in-memory cache
-        @SuppressWarnings("unchecked")
-        MetadataCacheEntry<T> memEntry = (MetadataCacheEntry<T>) memoryCache.get(key);
-        if (memEntry != null && !memEntry.isExpired())
-            return CompletableFuture.completedFuture(Optional.of(memEntry));
-
-        CompletableFuture<Optional<MetadataCacheEntry<T>>> future = new CompletableFuture<>();
-
-        // then check SQLite cache
-        CompletableFuture.runAsync(() -> {
-            try (PreparedStatement stmt = connection.prepareStatement(
-                "SELECT value, type, last_fetched, ttl_seconds, etag FROM cache_entries WHERE key = ?")) {
-                stmt.setString(1, key);
-                ResultSet rs = stmt.executeQuery();
-                if (rs.next()) {
-                    byte[] jsonBytes = rs.getBytes("value");
+        return read(key, typeToken, false);
+    }
+
+    @Override
+    public <T> CompletableFuture<Optional<MetadataCacheEntry<T>>> getIncludingExpired(String key, TypeToken<@NotNull T> typeToken) {
+        return read(key, typeToken, true);
+    }
+
+    private <T> CompletableFuture<Optional<MetadataCacheEntry<T>>> read(String key, TypeToken<@NotNull T> typeToken, boolean includeExpired) {
+        // Writes that are not committed yet, which the database does not have
+        Write pending = pendingWrites.get(key);
+        if (pending != null) {
+            @SuppressWarnings("unchecked")
+            MetadataCacheEntry<T> pendingEntry = (MetadataCacheEntry<T>) pending.entry();
+            if (pendingEntry == null || (!includeExpired && pendingEntry.isExpired()))
+                return CompletableFuture.completedFuture(Optional.empty());
 
+            return CompletableFuture.completedFuture(Optional.of(pendingEntry));
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            ReadConnection connection = borrowReadConnection();
+            try {
+                connection.select().setString(1, key);
+                try (ResultSet rs = connection.select().executeQuery()) {
+                    if (!rs.next())
+                        return Optional.<MetadataCacheEntry<T>>empty();
+
+                    byte[] jsonBytes = rs.getBytes("value");
                     T data = objectMapper.readValue(jsonBytes, objectMapper.getTypeFactory().constructType(typeToken.getType()));
 
                     Instant lastFetched = Instant.ofEpochMilli(rs.getLong("last_fetched"));
@@ -78,71 +161,227 @@ public class SqlCacheManager implements IterableCacheManager {
                     String etag = rs.getString("etag");
 
                     var entry = new MetadataCacheEntry<T>(data, lastFetched, typeToken, ttl, etag);
-                    if (!entry.isExpired()) {
-                        memoryCache.put(key, entry);
-                        future.complete(Optional.of(entry));
-                        return;
-                    }
-                }
+                    if (!includeExpired && entry.isExpired())
+                        return Optional.<MetadataCacheEntry<T>>empty();
 
-                future.complete(Optional.empty());
+                    return Optional.of(entry);
+                }
             } catch (Exception exception) {
-                future.completeExceptionally(exception);
+                throw new CompletionException(exception);
+            } finally {
+                readConnections.add(connection);
             }
-        });
+        }, readExecutor);
+    }
 
-        return future;
+    private ReadConnection borrowReadConnection() {
+        try {
+            return readConnections.take();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(exception);
+        }
     }
 
     @Override
     public <T> T put(String key, MetadataCacheEntry<T> entry) {
-        CompletableFuture.runAsync(() -> {
-            try {
-                byte[] jsonBytes = objectMapper.writeValueAsBytes(entry.data());
-
-                try (PreparedStatement stmt = connection.prepareStatement("""
-                        INSERT INTO cache_entries (key, value, type, last_fetched, ttl_seconds, etag)
-                        VALUES (?, ?, ?, ?, ?, ?)
-                        ON CONFLICT(key) DO UPDATE SET
-                            value = excluded.value,
-                            type = excluded.type,
-                            last_fetched = excluded.last_fetched,
-                            ttl_seconds = excluded.ttl_seconds,
-                            etag = excluded.etag
-                    """)) {
-                    stmt.setString(1, key);
-                    stmt.setBytes(2, jsonBytes);
-                    stmt.setString(3, entry.dataClass().getType().getTypeName());
-                    stmt.setLong(4, entry.lastFetched().toEpochMilli());
-                    stmt.setLong(5, entry.ttl().toSeconds());
-                    stmt.setString(6, entry.etag());
-                    stmt.executeUpdate();
-                }
+        enqueue(new Write(WriteKind.UPSERT, key, entry, null));
+        return entry.data();
+    }
 
-                memoryCache.put(key, entry);
-            } catch (Exception exception) {
-                ServiceLocator.getService(Logger.class).error("Failed to put cache entry for key: {}", key, exception);
-            }
-        });
+    /**
+     * Queues the entries to be written, together if the writer has not caught up yet.
+     */
+    @Override
+    public void putAll(Map<String, MetadataCacheEntry<?>> entries) {
+        entries.forEach((key, entry) -> enqueue(new Write(WriteKind.UPSERT, key, entry, null)));
+    }
 
-        return entry.data();
+    @Override
+    public <T> void touch(String key, MetadataCacheEntry<T> entry) {
+        // The value has not changed, so it is not serialized and written again
+        enqueue(new Write(WriteKind.TOUCH, key, entry, null));
     }
 
     @Override
     public void invalidate(String key) {
-        memoryCache.remove(key);
-        try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM cache_entries WHERE key = ?")) {
-            stmt.setString(1, key);
-            stmt.executeUpdate();
+        enqueue(new Write(WriteKind.DELETE, key, null, null));
+    }
+
+    /**
+     * @return A future completed once every write queued before it has been committed.
+     */
+    public CompletableFuture<Void> flush() {
+        var flushed = new CompletableFuture<Void>();
+        if (closed || writerStopped) {
+            flushed.complete(null);
+            return flushed;
+        }
+
+        addToQueue(new Write(WriteKind.FLUSH, null, null, flushed));
+        return flushed;
+    }
+
+    private void enqueue(Write write) {
+        if (closed || writerStopped) {
+            ServiceLocator.getService(Logger.class).warn("Dropping cache write for key {}, the cache is closed", write.key());
+            return;
+        }
+
+        pendingWrites.put(write.key(), write);
+
+        addToQueue(write);
+    }
+
+    private void addToQueue(Write write) {
+        writeQueue.add(write);
+        // The writer may have stopped after the write was let through, in which case nothing else will take it
+        if (writerStopped) {
+            discardQueued();
+        }
+    }
+
+    /**
+     * Drops every write that is still queued, once the writer has stopped, completing the futures waiting on them.
+     */
+    private void discardQueued() {
+        List<Write> discarded = new ArrayList<>();
+        writeQueue.drainTo(discarded);
+        for (Write write : discarded) {
+            if (write.key() != null) {
+                pendingWrites.remove(write.key(), write);
+            }
+
+            if (write.done() != null) {
+                write.done().complete(null);
+            }
+        }
+    }
+
+    private void runWriter() {
+        List<Write> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        try (PreparedStatement upsert = writeConnection.prepareStatement(UPSERT_SQL);
+             PreparedStatement touch = writeConnection.prepareStatement(TOUCH_SQL);
+             PreparedStatement delete = writeConnection.prepareStatement(DELETE_SQL)) {
+            while (true) {
+                Write first = writeQueue.take();
+                if (first.kind() == WriteKind.CLOSE) {
+                    first.done().complete(null);
+                    return;
+                }
+
+                batch.add(first);
+                writeQueue.drainTo(batch, MAX_BATCH_SIZE - 1);
+
+                Write close = null;
+                int closeIndex = indexOfClose(batch);
+                if (closeIndex >= 0) {
+                    close = batch.get(closeIndex);
+                    // Anything queued after closing is dropped, as it would be had it been queued later
+                    batch.subList(closeIndex, batch.size()).clear();
+                }
+
+                writeBatch(batch, upsert, touch, delete);
+                batch.clear();
+
+                if (close != null) {
+                    close.done().complete(null);
+                    return;
+                }
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException exception) {
+            ServiceLocator.getService(Logger.class).error("Cache writer failed to prepare its statements, cache writes are disabled", exception);
+        } finally {
+            writerStopped = true;
+            discardQueued();
+        }
+    }
+
+    private static int indexOfClose(List<Write> batch) {
+        for (int index = 0; index < batch.size(); index++) {
+            if (batch.get(index).kind() == WriteKind.CLOSE)
+                return index;
+        }
+
+        return -1;
+    }
+
+    private void writeBatch(List<Write> batch, PreparedStatement upsert, PreparedStatement touch, PreparedStatement delete) {
+        try {
+            writeConnection.setAutoCommit(false);
+            try {
+                for (Write write : batch) {
+                    try {
+                        apply(write, upsert, touch, delete);
+                    } catch (SQLException exception) {
+                        throw exception;
+                    } catch (Exception exception) {
+                        // Only this entry could not be serialized; the rest of the batch is still written
+                        ServiceLocator.getService(Logger.class).error("Failed to write cache entry for key: {}", write.key(), exception);
+                    }
+                }
+
+                writeConnection.commit();
+            } catch (SQLException exception) {
+                writeConnection.rollback();
+                throw exception;
+            } finally {
+                writeConnection.setAutoCommit(true);
+            }
         } catch (SQLException exception) {
-            ServiceLocator.getService(Logger.class).error("Failed to invalidate cache entry for key: {}", key, exception);
+            ServiceLocator.getService(Logger.class).error("Failed to write {} cache entries", batch.size(), exception);
+        } finally {
+            for (Write write : batch) {
+                if (write.key() != null) {
+                    pendingWrites.remove(write.key(), write);
+                }
+
+                if (write.done() != null) {
+                    write.done().complete(null);
+                }
+            }
+        }
+    }
+
+    private void apply(Write write, PreparedStatement upsert, PreparedStatement touch, PreparedStatement delete) throws Exception {
+        switch (write.kind()) {
+            case UPSERT -> {
+                MetadataCacheEntry<?> entry = write.entry();
+                upsert.setString(1, write.key());
+                upsert.setBytes(2, objectMapper.writeValueAsBytes(entry.data()));
+                upsert.setString(3, entry.dataClass().getType().getTypeName());
+                upsert.setLong(4, entry.lastFetched().toEpochMilli());
+                upsert.setLong(5, entry.ttl().toSeconds());
+                upsert.setString(6, entry.etag());
+                upsert.executeUpdate();
+            }
+            case TOUCH -> {
+                MetadataCacheEntry<?> entry = write.entry();
+                touch.setLong(1, entry.lastFetched().toEpochMilli());
+                touch.setLong(2, entry.ttl().toSeconds());
+                touch.setString(3, entry.etag());
+                touch.setString(4, write.key());
+                if (touch.executeUpdate() == 0) {
+                    apply(new Write(WriteKind.UPSERT, write.key(), entry, null), upsert, touch, delete);
+                }
+            }
+            case DELETE -> {
+                delete.setString(1, write.key());
+                delete.executeUpdate();
+            }
+            case FLUSH, CLOSE -> {
+                // Completed once the batch is committed
+            }
         }
     }
 
     @Override
     public Iterable<CacheEntryWrapper> entries() {
         List<CacheEntryWrapper> results = new ArrayList<>();
-        try (Statement stmt = connection.createStatement()) {
+        ReadConnection connection = borrowReadConnection();
+        try (Statement stmt = connection.connection().createStatement()) {
             ResultSet rs = stmt.executeQuery("SELECT key, value, type, last_fetched, ttl_seconds, etag FROM cache_entries");
             while (rs.next()) {
                 String key = rs.getString("key");
@@ -165,8 +404,78 @@ public class SqlCacheManager implements IterableCacheManager {
             }
         } catch (SQLException exception) {
             ServiceLocator.getService(Logger.class).error("Failed to iterate cache entries", exception);
+        } finally {
+            readConnections.add(connection);
         }
 
         return results;
     }
+
+    /**
+     * Writes everything queued so far, then closes the connections. Writes made afterward are dropped.
+     */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+
+        closed = true;
+        var writerDone = new CompletableFuture<Void>();
+        addToQueue(new Write(WriteKind.CLOSE, null, null, writerDone));
+        try {
+            writerDone.get(10, TimeUnit.SECONDS);
+            writerThread.join(Duration.ofSeconds(1));
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException exception) {
+            ServiceLocator.getService(Logger.class).warn("Timed out writing the remaining cache entries", exception);
+        }
+
+        // Reads already running still use their connections
+        readExecutor.shutdown();
+        try {
+            if (!readExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                ServiceLocator.getService(Logger.class).warn("Timed out waiting for cache reads to finish");
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        closeQuietly();
+    }
+
+    private void closeQuietly() {
+        try {
+            writeConnection.close();
+        } catch (SQLException exception) {
+            ServiceLocator.getService(Logger.class).warn("Failed to close cache database", exception);
+        }
+
+        for (ReadConnection connection : readConnections) {
+            try {
+                connection.connection().close();
+            } catch (SQLException exception) {
+                ServiceLocator.getService(Logger.class).warn("Failed to close cache database", exception);
+            }
+        }
+    }
+
+    private enum WriteKind {
+        UPSERT,
+        TOUCH,
+        DELETE,
+        FLUSH,
+        CLOSE
+    }
+
+    /**
+     * @param entry The entry to write, or null for a delete, flush or close.
+     * @param done  Completed once the write is committed, for a flush or close.
+     */
+    private record Write(WriteKind kind, @Nullable String key, @Nullable MetadataCacheEntry<?> entry,
+                         @Nullable CompletableFuture<Void> done) {
+    }
+
+    private record ReadConnection(Connection connection, PreparedStatement select) {
+    }
 }
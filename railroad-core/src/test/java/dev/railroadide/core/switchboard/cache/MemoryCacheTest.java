@@ -0,0 +1,142 @@
+package dev.railroadide.core.switchboard.cache;
+
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryCacheTest {
+    private static final TypeToken<List<String>> TYPE = new TypeToken<>() {};
+    private static final Duration SWEEP_INTERVAL = Duration.ofHours(1);
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedOverMaxWeight() {
+        long entryWeight = weigh("a", entry("1"));
+        try (var cache = new MemoryCache(3 * entryWeight, SWEEP_INTERVAL)) {
+            cache.put("a", entry("1"));
+            cache.put("b", entry("2"));
+            cache.put("c", entry("3"));
+            // Reading the first entry makes the second one the least recently used
+            assertNotNull(cache.get("a", false));
+
+            cache.put("d", entry("4"));
+
+            assertNull(cache.get("b", false));
+            assertNotNull(cache.get("a", false));
+            assertNotNull(cache.get("c", false));
+            assertNotNull(cache.get("d", false));
+            assertEquals(1, cache.getEvictions());
+            assertEquals(3 * entryWeight, cache.getWeight());
+        }
+    }
+
+    @Test
+    void heavyEntryEvictsAsManyAsNeeded() {
+        long entryWeight = weigh("a", entry("1"));
+        try (var cache = new MemoryCache(4 * entryWeight, SWEEP_INTERVAL)) {
+            cache.put("a", entry("1"));
+            cache.put("b", entry("2"));
+            cache.put("c", entry("3"));
+
+            // About twice as heavy as the others, so two of them make room for it
+            cache.put("heavy", entry("x".repeat((int) entryWeight / 2)));
+
+            assertNull(cache.get("a", false));
+            assertNull(cache.get("b", false));
+            assertNotNull(cache.get("c", false));
+            assertNotNull(cache.get("heavy", false));
+            assertEquals(2, cache.getEvictions());
+            assertTrue(cache.getWeight() <= cache.getMaxWeight());
+        }
+    }
+
+    @Test
+    void entryHeavierThanTheCacheIsNotKept() {
+        long entryWeight = weigh("a", entry("1"));
+        try (var cache = new MemoryCache(2 * entryWeight, SWEEP_INTERVAL)) {
+            cache.put("a", entry("1"));
+            cache.put("huge", entry("x".repeat((int) entryWeight)));
+
+            assertNull(cache.get("huge", false));
+            assertNotNull(cache.get("a", false));
+            assertEquals(0, cache.getEvictions());
+        }
+    }
+
+    @Test
+    void expiredEntriesAreSweptBeforeEvictingFreshOnes() {
+        long entryWeight = weigh("a", entry("1"));
+        try (var cache = new MemoryCache(2 * entryWeight, SWEEP_INTERVAL)) {
+            cache.put("a", entry("1"));
+            cache.put("expired", expiredEntry("2"));
+            cache.put("c", entry("3"));
+
+            assertNotNull(cache.get("a", false));
+            assertNotNull(cache.get("c", false));
+            assertEquals(0, cache.getEvictions());
+            assertEquals(1, cache.getExpirations());
+        }
+    }
+
+    @Test
+    void loadRacingAPutDoesNotReplaceIt() {
+        try (var cache = new MemoryCache()) {
+            long stamp = cache.writeStamp();
+            cache.put("key", entry("new"));
+            cache.putLoaded("key", entry("old"), stamp);
+
+            assertEquals(List.of("new"), cache.<List<String>>get("key", false).data());
+        }
+    }
+
+    @Test
+    void loadRacingAnInvalidateIsDropped() {
+        try (var cache = new MemoryCache()) {
+            cache.put("key", entry("old"));
+            long stamp = cache.writeStamp();
+            cache.invalidate("key");
+            cache.putLoaded("key", entry("old"), stamp);
+
+            assertNull(cache.get("key", false));
+        }
+    }
+
+    @Test
+    void loadRacingAClearIsDropped() {
+        try (var cache = new MemoryCache()) {
+            long stamp = cache.writeStamp();
+            cache.clear();
+            cache.putLoaded("key", entry("old"), stamp);
+
+            assertNull(cache.get("key", false));
+        }
+    }
+
+    @Test
+    void loadIsKeptWhenOnlyOtherKeysWereWritten() {
+        try (var cache = new MemoryCache()) {
+            long stamp = cache.writeStamp();
+            cache.put("other", entry("1"));
+            cache.invalidate("another");
+            cache.putLoaded("key", entry("loaded"), stamp);
+
+            assertEquals(List.of("loaded"), cache.<List<String>>get("key", false).data());
+        }
+    }
+
+    private static long weigh(String key, MetadataCacheEntry<?> entry) {
+        return MemoryCache.estimateWeight(key) + MemoryCache.estimateWeight(entry.data());
+    }
+
+    private static MetadataCacheEntry<List<String>> entry(String value) {
+        return new MetadataCacheEntry<>(List.of(value), Instant.now(), TYPE, Duration.ofHours(1), null);
+    }
+
+    private static MetadataCacheEntry<List<String>> expiredEntry(String value) {
+        return new MetadataCacheEntry<>(List.of(value), Instant.now().minus(Duration.ofHours(2)), TYPE, Duration.ofHours(1), null);
+    }
+}
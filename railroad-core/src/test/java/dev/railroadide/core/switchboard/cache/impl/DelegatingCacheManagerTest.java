@@ -0,0 +1,194 @@
+package dev.railroadide.core.switchboard.cache.impl;
+
+import com.google.gson.reflect.TypeToken;
+import dev.railroadide.core.switchboard.cache.CacheManager;
+import dev.railroadide.core.switchboard.cache.CachePolicy;
+import dev.railroadide.core.switchboard.cache.ConditionalFetcher;
+import dev.railroadide.core.switchboard.cache.FetchResult;
+import dev.railroadide.core.switchboard.cache.MetadataCacheEntry;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DelegatingCacheManagerTest {
+    private static final String KEY = "versions";
+    private static final TypeToken<List<String>> TYPE = new TypeToken<>() {};
+    private static final CachePolicy POLICY = CachePolicy.of(Duration.ofHours(1));
+
+    @Test
+    void concurrentFetchesOfOneKeyShareOneRequest() throws Exception {
+        int callers = 8;
+        var registered = new CountDownLatch(callers);
+        var cache = new DelegatingCacheManager(new MapCacheManager()) {
+            @Override
+            public <T> CompletableFuture<Optional<T>> revalidate(String key, TypeToken<T> typeToken, CachePolicy policy,
+                                                                 MetadataCacheEntry<T> cached, ConditionalFetcher<T> fetcher) {
+                CompletableFuture<Optional<T>> result = super.revalidate(key, typeToken, policy, cached, fetcher);
+                registered.countDown();
+                return result;
+            }
+        };
+        var response = new CompletableFuture<FetchResult<List<String>>>();
+        var fetches = new AtomicInteger();
+        ConditionalFetcher<List<String>> fetcher = etag -> {
+            fetches.incrementAndGet();
+            return response;
+        };
+
+        var start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            var results = new CompletableFuture<?>[callers];
+            for (int index = 0; index < callers; index++) {
+                results[index] = CompletableFuture.supplyAsync(() -> {
+                    await(start);
+                    return cache.getOrFetch(KEY, TYPE, POLICY, fetcher);
+                }, executor).thenCompose(future -> future);
+            }
+
+            start.countDown();
+            // Every caller is waiting on the fetch before it answers
+            assertTrue(registered.await(5, TimeUnit.SECONDS));
+            response.complete(FetchResult.of(List.of("1.0", "1.1"), "v1"));
+            for (CompletableFuture<?> result : results) {
+                assertEquals(List.of("1.0", "1.1"), result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, fetches.get());
+        // Later callers find the value cached
+        assertEquals(List.of("1.0", "1.1"), cache.getOrFetch(KEY, TYPE, POLICY, fetcher).join());
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void failedFetchIsSharedAndNotKept() {
+        var cache = new DelegatingCacheManager(new MapCacheManager());
+        var response = new CompletableFuture<FetchResult<List<String>>>();
+        var fetches = new AtomicInteger();
+
+        CompletableFuture<List<String>> first = cache.getOrFetch(KEY, TYPE, POLICY, etag -> {
+            fetches.incrementAndGet();
+            return response;
+        });
+        CompletableFuture<List<String>> second = cache.getOrFetch(KEY, TYPE, POLICY, etag -> {
+            fetches.incrementAndGet();
+            return response;
+        });
+        response.completeExceptionally(new IllegalStateException("offline"));
+
+        assertThrows(CompletionException.class, first::join);
+        assertThrows(CompletionException.class, second::join);
+        assertEquals(1, fetches.get());
+
+        List<String> retried = cache.getOrFetch(KEY, TYPE, POLICY, etag -> {
+            fetches.incrementAndGet();
+            return CompletableFuture.completedFuture(FetchResult.of(List.of("1.0"), null));
+        }).join();
+
+        assertEquals(List.of("1.0"), retried);
+        assertEquals(2, fetches.get());
+    }
+
+    @Test
+    void completingOneCallerDoesNotCompleteTheOthers() {
+        var cache = new DelegatingCacheManager(new MapCacheManager());
+        var response = new CompletableFuture<FetchResult<List<String>>>();
+
+        CompletableFuture<List<String>> first = cache.getOrFetch(KEY, TYPE, POLICY, etag -> response);
+        CompletableFuture<List<String>> second = cache.getOrFetch(KEY, TYPE, POLICY, etag -> response);
+        first.complete(List.of("mine"));
+        response.complete(FetchResult.of(List.of("1.0"), null));
+
+        assertEquals(List.of("1.0"), second.join());
+    }
+
+    @Test
+    void backendReadRacingAPutDoesNotReplaceIt() {
+        var backend = new MapCacheManager();
+        backend.put(KEY, entry(List.of("old")));
+        var cache = new DelegatingCacheManager(backend);
+
+        backend.reads = new CompletableFuture<>();
+        CompletableFuture<Optional<MetadataCacheEntry<List<String>>>> read = cache.get(KEY, TYPE);
+        cache.put(KEY, entry(List.of("new")));
+        backend.reads.complete(null);
+
+        assertEquals(List.of("old"), read.join().orElseThrow().data());
+        assertEquals(List.of("new"), cache.get(KEY, TYPE).join().orElseThrow().data());
+    }
+
+    @Test
+    void backendReadRacingAnInvalidateIsDropped() {
+        var backend = new MapCacheManager();
+        backend.put(KEY, entry(List.of("old")));
+        var cache = new DelegatingCacheManager(backend);
+
+        backend.reads = new CompletableFuture<>();
+        CompletableFuture<Optional<MetadataCacheEntry<List<String>>>> read = cache.get(KEY, TYPE);
+        cache.invalidate(KEY);
+        backend.reads.complete(null);
+
+        assertTrue(read.join().isPresent());
+        assertEquals(Optional.empty(), cache.get(KEY, TYPE).join());
+    }
+
+    private static MetadataCacheEntry<List<String>> entry(List<String> data) {
+        return new MetadataCacheEntry<>(data, Instant.now(), TYPE, Duration.ofHours(1), null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(exception);
+        }
+    }
+
+    private static final class MapCacheManager implements CacheManager {
+        private final Map<String, MetadataCacheEntry<?>> entries = new ConcurrentHashMap<>();
+        // Reads return what was stored when they began, once this completes
+        private volatile CompletableFuture<Void> reads = CompletableFuture.completedFuture(null);
+
+        @Override
+        public <T> CompletableFuture<Optional<MetadataCacheEntry<T>>> get(String key, TypeToken<@NotNull T> typeToken) {
+            return getIncludingExpired(key, typeToken).thenApply(opt -> opt.filter(entry -> !entry.isExpired()));
+        }
+
+        @Override
+        public <T> CompletableFuture<Optional<MetadataCacheEntry<T>>> getIncludingExpired(String key, TypeToken<@NotNull T> typeToken) {
+            @SuppressWarnings("unchecked")
+            MetadataCacheEntry<T> entry = (MetadataCacheEntry<T>) this.entries.get(key);
+            return this.reads.thenApply(ignored -> Optional.ofNullable(entry));
+        }
+
+        @Override
+        public <T> T put(String key, MetadataCacheEntry<T> entry) {
+            this.entries.put(key, entry);
+            return entry.data();
+        }
+
+        @Override
+        public void invalidate(String key) {
+            this.entries.remove(key);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package dev.railroadide.core.switchboard.cache.impl;
+
+import com.google.gson.reflect.TypeToken;
+import dev.railroadide.core.switchboard.cache.CacheManager;
+import dev.railroadide.core.switchboard.cache.CachePolicy;
+import dev.railroadide.core.switchboard.cache.FetchResult;
+import dev.railroadide.core.switchboard.cache.MetadataCacheEntry;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordingCacheManagerTest {
+    private static final String KEY = "versions";
+    private static final TypeToken<List<String>> TYPE = new TypeToken<>() {};
+    private static final CachePolicy POLICY = CachePolicy.of(Duration.ofHours(1));
+
+    @Test
+    void notModifiedTouchesTheCachedEntry() {
+        var backend = new FakeCacheManager();
+        backend.put(KEY, expiredEntry(List.of("1.0"), "v1"));
+        var cache = new RecordingCacheManager(backend);
+        var sentEtags = new ArrayList<String>();
+
+        Optional<List<String>> result = cache.getOrFetchOptional(KEY, TYPE, POLICY, etag -> {
+            sentEtags.add(etag);
+            return CompletableFuture.completedFuture(FetchResult.<List<String>>notModified("v2"));
+        }).join();
+
+        assertEquals(Optional.of(List.of("1.0")), result);
+        assertEquals(List.of("v1"), sentEtags);
+        assertEquals(1, backend.touches);
+        assertEquals(1, backend.puts);
+        MetadataCacheEntry<?> touched = backend.entries.get(KEY);
+        assertEquals("v2", touched.etag());
+        assertFalse(touched.isExpired());
+        assertEquals(1, cache.getStats().getStaleHits());
+        assertEquals(1, cache.getStats().getNotModified());
+        assertEquals(0, cache.getStats().getFetched());
+    }
+
+    @Test
+    void changedValueIsFetchedAndPut() {
+        var backend = new FakeCacheManager();
+        backend.put(KEY, expiredEntry(List.of("1.0"), "v1"));
+        var cache = new RecordingCacheManager(backend);
+
+        Optional<List<String>> result = cache.getOrFetchOptional(KEY, TYPE, POLICY,
+            etag -> CompletableFuture.completedFuture(FetchResult.of(List.of("1.0", "1.1"), "v2"))).join();
+
+        assertEquals(Optional.of(List.of("1.0", "1.1")), result);
+        assertEquals(0, backend.touches);
+        assertEquals(2, backend.puts);
+        assertEquals("v2", backend.entries.get(KEY).etag());
+        assertEquals(0, cache.getStats().getNotModified());
+        assertEquals(1, cache.getStats().getFetched());
+    }
+
+    private static MetadataCacheEntry<List<String>> expiredEntry(List<String> data, String etag) {
+        return new MetadataCacheEntry<>(data, Instant.now().minus(Duration.ofHours(2)), TYPE, Duration.ofHours(1), etag);
+    }
+
+    private static final class FakeCacheManager implements CacheManager {
+        private final Map<String, MetadataCacheEntry<?>> entries = new HashMap<>();
+        private int puts;
+        private int touches;
+
+        @Override
+        public <T> CompletableFuture<Optional<MetadataCacheEntry<T>>> get(String key, TypeToken<@NotNull T> typeToken) {
+            return getIncludingExpired(key, typeToken).thenApply(opt -> opt.filter(entry -> !entry.isExpired()));
+        }
+
+        @Override
+        public <T> CompletableFuture<Optional<MetadataCacheEntry<T>>> getIncludingExpired(String key, TypeToken<@NotNull T> typeToken) {
+            @SuppressWarnings("unchecked")
+            MetadataCacheEntry<T> entry = (MetadataCacheEntry<T>) this.entries.get(key);
+            return CompletableFuture.completedFuture(Optional.ofNullable(entry));
+        }
+
+        @Override
+        public <T> T put(String key, MetadataCacheEntry<T> entry) {
+            this.puts++;
+            this.entries.put(key, entry);
+            return entry.data();
+        }
+
+        @Override
+        public <T> void touch(String key, MetadataCacheEntry<T> entry) {
+            this.touches++;
+            this.entries.put(key, entry);
+        }
+
+        @Override
+        public void invalidate(String key) {
+            this.entries.remove(key);
+        }
+    }
+}
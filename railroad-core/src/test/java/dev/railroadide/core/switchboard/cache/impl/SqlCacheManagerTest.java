@@ -0,0 +1,130 @@
+package dev.railroadide.core.switchboard.cache.impl;
+
+import com.google.gson.reflect.TypeToken;
+import dev.railroadide.core.switchboard.cache.MetadataCacheEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlCacheManagerTest {
+    private static final TypeToken<List<String>> TYPE = new TypeToken<>() {};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsSeeWritesThatAreNotCommitted() throws Exception {
+        try (var cache = new SqlCacheManager(database())) {
+            cache.put("removed", entry(List.of("old")));
+            cache.flush().get(5, TimeUnit.SECONDS);
+
+            try (var lock = new WriteLock(database())) {
+                cache.put("added", entry(List.of("1.0")));
+                cache.put("expired", expiredEntry(List.of("2.0")));
+                cache.invalidate("removed");
+
+                assertTrue(lock.holdsWriter(cache), "the writer should be waiting on the lock");
+                assertEquals(Optional.of(List.of("1.0")), cache.get("added", TYPE).join().map(MetadataCacheEntry::data));
+                assertEquals(Optional.empty(), cache.get("expired", TYPE).join());
+                assertEquals(Optional.of(List.of("2.0")),
+                    cache.getIncludingExpired("expired", TYPE).join().map(MetadataCacheEntry::data));
+                // The database still has it, but the pending delete hides it
+                assertEquals(Optional.empty(), cache.get("removed", TYPE).join());
+            }
+
+            cache.flush().get(5, TimeUnit.SECONDS);
+            assertEquals(Optional.of(List.of("1.0")), cache.get("added", TYPE).join().map(MetadataCacheEntry::data));
+            assertEquals(Optional.empty(), cache.get("removed", TYPE).join());
+        }
+    }
+
+    @Test
+    void closeWritesEverythingQueued() throws Exception {
+        int count = 1000;
+        var cache = new SqlCacheManager(database());
+        CompletableFuture<Void> closed;
+        try (var lock = new WriteLock(database())) {
+            for (int index = 0; index < count; index++) {
+                cache.put("key" + index, entry(List.of(String.valueOf(index))));
+            }
+
+            assertTrue(lock.holdsWriter(cache), "the writer should be waiting on the lock");
+            closed = CompletableFuture.runAsync(cache::close);
+            Thread.sleep(100);
+            assertFalse(closed.isDone(), "closing should wait for the queued writes");
+        }
+
+        closed.get(10, TimeUnit.SECONDS);
+        try (var reopened = new SqlCacheManager(database())) {
+            for (int index = 0; index < count; index++) {
+                assertEquals(Optional.of(List.of(String.valueOf(index))),
+                    reopened.get("key" + index, TYPE).join().map(MetadataCacheEntry::data));
+            }
+        }
+    }
+
+    @Test
+    void flushAfterCloseCompletesAtOnce() throws Exception {
+        var cache = new SqlCacheManager(database());
+        cache.close();
+
+        assertTrue(cache.flush().isDone());
+    }
+
+    private String database() {
+        return "jdbc:sqlite:" + this.directory.resolve("cache.db").toAbsolutePath();
+    }
+
+    private static MetadataCacheEntry<List<String>> entry(List<String> data) {
+        return new MetadataCacheEntry<>(data, Instant.now(), TYPE, Duration.ofHours(1), null);
+    }
+
+    private static MetadataCacheEntry<List<String>> expiredEntry(List<String> data) {
+        return new MetadataCacheEntry<>(data, Instant.now().minus(Duration.ofHours(2)), TYPE, Duration.ofHours(1), null);
+    }
+
+    /**
+     * Holds the database's write lock from another connection, so the cache's writer waits and its writes stay queued.
+     */
+    private static final class WriteLock implements AutoCloseable {
+        private final Connection connection;
+
+        private WriteLock(String uri) throws SQLException {
+            this.connection = DriverManager.getConnection(uri);
+            try (Statement stmt = this.connection.createStatement()) {
+                stmt.execute("BEGIN IMMEDIATE");
+            }
+        }
+
+        /**
+         * Waits for the cache's writer to pick up a write, which it then cannot commit while the lock is held.
+         */
+        private boolean holdsWriter(SqlCacheManager cache) throws Exception {
+            CompletableFuture<Void> flushed = cache.flush();
+            Thread.sleep(100);
+            return !flushed.isDone();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try (Statement stmt = this.connection.createStatement()) {
+                stmt.execute("ROLLBACK");
+            } finally {
+                this.connection.close();
+            }
+        }
+    }
+}
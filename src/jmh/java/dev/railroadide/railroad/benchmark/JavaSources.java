@@ -0,0 +1,88 @@
+package dev.railroadide.railroad.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Finds large, real Java sources for benchmarks, far bigger than anything the editor is usually shown.
+ * <p>
+ * Point {@code -Drailroad.benchmark.sources} at a directory of sources (e.g. decompiled Minecraft sources) to use
+ * those, otherwise the hand-written {@code java.*} sources bundled with the running JDK are used.
+ */
+public final class JavaSources {
+    public static final String DIRECTORY_PROPERTY = "railroad.benchmark.sources";
+    // The largest files in the JDK are generated charset tables, which no one opens in an editor
+    private static final String JDK_PREFIX = "java.base/java/";
+
+    private JavaSources() {
+    }
+
+    /**
+     * @return The contents of the largest sources found, at most {@code count} of them.
+     */
+    public static List<String> largest(int count) throws IOException {
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        List<String> sources = directory != null ? readDirectory(Path.of(directory), count) : readJdkSources(count);
+        if (sources.isEmpty())
+            throw new IllegalStateException("No Java sources found, set -D" + DIRECTORY_PROPERTY + " to a directory of sources");
+
+        return sources;
+    }
+
+    private static List<String> readDirectory(Path directory, int count) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            List<Path> largest = files.filter(path -> path.toString().endsWith(".java"))
+                .sorted(Comparator.comparingLong(JavaSources::size).reversed())
+                .limit(count)
+                .toList();
+
+            List<String> sources = new ArrayList<>();
+            for (Path path : largest) {
+                sources.add(Files.readString(path));
+            }
+
+            return sources;
+        }
+    }
+
+    private static List<String> readJdkSources(int count) throws IOException {
+        Path sourceZip = Path.of(System.getProperty("java.home"), "lib", "src.zip");
+        if (Files.notExists(sourceZip))
+            return List.of();
+
+        try (var zip = new ZipFile(sourceZip.toFile())) {
+            List<? extends ZipEntry> largest = zip.stream()
+                .filter(entry -> entry.getName().startsWith(JDK_PREFIX) && entry.getName().endsWith(".java"))
+                .sorted(Comparator.comparingLong(ZipEntry::getSize).reversed())
+                .limit(count)
+                .toList();
+
+            List<String> sources = new ArrayList<>();
+            for (ZipEntry entry : largest) {
+                try (InputStream input = zip.getInputStream(entry)) {
+                    sources.add(new String(input.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+
+            return sources;
+        }
+    }
+
+    private static long size(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package dev.railroadide.railroad.ide.indexing;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares building and querying {@link CompletionIndex} against the {@link Trie} it replaced, over the simple class
+ * names of the running JDK.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompletionIndexBenchmark {
+    @Param({"S", "Str", "HashM"})
+    public String prefix;
+
+    private List<String> names;
+    private Trie trie;
+    private CompletionIndex index;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+        try (Stream<Path> files = Files.walk(jrt.getPath("/modules"))) {
+            this.names = files.map(path -> path.getFileName().toString())
+                .filter(name -> name.endsWith(".class") && !name.contains("-"))
+                .map(name -> name.substring(0, name.length() - ".class".length()))
+                .toList();
+        }
+
+        this.trie = new Trie();
+        this.names.forEach(this.trie::insert);
+        this.index = CompletionIndex.of(this.names);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Trie buildTrie() {
+        var trie = new Trie();
+        this.names.forEach(trie::insert);
+        return trie;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public CompletionIndex buildCompletionIndex() {
+        return CompletionIndex.of(this.names);
+    }
+
+    @Benchmark
+    public void trieAllCompletions(Blackhole blackhole) {
+        blackhole.consume(this.trie.findCompletions(this.prefix));
+    }
+
+    @Benchmark
+    public void completionIndexTop50(Blackhole blackhole) {
+        blackhole.consume(this.index.findByPrefix(this.prefix, Autocomplete.DEFAULT_LIMIT));
+    }
+
+    @Benchmark
+    public void completionIndexAllCompletions(Blackhole blackhole) {
+        blackhole.consume(this.index.findByPrefix(this.prefix, this.index.size()));
+    }
+
+    @Benchmark
+    public void completionIndexCamelHumps(Blackhole blackhole) {
+        blackhole.consume(this.index.findByCamelHumps("HM", Autocomplete.DEFAULT_LIMIT));
+    }
+}
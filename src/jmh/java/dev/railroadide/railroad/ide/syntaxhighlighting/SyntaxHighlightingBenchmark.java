@@ -0,0 +1,39 @@
+package dev.railroadide.railroad.ide.syntaxhighlighting;
+
+import dev.railroadide.railroad.benchmark.JavaSources;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs each highlighter over the whole of the largest sources {@link JavaSources} can find.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SyntaxHighlightingBenchmark {
+    @Param({"regex", "ast", "tree-sitter"})
+    public String highlighter;
+
+    private List<String> sources;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.sources = JavaSources.largest(5);
+    }
+
+    @Benchmark
+    public void computeHighlighting(Blackhole blackhole) {
+        for (String source : this.sources) {
+            blackhole.consume(switch (this.highlighter) {
+                case "regex" -> RegexJavaSyntaxHighlighting.computeHighlighting(source);
+                case "ast" -> ASTJavaSyntaxHighlighting.computeHighlighting(source);
+                case "tree-sitter" -> TreeSitterJavaSyntaxHighlighting.computeHighlighting(source);
+                default -> throw new IllegalArgumentException("Unknown highlighter " + this.highlighter);
+            });
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package dev.railroadide.railroad.ide.text;
+
+import dev.railroadide.railroad.benchmark.JavaSources;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares mapping line starts to offsets through {@link LineOffsets} against scanning for newlines from the start
+ * of the text, which is what the AST highlighter used to do for every node.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LineOffsetsBenchmark {
+    // Scanning is quadratic in the number of lines, so stick to a single source
+    private String source;
+    private int lineCount;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        List<String> sources = JavaSources.largest(1);
+        this.source = sources.getFirst();
+        this.lineCount = LineOffsets.of(this.source).lineCount();
+    }
+
+    @Benchmark
+    public void lineOffsets(Blackhole blackhole) {
+        LineOffsets offsets = LineOffsets.of(this.source);
+        for (int line = 0; line < this.lineCount; line++) {
+            blackhole.consume(offsets.offsetOf(line, 0));
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void newlineScan(Blackhole blackhole) {
+        for (int line = 0; line < this.lineCount; line++) {
+            int index = 0;
+            for (int skipped = 0; skipped < line; skipped++) {
+                index = this.source.indexOf('\n', index) + 1;
+            }
+
+            blackhole.consume(index);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package dev.railroadide.railroad.utility;
+
+import dev.railroadide.railroad.benchmark.JavaSources;
+import dev.railroadide.railroad.project.creation.service.MessageDigestChecksumService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Compares extracting and hashing an archive shaped like an MDK (a few hundred sources and a large, incompressible
+ * wrapper jar) the way project creation does now against how it used to: one {@link ZipInputStream} with a
+ * {@link Files#copy} per entry, and a digest fed one byte at a time.
+ * <p>
+ * Point {@code -Drailroad.benchmark.dir} at a directory on the disk to measure, e.g. a slow one, otherwise the
+ * temporary directory is used.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ArchiveBenchmark {
+    private static final String DIRECTORY_PROPERTY = "railroad.benchmark.dir";
+
+    private final MessageDigestChecksumService checksumService = new MessageDigestChecksumService();
+    private Path workDir;
+    private Path archive;
+    private Path targetDir;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        this.workDir = directory != null
+            ? Files.createTempDirectory(Path.of(directory), "archive-benchmark")
+            : Files.createTempDirectory("archive-benchmark");
+        this.archive = this.workDir.resolve("mdk.zip");
+
+        List<String> sources = JavaSources.largest(300);
+        try (var zip = new ZipOutputStream(Files.newOutputStream(this.archive))) {
+            for (int index = 0; index < sources.size(); index++) {
+                zip.putNextEntry(new ZipEntry("src/main/java/example/package" + index % 20 + "/Source" + index + ".java"));
+                zip.write(sources.get(index).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+
+            var wrapper = new byte[4 * 1024 * 1024];
+            new Random(42).nextBytes(wrapper);
+            zip.putNextEntry(new ZipEntry("gradle/wrapper/gradle-wrapper.jar"));
+            zip.write(wrapper);
+            zip.closeEntry();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createTargetDir() throws IOException {
+        this.targetDir = Files.createTempDirectory(this.workDir, "target");
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteTargetDir() throws IOException {
+        delete(this.targetDir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        delete(this.workDir);
+    }
+
+    @Benchmark
+    public void unzipFile() throws IOException {
+        FileUtils.unzipFile(this.archive, this.targetDir);
+    }
+
+    @Benchmark
+    public void unzipZipInputStream() throws IOException {
+        try (var zipInputStream = new ZipInputStream(Files.newInputStream(this.archive))) {
+            ZipEntry zipEntry;
+            while ((zipEntry = zipInputStream.getNextEntry()) != null) {
+                Path newFile = FileUtils.resolveZipEntryPath(this.targetDir, zipEntry);
+                if (zipEntry.isDirectory()) {
+                    Files.createDirectories(newFile);
+                } else {
+                    Files.createDirectories(newFile.getParent());
+                    Files.copy(zipInputStream, newFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void checksum(Blackhole blackhole) throws Exception {
+        blackhole.consume(this.checksumService.compute(this.archive, "SHA-256"));
+    }
+
+    @Benchmark
+    public void checksumByteAtATime(Blackhole blackhole) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream in = Files.newInputStream(this.archive)) {
+            in.transferTo(new OutputStream() {
+                @Override
+                public void write(int b) {
+                    digest.update((byte) b);
+                }
+            });
+        }
+
+        blackhole.consume(HexFormat.of().formatHex(digest.digest()));
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
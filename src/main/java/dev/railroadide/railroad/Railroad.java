@@ -103,6 +103,7 @@ public class Railroad extends Application {
             new InitializationStep("Binding service locator", () -> ServiceLocator.setServiceProvider(Services::getService)),
             new InitializationStep("Loading language", () -> L18n.loadLanguage(SettingsHandler.getValue(Settings.LANGUAGE))),
             new InitializationStep("Initializing repositories", SwitchboardRepositories::initialize),
+            new InitializationStep("Prefetching version metadata", SwitchboardRepositories::prefetch),
             new InitializationStep("Loading mapping channels", MappingChannelRegistry::initialize),
             new InitializationStep("Loading license registry", LicenseRegistry::initialize),
             new InitializationStep("Registering project types", ProjectTypeRegistry::initialize),
@@ -7,11 +7,14 @@ import dev.railroadide.core.project.creation.ProjectCreationPipelineService;
 import dev.railroadide.core.project.creation.ProjectServiceRegistry;
 import dev.railroadide.core.project.creation.service.*;
 import dev.railroadide.logger.Logger;
+import dev.railroadide.railroad.config.ConfigHandler;
 import dev.railroadide.railroad.ide.DefaultDocumentEditorStateService;
 import dev.railroadide.railroad.ide.DefaultIDEStateService;
 import dev.railroadide.railroad.localization.L18n;
 import dev.railroadide.railroad.project.creation.DefaultProjectCreationPipelineService;
 import dev.railroadide.railroad.project.creation.service.*;
+import dev.railroadide.railroad.settings.Settings;
+import dev.railroadide.railroad.settings.handler.SettingsHandler;
 import dev.railroadide.railroad.utility.DiscardingOutputStream;
 import dev.railroadide.railroadpluginapi.services.ApplicationInfoService;
 import dev.railroadide.railroadpluginapi.services.DocumentEditorStateService;
@@ -64,11 +67,15 @@ public class Services {
     };
 
     public static final ProjectServiceRegistry PROJECT_SERVICE_REGISTRY = new ProjectServiceRegistry() {{
+        var http = new OkHttpService(Railroad.HTTP_CLIENT);
+        bind(ArtifactCacheService.class, new FileArtifactCacheService(http,
+            ConfigHandler.getConfigDirectory().resolve("artifact-cache"),
+            () -> SettingsHandler.getValue(Settings.ARTIFACT_CACHE_SIZE) * 1024L * 1024L, Railroad.LOGGER));
         bind(ChecksumService.class, new MessageDigestChecksumService());
         bind(FilesService.class, new NioFilesService());
         bind(GitService.class, new JGitService());
         bind(GradleService.class, new ToolingGradleService(new DiscardingOutputStream()));
-        bind(HttpService.class, new OkHttpService(Railroad.HTTP_CLIENT));
+        bind(HttpService.class, http);
         bind(TemplateEngineService.class, new GroovyTemplateEngineService());
         bind(ZipService.class, new NioZipService());
     }};
@@ -16,6 +16,10 @@ public class DefaultDocumentEditorStateService implements DocumentEditorStateSer
         this.activeEditorPane = activeEditorPane;
     }
 
+    public TextEditorPane getActiveEditorPane() {
+        return this.activeEditorPane;
+    }
+
     private Cursor getCursorFromPosition(String text, int position) {
         int line = 0;
         int column = 0;
@@ -0,0 +1,330 @@
+package dev.railroadide.railroad.ide;
+
+import dev.railroadide.railroad.Railroad;
+import dev.railroadide.railroad.ide.text.TextDocument;
+import dev.railroadide.railroad.ide.watcher.FileChangeBatch;
+import dev.railroadide.railroad.ide.watcher.ProjectFileWatcher;
+import dev.railroadide.railroad.utility.ShutdownHooks;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Saves the documents open in editors and watches their files for changes made outside of Railroad.
+ * <p>
+ * Whether a document needs saving is decided from its version in memory, so files are never read back to compare
+ * them. Edits are coalesced: a document is saved once it has not been edited for {@link #SAVE_DELAY}, and all
+ * documents that are due are saved together by a single thread. Every save writes a temporary file next to the
+ * original and moves it over the original, so a crash never leaves a half written file behind. The temporary file is
+ * given the permissions of the original first, and a symbolic link is saved by replacing the file it points to.
+ * <p>
+ * Changes on disk come from the {@link ProjectFileWatcher}s of the open projects, rather than a watcher per file.
+ * Changes made by a save are recognised from the size and modification time it left behind, and are not reported
+ * back.
+ */
+public final class DocumentSaveService {
+    public static final Duration SAVE_DELAY = Duration.ofMillis(500);
+
+    private static DocumentSaveService instance;
+
+    // A file may be open in more than one editor, each with its own document
+    private final Map<Path, Set<OpenFile>> openFiles = new ConcurrentHashMap<>();
+    private final Set<OpenFile> dirtyFiles = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService saveExecutor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+        .name("document-saver")
+        .daemon()
+        .factory());
+    private ScheduledFuture<?> pendingFlush;
+
+    private DocumentSaveService() {
+        ProjectFileWatcher.addGlobalListener(this::onFilesChanged);
+        ShutdownHooks.addHook(() -> {
+            // Anything not saved yet would be lost otherwise
+            try {
+                this.saveExecutor.submit(() -> flush(true)).get(5, TimeUnit.SECONDS);
+            } catch (InterruptedException | ExecutionException | TimeoutException exception) {
+                Railroad.LOGGER.error("Failed to save open documents on shutdown", exception);
+            }
+
+            this.saveExecutor.shutdown();
+        });
+    }
+
+    public static synchronized DocumentSaveService getInstance() {
+        if (instance == null) {
+            instance = new DocumentSaveService();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Starts saving and watching a file. A file open in several editors is registered once for each of them, and a
+     * save made through one registration is reported to the others as an outside change.
+     *
+     * @param document The document holding the text of the file, as it was loaded from disk.
+     * @param listener Told about saves and outside changes of the file.
+     * @return The registration to report edits through, and to close once the file is no longer open.
+     */
+    public Registration register(Path file, TextDocument document, Listener listener) {
+        Path path = file.toAbsolutePath().normalize();
+        var openFile = new OpenFile(path, document, listener);
+        openFile.savedVersion = document.version();
+        openFile.recordDiskState();
+        this.openFiles.compute(path, (key, files) -> {
+            Set<OpenFile> registered = files != null ? files : ConcurrentHashMap.newKeySet();
+            registered.add(openFile);
+            return registered;
+        });
+        return new Registration(openFile);
+    }
+
+    /**
+     * Saves every edited document straight away rather than waiting for the delay.
+     */
+    public void saveAll() {
+        this.saveExecutor.execute(() -> flush(true));
+    }
+
+    private void markDirty(OpenFile file) {
+        file.lastEdit = System.nanoTime();
+        this.dirtyFiles.add(file);
+        scheduleFlush(SAVE_DELAY.toNanos());
+    }
+
+    private synchronized void scheduleFlush(long delayNanos) {
+        if (this.pendingFlush != null && !this.pendingFlush.isDone())
+            return;
+
+        this.pendingFlush = this.saveExecutor.schedule(() -> flush(false), delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Saves the documents that have not been edited for the save delay, or all edited documents if {@code force} is
+     * set, and schedules the next flush for the rest.
+     */
+    private void flush(boolean force) {
+        long now = System.nanoTime();
+        long nextDue = Long.MAX_VALUE;
+        int saved = 0;
+        for (OpenFile file : List.copyOf(this.dirtyFiles)) {
+            long idle = now - file.lastEdit;
+            if (!force && idle < SAVE_DELAY.toNanos()) {
+                nextDue = Math.min(nextDue, SAVE_DELAY.toNanos() - idle);
+                continue;
+            }
+
+            this.dirtyFiles.remove(file);
+            if (save(file)) {
+                saved++;
+            }
+        }
+
+        if (saved > 1) {
+            Railroad.LOGGER.debug("Saved {} documents together", saved);
+        }
+
+        synchronized (this) {
+            this.pendingFlush = null;
+        }
+
+        if (nextDue != Long.MAX_VALUE) {
+            scheduleFlush(nextDue);
+        }
+    }
+
+    /**
+     * @return Whether the file was written.
+     */
+    private boolean save(OpenFile file) {
+        TextDocument.Snapshot snapshot = file.document.snapshot();
+        if (snapshot.version() == file.savedVersion)
+            return false;
+
+        Path temporary = null;
+        try {
+            // Moving the temporary file over a link would replace the link rather than the file it points to
+            Path target = Files.isSymbolicLink(file.path) ? file.path.toRealPath() : file.path;
+            temporary = Files.createTempFile(target.getParent(), "." + target.getFileName(), ".tmp");
+            Files.writeString(temporary, snapshot);
+            copyPermissions(target, temporary);
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException exception) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            file.savedVersion = snapshot.version();
+            file.recordDiskState();
+            file.listener.saved();
+            return true;
+        } catch (IOException exception) {
+            Railroad.LOGGER.error("Failed to save {}", file.path, exception);
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException deleteException) {
+                    Railroad.LOGGER.warn("Failed to delete temporary file {}", temporary, deleteException);
+                }
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Gives the temporary file the permissions and group of the file it replaces, which would otherwise end up with
+     * the owner-only permissions temporary files are created with. Only POSIX file systems are handled, elsewhere the
+     * temporary file inherits the permissions of the directory.
+     */
+    private static void copyPermissions(Path original, Path temporary) throws IOException {
+        PosixFileAttributeView originalView = Files.getFileAttributeView(original, PosixFileAttributeView.class);
+        PosixFileAttributeView temporaryView = Files.getFileAttributeView(temporary, PosixFileAttributeView.class);
+        if (originalView == null || temporaryView == null || Files.notExists(original))
+            return;
+
+        PosixFileAttributes attributes = originalView.readAttributes();
+        temporaryView.setPermissions(attributes.permissions());
+        try {
+            temporaryView.setGroup(attributes.group());
+        } catch (IOException exception) {
+            // Only the owner's groups can be set, the permissions still apply to whichever group the file gets
+            Railroad.LOGGER.debug("Failed to keep the group of {}", original, exception);
+        }
+    }
+
+    private void onFilesChanged(FileChangeBatch batch) {
+        Collection<OpenFile> files = batch.overflowed()
+            ? this.openFiles.values().stream().flatMap(Set::stream).toList()
+            : batch.changed().stream()
+                .flatMap(path -> this.openFiles.getOrDefault(path, Set.of()).stream())
+                .toList();
+        for (OpenFile file : files) {
+            // Reading and reporting happens on the save thread, so it cannot race a save
+            this.saveExecutor.execute(() -> checkForOutsideChange(file));
+        }
+    }
+
+    private void checkForOutsideChange(OpenFile file) {
+        if (file.closed || file.isDiskStateCurrent())
+            return;
+
+        try {
+            String content = Files.readString(file.path);
+            file.recordDiskState();
+            if (content.contentEquals(file.document.snapshot()))
+                return;
+
+            file.listener.changedOutside(content);
+        } catch (IOException exception) {
+            Railroad.LOGGER.error("Failed to read {} after it changed", file.path, exception);
+        }
+    }
+
+    /**
+     * Receives the events of one open file. Methods are called on the save thread.
+     */
+    public interface Listener {
+        /**
+         * The document was written to its file.
+         */
+        void saved();
+
+        /**
+         * The file was changed by something other than Railroad, and its content no longer matches the document.
+         */
+        void changedOutside(String content);
+    }
+
+    /**
+     * An open file, as handed out by {@link #register(Path, TextDocument, Listener)}.
+     */
+    public final class Registration {
+        private final OpenFile file;
+
+        private Registration(OpenFile file) {
+            this.file = file;
+        }
+
+        /**
+         * Reports that the document was edited, so it is saved once the edits settle.
+         */
+        public void edited() {
+            markDirty(this.file);
+        }
+
+        /**
+         * Marks the current text of the document as what is on disk, e.g. after it was reloaded from the file.
+         */
+        public void markSaved() {
+            long version = this.file.document.version();
+            saveExecutor.execute(() -> this.file.savedVersion = Math.max(this.file.savedVersion, version));
+        }
+
+        /**
+         * Saves any pending edits and stops reporting changes of the file.
+         */
+        public void close() {
+            this.file.closed = true;
+            openFiles.computeIfPresent(this.file.path, (path, files) -> {
+                files.remove(this.file);
+                return files.isEmpty() ? null : files;
+            });
+            saveExecutor.execute(() -> {
+                if (dirtyFiles.remove(this.file)) {
+                    save(this.file);
+                }
+            });
+        }
+    }
+
+    private static final class OpenFile {
+        private final Path path;
+        private final TextDocument document;
+        private final Listener listener;
+
+        // Only touched on the save thread, apart from registration
+        private long savedVersion;
+        private long savedSize = -1;
+        private FileTime savedModifiedTime;
+
+        private volatile long lastEdit;
+        private volatile boolean closed;
+
+        private OpenFile(Path path, TextDocument document, Listener listener) {
+            this.path = path;
+            this.document = document;
+            this.listener = listener;
+        }
+
+        private void recordDiskState() {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(this.path, BasicFileAttributes.class);
+                this.savedSize = attributes.size();
+                this.savedModifiedTime = attributes.lastModifiedTime();
+            } catch (IOException exception) {
+                this.savedSize = -1;
+                this.savedModifiedTime = null;
+            }
+        }
+
+        /**
+         * @return Whether the file still looks the way the last save or read left it.
+         */
+        private boolean isDiskStateCurrent() {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(this.path, BasicFileAttributes.class);
+                return attributes.size() == this.savedSize && attributes.lastModifiedTime().equals(this.savedModifiedTime);
+            } catch (IOException exception) {
+                return false;
+            }
+        }
+    }
+}
@@ -13,11 +13,17 @@ import dev.railroadide.core.ui.localized.LocalizedMenu;
 import dev.railroadide.core.ui.localized.LocalizedMenuItem;
 import dev.railroadide.railroad.Railroad;
 import dev.railroadide.railroad.Services;
+import dev.railroadide.railroad.ide.analysis.JavaAnalysisService;
+import dev.railroadide.railroad.ide.indexing.ProjectSymbolIndex;
 import dev.railroadide.railroad.ide.projectexplorer.ProjectExplorerPane;
+import dev.railroadide.railroad.ide.search.ContentIndex;
+import dev.railroadide.railroad.ide.search.FileNameIndex;
 import dev.railroadide.railroad.ide.ui.ConsolePane;
+import dev.railroadide.railroad.ide.ui.ContentSearchPane;
 import dev.railroadide.railroad.ide.ui.IDEWelcomePane;
 import dev.railroadide.railroad.ide.ui.ImageViewerPane;
 import dev.railroadide.railroad.ide.ui.StatusBarPane;
+import dev.railroadide.railroad.ide.watcher.ProjectFileWatcher;
 import dev.railroadide.railroad.project.Project;
 import dev.railroadide.railroad.settings.keybinds.KeybindHandler;
 import dev.railroadide.railroad.settings.ui.SettingsPane;
@@ -53,6 +59,14 @@ import java.util.function.Predicate;
 public class IDESetup {
     private static boolean isSwitchingToIDE = false;
 
+    static {
+        Railroad.EVENT_BUS.subscribe(ProjectEvent.class, event -> {
+            if (event.isClosed()) {
+                closeProjectServices(event.project().getPath());
+            }
+        });
+    }
+
     /**
      * Create a new IDE window for the given project.
      *
@@ -75,6 +89,12 @@ public class IDESetup {
         var consolePane = new DetachableTabPane();
         consolePane.addTab("Console", new ConsolePane());
         consolePane.addTab("Terminal", createTerminal(project.getPath()));
+        var contentSearchPane = new ContentSearchPane(project, root);
+        Tab findTab = consolePane.addTab("Find", contentSearchPane);
+        root.getProperties().put(ContentSearchPane.class, (Runnable) () -> {
+            findTab.getTabPane().getSelectionModel().select(findTab);
+            contentSearchPane.focusQuery();
+        });
 
         var centerBottomSplit = new SplitPane(editorPane, consolePane);
         centerBottomSplit.setOrientation(Orientation.VERTICAL);
@@ -109,7 +129,8 @@ public class IDESetup {
             1,
             Map.of(
                 "Console", FontAwesomeSolid.PLAY_CIRCLE.getDescription(),
-                "Terminal", FontAwesomeSolid.TERMINAL.getDescription()
+                "Terminal", FontAwesomeSolid.TERMINAL.getDescription(),
+                "Find", FontAwesomeSolid.SEARCH.getDescription()
             )
         );
         bottomBar.getChildren().addAll(
@@ -148,8 +169,14 @@ public class IDESetup {
                 Railroad.WINDOW_MANAGER.setPrimaryStage(ideStage);
 
                 try {
+                    Project previous = Railroad.PROJECT_MANAGER.getOpenProject();
+                    if (previous != null && !previous.getPath().equals(project.getPath())) {
+                        Railroad.EVENT_BUS.publish(new ProjectEvent(previous, ProjectEvent.EventType.CLOSED));
+                    }
+
                     Railroad.PROJECT_MANAGER.setCurrentProject(project);
                     Railroad.EVENT_BUS.publish(new ProjectEvent(project, ProjectEvent.EventType.OPENED));
+                    ProjectSymbolIndex.forProject(project.getPath());
                 } finally {
                     isSwitchingToIDE = false;
                 }
@@ -160,6 +187,17 @@ public class IDESetup {
         });
     }
 
+    /**
+     * Stops the background services of a closed project, the indexes before the file watcher they listen to.
+     */
+    private static void closeProjectServices(Path projectDir) {
+        JavaAnalysisService.close(projectDir);
+        ProjectSymbolIndex.close(projectDir);
+        FileNameIndex.close(projectDir);
+        ContentIndex.close(projectDir);
+        ProjectFileWatcher.close(projectDir);
+    }
+
     private static MenuBar createMenuBar() {
         var newFileItem = new LocalizedMenuItem("railroad.menu.file.new_file");
         newFileItem.setGraphic(new FontIcon(FontAwesomeSolid.FILE));
@@ -440,6 +478,18 @@ public class IDESetup {
         return findBestPaneForFiles(parent, tab -> tab.getContent() instanceof Terminal);
     }
 
+    /**
+     * Find the first tab that matches the given predicate in any tab pane of the given parent.
+     *
+     * @param parent    The parent to search in
+     * @param predicate The predicate to match the tab
+     * @return The matching tab, if there is one
+     */
+    public static Optional<Tab> findTab(Parent parent, Predicate<Tab> predicate) {
+        return findBestPaneFor(parent, new AtomicReference<>(), predicate)
+            .flatMap(tabPane -> tabPane.getTabs().stream().filter(predicate).findFirst());
+    }
+
     /**
      * Find the best tab pane for the files that match the given predicate in the given parent.
      * If a tab pane with a file that matches the predicate is found, it will be returned.
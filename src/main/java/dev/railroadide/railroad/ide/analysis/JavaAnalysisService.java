@@ -0,0 +1,272 @@
+package dev.railroadide.railroad.ide.analysis;
+
+import dev.railroadide.railroad.Railroad;
+import dev.railroadide.railroad.ide.indexing.ProjectSymbolIndex;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Analyses the Java files of one project with JDT, against the project's sources, its Gradle dependencies and the
+ * running JDK.
+ * <p>
+ * The compiler options and classpath are set up once per project rather than per run, and a throwaway analysis on
+ * creation loads JDT and opens the JDK image ahead of the first real one. Runs happen one at a time. Asking for the
+ * source already being analysed shares that run, while a new source for a file cancels the run still queued or running
+ * for the old one. Resolving bindings is bounded by a latency budget: a run that exceeds it is cut short and only
+ * reports syntax problems, which are always cheap to find.
+ */
+public final class JavaAnalysisService {
+    public static final Duration DEFAULT_BUDGET = Duration.ofMillis(750);
+
+    private static final Map<Path, JavaAnalysisService> SERVICES = new ConcurrentHashMap<>();
+    private static final Map<String, String> COMPILER_OPTIONS;
+
+    static {
+        Map<String, String> options = JavaCore.getOptions();
+        JavaCore.setComplianceOptions(JavaCore.VERSION_21, options);
+        COMPILER_OPTIONS = Map.copyOf(options);
+    }
+
+    private final Path projectDir;
+    private final ProjectSymbolIndex symbolIndex;
+    private final ExecutorService executor;
+    private final Map<Path, RunningAnalysis> runningAnalyses = new ConcurrentHashMap<>();
+
+    // Only touched on the executor thread
+    private List<Path> environmentJars = List.of();
+    private String[] classpathEntries = new String[0];
+    private String[] sourcepathEntries = new String[0];
+    private @Nullable Analysis lastAnalysis;
+
+    private JavaAnalysisService(Path projectDir) {
+        this.projectDir = projectDir;
+        this.symbolIndex = ProjectSymbolIndex.forProject(projectDir);
+        this.executor = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+            .name("java-analysis-" + projectDir.getFileName())
+            .daemon()
+            .factory());
+    }
+
+    /**
+     * @return The analysis service of the project at the given directory, which is created and warmed up the first
+     * time it is requested.
+     */
+    public static JavaAnalysisService forProject(Path projectDir) {
+        Path normalized = projectDir.toAbsolutePath().normalize();
+        return SERVICES.computeIfAbsent(normalized, path -> {
+            var service = new JavaAnalysisService(path);
+            service.warmUp();
+            return service;
+        });
+    }
+
+    /**
+     * Stops the analysis service of the project at the given directory, cancelling anything still running.
+     */
+    public static void close(Path projectDir) {
+        JavaAnalysisService service = SERVICES.remove(projectDir.toAbsolutePath().normalize());
+        if (service != null) {
+            service.runningAnalyses.values().forEach(running -> running.monitor().setCanceled(true));
+            service.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Analyses the source of a file within {@link #DEFAULT_BUDGET}.
+     *
+     * @see #analyze(Path, String, Duration)
+     */
+    public CompletableFuture<Analysis> analyze(Path file, String source) {
+        return analyze(file, source, DEFAULT_BUDGET);
+    }
+
+    /**
+     * Analyses the source of a file. If the same source is already being analysed, the caller shares that analysis;
+     * otherwise the analysis of an older source of the file is cancelled if it has not finished yet, and fails with a
+     * {@link CancellationException}.
+     * <p>
+     * If the same source was analysed last, that analysis is returned again. Cancelling the returned future does not
+     * affect the analysis, as other callers may be waiting for it.
+     *
+     * @param budget How long resolving bindings may take before the analysis settles for syntax problems only.
+     */
+    public CompletableFuture<Analysis> analyze(Path file, String source, Duration budget) {
+        Path path = file.toAbsolutePath().normalize();
+        var created = new CompletableFuture<Analysis>();
+        var running = new RunningAnalysis(source, new AnalysisMonitor(budget), created);
+        RunningAnalysis previous = this.runningAnalyses.compute(path, (key, existing) -> {
+            if (existing != null && existing.source().equals(source))
+                return existing;
+
+            if (existing != null) {
+                existing.monitor().setCanceled(true);
+            }
+
+            return running;
+        });
+
+        if (previous != running)
+            return previous.future().copy();
+
+        CompletableFuture.supplyAsync(() -> run(path, source, running.monitor()), this.executor)
+            .whenComplete((analysis, throwable) -> {
+                this.runningAnalyses.remove(path, running);
+                if (throwable == null) {
+                    created.complete(analysis);
+                } else {
+                    created.completeExceptionally(throwable);
+                }
+            });
+        return created.copy();
+    }
+
+    private Analysis run(Path file, String source, AnalysisMonitor monitor) {
+        if (monitor.isCanceled())
+            throw new CancellationException("Superseded by a newer analysis of " + file);
+
+        Analysis last = this.lastAnalysis;
+        if (last != null && last.file().equals(file) && last.source().equals(source))
+            return last;
+
+        long startTime = System.currentTimeMillis();
+        updateEnvironment();
+        char[] content = source.toCharArray();
+
+        Analysis analysis;
+        monitor.startBudget();
+        try {
+            CompilationUnit unit = (CompilationUnit) newParser(file, content, true).createAST(monitor);
+            analysis = new Analysis(file, source, unit, List.of(unit.getProblems()), true);
+        } catch (OperationCanceledException exception) {
+            if (monitor.isSuperseded())
+                throw new CancellationException("Superseded by a newer analysis of " + file);
+
+            Railroad.LOGGER.debug("Resolving {} took over {}ms, reporting syntax problems only",
+                file.getFileName(), monitor.budget.toMillis());
+            CompilationUnit unit = (CompilationUnit) newParser(file, content, false).createAST(null);
+            analysis = new Analysis(file, source, unit, List.of(unit.getProblems()), false);
+        }
+
+        this.lastAnalysis = analysis;
+        Railroad.LOGGER.debug("Analysed {} ({} problems, {}) in {}ms", file.getFileName(),
+            analysis.problems().size(), analysis.resolved() ? "resolved" : "syntax only",
+            System.currentTimeMillis() - startTime);
+        return analysis;
+    }
+
+    private ASTParser newParser(Path file, char[] content, boolean resolveBindings) {
+        ASTParser parser = ASTParser.newParser(AST.JLS21);
+        parser.setKind(ASTParser.K_COMPILATION_UNIT);
+        parser.setCompilerOptions(COMPILER_OPTIONS);
+        parser.setSource(content);
+        if (resolveBindings) {
+            parser.setUnitName(file.getFileName().toString());
+            parser.setEnvironment(this.classpathEntries, this.sourcepathEntries, null, true);
+            parser.setResolveBindings(true);
+            parser.setBindingsRecovery(true);
+            parser.setStatementsRecovery(true);
+        }
+
+        return parser;
+    }
+
+    /**
+     * Picks up the dependency jars of the last symbol index refresh, the source roots are listed again along with
+     * them.
+     */
+    private void updateEnvironment() {
+        List<Path> jars = this.symbolIndex.getClasspath();
+        if (jars == this.environmentJars && this.sourcepathEntries.length > 0)
+            return;
+
+        this.environmentJars = jars;
+        this.classpathEntries = jars.stream().map(Path::toString).toArray(String[]::new);
+        this.sourcepathEntries = findSourceRoots().stream().map(Path::toString).toArray(String[]::new);
+        this.lastAnalysis = null;
+    }
+
+    /**
+     * @return The {@code java} directories of the Gradle source sets, or {@code src} itself if there are none.
+     */
+    private List<Path> findSourceRoots() {
+        Path sourceDir = this.projectDir.resolve("src");
+        if (!Files.isDirectory(sourceDir))
+            return List.of();
+
+        try (Stream<Path> sourceSets = Files.list(sourceDir)) {
+            List<Path> roots = sourceSets.map(sourceSet -> sourceSet.resolve("java"))
+                .filter(Files::isDirectory)
+                .toList();
+            return roots.isEmpty() ? List.of(sourceDir) : roots;
+        } catch (IOException exception) {
+            Railroad.LOGGER.warn("Failed to list source roots of {}", this.projectDir, exception);
+            return List.of(sourceDir);
+        }
+    }
+
+    private void warmUp() {
+        analyze(this.projectDir.resolve("WarmUp.java"), "class WarmUp { String value = \"\".trim(); }")
+            .whenComplete((analysis, throwable) -> {
+                if (throwable != null) {
+                    Railroad.LOGGER.warn("Failed to warm up Java analysis of {}", this.projectDir, throwable);
+                }
+            });
+    }
+
+    /**
+     * The result of analysing a file.
+     *
+     * @param unit     The parsed file, with bindings if {@code resolved}.
+     * @param problems The syntax problems, and the semantic ones if {@code resolved}.
+     * @param resolved Whether bindings were resolved within the budget.
+     */
+    public record Analysis(Path file, String source, CompilationUnit unit, List<IProblem> problems,
+                           boolean resolved) {
+    }
+
+    private record RunningAnalysis(String source, AnalysisMonitor monitor, CompletableFuture<Analysis> future) {
+    }
+
+    /**
+     * Cancels JDT when a newer analysis supersedes this one, or when the budget runs out.
+     */
+    private static final class AnalysisMonitor extends NullProgressMonitor {
+        private final Duration budget;
+        private volatile long deadline = Long.MAX_VALUE;
+
+        private AnalysisMonitor(Duration budget) {
+            this.budget = budget;
+        }
+
+        private void startBudget() {
+            this.deadline = System.nanoTime() + this.budget.toNanos();
+        }
+
+        private boolean isSuperseded() {
+            return super.isCanceled();
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return super.isCanceled() || System.nanoTime() > this.deadline;
+        }
+    }
+}
@@ -7,9 +7,18 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 
 public class ClassStubParser {
+    /**
+     * Stubs only describe signatures, so method bodies and stack map frames are never needed.
+     * <p>
+     * {@link ClassReader#SKIP_DEBUG} is deliberately left out: with {@link ClassReader#SKIP_CODE} set, almost all
+     * debug attributes are skipped anyway, but it would also drop the {@code MethodParameters} attribute that
+     * provides parameter names.
+     */
+    public static final int PARSING_OPTIONS = ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES;
+
     public static ClassStub parse(Path pathToClassFile) throws ClassScanException {
         try {
-            return parse(new ClassReader(Files.newInputStream(pathToClassFile)));
+            return parse(new ClassReader(Files.readAllBytes(pathToClassFile)));
         } catch (ClassScanException exception) {
             throw new ClassScanException("Failed to parse class file: %s".formatted(pathToClassFile), exception.getCause());
         } catch (Exception exception) {
@@ -18,8 +27,12 @@ public class ClassStubParser {
     }
 
     public static ClassStub parse(ClassReader reader) {
+        return parse(reader, PARSING_OPTIONS);
+    }
+
+    public static ClassStub parse(ClassReader reader, int parsingOptions) {
         var visitor = new ClassStubVisitor();
-        reader.accept(visitor, ClassReader.EXPAND_FRAMES);
+        reader.accept(visitor, parsingOptions);
 
         ClassStub stub = visitor.createClassStub();
         if (stub == null)
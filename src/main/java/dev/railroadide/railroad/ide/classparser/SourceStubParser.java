@@ -0,0 +1,369 @@
+package dev.railroadide.railroad.ide.classparser;
+
+import dev.railroadide.railroad.ide.classparser.stub.*;
+import dev.railroadide.railroad.ide.classparser.stub.TypeParameter;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.*;
+import org.objectweb.asm.Opcodes;
+
+import java.util.*;
+
+/**
+ * Creates {@link ClassStub}s from Java source code, so project sources can be indexed the same way as class files.
+ * <p>
+ * Only declarations are parsed and no bindings are resolved. Type names are qualified through single-type imports
+ * and the types declared in the same file, any other name is kept as written in the source.
+ */
+public class SourceStubParser {
+    private static final Map<String, String> COMPILER_OPTIONS;
+
+    static {
+        Map<String, String> options = JavaCore.getOptions();
+        JavaCore.setComplianceOptions(JavaCore.VERSION_21, options);
+        COMPILER_OPTIONS = Map.copyOf(options);
+    }
+
+    public static List<ClassStub> parse(char[] source) {
+        ASTParser parser = ASTParser.newParser(AST.JLS21);
+        parser.setKind(ASTParser.K_COMPILATION_UNIT);
+        parser.setCompilerOptions(COMPILER_OPTIONS);
+        parser.setSource(source);
+        parser.setIgnoreMethodBodies(true);
+        var unit = (CompilationUnit) parser.createAST(null);
+
+        String packageName = unit.getPackage() == null ? "" : unit.getPackage().getName().getFullyQualifiedName();
+        Map<String, String> imports = new HashMap<>();
+        for (Object object : unit.imports()) {
+            var importDeclaration = (ImportDeclaration) object;
+            if (importDeclaration.isOnDemand() || importDeclaration.isStatic())
+                continue;
+
+            String name = importDeclaration.getName().getFullyQualifiedName();
+            imports.put(name.substring(name.lastIndexOf('.') + 1), Context.toBinaryName(name));
+        }
+
+        var context = new Context(packageName, imports);
+        for (Object type : unit.types()) {
+            context.declareTypes((AbstractTypeDeclaration) type, "");
+        }
+
+        List<ClassStub> stubs = new ArrayList<>();
+        for (Object type : unit.types()) {
+            context.createStubs((AbstractTypeDeclaration) type, "", false, stubs);
+        }
+
+        return stubs;
+    }
+
+    private static class Context {
+        private final String packageName;
+        private final Map<String, String> knownTypes;
+        private final Deque<Set<String>> typeVariables = new ArrayDeque<>();
+
+        private Context(String packageName, Map<String, String> imports) {
+            this.packageName = packageName;
+            this.knownTypes = new HashMap<>(imports);
+        }
+
+        private String qualify(String binaryName) {
+            return this.packageName.isEmpty() ? binaryName : this.packageName + "." + binaryName;
+        }
+
+        private void declareTypes(AbstractTypeDeclaration declaration, String outerName) {
+            String binaryName = outerName + declaration.getName().getIdentifier();
+            this.knownTypes.putIfAbsent(declaration.getName().getIdentifier(), qualify(binaryName));
+            for (Object bodyDeclaration : declaration.bodyDeclarations()) {
+                if (bodyDeclaration instanceof AbstractTypeDeclaration member) {
+                    declareTypes(member, binaryName + "$");
+                }
+            }
+        }
+
+        private void createStubs(AbstractTypeDeclaration declaration, String outerName, boolean inInterface,
+                                 List<ClassStub> stubs) {
+            String binaryName = outerName + declaration.getName().getIdentifier();
+
+            List<TypeParameter> typeParameters = List.of();
+            Type superClass = null;
+            List<Type> interfaces = new ArrayList<>();
+            int modifiers = toAccessFlags(declaration.getModifiers());
+            if (inInterface) {
+                modifiers |= Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC;
+            }
+
+            boolean isInterface = false;
+            List<FieldStub> fields = new ArrayList<>();
+            List<MethodStub> methods = new ArrayList<>();
+            List<ConstructorStub> constructors = new ArrayList<>();
+
+            this.typeVariables.push(new HashSet<>());
+            switch (declaration) {
+                case TypeDeclaration typeDeclaration -> {
+                    typeParameters = toTypeParameters(typeDeclaration.typeParameters());
+                    isInterface = typeDeclaration.isInterface();
+                    if (isInterface) {
+                        modifiers |= Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT;
+                    } else {
+                        org.eclipse.jdt.core.dom.Type superclassType = typeDeclaration.getSuperclassType();
+                        superClass = superclassType == null ? objectType("java.lang.Object") : toType(superclassType);
+                    }
+
+                    interfaces.addAll(toTypes(typeDeclaration.superInterfaceTypes()));
+                }
+                case EnumDeclaration enumDeclaration -> {
+                    modifiers |= Opcodes.ACC_ENUM;
+                    superClass = new Type.ClassType("java.lang.Enum", List.of(objectType(qualify(binaryName))));
+                    interfaces.addAll(toTypes(enumDeclaration.superInterfaceTypes()));
+                    for (Object constant : enumDeclaration.enumConstants()) {
+                        var enumConstant = (EnumConstantDeclaration) constant;
+                        fields.add(new FieldStub(enumConstant.getName().getIdentifier(), objectType(qualify(binaryName)),
+                            Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL | Opcodes.ACC_ENUM,
+                            toAnnotations(enumConstant.modifiers())));
+                    }
+                }
+                case RecordDeclaration recordDeclaration -> {
+                    modifiers |= Opcodes.ACC_FINAL | Opcodes.ACC_RECORD;
+                    typeParameters = toTypeParameters(recordDeclaration.typeParameters());
+                    superClass = objectType("java.lang.Record");
+                    interfaces.addAll(toTypes(recordDeclaration.superInterfaceTypes()));
+
+                    List<Parameter> components = new ArrayList<>();
+                    for (Object component : recordDeclaration.recordComponents()) {
+                        Parameter parameter = toParameter((SingleVariableDeclaration) component);
+                        components.add(parameter);
+                        fields.add(new FieldStub(parameter.name(), parameter.type(),
+                            Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, List.of()));
+                        methods.add(new MethodStub(parameter.name(), parameter.type(), List.of(), Opcodes.ACC_PUBLIC,
+                            parameter.annotations(), List.of()));
+                    }
+
+                    constructors.add(new ConstructorStub(components, Opcodes.ACC_PUBLIC, List.of(), List.of()));
+                }
+                case AnnotationTypeDeclaration ignored -> {
+                    isInterface = true;
+                    modifiers |= Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT | Opcodes.ACC_ANNOTATION;
+                    interfaces.add(objectType("java.lang.annotation.Annotation"));
+                }
+                default -> {
+                }
+            }
+
+            for (Object object : declaration.bodyDeclarations()) {
+                switch (object) {
+                    case FieldDeclaration field -> {
+                        int fieldModifiers = toAccessFlags(field.getModifiers());
+                        if (isInterface) {
+                            fieldModifiers |= Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL;
+                        }
+
+                        Type fieldType = toType(field.getType());
+                        List<AnnotationStub> annotations = toAnnotations(field.modifiers());
+                        for (Object fragment : field.fragments()) {
+                            var variable = (VariableDeclarationFragment) fragment;
+                            fields.add(new FieldStub(variable.getName().getIdentifier(),
+                                withDimensions(fieldType, variable.getExtraDimensions()), fieldModifiers, annotations));
+                        }
+                    }
+                    case MethodDeclaration method -> {
+                        this.typeVariables.push(new HashSet<>());
+                        List<TypeParameter> methodTypeParameters = toTypeParameters(method.typeParameters());
+                        List<Parameter> parameters = new ArrayList<>();
+                        for (Object parameter : method.parameters()) {
+                            parameters.add(toParameter((SingleVariableDeclaration) parameter));
+                        }
+
+                        int methodModifiers = toAccessFlags(method.getModifiers());
+                        if (isInterface && (methodModifiers & Opcodes.ACC_PRIVATE) == 0) {
+                            methodModifiers |= Opcodes.ACC_PUBLIC;
+                            if (method.getBody() == null && (methodModifiers & Opcodes.ACC_STATIC) == 0) {
+                                methodModifiers |= Opcodes.ACC_ABSTRACT;
+                            }
+                        }
+
+                        List<AnnotationStub> annotations = toAnnotations(method.modifiers());
+                        if (method.isConstructor()) {
+                            constructors.add(new ConstructorStub(parameters, methodModifiers, annotations, methodTypeParameters));
+                        } else {
+                            Type returnType = method.getReturnType2() == null ?
+                                new Type.PrimitiveType("void") :
+                                withDimensions(toType(method.getReturnType2()), method.getExtraDimensions());
+                            methods.add(new MethodStub(method.getName().getIdentifier(), returnType, parameters,
+                                methodModifiers, annotations, methodTypeParameters));
+                        }
+
+                        this.typeVariables.pop();
+                    }
+                    case AnnotationTypeMemberDeclaration member -> methods.add(new MethodStub(
+                        member.getName().getIdentifier(), toType(member.getType()), List.of(),
+                        Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT, toAnnotations(member.modifiers()), List.of()));
+                    default -> {
+                    }
+                }
+            }
+
+            stubs.add(new ClassStub(this.packageName, binaryName, typeParameters, superClass, interfaces,
+                fields, methods, constructors, modifiers, toAnnotations(declaration.modifiers())));
+
+            for (Object object : declaration.bodyDeclarations()) {
+                if (object instanceof AbstractTypeDeclaration member) {
+                    createStubs(member, binaryName + "$", isInterface, stubs);
+                }
+            }
+
+            this.typeVariables.pop();
+        }
+
+        private List<TypeParameter> toTypeParameters(List<?> typeParameters) {
+            if (typeParameters.isEmpty())
+                return List.of();
+
+            // Declare every variable first, so bounds like <T extends Comparable<T>> resolve to the variable
+            for (Object object : typeParameters) {
+                this.typeVariables.peek().add(((org.eclipse.jdt.core.dom.TypeParameter) object).getName().getIdentifier());
+            }
+
+            List<TypeParameter> result = new ArrayList<>(typeParameters.size());
+            for (Object object : typeParameters) {
+                var typeParameter = (org.eclipse.jdt.core.dom.TypeParameter) object;
+                result.add(new TypeParameter(typeParameter.getName().getIdentifier(), toTypes(typeParameter.typeBounds())));
+            }
+
+            return result;
+        }
+
+        private Parameter toParameter(SingleVariableDeclaration declaration) {
+            Type type = withDimensions(toType(declaration.getType()), declaration.getExtraDimensions());
+            if (declaration.isVarargs()) {
+                type = new Type.ArrayType(type);
+            }
+
+            return new Parameter(declaration.getName().getIdentifier(), type, toAnnotations(declaration.modifiers()));
+        }
+
+        private List<AnnotationStub> toAnnotations(List<?> modifiers) {
+            List<AnnotationStub> annotations = new ArrayList<>();
+            for (Object modifier : modifiers) {
+                if (modifier instanceof Annotation annotation) {
+                    annotations.add(new AnnotationStub(resolve(annotation.getTypeName().getFullyQualifiedName()), Map.of()));
+                }
+            }
+
+            return annotations;
+        }
+
+        private List<Type> toTypes(List<?> types) {
+            List<Type> result = new ArrayList<>(types.size());
+            for (Object type : types) {
+                result.add(toType((org.eclipse.jdt.core.dom.Type) type));
+            }
+
+            return result;
+        }
+
+        private Type toType(org.eclipse.jdt.core.dom.Type type) {
+            return switch (type) {
+                case PrimitiveType primitiveType -> new Type.PrimitiveType(primitiveType.getPrimitiveTypeCode().toString());
+                case ArrayType arrayType -> withDimensions(toType(arrayType.getElementType()), arrayType.getDimensions());
+                case ParameterizedType parameterizedType -> {
+                    Type rawType = toType(parameterizedType.getType());
+                    String name = rawType instanceof Type.ClassType classType ? classType.name() : rawType.toString();
+                    yield new Type.ClassType(name, toTypes(parameterizedType.typeArguments()));
+                }
+                case WildcardType wildcardType -> wildcardType.getBound() == null ?
+                    new Type.WildcardType(objectType("java.lang.Object"), true) :
+                    new Type.WildcardType(toType(wildcardType.getBound()), wildcardType.isUpperBound());
+                case SimpleType simpleType -> toNamedType(simpleType.getName().getFullyQualifiedName());
+                case QualifiedType qualifiedType -> objectType(
+                    qualifiedTypeName(qualifiedType.getQualifier()) + "$" + qualifiedType.getName().getIdentifier());
+                case NameQualifiedType nameQualifiedType -> objectType(toBinaryName(
+                    nameQualifiedType.getQualifier().getFullyQualifiedName() + "." + nameQualifiedType.getName().getIdentifier()));
+                case UnionType unionType -> toType((org.eclipse.jdt.core.dom.Type) unionType.types().getFirst());
+                case IntersectionType intersectionType ->
+                    toType((org.eclipse.jdt.core.dom.Type) intersectionType.types().getFirst());
+                default -> objectType(type.toString());
+            };
+        }
+
+        private String qualifiedTypeName(org.eclipse.jdt.core.dom.Type qualifier) {
+            Type type = toType(qualifier);
+            return type instanceof Type.ClassType classType ? classType.name() : type.toString();
+        }
+
+        private Type toNamedType(String name) {
+            if (!name.contains(".")) {
+                for (Set<String> scope : this.typeVariables) {
+                    if (scope.contains(name))
+                        return new Type.TypeVariable(name);
+                }
+            }
+
+            return objectType(resolve(name));
+        }
+
+        /**
+         * @return The binary name of the type, such as {@code java.util.Map$Entry}, which is what stubs are stored
+         * under.
+         */
+        private String resolve(String name) {
+            int dot = name.indexOf('.');
+            String head = dot == -1 ? name : name.substring(0, dot);
+            String resolvedHead = this.knownTypes.get(head);
+            if (resolvedHead == null)
+                return toBinaryName(name);
+
+            // Whatever follows a known type are types nested in it
+            return dot == -1 ? resolvedHead : resolvedHead + name.substring(dot).replace('.', '$');
+        }
+
+        /**
+         * Turns a qualified name into a binary name, going by the convention that package names start in lower case
+         * and type names in upper case, as nothing else tells them apart without resolving the name.
+         */
+        private static String toBinaryName(String qualifiedName) {
+            int start = 0;
+            while (start < qualifiedName.length() && !Character.isUpperCase(qualifiedName.charAt(start))) {
+                int dot = qualifiedName.indexOf('.', start);
+                if (dot == -1)
+                    return qualifiedName;
+
+                start = dot + 1;
+            }
+
+            int nested = qualifiedName.indexOf('.', start);
+            return nested == -1 ? qualifiedName
+                : qualifiedName.substring(0, nested) + qualifiedName.substring(nested).replace('.', '$');
+        }
+
+        /**
+         * Maps JDT modifier flags to class file access flags. Most share their bit, but not all of them do (JDT's
+         * {@code sealed} is the class file's {@code interface}), so each is mapped explicitly.
+         */
+        private static int toAccessFlags(int modifiers) {
+            int flags = 0;
+            if (Modifier.isPublic(modifiers)) flags |= Opcodes.ACC_PUBLIC;
+            if (Modifier.isPrivate(modifiers)) flags |= Opcodes.ACC_PRIVATE;
+            if (Modifier.isProtected(modifiers)) flags |= Opcodes.ACC_PROTECTED;
+            if (Modifier.isStatic(modifiers)) flags |= Opcodes.ACC_STATIC;
+            if (Modifier.isFinal(modifiers)) flags |= Opcodes.ACC_FINAL;
+            if (Modifier.isAbstract(modifiers)) flags |= Opcodes.ACC_ABSTRACT;
+            if (Modifier.isSynchronized(modifiers)) flags |= Opcodes.ACC_SYNCHRONIZED;
+            if (Modifier.isNative(modifiers)) flags |= Opcodes.ACC_NATIVE;
+            if (Modifier.isTransient(modifiers)) flags |= Opcodes.ACC_TRANSIENT;
+            if (Modifier.isVolatile(modifiers)) flags |= Opcodes.ACC_VOLATILE;
+            if (Modifier.isStrictfp(modifiers)) flags |= Opcodes.ACC_STRICT;
+            return flags;
+        }
+
+        private static Type withDimensions(Type type, int dimensions) {
+            for (int index = 0; index < dimensions; index++) {
+                type = new Type.ArrayType(type);
+            }
+
+            return type;
+        }
+
+        private static Type objectType(String name) {
+            return new Type.ClassType(name, List.of());
+        }
+    }
+}
@@ -1,37 +1,60 @@
 package dev.railroadide.railroad.ide.indexing;
 
 import dev.railroadide.railroad.ide.classparser.stub.ClassStub;
-import dev.railroadide.railroad.ide.classparser.stub.Stub;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class Autocomplete {
-    private final Trie classTrie = new Trie();
-    private final Map<String, ClassStub> classStubs = new HashMap<>();
+    public static final int DEFAULT_LIMIT = 50;
+
+    private final CompletionIndex classNames;
+    private final MemberIndex members;
 
     public Autocomplete(List<ClassStub> stubs) {
+        Map<String, ClassStub> classStubs = new HashMap<>();
+        List<String> simpleNames = new ArrayList<>(stubs.size());
         for (ClassStub stub : stubs) {
             String fullName = stub.getFullName();
-            this.classStubs.put(fullName, stub);
-            String simpleName = stub.name();
-            this.classTrie.insert(simpleName);
+            classStubs.put(fullName, stub);
+            simpleNames.add(stub.name());
+        }
+
+        this.classNames = CompletionIndex.of(simpleNames);
+        this.members = new MemberIndex(classStubs::get);
+    }
+
+    public Autocomplete(ClassStubIndex index) {
+        List<String> simpleNames = new ArrayList<>(index.size());
+        for (String fullName : index.getClassNames()) {
+            simpleNames.add(fullName.substring(fullName.lastIndexOf('.') + 1));
         }
+
+        this.classNames = CompletionIndex.of(simpleNames);
+        this.members = new MemberIndex(index::get);
     }
 
     public List<String> getCompletions(String prefix) {
-        return this.classTrie.findCompletions(prefix);
+        return getCompletions(prefix, DEFAULT_LIMIT);
+    }
+
+    /**
+     * @return Up to {@code limit} class names starting with the prefix, followed by camel-hump matches.
+     */
+    public List<String> getCompletions(String prefix, int limit) {
+        return this.classNames.complete(prefix, limit);
     }
 
+    /**
+     * @return The names of the members of the class, including inherited ones, that start with the prefix.
+     */
     public List<String> suggestMembers(String className, String prefix) {
-        ClassStub stub = this.classStubs.get(className);
-        if (stub == null)
-            return List.of();
-
-        return stub.getMembers().stream()
-            .map(Stub::name)
-            .filter(member -> member.startsWith(prefix))
-            .toList();
+        return getMembers(className).findNames(prefix);
+    }
+
+    public MemberTable getMembers(String className) {
+        return this.members.getMembers(className);
     }
 }
@@ -0,0 +1,479 @@
+package dev.railroadide.railroad.ide.indexing;
+
+import dev.railroadide.railroad.ide.classparser.Type;
+import dev.railroadide.railroad.ide.classparser.stub.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Binary format used to persist {@link ClassStub}s.
+ * <p>
+ * Layout (all integers big-endian, "varint" is an unsigned LEB128 value):
+ * <pre>
+ * int     magic
+ * int     format version
+ * varint  fingerprint string length, UTF-8 bytes
+ * int     string count
+ * int[]   string offsets (relative to the string data section)
+ * int     string data length, UTF-8 bytes (each prefixed with a varint length)
+ * int     class count
+ * (int, int)[] class name string index and stub offset (relative to the stub data section)
+ * int     stub data length, encoded stubs
+ * </pre>
+ * Every string referenced by a stub is stored once in the string pool and referenced by index + 1 (0 meaning
+ * {@code null}), so the file can be memory-mapped and individual stubs decoded on demand.
+ */
+final class ClassStubCodec {
+    static final int MAGIC = 0x52525349; // "RRSI"
+    static final int FORMAT_VERSION = 1;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_CLASS = 1;
+    private static final byte TYPE_PRIMITIVE = 2;
+    private static final byte TYPE_ARRAY = 3;
+    private static final byte TYPE_VARIABLE = 4;
+    private static final byte TYPE_WILDCARD = 5;
+
+    private static final byte VALUE_STRING = 0;
+    private static final byte VALUE_INT = 1;
+    private static final byte VALUE_LONG = 2;
+    private static final byte VALUE_FLOAT = 3;
+    private static final byte VALUE_DOUBLE = 4;
+    private static final byte VALUE_BOOLEAN = 5;
+    private static final byte VALUE_CHAR = 6;
+    private static final byte VALUE_BYTE = 7;
+    private static final byte VALUE_SHORT = 8;
+    private static final byte VALUE_ASM_TYPE = 9;
+
+    private ClassStubCodec() {
+    }
+
+    static byte[] encode(String fingerprint, List<ClassStub> stubs) throws IOException {
+        var encoder = new Encoder();
+        var classNames = new int[stubs.size()];
+        var classOffsets = new int[stubs.size()];
+        for (int index = 0; index < stubs.size(); index++) {
+            ClassStub stub = stubs.get(index);
+            classNames[index] = encoder.stringIndex(stub.getFullName());
+            classOffsets[index] = encoder.data.size();
+            encoder.writeClass(stub);
+        }
+
+        var stringData = new ByteArrayOutputStream();
+        var stringOffsets = new int[encoder.strings.size()];
+        for (int index = 0; index < stringOffsets.length; index++) {
+            stringOffsets[index] = stringData.size();
+            byte[] bytes = encoder.strings.get(index).getBytes(StandardCharsets.UTF_8);
+            writeVarInt(stringData, bytes.length);
+            stringData.write(bytes);
+        }
+
+        var bytes = new ByteArrayOutputStream(encoder.data.size() + stringData.size() + stubs.size() * 8 + 64);
+        var out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        byte[] fingerprintBytes = fingerprint.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, fingerprintBytes.length);
+        out.write(fingerprintBytes);
+
+        out.writeInt(stringOffsets.length);
+        for (int offset : stringOffsets) {
+            out.writeInt(offset);
+        }
+
+        out.writeInt(stringData.size());
+        stringData.writeTo(out);
+
+        out.writeInt(stubs.size());
+        for (int index = 0; index < stubs.size(); index++) {
+            out.writeInt(classNames[index]);
+            out.writeInt(classOffsets[index]);
+        }
+
+        out.writeInt(encoder.data.size());
+        encoder.data.writeTo(out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeVarInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        out.write(value);
+    }
+
+    private static final class Encoder {
+        private final Map<String, Integer> stringIndices = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private final ByteArrayOutputStream data = new ByteArrayOutputStream(1 << 16);
+
+        private int stringIndex(String value) {
+            return this.stringIndices.computeIfAbsent(value, key -> {
+                this.strings.add(key);
+                return this.strings.size() - 1;
+            });
+        }
+
+        private void writeInt(int value) throws IOException {
+            writeVarInt(this.data, value);
+        }
+
+        private void writeString(String value) throws IOException {
+            // 0 is reserved for null, e.g. parameters without a recorded name
+            writeInt(value == null ? 0 : stringIndex(value) + 1);
+        }
+
+        private void writeClass(ClassStub stub) throws IOException {
+            writeString(stub.packageName());
+            writeString(stub.name());
+            writeTypeParameters(stub.typeParameters());
+            writeType(stub.superClass());
+            writeTypes(stub.interfaces());
+
+            writeInt(stub.fields().size());
+            for (FieldStub field : stub.fields()) {
+                writeString(field.name());
+                writeType(field.type());
+                writeInt(field.modifiers());
+                writeAnnotations(field.annotations());
+            }
+
+            writeInt(stub.methods().size());
+            for (MethodStub method : stub.methods()) {
+                writeString(method.name());
+                writeType(method.returnType());
+                writeParameters(method.parameters());
+                writeInt(method.modifiers());
+                writeAnnotations(method.annotations());
+                writeTypeParameters(method.typeParameters());
+            }
+
+            writeInt(stub.constructors().size());
+            for (ConstructorStub constructor : stub.constructors()) {
+                writeParameters(constructor.parameters());
+                writeInt(constructor.modifiers());
+                writeAnnotations(constructor.annotations());
+                writeTypeParameters(constructor.typeParameters());
+            }
+
+            writeInt(stub.modifiers());
+            writeAnnotations(stub.annotations());
+        }
+
+        private void writeType(Type type) throws IOException {
+            switch (type) {
+                case null -> this.data.write(TYPE_NULL);
+                case Type.ClassType classType -> {
+                    this.data.write(TYPE_CLASS);
+                    writeString(classType.name());
+                    writeTypes(classType.typeArguments());
+                }
+                case Type.PrimitiveType primitiveType -> {
+                    this.data.write(TYPE_PRIMITIVE);
+                    writeString(primitiveType.name());
+                }
+                case Type.ArrayType arrayType -> {
+                    this.data.write(TYPE_ARRAY);
+                    writeType(arrayType.componentType());
+                }
+                case Type.TypeVariable typeVariable -> {
+                    this.data.write(TYPE_VARIABLE);
+                    writeString(typeVariable.name());
+                }
+                case Type.WildcardType wildcardType -> {
+                    this.data.write(TYPE_WILDCARD);
+                    writeType(wildcardType.bound());
+                    this.data.write(wildcardType.isUpperBound() ? 1 : 0);
+                }
+            }
+        }
+
+        private void writeTypes(List<Type> types) throws IOException {
+            if (types == null) {
+                writeInt(0);
+                return;
+            }
+
+            writeInt(types.size());
+            for (Type type : types) {
+                writeType(type);
+            }
+        }
+
+        private void writeTypeParameters(List<TypeParameter> typeParameters) throws IOException {
+            writeInt(typeParameters.size());
+            for (TypeParameter typeParameter : typeParameters) {
+                writeString(typeParameter.name());
+                writeTypes(typeParameter.bounds());
+            }
+        }
+
+        private void writeParameters(List<Parameter> parameters) throws IOException {
+            writeInt(parameters.size());
+            for (Parameter parameter : parameters) {
+                writeString(parameter.name());
+                writeType(parameter.type());
+                writeAnnotations(parameter.annotations());
+            }
+        }
+
+        private void writeAnnotations(List<AnnotationStub> annotations) throws IOException {
+            writeInt(annotations.size());
+            for (AnnotationStub annotation : annotations) {
+                writeString(annotation.name());
+
+                // Only scalar values are persisted, arrays and nested annotations are not needed for completion
+                Map<String, Object> values = new LinkedHashMap<>();
+                annotation.values().forEach((key, value) -> {
+                    if (valueTag(value) >= 0) {
+                        values.put(key, value);
+                    }
+                });
+
+                writeInt(values.size());
+                for (Map.Entry<String, Object> entry : values.entrySet()) {
+                    writeString(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            }
+        }
+
+        private void writeValue(Object value) throws IOException {
+            byte tag = valueTag(value);
+            this.data.write(tag);
+            switch (value) {
+                case String string -> writeString(string);
+                case Integer integer -> writeInt(integer);
+                case Long longValue -> writeString(Long.toString(longValue));
+                case Float floatValue -> writeInt(Float.floatToRawIntBits(floatValue));
+                case Double doubleValue -> writeString(Double.toString(doubleValue));
+                case Boolean bool -> this.data.write(bool ? 1 : 0);
+                case Character character -> writeInt(character);
+                case Byte byteValue -> this.data.write(byteValue);
+                case Short shortValue -> writeInt(shortValue & 0xFFFF);
+                case org.objectweb.asm.Type asmType -> writeString(asmType.getDescriptor());
+                default -> throw new IllegalStateException("Unsupported annotation value: " + value);
+            }
+        }
+
+        private static byte valueTag(Object value) {
+            return switch (value) {
+                case String ignored -> VALUE_STRING;
+                case Integer ignored -> VALUE_INT;
+                case Long ignored -> VALUE_LONG;
+                case Float ignored -> VALUE_FLOAT;
+                case Double ignored -> VALUE_DOUBLE;
+                case Boolean ignored -> VALUE_BOOLEAN;
+                case Character ignored -> VALUE_CHAR;
+                case Byte ignored -> VALUE_BYTE;
+                case Short ignored -> VALUE_SHORT;
+                case org.objectweb.asm.Type ignored -> VALUE_ASM_TYPE;
+                case null, default -> -1;
+            };
+        }
+    }
+
+    /**
+     * Reads stubs from a buffer using absolute positions only, so a single buffer can be shared by many readers.
+     */
+    static final class Decoder {
+        private final ByteBuffer buffer;
+        private final StringPool strings;
+        private int position;
+
+        Decoder(ByteBuffer buffer, StringPool strings, int position) {
+            this.buffer = buffer;
+            this.strings = strings;
+            this.position = position;
+        }
+
+        int position() {
+            return this.position;
+        }
+
+        private byte readByte() {
+            return this.buffer.get(this.position++);
+        }
+
+        int readInt() {
+            int value = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = readByte();
+                value |= (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+
+            return value;
+        }
+
+        private String readString() {
+            int index = readInt();
+            return index == 0 ? null : this.strings.get(index - 1);
+        }
+
+        ClassStub readClass() {
+            String packageName = readString();
+            String name = readString();
+            List<TypeParameter> typeParameters = readTypeParameters();
+            Type superClass = readType();
+            List<Type> interfaces = readTypes();
+
+            int fieldCount = readInt();
+            var fields = new ArrayList<FieldStub>(fieldCount);
+            for (int index = 0; index < fieldCount; index++) {
+                fields.add(new FieldStub(readString(), readType(), readInt(), readAnnotations()));
+            }
+
+            int methodCount = readInt();
+            var methods = new ArrayList<MethodStub>(methodCount);
+            for (int index = 0; index < methodCount; index++) {
+                methods.add(new MethodStub(readString(), readType(), readParameters(), readInt(),
+                    readAnnotations(), readTypeParameters()));
+            }
+
+            int constructorCount = readInt();
+            var constructors = new ArrayList<ConstructorStub>(constructorCount);
+            for (int index = 0; index < constructorCount; index++) {
+                constructors.add(new ConstructorStub(readParameters(), readInt(), readAnnotations(),
+                    readTypeParameters()));
+            }
+
+            int modifiers = readInt();
+            List<AnnotationStub> annotations = readAnnotations();
+            return new ClassStub(packageName, name, typeParameters, superClass, interfaces,
+                List.copyOf(fields), List.copyOf(methods), List.copyOf(constructors), modifiers, annotations);
+        }
+
+        private Type readType() {
+            byte tag = readByte();
+            return switch (tag) {
+                case TYPE_NULL -> null;
+                case TYPE_CLASS -> new Type.ClassType(readString(), readTypes());
+                case TYPE_PRIMITIVE -> new Type.PrimitiveType(readString());
+                case TYPE_ARRAY -> new Type.ArrayType(readType());
+                case TYPE_VARIABLE -> new Type.TypeVariable(readString());
+                case TYPE_WILDCARD -> new Type.WildcardType(readType(), readByte() != 0);
+                default -> throw new IllegalStateException("Unknown type tag: " + tag);
+            };
+        }
+
+        private List<Type> readTypes() {
+            int count = readInt();
+            if (count == 0)
+                return List.of();
+
+            var types = new Type[count];
+            for (int index = 0; index < count; index++) {
+                types[index] = readType();
+            }
+
+            return Arrays.asList(types);
+        }
+
+        private List<TypeParameter> readTypeParameters() {
+            int count = readInt();
+            if (count == 0)
+                return List.of();
+
+            var typeParameters = new TypeParameter[count];
+            for (int index = 0; index < count; index++) {
+                typeParameters[index] = new TypeParameter(readString(), readTypes());
+            }
+
+            return List.of(typeParameters);
+        }
+
+        private List<Parameter> readParameters() {
+            int count = readInt();
+            if (count == 0)
+                return List.of();
+
+            var parameters = new Parameter[count];
+            for (int index = 0; index < count; index++) {
+                parameters[index] = new Parameter(readString(), readType(), readAnnotations());
+            }
+
+            return List.of(parameters);
+        }
+
+        private List<AnnotationStub> readAnnotations() {
+            int count = readInt();
+            if (count == 0)
+                return List.of();
+
+            var annotations = new AnnotationStub[count];
+            for (int index = 0; index < count; index++) {
+                String name = readString();
+                int valueCount = readInt();
+                Map<String, Object> values = new HashMap<>(valueCount);
+                for (int valueIndex = 0; valueIndex < valueCount; valueIndex++) {
+                    values.put(readString(), readValue());
+                }
+
+                annotations[index] = new AnnotationStub(name, values);
+            }
+
+            return List.of(annotations);
+        }
+
+        private Object readValue() {
+            byte tag = readByte();
+            return switch (tag) {
+                case VALUE_STRING -> readString();
+                case VALUE_INT -> readInt();
+                case VALUE_LONG -> Long.parseLong(readString());
+                case VALUE_FLOAT -> Float.intBitsToFloat(readInt());
+                case VALUE_DOUBLE -> Double.parseDouble(readString());
+                case VALUE_BOOLEAN -> readByte() != 0;
+                case VALUE_CHAR -> (char) readInt();
+                case VALUE_BYTE -> readByte();
+                case VALUE_SHORT -> (short) readInt();
+                case VALUE_ASM_TYPE -> org.objectweb.asm.Type.getType(readString());
+                default -> throw new IllegalStateException("Unknown annotation value tag: " + tag);
+            };
+        }
+    }
+
+    /**
+     * Lazily decoded view over the string pool of an encoded index.
+     */
+    static final class StringPool {
+        private final ByteBuffer buffer;
+        private final int offsetsPosition;
+        private final int dataPosition;
+        private final String[] strings;
+
+        StringPool(ByteBuffer buffer, int offsetsPosition, int count, int dataPosition) {
+            this.buffer = buffer;
+            this.offsetsPosition = offsetsPosition;
+            this.dataPosition = dataPosition;
+            this.strings = new String[count];
+        }
+
+        String get(int index) {
+            // Racing threads may decode the same string twice, which is harmless as strings are immutable
+            String value = this.strings[index];
+            if (value == null) {
+                var decoder = new Decoder(this.buffer, this, this.dataPosition + this.buffer.getInt(this.offsetsPosition + index * 4));
+                int length = decoder.readInt();
+                var bytes = new byte[length];
+                this.buffer.get(decoder.position, bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+                this.strings[index] = value;
+            }
+
+            return value;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package dev.railroadide.railroad.ide.indexing;
+
+import dev.railroadide.railroad.Railroad;
+import dev.railroadide.railroad.ide.classparser.stub.ClassStub;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable, thread-safe index of {@link ClassStub}s backed by the binary format of {@link ClassStubCodec}.
+ * <p>
+ * Only the class table is read up front, stubs are decoded the first time they are requested.
+ */
+public final class ClassStubIndex {
+    private final ByteBuffer buffer;
+    private final String fingerprint;
+    private final ClassStubCodec.StringPool strings;
+    private final int stubDataPosition;
+    private final Map<String, Integer> classOffsets;
+    private final List<String> classNames;
+    private final Map<String, ClassStub> decodedStubs = new ConcurrentHashMap<>();
+
+    private ClassStubIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer.asReadOnlyBuffer();
+        try {
+            int position = 0;
+            if (this.buffer.getInt(position) != ClassStubCodec.MAGIC)
+                throw new IOException("Not a class stub index");
+
+            if (this.buffer.getInt(position + 4) != ClassStubCodec.FORMAT_VERSION)
+                throw new IOException("Unsupported class stub index version: " + this.buffer.getInt(position + 4));
+
+            position += 8;
+
+            var fingerprintDecoder = new ClassStubCodec.Decoder(this.buffer, null, position);
+            int fingerprintLength = fingerprintDecoder.readInt();
+            var fingerprintBytes = new byte[fingerprintLength];
+            this.buffer.get(fingerprintDecoder.position(), fingerprintBytes);
+            this.fingerprint = new String(fingerprintBytes, StandardCharsets.UTF_8);
+            position = fingerprintDecoder.position() + fingerprintLength;
+
+            int stringCount = this.buffer.getInt(position);
+            int stringOffsetsPosition = position + 4;
+            position = stringOffsetsPosition + stringCount * 4;
+            int stringDataLength = this.buffer.getInt(position);
+            int stringDataPosition = position + 4;
+            this.strings = new ClassStubCodec.StringPool(this.buffer, stringOffsetsPosition, stringCount, stringDataPosition);
+            position = stringDataPosition + stringDataLength;
+
+            int classCount = this.buffer.getInt(position);
+            position += 4;
+            var offsets = new HashMap<String, Integer>(classCount * 4 / 3 + 1);
+            var names = new String[classCount];
+            for (int index = 0; index < classCount; index++) {
+                names[index] = this.strings.get(this.buffer.getInt(position));
+                offsets.put(names[index], this.buffer.getInt(position + 4));
+                position += 8;
+            }
+
+            this.classOffsets = Collections.unmodifiableMap(offsets);
+            this.classNames = List.of(names);
+            this.stubDataPosition = position + 4;
+        } catch (IndexOutOfBoundsException exception) {
+            throw new IOException("Truncated class stub index", exception);
+        }
+    }
+
+    /**
+     * Reads an index from an encoded buffer. The buffer is not copied, so it may be a memory-mapped file.
+     */
+    public static ClassStubIndex read(ByteBuffer buffer) throws IOException {
+        return new ClassStubIndex(buffer);
+    }
+
+    /**
+     * Memory-maps the given index file and reads it.
+     */
+    public static ClassStubIndex map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Encodes the given stubs and reads them back as an index.
+     */
+    public static ClassStubIndex of(String fingerprint, List<ClassStub> stubs) throws IOException {
+        return read(ByteBuffer.wrap(ClassStubCodec.encode(fingerprint, stubs)));
+    }
+
+    /**
+     * Encodes the given stubs, writes them to {@code file} atomically and memory-maps the result. If the file
+     * cannot be written, the encoded index is kept on the heap instead.
+     */
+    static ClassStubIndex write(Path file, String fingerprint, List<ClassStub> stubs) throws IOException {
+        byte[] encoded = ClassStubCodec.encode(fingerprint, stubs);
+        try {
+            Files.createDirectories(file.getParent());
+            Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                Files.write(tempFile, encoded);
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+
+            return map(file);
+        } catch (IOException exception) {
+            Railroad.LOGGER.warn("Failed to persist class stub index to {}", file, exception);
+            return read(ByteBuffer.wrap(encoded));
+        }
+    }
+
+    /**
+     * @return A fingerprint of the sources this index was built from, used to detect when it is out of date.
+     */
+    public String getFingerprint() {
+        return this.fingerprint;
+    }
+
+    /**
+     * @return The fully qualified names of all indexed classes.
+     */
+    public List<String> getClassNames() {
+        return this.classNames;
+    }
+
+    public int size() {
+        return this.classNames.size();
+    }
+
+    public boolean contains(String fullName) {
+        return this.classOffsets.containsKey(fullName);
+    }
+
+    public @Nullable ClassStub get(String fullName) {
+        ClassStub stub = this.decodedStubs.get(fullName);
+        if (stub != null)
+            return stub;
+
+        Integer offset = this.classOffsets.get(fullName);
+        if (offset == null)
+            return null;
+
+        return this.decodedStubs.computeIfAbsent(fullName, key ->
+            new ClassStubCodec.Decoder(this.buffer, this.strings, this.stubDataPosition + offset).readClass());
+    }
+}
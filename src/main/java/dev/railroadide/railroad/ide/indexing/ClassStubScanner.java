@@ -0,0 +1,233 @@
+package dev.railroadide.railroad.ide.indexing;
+
+import dev.railroadide.railroad.Railroad;
+import dev.railroadide.railroad.ide.classparser.ClassStubParser;
+import dev.railroadide.railroad.ide.classparser.stub.ClassStub;
+import org.objectweb.asm.ClassReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Scans jmods, jars (including Minecraft and mapped jars) and JDK runtime images for {@link ClassStub}s.
+ * <p>
+ * All class entries of the given archives are collected up front and then parsed on a dedicated
+ * {@link ForkJoinPool}, using {@link ClassStubParser#PARSING_OPTIONS} so method bodies are never visited.
+ */
+public final class ClassStubScanner {
+    /**
+     * Excludes JDK implementation packages that are never meant to be referenced from user code.
+     */
+    public static final Predicate<String> EXCLUDE_JDK_INTERNALS = className ->
+        !className.startsWith("sun/") && !className.startsWith("jdk/internal/") && !className.contains("/internal/");
+
+    private static final int PARALLELISM = Integer.getInteger("railroad.indexing.parallelism",
+        Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    private static final ForkJoinPool POOL = new ForkJoinPool(PARALLELISM);
+    private static final int SPLIT_THRESHOLD = 32;
+
+    private ClassStubScanner() {
+    }
+
+    /**
+     * Scans every module of the given JDK. The {@code jmods} directory is used when present, otherwise the
+     * runtime image ({@code lib/modules}) is read, and for Java 8 and below {@code rt.jar}.
+     */
+    public static ScanResult scanJdk(Path javaHome) {
+        List<Path> sources = Indexes.getStandardLibrarySources(javaHome);
+        if (sources.size() == 1 && sources.getFirst().getFileName().toString().equals("modules"))
+            return scanRuntimeImage(javaHome, EXCLUDE_JDK_INTERNALS);
+
+        return scan(sources, EXCLUDE_JDK_INTERNALS);
+    }
+
+    /**
+     * Scans project dependency jars, Minecraft jars or any other plain jar files.
+     */
+    public static ScanResult scanJars(Collection<Path> jars) {
+        return scan(jars, className -> true);
+    }
+
+    /**
+     * Scans the given archives. Files ending in {@code .jmod} are read from their {@code classes/} directory,
+     * every other file is treated as a jar.
+     *
+     * @param classFilter Tests the internal name (e.g. {@code java/lang/String}) of each class entry.
+     */
+    public static ScanResult scan(Collection<Path> archives, Predicate<String> classFilter) {
+        long startTime = System.nanoTime();
+        List<ZipFile> openArchives = new ArrayList<>();
+        try {
+            List<ClassEntry> entries = new ArrayList<>();
+            for (Path archive : archives) {
+                try {
+                    var zip = new ZipFile(archive.toFile());
+                    openArchives.add(zip);
+                    String prefix = archive.getFileName().toString().endsWith(".jmod") ? "classes/" : "";
+                    zip.stream()
+                        .filter(entry -> !entry.isDirectory())
+                        .forEach(entry -> {
+                            String className = toClassName(entry.getName(), prefix);
+                            if (className != null && classFilter.test(className)) {
+                                entries.add(new ClassEntry(entry.getName(), () -> readEntry(zip, entry)));
+                            }
+                        });
+                } catch (IOException exception) {
+                    Railroad.LOGGER.error("Failed to open {} for class scanning", archive, exception);
+                }
+            }
+
+            return parse(entries, archives.size(), startTime);
+        } finally {
+            for (ZipFile zip : openArchives) {
+                try {
+                    zip.close();
+                } catch (IOException exception) {
+                    Railroad.LOGGER.warn("Failed to close {}", zip.getName(), exception);
+                }
+            }
+        }
+    }
+
+    private static ScanResult scanRuntimeImage(Path javaHome, Predicate<String> classFilter) {
+        long startTime = System.nanoTime();
+        try (FileSystem jrt = FileSystems.newFileSystem(URI.create("jrt:/"), Map.of("java.home", javaHome.toString()));
+             Stream<Path> files = Files.walk(jrt.getPath("/modules"))) {
+            List<ClassEntry> entries = new ArrayList<>();
+            Set<Path> modules = new HashSet<>();
+            files.filter(Files::isRegularFile).forEach(path -> {
+                // /modules/<module>/<package>/<Class>.class
+                if (path.getNameCount() < 3)
+                    return;
+
+                String className = toClassName(path.subpath(2, path.getNameCount()).toString(), "");
+                if (className != null && classFilter.test(className)) {
+                    modules.add(path.getName(1));
+                    entries.add(new ClassEntry(path.toString(), () -> Files.readAllBytes(path)));
+                }
+            });
+
+            return parse(entries, modules.size(), startTime);
+        } catch (IOException | RuntimeException exception) {
+            Railroad.LOGGER.error("Failed to scan runtime image of {}", javaHome, exception);
+            return new ScanResult(List.of(), 0, 0, 0, Duration.ofNanos(System.nanoTime() - startTime));
+        }
+    }
+
+    private static ScanResult parse(List<ClassEntry> entries, int archiveCount, long startTime) {
+        var stubs = new ClassStub[entries.size()];
+        var failures = new AtomicInteger();
+        POOL.invoke(new ParseTask(entries, stubs, failures, 0, entries.size()));
+
+        List<ClassStub> result = new ArrayList<>(stubs.length);
+        for (ClassStub stub : stubs) {
+            if (stub != null) {
+                result.add(stub);
+            }
+        }
+
+        var scanResult = new ScanResult(Collections.unmodifiableList(result), archiveCount, entries.size(),
+            failures.get(), Duration.ofNanos(System.nanoTime() - startTime));
+        Railroad.LOGGER.info("Scanned {} class entries from {} archives in {}ms ({} entries/s, {} failed, parallelism {})",
+            scanResult.entryCount(), archiveCount, scanResult.duration().toMillis(),
+            Math.round(scanResult.entriesPerSecond()), scanResult.failedCount(), PARALLELISM);
+        return scanResult;
+    }
+
+    private static String toClassName(String entryName, String prefix) {
+        if (!entryName.startsWith(prefix) || !entryName.endsWith(".class"))
+            return null;
+
+        // Multi-release jars keep alternative versions of classes that are already present at the root
+        if (entryName.startsWith("META-INF/"))
+            return null;
+
+        String className = entryName.substring(prefix.length(), entryName.length() - ".class".length());
+        if (className.endsWith("module-info") || className.endsWith("package-info"))
+            return null;
+
+        return className;
+    }
+
+    private static byte[] readEntry(ZipFile zip, ZipEntry entry) throws IOException {
+        try (InputStream stream = zip.getInputStream(entry)) {
+            return stream.readAllBytes();
+        }
+    }
+
+    @FunctionalInterface
+    private interface EntryReader {
+        byte[] read() throws IOException;
+    }
+
+    private record ClassEntry(String name, EntryReader reader) {
+    }
+
+    private static class ParseTask extends RecursiveAction {
+        private final List<ClassEntry> entries;
+        private final ClassStub[] stubs;
+        private final AtomicInteger failures;
+        private final int start;
+        private final int end;
+
+        private ParseTask(List<ClassEntry> entries, ClassStub[] stubs, AtomicInteger failures, int start, int end) {
+            this.entries = entries;
+            this.stubs = stubs;
+            this.failures = failures;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.end - this.start <= SPLIT_THRESHOLD) {
+                for (int index = this.start; index < this.end; index++) {
+                    ClassEntry entry = this.entries.get(index);
+                    try {
+                        this.stubs[index] = ClassStubParser.parse(new ClassReader(entry.reader().read()));
+                    } catch (Exception exception) {
+                        this.failures.incrementAndGet();
+                        Railroad.LOGGER.debug("Failed to parse class entry {}", entry.name(), exception);
+                    }
+                }
+
+                return;
+            }
+
+            int middle = (this.start + this.end) >>> 1;
+            invokeAll(new ParseTask(this.entries, this.stubs, this.failures, this.start, middle),
+                new ParseTask(this.entries, this.stubs, this.failures, middle, this.end));
+        }
+    }
+
+    /**
+     * The outcome of a scan, along with the numbers needed to compare scanning strategies.
+     *
+     * @param stubs        The successfully parsed stubs.
+     * @param archiveCount The number of archives (or modules of a runtime image) that were scanned.
+     * @param entryCount   The number of class entries that matched the filter.
+     * @param failedCount  The number of class entries that could not be read or parsed.
+     * @param duration     The total time taken, including listing the archives.
+     */
+    public record ScanResult(List<ClassStub> stubs, int archiveCount, int entryCount, int failedCount,
+                             Duration duration) {
+        public double entriesPerSecond() {
+            long nanos = this.duration.toNanos();
+            return nanos == 0 ? 0 : this.entryCount * 1_000_000_000D / nanos;
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package dev.railroadide.railroad.ide.indexing;
+
+import java.util.*;
+
+/**
+ * An immutable, array-backed index of names for completion, replacing the per-character {@link Trie}.
+ * <p>
+ * All names are stored sorted in a single {@code char[]}, so every trie node corresponds to a contiguous range of
+ * name ids that is found by binary search. A second ordering by camel-hump initials ({@code HashMap} → {@code HM})
+ * answers camel-hump queries the same way. Queries only allocate a heap of {@code limit} ids and the returned names.
+ * <p>
+ * This is a sorted array rather than a double-array trie or an FST. It takes about the same memory as an FST over
+ * names this short, and is built with a single sort, which matters as the project's index is rebuilt whenever its set
+ * of classes changes. The cost is that a query ranks every name in its range: a trie storing the best weight below
+ * each node could stop after {@code limit} names, while here a one-letter prefix over the JDK looks at a few thousand.
+ * <p>
+ * Results are ranked by weight (how often the name was added, e.g. how many packages declare a class with that
+ * simple name), then by length, then alphabetically.
+ */
+public final class CompletionIndex {
+    private final char[] chars;
+    private final int[] offsets;
+    private final int[] weights;
+    private final char[] humpChars;
+    private final int[] humpOffsets;
+    private final int[] humpOrder;
+
+    private CompletionIndex(List<String> names, int[] weights) {
+        int count = names.size();
+        this.weights = weights;
+        this.offsets = new int[count + 1];
+        this.humpOffsets = new int[count + 1];
+
+        int length = 0;
+        for (String name : names) {
+            length += name.length();
+        }
+
+        this.chars = new char[length];
+        var humps = new StringBuilder();
+        int position = 0;
+        for (int id = 0; id < count; id++) {
+            String name = names.get(id);
+            name.getChars(0, name.length(), this.chars, position);
+            this.offsets[id] = position;
+            position += name.length();
+
+            this.humpOffsets[id] = humps.length();
+            for (int index = 0; index < name.length(); index++) {
+                if (isHumpStart(name, index)) {
+                    humps.append(Character.toUpperCase(name.charAt(index)));
+                }
+            }
+        }
+
+        this.offsets[count] = position;
+        this.humpOffsets[count] = humps.length();
+        this.humpChars = new char[humps.length()];
+        humps.getChars(0, humps.length(), this.humpChars, 0);
+
+        Integer[] order = new Integer[count];
+        for (int id = 0; id < count; id++) {
+            order[id] = id;
+        }
+
+        Arrays.sort(order, (first, second) -> compareHumps(first, second));
+        this.humpOrder = new int[count];
+        for (int index = 0; index < count; index++) {
+            this.humpOrder[index] = order[index];
+        }
+    }
+
+    /**
+     * Creates an index of the given names. Names that are added more than once are ranked higher.
+     */
+    public static CompletionIndex of(Collection<String> names) {
+        var counts = new TreeMap<String, Integer>();
+        for (String name : names) {
+            if (!name.isEmpty()) {
+                counts.merge(name, 1, Integer::sum);
+            }
+        }
+
+        var weights = new int[counts.size()];
+        int id = 0;
+        for (int count : counts.values()) {
+            weights[id++] = count;
+        }
+
+        return new CompletionIndex(List.copyOf(counts.keySet()), weights);
+    }
+
+    /**
+     * @return The number of distinct names in the index.
+     */
+    public int size() {
+        return this.weights.length;
+    }
+
+    /**
+     * Finds up to {@code limit} names matching the query. Names starting with the query come first, followed by
+     * camel-hump matches such as {@code HashMap} for {@code HM} or {@code HaMa}.
+     */
+    public List<String> complete(String query, int limit) {
+        if (limit <= 0)
+            return List.of();
+
+        List<String> results = findByPrefix(query, limit);
+        if (results.size() >= limit || query.isEmpty())
+            return results;
+
+        List<String> humpResults = findByCamelHumps(query, limit);
+        if (humpResults.isEmpty())
+            return results;
+
+        List<String> merged = new ArrayList<>(Math.min(limit, results.size() + humpResults.size()));
+        merged.addAll(results);
+        for (String name : humpResults) {
+            if (merged.size() >= limit)
+                break;
+
+            if (!name.startsWith(query)) {
+                merged.add(name);
+            }
+        }
+
+        return merged;
+    }
+
+    /**
+     * @return Up to {@code limit} of the best ranked names that start with the prefix.
+     */
+    public List<String> findByPrefix(String prefix, int limit) {
+        int start = lowerBound(prefix);
+        int end = upperBound(prefix, start);
+        var topK = new TopK(limit);
+        for (int id = start; id < end; id++) {
+            topK.offer(id);
+        }
+
+        return topK.toNames();
+    }
+
+    /**
+     * Finds names whose camel humps start with the humps of the query. Each hump of the query must be a prefix of the
+     * corresponding hump of the name, so {@code HMap} matches {@code HashMap} but not {@code HashMultimap}.
+     *
+     * @return Up to {@code limit} of the best ranked matching names.
+     */
+    public List<String> findByCamelHumps(String query, int limit) {
+        if (query.isEmpty())
+            return List.of();
+
+        var queryHumps = new StringBuilder();
+        for (int index = 0; index < query.length(); index++) {
+            if (isQueryHumpStart(query, index)) {
+                queryHumps.append(Character.toUpperCase(query.charAt(index)));
+            }
+        }
+
+        int start = humpLowerBound(queryHumps);
+        var topK = new TopK(limit);
+        for (int index = start; index < this.humpOrder.length; index++) {
+            int id = this.humpOrder[index];
+            if (!humpsStartWith(id, queryHumps))
+                break;
+
+            if (matchesHumps(id, query)) {
+                topK.offer(id);
+            }
+        }
+
+        return topK.toNames();
+    }
+
+    private String name(int id) {
+        return new String(this.chars, this.offsets[id], this.offsets[id + 1] - this.offsets[id]);
+    }
+
+    private int length(int id) {
+        return this.offsets[id + 1] - this.offsets[id];
+    }
+
+    /**
+     * Compares the name to the prefix, treating names that start with the prefix as equal.
+     */
+    private int comparePrefix(int id, CharSequence prefix) {
+        int offset = this.offsets[id];
+        int length = length(id);
+        int common = Math.min(length, prefix.length());
+        for (int index = 0; index < common; index++) {
+            int difference = this.chars[offset + index] - prefix.charAt(index);
+            if (difference != 0)
+                return difference;
+        }
+
+        return length < prefix.length() ? -1 : 0;
+    }
+
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (comparePrefix(middle, prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    private int upperBound(String prefix, int from) {
+        int low = from;
+        int high = size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (comparePrefix(middle, prefix) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    private int compareHumps(int first, int second) {
+        int firstOffset = this.humpOffsets[first];
+        int firstLength = this.humpOffsets[first + 1] - firstOffset;
+        int secondOffset = this.humpOffsets[second];
+        int secondLength = this.humpOffsets[second + 1] - secondOffset;
+        return Arrays.compare(this.humpChars, firstOffset, firstOffset + firstLength,
+            this.humpChars, secondOffset, secondOffset + secondLength);
+    }
+
+    private boolean humpsStartWith(int id, CharSequence humps) {
+        int offset = this.humpOffsets[id];
+        int length = this.humpOffsets[id + 1] - offset;
+        if (length < humps.length())
+            return false;
+
+        for (int index = 0; index < humps.length(); index++) {
+            if (this.humpChars[offset + index] != humps.charAt(index))
+                return false;
+        }
+
+        return true;
+    }
+
+    private int humpLowerBound(CharSequence humps) {
+        int low = 0;
+        int high = this.humpOrder.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int id = this.humpOrder[middle];
+            int offset = this.humpOffsets[id];
+            int length = this.humpOffsets[id + 1] - offset;
+            int common = Math.min(length, humps.length());
+            int comparison = 0;
+            for (int index = 0; index < common && comparison == 0; index++) {
+                comparison = this.humpChars[offset + index] - humps.charAt(index);
+            }
+
+            if (comparison == 0 && length < humps.length()) {
+                comparison = -1;
+            }
+
+            if (comparison < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Checks that every hump of the query is a prefix of the hump at the same position in the name. The first
+     * character of each hump is compared case-insensitively, the rest exactly.
+     */
+    private boolean matchesHumps(int id, String query) {
+        int offset = this.offsets[id];
+        int length = length(id);
+        int namePosition = 0;
+        int queryPosition = 0;
+        while (queryPosition < query.length()) {
+            if (namePosition >= length)
+                return false;
+
+            if (Character.toUpperCase(this.chars[offset + namePosition]) != Character.toUpperCase(query.charAt(queryPosition)))
+                return false;
+
+            namePosition++;
+            queryPosition++;
+            while (queryPosition < query.length() && !isQueryHumpStart(query, queryPosition)) {
+                if (namePosition >= length || this.chars[offset + namePosition] != query.charAt(queryPosition))
+                    return false;
+
+                namePosition++;
+                queryPosition++;
+            }
+
+            while (namePosition < length && !isHumpStart(this.chars, offset, length, namePosition)) {
+                namePosition++;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isHumpStart(CharSequence name, int index) {
+        if (index == 0)
+            return true;
+
+        char next = index + 1 < name.length() ? name.charAt(index + 1) : 0;
+        return isHumpStart(name.charAt(index - 1), name.charAt(index), next);
+    }
+
+    /**
+     * Every capital of a query starts a hump, so {@code HM} is read as two humps even though it would be a single
+     * acronym in a name.
+     */
+    private static boolean isQueryHumpStart(String query, int index) {
+        if (index == 0)
+            return true;
+
+        char current = query.charAt(index);
+        char previous = query.charAt(index - 1);
+        if (previous == '$' || previous == '_')
+            return current != '$' && current != '_';
+
+        return Character.isUpperCase(current);
+    }
+
+    private static boolean isHumpStart(char[] chars, int offset, int length, int index) {
+        if (index == 0)
+            return true;
+
+        char next = index + 1 < length ? chars[offset + index + 1] : 0;
+        return isHumpStart(chars[offset + index - 1], chars[offset + index], next);
+    }
+
+    private static boolean isHumpStart(char previous, char current, char next) {
+        if (previous == '$' || previous == '_')
+            return current != '$' && current != '_';
+
+        if (!Character.isUpperCase(current))
+            return false;
+
+        if (!Character.isUpperCase(previous))
+            return true;
+
+        // The last capital of an acronym starts the next word, e.g. the C in URLConnection
+        return Character.isLowerCase(next);
+    }
+
+    /**
+     * Whether the first name should be listed before the second.
+     */
+    private boolean ranksBefore(int first, int second) {
+        if (this.weights[first] != this.weights[second])
+            return this.weights[first] > this.weights[second];
+
+        int firstLength = length(first);
+        int secondLength = length(second);
+        if (firstLength != secondLength)
+            return firstLength < secondLength;
+
+        return first < second;
+    }
+
+    /**
+     * A bounded heap of name ids whose root is the worst ranked id kept so far.
+     */
+    private final class TopK {
+        private final int[] heap;
+        private int size;
+
+        private TopK(int limit) {
+            this.heap = new int[Math.max(0, limit)];
+        }
+
+        private void offer(int id) {
+            if (this.heap.length == 0)
+                return;
+
+            if (this.size < this.heap.length) {
+                this.heap[this.size] = id;
+                siftUp(this.size++);
+            } else if (ranksBefore(id, this.heap[0])) {
+                this.heap[0] = id;
+                siftDown(0);
+            }
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (!ranksBefore(this.heap[parent], this.heap[index]))
+                    return;
+
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int worst = index;
+                int left = index * 2 + 1;
+                int right = left + 1;
+                if (left < this.size && ranksBefore(this.heap[worst], this.heap[left])) {
+                    worst = left;
+                }
+
+                if (right < this.size && ranksBefore(this.heap[worst], this.heap[right])) {
+                    worst = right;
+                }
+
+                if (worst == index)
+                    return;
+
+                swap(index, worst);
+                index = worst;
+            }
+        }
+
+        private void swap(int first, int second) {
+            int temp = this.heap[first];
+            this.heap[first] = this.heap[second];
+            this.heap[second] = temp;
+        }
+
+        private List<String> toNames() {
+            var names = new String[this.size];
+            for (int index = this.size - 1; index >= 0; index--) {
+                names[index] = name(this.heap[0]);
+                this.heap[0] = this.heap[--this.size];
+                siftDown(0);
+            }
+
+            return List.of(names);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package dev.railroadide.railroad.ide.indexing;
+
+import dev.railroadide.railroad.Railroad;
+import dev.railroadide.railroad.project.facet.detector.GradleFacetDetector;
+import org.gradle.tooling.GradleConnectionException;
+import org.gradle.tooling.GradleConnector;
+import org.gradle.tooling.ProjectConnection;
+import org.gradle.tooling.model.eclipse.EclipseExternalDependency;
+import org.gradle.tooling.model.eclipse.EclipseProject;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Resolves the dependency jars of a Gradle project through the Tooling API's Eclipse model, which includes
+ * remapped Minecraft jars exposed by Loom and ForgeGradle as regular dependencies.
+ */
+public final class GradleClasspathResolver {
+    private GradleClasspathResolver() {
+    }
+
+    /**
+     * @return The resolved jars of the project and all of its subprojects, an empty list if the project is not a
+     * Gradle project, or nothing if the project could not be configured.
+     */
+    public static Optional<List<Path>> resolve(Path projectDir) {
+        boolean hasBuildFile = GradleFacetDetector.BUILD_FILES.stream()
+            .map(projectDir::resolve)
+            .anyMatch(Files::isRegularFile);
+        if (!hasBuildFile)
+            return Optional.of(List.of());
+
+        long startTime = System.currentTimeMillis();
+        try (ProjectConnection connection = GradleConnector.newConnector()
+            .forProjectDirectory(projectDir.toFile())
+            .connect()) {
+            OutputStream outputStream = OutputStream.nullOutputStream();
+            EclipseProject project = connection.model(EclipseProject.class)
+                .setStandardOutput(outputStream)
+                .setStandardError(outputStream)
+                .get();
+
+            Set<Path> jars = new LinkedHashSet<>();
+            collect(project, jars);
+            Railroad.LOGGER.info("Resolved {} dependency jars for {} in {}ms",
+                jars.size(), projectDir, System.currentTimeMillis() - startTime);
+            return Optional.of(List.copyOf(jars));
+        } catch (GradleConnectionException | IllegalStateException exception) {
+            Railroad.LOGGER.warn("Failed to resolve the Gradle classpath of {}", projectDir, exception);
+            return Optional.empty();
+        }
+    }
+
+    private static void collect(EclipseProject project, Set<Path> jars) {
+        for (EclipseExternalDependency dependency : project.getClasspath()) {
+            File file = dependency.getFile();
+            if (file != null && file.isFile() && file.getName().endsWith(".jar")) {
+                jars.add(file.toPath());
+            }
+        }
+
+        for (EclipseProject child : project.getChildren()) {
+            collect(child, jars);
+        }
+    }
+}
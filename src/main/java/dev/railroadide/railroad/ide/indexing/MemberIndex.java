@@ -0,0 +1,214 @@
+package dev.railroadide.railroad.ide.indexing;
+
+import dev.railroadide.railroad.ide.classparser.Type;
+import dev.railroadide.railroad.ide.classparser.stub.*;
+import org.objectweb.asm.Opcodes;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Builds and caches a {@link MemberTable} per class, covering the members declared by the class and everything it
+ * inherits through its superclass and interfaces.
+ * <p>
+ * A member declared further down the hierarchy hides the one it overrides, so every signature appears once. Private
+ * members of supertypes and static methods of interfaces are not inherited, and constructors are left out entirely
+ * as they are not members.
+ * <p>
+ * A table is only cached once every supertype of the class could be found. Until then, such as while the JDK index is
+ * still loading, it is built again on each request. Invalidating a class also drops the tables of every class that
+ * inherited from it, so an edit only costs the tables that could have changed.
+ */
+public final class MemberIndex {
+    private static final String OBJECT = "java.lang.Object";
+
+    private final Function<String, ClassStub> classStubs;
+    private final Map<String, MemberTable> tables = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> subtypes = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @param classStubs Looks up a class by its fully qualified name, returning null if it is unknown.
+     */
+    public MemberIndex(Function<String, ClassStub> classStubs) {
+        this.classStubs = classStubs;
+    }
+
+    /**
+     * @return The members of the class and its supertypes, or {@link MemberTable#EMPTY} if the class is unknown.
+     */
+    public MemberTable getMembers(String className) {
+        return getMembers(className, new HashSet<>()).table();
+    }
+
+    /**
+     * Drops every cached table, for when the classes they were built from have changed.
+     */
+    public void invalidateAll() {
+        this.generation.incrementAndGet();
+        this.tables.clear();
+        this.subtypes.clear();
+    }
+
+    /**
+     * Drops the cached tables of the given classes and of every class inheriting from them, for when the given
+     * classes have been changed, added or removed.
+     */
+    public void invalidate(Collection<String> classNames) {
+        this.generation.incrementAndGet();
+        Deque<String> pending = new ArrayDeque<>(classNames);
+        Set<String> seen = new HashSet<>();
+        while (!pending.isEmpty()) {
+            String className = pending.pop();
+            if (!seen.add(className))
+                continue;
+
+            this.tables.remove(className);
+            Set<String> inheriting = this.subtypes.remove(className);
+            if (inheriting != null) {
+                pending.addAll(inheriting);
+            }
+        }
+    }
+
+    private Members getMembers(String className, Set<String> visiting) {
+        MemberTable cached = this.tables.get(className);
+        if (cached != null)
+            return new Members(cached, true);
+
+        ClassStub stub = findClass(className);
+        if (stub == null)
+            return new Members(MemberTable.EMPTY, false);
+
+        // A class that (indirectly) extends itself is broken, but should not take the editor down with it
+        if (!visiting.add(className))
+            return new Members(MemberTable.EMPTY, true);
+
+        long generation = this.generation.get();
+        Members members = collectMembers(stub, visiting);
+        visiting.remove(className);
+        if (!members.complete())
+            return members;
+
+        MemberTable existing = this.tables.putIfAbsent(className, members.table());
+        if (existing != null)
+            return new Members(existing, true);
+
+        // Built from classes that were invalidated meanwhile, so it is only good for this request
+        if (this.generation.get() != generation) {
+            this.tables.remove(className, members.table());
+        }
+
+        return members;
+    }
+
+    private Members collectMembers(ClassStub stub, Set<String> visiting) {
+        Map<String, Stub> members = new LinkedHashMap<>();
+        // Synthetic members (lambda bodies, bridges, enum switch maps) cannot be referenced from source
+        stub.fields().stream()
+            .filter(field -> (field.modifiers() & Opcodes.ACC_SYNTHETIC) == 0)
+            .forEach(field -> members.put(signature(field), field));
+        stub.methods().stream()
+            .filter(method -> (method.modifiers() & Opcodes.ACC_SYNTHETIC) == 0)
+            .forEach(method -> members.put(signature(method), method));
+
+        List<String> supertypes = new ArrayList<>();
+        if (stub.superClass() instanceof Type.ClassType superClass) {
+            supertypes.add(superClass.name());
+        }
+
+        for (Type type : stub.interfaces()) {
+            if (type instanceof Type.ClassType interfaceType) {
+                supertypes.add(interfaceType.name());
+            }
+        }
+
+        // Interfaces do not extend Object, but every object implementing them does
+        if (stub.superClass() == null && !stub.getFullName().equals(OBJECT)) {
+            supertypes.add(OBJECT);
+        }
+
+        boolean complete = true;
+        for (String supertype : supertypes) {
+            ClassStub superStub = findClass(supertype);
+            if (superStub == null) {
+                complete = false;
+                continue;
+            }
+
+            this.subtypes.computeIfAbsent(superStub.getFullName(), name -> ConcurrentHashMap.newKeySet())
+                .add(stub.getFullName());
+            boolean isInterface = (superStub.modifiers() & Opcodes.ACC_INTERFACE) != 0;
+            Members inherited = getMembers(superStub.getFullName(), visiting);
+            complete &= inherited.complete();
+            for (Stub member : inherited.table().findByPrefix("")) {
+                if (isInherited(member, isInterface)) {
+                    members.putIfAbsent(signature(member), member);
+                }
+            }
+        }
+
+        return new Members(new MemberTable(List.copyOf(members.values())), complete);
+    }
+
+    private ClassStub findClass(String className) {
+        ClassStub stub = this.classStubs.apply(className);
+        // Types read from source may not be qualified if they were not imported explicitly
+        if (stub == null && className.indexOf('.') < 0) {
+            stub = this.classStubs.apply("java.lang." + className);
+        }
+
+        return stub;
+    }
+
+    private static boolean isInherited(Stub member, boolean fromInterface) {
+        return switch (member) {
+            case FieldStub field -> (field.modifiers() & Opcodes.ACC_PRIVATE) == 0;
+            case MethodStub method -> (method.modifiers() & Opcodes.ACC_PRIVATE) == 0
+                && !(fromInterface && (method.modifiers() & Opcodes.ACC_STATIC) != 0);
+            default -> true;
+        };
+    }
+
+    private static String signature(Stub member) {
+        return switch (member) {
+            case FieldStub field -> field.name();
+            case MethodStub method -> method.name() + parameterSignature(method.parameters());
+            default -> member.name();
+        };
+    }
+
+    private static String parameterSignature(List<Parameter> parameters) {
+        var builder = new StringBuilder("(");
+        for (Parameter parameter : parameters) {
+            builder.append(erasure(parameter.type())).append(';');
+        }
+
+        return builder.append(')').toString();
+    }
+
+    /**
+     * Source and class file stubs do not qualify names the same way, so only simple names are compared.
+     */
+    private static String erasure(Type type) {
+        return switch (type) {
+            case Type.ClassType classType -> simpleName(classType.name());
+            case Type.PrimitiveType primitiveType -> primitiveType.name();
+            case Type.ArrayType arrayType -> erasure(arrayType.componentType()) + "[]";
+            case Type.TypeVariable typeVariable -> typeVariable.name();
+            case Type.WildcardType ignored -> "?";
+        };
+    }
+
+    private static String simpleName(String name) {
+        return name.substring(Math.max(name.lastIndexOf('.'), name.lastIndexOf('$')) + 1);
+    }
+
+    /**
+     * @param complete Whether every supertype was found, so the table can be cached.
+     */
+    private record Members(MemberTable table, boolean complete) {
+    }
+}
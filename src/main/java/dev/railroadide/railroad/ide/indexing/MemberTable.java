@@ -0,0 +1,96 @@
+package dev.railroadide.railroad.ide.indexing;
+
+import dev.railroadide.railroad.ide.classparser.stub.Stub;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The members of a class, including the ones it inherits, sorted by name so that prefix lookups are a binary search
+ * followed by a scan over the matches.
+ *
+ * @see MemberIndex
+ */
+public final class MemberTable {
+    public static final MemberTable EMPTY = new MemberTable(List.of());
+
+    private final String[] names;
+    private final Stub[] members;
+
+    MemberTable(List<Stub> members) {
+        Stub[] sorted = members.toArray(Stub[]::new);
+        Arrays.sort(sorted, Comparator.comparing(Stub::name));
+        this.members = sorted;
+        this.names = new String[sorted.length];
+        for (int index = 0; index < sorted.length; index++) {
+            this.names[index] = sorted[index].name();
+        }
+    }
+
+    public int size() {
+        return this.members.length;
+    }
+
+    public boolean isEmpty() {
+        return this.members.length == 0;
+    }
+
+    /**
+     * @return All members whose name starts with the prefix, overloads included.
+     */
+    public List<Stub> findByPrefix(String prefix) {
+        int start = lowerBound(prefix);
+        int end = upperBound(prefix, start);
+        return Collections.unmodifiableList(Arrays.asList(this.members).subList(start, end));
+    }
+
+    /**
+     * @return The distinct names of the members that start with the prefix, in alphabetical order.
+     */
+    public List<String> findNames(String prefix) {
+        int start = lowerBound(prefix);
+        int end = upperBound(prefix, start);
+        List<String> names = new ArrayList<>(end - start);
+        for (int index = start; index < end; index++) {
+            // Overloads are next to each other, so only the first of each name is kept
+            if (index == start || !this.names[index].equals(this.names[index - 1])) {
+                names.add(this.names[index]);
+            }
+        }
+
+        return names;
+    }
+
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = this.names.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.names[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    private int upperBound(String prefix, int from) {
+        int low = from;
+        int high = this.names.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.names[middle].startsWith(prefix)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+}
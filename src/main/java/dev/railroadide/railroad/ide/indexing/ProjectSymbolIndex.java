@@ -0,0 +1,402 @@
+package dev.railroadide.railroad.ide.indexing;
+
+import dev.railroadide.railroad.Railroad;
+import dev.railroadide.railroad.ide.classparser.SourceStubParser;
+import dev.railroadide.railroad.ide.classparser.stub.ClassStub;
+import dev.railroadide.railroad.ide.watcher.FileChangeBatch;
+import dev.railroadide.railroad.ide.watcher.ProjectFileWatcher;
+import dev.railroadide.railroad.project.facet.detector.GradleFacetDetector;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Incremental index of the classes, methods and fields declared in a project's {@code src/} tree and in the
+ * dependency jars resolved by Gradle.
+ * <p>
+ * Every source file and jar is indexed into its own {@link ClassStubIndex}, stored under the SHA-256 hash of its
+ * content. A file is only hashed again when its size or modification time changes, and only parsed again when its
+ * hash changes, so an edit costs a single file. Jar indexes are persisted to the index cache, so a jar shared by
+ * many projects is only ever scanned once.
+ */
+public final class ProjectSymbolIndex {
+    private static final Map<Path, ProjectSymbolIndex> INDEXES = new ConcurrentHashMap<>();
+    private static final Path JAVA_HOME = Path.of(System.getProperty("java.home"));
+    private static final List<String> GRADLE_SETTINGS_FILES = List.of("settings.gradle", "settings.gradle.kts");
+
+    private final Path projectDir;
+    private final Path sourceDir;
+    private final ExecutorService executor;
+    private final ProjectFileWatcher watcher;
+
+    private final Map<Path, IndexedUnit> units = new ConcurrentHashMap<>();
+    private final Map<String, ClassStubIndex> indexesByHash = new ConcurrentHashMap<>();
+    private final Map<String, Path> classOwners = new ConcurrentHashMap<>();
+    private final MemberIndex members = new MemberIndex(this::findClass);
+    private final Consumer<FileChangeBatch> fileListener = this::onFilesChanged;
+    private volatile List<Path> classpath = List.of();
+    private volatile @Nullable ClassCompletions classCompletions;
+    // Only written on the executor thread
+    private volatile long classGeneration;
+
+    private ProjectSymbolIndex(Path projectDir) {
+        this.projectDir = projectDir;
+        this.sourceDir = projectDir.resolve("src");
+        this.executor = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+            .name("symbol-index-" + projectDir.getFileName())
+            .daemon()
+            .factory());
+        this.watcher = ProjectFileWatcher.forProject(projectDir);
+    }
+
+    /**
+     * @return The index of the project at the given directory, which starts indexing the first time it is requested.
+     */
+    public static ProjectSymbolIndex forProject(Path projectDir) {
+        Path normalized = projectDir.toAbsolutePath().normalize();
+        return INDEXES.computeIfAbsent(normalized, path -> {
+            var index = new ProjectSymbolIndex(path);
+            index.refresh();
+            index.watcher.addListener(index.fileListener);
+            return index;
+        });
+    }
+
+    /**
+     * Stops indexing the project at the given directory and releases its indexes.
+     */
+    public static void close(Path projectDir) {
+        ProjectSymbolIndex index = INDEXES.remove(projectDir.toAbsolutePath().normalize());
+        if (index != null) {
+            index.watcher.removeListener(index.fileListener);
+            index.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Resolves the Gradle classpath and brings every source file and jar up to date. Unchanged files and jars are
+     * skipped. If the classpath cannot be resolved, such as while a build file is broken, the jars of the last
+     * refresh are kept.
+     */
+    public CompletableFuture<Void> refresh() {
+        return CompletableFuture.runAsync(() -> {
+            long startTime = System.currentTimeMillis();
+            List<Path> sources = listSourceFiles();
+            List<Path> jars = GradleClasspathResolver.resolve(this.projectDir).orElse(this.classpath);
+            this.classpath = jars;
+
+            Set<Path> current = new HashSet<>(sources);
+            current.addAll(jars);
+            for (Path path : Set.copyOf(this.units.keySet())) {
+                if (!current.contains(path)) {
+                    removeUnit(path);
+                }
+            }
+
+            int reindexed = 0;
+            for (Path source : sources) {
+                if (indexUnit(source, false))
+                    reindexed++;
+            }
+
+            for (Path jar : jars) {
+                if (indexUnit(jar, true))
+                    reindexed++;
+            }
+
+            Railroad.LOGGER.info("Refreshed symbol index of {} ({} files and jars, {} reindexed, {} classes) in {}ms",
+                this.projectDir, this.units.size(), reindexed, this.classOwners.size(),
+                System.currentTimeMillis() - startTime);
+        }, this.executor).exceptionally(throwable -> {
+            Railroad.LOGGER.error("Failed to refresh symbol index of {}", this.projectDir, throwable);
+            return null;
+        });
+    }
+
+    /**
+     * Reindexes a single source file, or removes it from the index if it no longer exists.
+     */
+    public CompletableFuture<Void> update(Path sourceFile) {
+        Path path = sourceFile.toAbsolutePath().normalize();
+        return CompletableFuture.runAsync(() -> {
+            if (Files.isRegularFile(path)) {
+                indexUnit(path, false);
+            } else {
+                removeUnit(path);
+            }
+        }, this.executor).exceptionally(throwable -> {
+            Railroad.LOGGER.error("Failed to update symbol index for {}", path, throwable);
+            return null;
+        });
+    }
+
+    private void onFilesChanged(FileChangeBatch batch) {
+        // A build file change may change the dependencies, which only a refresh resolves again
+        if (batch.overflowed() || Stream.concat(batch.changed().stream(), batch.deleted().stream()).anyMatch(this::isBuildFile)) {
+            refresh();
+            return;
+        }
+
+        for (Path path : batch.changed()) {
+            if (isSourceFile(path)) {
+                update(path);
+            }
+        }
+
+        for (Path path : batch.deleted()) {
+            if (isSourceFile(path)) {
+                update(path);
+            } else if (path.startsWith(this.sourceDir)) {
+                // A deleted directory takes every unit beneath it along
+                this.units.keySet().stream().filter(unit -> unit.startsWith(path)).forEach(this::update);
+            }
+        }
+    }
+
+    public Optional<ClassStub> getClass(String fullName) {
+        Path owner = this.classOwners.get(fullName);
+        if (owner == null)
+            return Optional.empty();
+
+        IndexedUnit unit = this.units.get(owner);
+        return unit == null ? Optional.empty() : Optional.ofNullable(unit.index().get(fullName));
+    }
+
+    /**
+     * @return The members of the class and its supertypes, which may come from the project, its dependencies or the
+     * JDK (once the JDK index has been loaded).
+     */
+    public MemberTable getMembers(String className) {
+        return this.members.getMembers(className);
+    }
+
+    /**
+     * @return The fully qualified names of all indexed classes.
+     */
+    public Set<String> getClassNames() {
+        return Collections.unmodifiableSet(this.classOwners.keySet());
+    }
+
+    /**
+     * @return Up to {@code limit} simple names of the project's classes and its dependencies' that match the query,
+     * followed by those of the JDK once its index has been loaded.
+     * @see CompletionIndex#complete(String, int)
+     */
+    public List<String> getClassCompletions(String query, int limit) {
+        long generation = this.classGeneration;
+        ClassCompletions completions = this.classCompletions;
+        if (completions == null || completions.generation() != generation) {
+            List<String> simpleNames = new ArrayList<>(this.classOwners.size());
+            for (String fullName : this.classOwners.keySet()) {
+                simpleNames.add(fullName.substring(fullName.lastIndexOf('.') + 1));
+            }
+
+            // Tagged with the generation read before the names, so a change made meanwhile rebuilds it next time
+            completions = new ClassCompletions(generation, CompletionIndex.of(simpleNames));
+            this.classCompletions = completions;
+        }
+
+        List<String> results = completions.index().complete(query, limit);
+        Autocomplete jdk = StandardLibraryIndex.getAutocomplete(JAVA_HOME).getNow(null);
+        if (jdk == null || results.size() >= limit)
+            return results;
+
+        var merged = new LinkedHashSet<>(results);
+        for (String name : jdk.getCompletions(query, limit)) {
+            if (merged.size() >= limit)
+                break;
+
+            merged.add(name);
+        }
+
+        return List.copyOf(merged);
+    }
+
+    /**
+     * @return The dependency jars resolved by the last refresh.
+     */
+    public List<Path> getClasspath() {
+        return this.classpath;
+    }
+
+    private ClassStub findClass(String className) {
+        return getClass(className).orElseGet(() -> StandardLibraryIndex.getIfLoaded(JAVA_HOME)
+            .map(index -> index.get(className))
+            .orElse(null));
+    }
+
+    private boolean isBuildFile(Path path) {
+        if (!path.startsWith(this.projectDir))
+            return false;
+
+        String fileName = path.getFileName().toString();
+        return GradleFacetDetector.BUILD_FILES.contains(fileName) || GRADLE_SETTINGS_FILES.contains(fileName)
+            || fileName.equals("gradle.properties") || fileName.endsWith(".versions.toml");
+    }
+
+    private boolean isSourceFile(Path path) {
+        return path.startsWith(this.sourceDir) && path.getFileName().toString().endsWith(".java");
+    }
+
+    private List<Path> listSourceFiles() {
+        if (!Files.isDirectory(this.sourceDir))
+            return List.of();
+
+        try (Stream<Path> files = Files.walk(this.sourceDir)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".java"))
+                .filter(Files::isRegularFile)
+                .map(path -> path.toAbsolutePath().normalize())
+                .toList();
+        } catch (IOException exception) {
+            Railroad.LOGGER.error("Failed to list source files of {}", this.projectDir, exception);
+            return List.of();
+        }
+    }
+
+    /**
+     * @return Whether the unit had to be parsed or scanned again.
+     */
+    private boolean indexUnit(Path path, boolean isJar) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            long size = attributes.size();
+            long lastModified = attributes.lastModifiedTime().toMillis();
+
+            IndexedUnit existing = this.units.get(path);
+            if (existing != null && existing.size() == size && existing.lastModified() == lastModified)
+                return false;
+
+            byte[] content = isJar ? null : Files.readAllBytes(path);
+            String hash = content != null ? hash(content) : hash(path);
+            if (existing != null && existing.hash().equals(hash)) {
+                this.units.put(path, new IndexedUnit(hash, size, lastModified, existing.index()));
+                return false;
+            }
+
+            ClassStubIndex index = this.indexesByHash.get(hash);
+            boolean parsed = index == null;
+            if (index == null) {
+                index = isJar ? loadJar(path, hash) : ClassStubIndex.of(hash,
+                    SourceStubParser.parse(new String(content, StandardCharsets.UTF_8).toCharArray()));
+                this.indexesByHash.put(hash, index);
+            }
+
+            List<String> removed = detachUnit(path);
+            this.units.put(path, new IndexedUnit(hash, size, lastModified, index));
+            for (String className : index.getClassNames()) {
+                this.classOwners.put(className, path);
+            }
+
+            onClassesChanged(removed, index.getClassNames());
+
+            return parsed;
+        } catch (IOException | RuntimeException exception) {
+            Railroad.LOGGER.warn("Failed to index {}", path, exception);
+            return false;
+        }
+    }
+
+    private ClassStubIndex loadJar(Path jar, String hash) throws IOException {
+        Path cacheFile = Indexes.getCacheDirectory().resolve("jars").resolve(hash + ".stubs");
+        if (Files.isRegularFile(cacheFile)) {
+            try {
+                ClassStubIndex index = ClassStubIndex.map(cacheFile);
+                if (index.getFingerprint().equals(hash))
+                    return index;
+            } catch (IOException exception) {
+                Railroad.LOGGER.warn("Failed to read jar index {}, rescanning", cacheFile, exception);
+            }
+        }
+
+        List<ClassStub> stubs = ClassStubScanner.scanJars(List.of(jar)).stubs();
+        return ClassStubIndex.write(cacheFile, hash, stubs);
+    }
+
+    private void removeUnit(Path path) {
+        onClassesChanged(detachUnit(path), List.of());
+    }
+
+    /**
+     * Removes the unit without invalidating anything derived from its classes.
+     *
+     * @return The names of the classes the unit declared.
+     */
+    private List<String> detachUnit(Path path) {
+        IndexedUnit unit = this.units.remove(path);
+        if (unit == null)
+            return List.of();
+
+        List<String> classNames = unit.index().getClassNames();
+        for (String className : classNames) {
+            this.classOwners.remove(className, path);
+        }
+
+        boolean stillReferenced = this.units.values().stream().anyMatch(other -> other.hash().equals(unit.hash()));
+        if (!stillReferenced) {
+            this.indexesByHash.remove(unit.hash());
+        }
+
+        return classNames;
+    }
+
+    /**
+     * Drops the member tables built from the given classes. The class completions are only rebuilt if classes were
+     * added or removed, as an edit inside a class does not change its name.
+     */
+    private void onClassesChanged(List<String> removed, List<String> added) {
+        if (removed.isEmpty() && added.isEmpty())
+            return;
+
+        Set<String> changed = new HashSet<>(removed);
+        changed.addAll(added);
+        this.members.invalidate(changed);
+        if (changed.size() != removed.size() || changed.size() != added.size()) {
+            this.classGeneration++;
+        }
+    }
+
+    private static String hash(byte[] content) {
+        return HexFormat.of().formatHex(newDigest().digest(content));
+    }
+
+    private static String hash(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream stream = Files.newInputStream(file)) {
+            var buffer = new byte[64 * 1024];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not available", exception);
+        }
+    }
+
+    private record IndexedUnit(String hash, long size, long lastModified, ClassStubIndex index) {
+    }
+
+    private record ClassCompletions(long generation, CompletionIndex index) {
+    }
+}
@@ -0,0 +1,188 @@
+package dev.railroadide.railroad.ide.indexing;
+
+import dev.railroadide.railroad.Railroad;
+import dev.railroadide.railroad.ide.classparser.stub.ClassStub;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide cache of the standard library {@link ClassStubIndex} for each JDK.
+ * <p>
+ * The index for a JDK is built at most once per process on a background thread, and is persisted to the
+ * config directory so later launches only need to memory-map it.
+ */
+public final class StandardLibraryIndex {
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(
+        Thread.ofPlatform().name("standard-library-index").daemon().factory());
+
+    private static final Map<Path, JdkKey> KEYS = new ConcurrentHashMap<>();
+    private static final Map<JdkKey, CompletableFuture<ClassStubIndex>> INDEXES = new ConcurrentHashMap<>();
+    private static final Map<JdkKey, CompletableFuture<Autocomplete>> AUTOCOMPLETES = new ConcurrentHashMap<>();
+
+    private StandardLibraryIndex() {
+    }
+
+    /**
+     * @return The index of the JDK Railroad is running on.
+     */
+    public static CompletableFuture<ClassStubIndex> get() {
+        return get(currentJavaHome());
+    }
+
+    public static CompletableFuture<ClassStubIndex> get(Path javaHome) {
+        return get(keyOf(javaHome));
+    }
+
+    /**
+     * @return An {@link Autocomplete} over the index of the JDK Railroad is running on, shared by all editors.
+     */
+    public static CompletableFuture<Autocomplete> getAutocomplete() {
+        return getAutocomplete(currentJavaHome());
+    }
+
+    public static CompletableFuture<Autocomplete> getAutocomplete(Path javaHome) {
+        JdkKey key = keyOf(javaHome);
+        return retryOnFailure(AUTOCOMPLETES, key, () -> get(key).thenApply(Autocomplete::new));
+    }
+
+    /**
+     * @return The index of the given JDK if it has already been loaded, without triggering a load.
+     */
+    public static Optional<ClassStubIndex> getIfLoaded(Path javaHome) {
+        CompletableFuture<ClassStubIndex> future = INDEXES.get(keyOf(javaHome));
+        if (future == null || !future.isDone() || future.isCompletedExceptionally())
+            return Optional.empty();
+
+        return Optional.of(future.join());
+    }
+
+    private static CompletableFuture<ClassStubIndex> get(JdkKey key) {
+        return retryOnFailure(INDEXES, key, () -> CompletableFuture.supplyAsync(() -> loadOrBuild(key), EXECUTOR));
+    }
+
+    private static <T> CompletableFuture<T> retryOnFailure(Map<JdkKey, CompletableFuture<T>> cache, JdkKey key,
+                                                           Supplier<CompletableFuture<T>> loader) {
+        CompletableFuture<T> future = cache.computeIfAbsent(key, ignored -> loader.get());
+        // A failed load should not be cached forever, the next caller gets to try again
+        future.whenComplete((value, throwable) -> {
+            if (throwable != null) {
+                cache.remove(key, future);
+            }
+        });
+
+        return future;
+    }
+
+    private static ClassStubIndex loadOrBuild(JdkKey key) {
+        Path cacheFile = Indexes.getCacheDirectory().resolve("jdk-" + key.hash() + ".stubs");
+        String fingerprint = key.fingerprint();
+
+        if (Files.isRegularFile(cacheFile)) {
+            try {
+                ClassStubIndex index = ClassStubIndex.map(cacheFile);
+                if (index.getFingerprint().equals(fingerprint)) {
+                    Railroad.LOGGER.debug("Loaded {} standard library stubs for {} from {}", index.size(), key, cacheFile);
+                    return index;
+                }
+
+                Railroad.LOGGER.info("Standard library index for {} is out of date, rebuilding", key);
+            } catch (IOException exception) {
+                Railroad.LOGGER.warn("Failed to read standard library index {}, rebuilding", cacheFile, exception);
+            }
+        }
+
+        long startTime = System.currentTimeMillis();
+        List<ClassStub> stubs = Indexes.scanStandardLibrary(key.javaHome());
+        try {
+            ClassStubIndex index = ClassStubIndex.write(cacheFile, fingerprint, stubs);
+            Railroad.LOGGER.info("Indexed {} standard library classes for {} in {}ms",
+                stubs.size(), key, System.currentTimeMillis() - startTime);
+            return index;
+        } catch (IOException exception) {
+            throw new IllegalStateException("Failed to encode standard library index for " + key, exception);
+        }
+    }
+
+    private static JdkKey keyOf(Path javaHome) {
+        return KEYS.computeIfAbsent(javaHome, JdkKey::of);
+    }
+
+    private static Path currentJavaHome() {
+        return Path.of(System.getProperty("java.home"));
+    }
+
+    /**
+     * Identifies a JDK by its home directory and version.
+     */
+    public record JdkKey(Path javaHome, String version) {
+        public static JdkKey of(Path javaHome) {
+            Path normalized = javaHome.toAbsolutePath().normalize();
+            return new JdkKey(normalized, readVersion(normalized));
+        }
+
+        private static String readVersion(Path javaHome) {
+            Path releaseFile = javaHome.resolve("release");
+            if (Files.isRegularFile(releaseFile)) {
+                try {
+                    for (String line : Files.readAllLines(releaseFile)) {
+                        if (line.startsWith("JAVA_VERSION="))
+                            return line.substring("JAVA_VERSION=".length()).replace("\"", "").trim();
+                    }
+                } catch (IOException exception) {
+                    Railroad.LOGGER.warn("Failed to read JDK release file {}", releaseFile, exception);
+                }
+            }
+
+            if (javaHome.equals(currentJavaHome().toAbsolutePath().normalize()))
+                return Runtime.version().toString();
+
+            return "unknown";
+        }
+
+        private String hash() {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                byte[] hash = digest.digest((this.javaHome + "|" + this.version).getBytes(StandardCharsets.UTF_8));
+                return HexFormat.of().formatHex(hash, 0, 8);
+            } catch (NoSuchAlgorithmException exception) {
+                throw new IllegalStateException("SHA-256 is not available", exception);
+            }
+        }
+
+        private String fingerprint() {
+            var fingerprint = new StringBuilder(this.version);
+            for (Path source : Indexes.getStandardLibrarySources(this.javaHome)) {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+                    fingerprint.append('|').append(source.getFileName())
+                        .append(':').append(attributes.size())
+                        .append(':').append(attributes.lastModifiedTime().toMillis());
+                } catch (IOException exception) {
+                    fingerprint.append('|').append(source.getFileName()).append(":missing");
+                }
+            }
+
+            return fingerprint.toString();
+        }
+
+        @Override
+        public String toString() {
+            return this.version + " (" + this.javaHome + ")";
+        }
+    }
+}
@@ -1,17 +1,22 @@
 package dev.railroadide.railroad.ide.projectexplorer;
 
+import dev.railroadide.railroad.localization.L18n;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import lombok.Getter;
-import lombok.Setter;
 
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 
 public class PathItem {
-    @Setter
     @Getter
     private Path path;
     private int depthCount;
+    // Looked up once, as sorting the explorer compares it over and over
+    private Boolean directory;
+    @Getter
+    private boolean placeholder;
 
     private BooleanProperty cutProperty = new SimpleBooleanProperty(false);
 
@@ -20,15 +25,47 @@ public class PathItem {
         this.depthCount = 0;
     }
 
+    /**
+     * @param directory Whether the path is a directory, when that is known already.
+     */
+    public PathItem(Path path, boolean directory) {
+        this(path);
+        this.directory = directory;
+    }
+
+    /**
+     * @return The item shown in place of the children of a directory while it is being listed.
+     */
+    public static PathItem placeholder(Path directory) {
+        var item = new PathItem(directory, false);
+        item.placeholder = true;
+        return item;
+    }
+
     @Override
     public String toString() {
-        if (this.path.getFileName() == null) {
+        if (this.placeholder) {
+            return L18n.localize("railroad.ide.project_explorer.loading");
+        } else if (this.path.getFileName() == null) {
             return this.path.toString();
         } else {
             return this.path.getFileName().toString();
         }
     }
 
+    public void setPath(Path path) {
+        this.path = path;
+        this.directory = null;
+    }
+
+    public boolean isDirectory() {
+        if (this.directory == null) {
+            this.directory = Files.isDirectory(this.path, LinkOption.NOFOLLOW_LINKS);
+        }
+
+        return this.directory;
+    }
+
     public int getNewDepthCount() {
         return ++this.depthCount;
     }
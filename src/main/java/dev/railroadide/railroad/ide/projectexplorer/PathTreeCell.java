@@ -43,7 +43,8 @@ public class PathTreeCell extends TreeCell<PathItem> {
 
     private static ContextMenu createContextMenu(PathTreeCell cell, RRBorderPane mainPane) {
         Path currentPath = cell.getItem().getPath();
-        Path directoryPath = Files.isDirectory(currentPath) ? currentPath : currentPath.getParent();
+        boolean isDirectory = cell.getItem().isDirectory();
+        Path directoryPath = isDirectory ? currentPath : currentPath.getParent();
         Window window = cell.getScene().getWindow();
 
         var menu = new ContextMenu();
@@ -106,7 +107,7 @@ public class PathTreeCell extends TreeCell<PathItem> {
 
         menu.getItems().addAll(newMenu, cut, copy, paste, rename, delete, openIn);
 
-        if (Files.isDirectory(currentPath)) {
+        if (isDirectory) {
             var expandAll = new MenuItem("Expand All");
             expandAll.setOnAction(event -> ProjectExplorerPane.expandAll(cell.getTreeItem()));
 
@@ -129,9 +130,14 @@ public class PathTreeCell extends TreeCell<PathItem> {
             setText(null);
             setGraphic(null);
             setOnMouseClicked(null);
+        } else if (item.isPlaceholder()) {
+            setText(getString());
+            setGraphic(null);
+            setContextMenu(null);
+            setOnMouseClicked(null);
         } else {
             String text = getString();
-            Node image = FileUtils.getIcon(item.getPath());
+            Node image = FileUtils.getIcon(item.getPath(), item.isDirectory());
             if (isEditing()) {
                 if (textField != null) {
                     textField.setText(text);
@@ -152,8 +158,7 @@ public class PathTreeCell extends TreeCell<PathItem> {
                 // Double-click to open, not rename
                 setOnMouseClicked(event -> {
                     if (event.getClickCount() == 2 && !event.isConsumed() && getItem() != null) {
-                        Path path = getItem().getPath();
-                        if (Files.isDirectory(path)) {
+                        if (getItem().isDirectory()) {
                             TreeItem<PathItem> treeItem = getTreeItem();
                             treeItem.setExpanded(!treeItem.isExpanded());
                         } else {
@@ -182,7 +187,7 @@ public class PathTreeCell extends TreeCell<PathItem> {
             setText(null);
 
             var hbox = new RRHBox();
-            hbox.getChildren().addAll(FileUtils.getIcon(getItem().getPath()), textField);
+            hbox.getChildren().addAll(FileUtils.getIcon(getItem().getPath(), getItem().isDirectory()), textField);
             setGraphic(hbox);
             textField.selectAll();
 
@@ -211,6 +216,11 @@ public class PathTreeCell extends TreeCell<PathItem> {
 
                 Files.move(editingPath, newValue.getPath());
                 getItem().setPath(newValue.getPath());
+                // The new name may belong elsewhere among its siblings, which are kept sorted
+                TreeItem<PathItem> parent = getTreeItem().getParent();
+                if (parent != null) {
+                    parent.getChildren().sort(PathTreeItemComparator.INSTANCE);
+                }
                 Railroad.EVENT_BUS.publish(new FileRenamedEvent(new DefaultDocument(newName, newValue.getPath()), oldName, newName));
             } catch (IOException exception) {
                 cancelEdit();
@@ -1,61 +1,185 @@
 package dev.railroadide.railroad.ide.projectexplorer;
 
 import dev.railroadide.railroad.Railroad;
-import javafx.collections.FXCollections;
+import dev.railroadide.railroad.utility.ShutdownHooks;
+import javafx.application.Platform;
 import javafx.collections.ObservableList;
 import javafx.scene.control.TreeItem;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
-import java.nio.file.Files;
-import java.nio.file.LinkOption;
-import java.nio.file.Path;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * A tree item that lists its directory the first time its children are asked for.
+ * <p>
+ * On the FX thread the listing happens in the background: the item shows a placeholder child meanwhile, and the
+ * sorted children replace it in a single update. Whether each entry is a directory is read in the same pass as the
+ * listing, so neither the tree nor its cells have to ask the file system again. Children are kept sorted with
+ * {@link PathTreeItemComparator}, and are added to the index of the item, if it has one, as they are published.
+ */
 public class PathTreeItem extends TreeItem<PathItem> {
-    private boolean isLeaf = false;
-    private boolean isFirstTimeChildren = true;
-    private boolean isFirstTimeLeft = true;
+    private static final ExecutorService LISTING_EXECUTOR = Executors.newFixedThreadPool(2, Thread.ofPlatform()
+        .name("project-explorer-lister-", 0)
+        .daemon()
+        .factory());
+
+    static {
+        ShutdownHooks.addHook(LISTING_EXECUTOR::shutdownNow);
+    }
+
+    private final @Nullable Map<Path, PathTreeItem> index;
+    private ChildrenState childrenState;
+    private final List<Runnable> onChildrenLoaded = new ArrayList<>(0);
+    // Set when the directory changes while it is being listed, as the listing may have missed the change
+    private boolean relistAfterLoading;
 
     public PathTreeItem(PathItem pathItem) {
+        this(pathItem, null);
+    }
+
+    /**
+     * @param index Where the children of this item and their descendants are put by path as they are loaded.
+     */
+    public PathTreeItem(PathItem pathItem, @Nullable Map<Path, PathTreeItem> index) {
+        this(pathItem, index, true);
+    }
+
+    /**
+     * @param listChildren Whether to list the directory when the children are first asked for. Items that are built
+     *                     up by hand, such as search results, only hold the children added to them.
+     */
+    public PathTreeItem(PathItem pathItem, @Nullable Map<Path, PathTreeItem> index, boolean listChildren) {
         super(pathItem);
+        this.index = index;
+        this.childrenState = listChildren ? ChildrenState.NOT_LOADED : ChildrenState.LOADED;
     }
 
     @Override
     public ObservableList<TreeItem<PathItem>> getChildren() {
-        if (isFirstTimeChildren) {
-            isFirstTimeChildren = false;
-            super.getChildren().setAll(buildChildren(this));
+        if (this.childrenState == ChildrenState.NOT_LOADED) {
+            if (!getValue().isDirectory()) {
+                this.childrenState = ChildrenState.LOADED;
+            } else if (Platform.isFxApplicationThread()) {
+                this.childrenState = ChildrenState.LOADING;
+                super.getChildren().setAll(new TreeItem<>(PathItem.placeholder(getValue().getPath())));
+                listInBackground();
+            } else {
+                publishChildren(listChildren(getValue().getPath()));
+            }
         }
 
         return super.getChildren();
     }
 
+    /**
+     * @return Whether the directory has been listed, before which changes to its entries need not be tracked.
+     */
+    public boolean isChildrenLoaded() {
+        return this.childrenState == ChildrenState.LOADED;
+    }
+
+    /**
+     * @return Whether the directory is being listed in the background.
+     */
+    public boolean isChildrenLoading() {
+        return this.childrenState == ChildrenState.LOADING;
+    }
+
+    /**
+     * Lists the directory again once the listing in progress is done, for changes that arrive in the meantime.
+     */
+    public void relistAfterLoading() {
+        if (this.childrenState == ChildrenState.LOADING) {
+            this.relistAfterLoading = true;
+        }
+    }
+
+    /**
+     * Runs the action once the children are listed, starting the listing if needed.
+     */
+    public void whenChildrenLoaded(Runnable action) {
+        getChildren();
+        if (this.childrenState == ChildrenState.LOADED) {
+            action.run();
+        } else {
+            this.onChildrenLoaded.add(action);
+        }
+    }
+
     @Override
     public boolean isLeaf() {
-        if (this.isFirstTimeLeft) {
-            this.isFirstTimeLeft = false;
-            Path path = getValue().getPath();
-            this.isLeaf = !Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS);
+        return !getValue().isDirectory();
+    }
+
+    private void listInBackground() {
+        Path path = getValue().getPath();
+        LISTING_EXECUTOR.execute(() -> {
+            List<TreeItem<PathItem>> children = listChildren(path);
+            Platform.runLater(() -> {
+                if (this.relistAfterLoading) {
+                    this.relistAfterLoading = false;
+                    listInBackground();
+                    return;
+                }
+
+                publishChildren(children);
+            });
+        });
+    }
+
+    private void publishChildren(List<TreeItem<PathItem>> children) {
+        this.childrenState = ChildrenState.LOADED;
+        super.getChildren().setAll(children);
+        if (this.index != null) {
+            for (TreeItem<PathItem> child : children) {
+                this.index.put(child.getValue().getPath(), (PathTreeItem) child);
+            }
         }
 
-        return this.isLeaf;
+        List<Runnable> actions = List.copyOf(this.onChildrenLoaded);
+        this.onChildrenLoaded.clear();
+        actions.forEach(Runnable::run);
     }
 
-    private ObservableList<TreeItem<PathItem>> buildChildren(TreeItem<PathItem> treeItem) {
-        Path path = treeItem.getValue().getPath();
-        if (path != null && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
-            ObservableList<TreeItem<PathItem>> children = FXCollections.observableArrayList();
-            try (DirectoryStream<Path> directories = Files.newDirectoryStream(path)) {
-                for (Path directory : directories) {
-                    children.add(new PathTreeItem(new PathItem(directory)));
+    /**
+     * Lists the directory and sorts its entries, reading whether each is a directory along the way.
+     */
+    private List<TreeItem<PathItem>> listChildren(Path path) {
+        List<TreeItem<PathItem>> children = new ArrayList<>();
+        try {
+            Files.walkFileTree(path, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    children.add(new PathTreeItem(new PathItem(file, attributes.isDirectory()), PathTreeItem.this.index));
+                    return FileVisitResult.CONTINUE;
                 }
-            } catch (IOException exception) {
-                Railroad.LOGGER.error("Failed to build children for tree item: {}", treeItem, exception);
-            }
 
-            return children;
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exception) {
+                    if (!file.equals(path)) {
+                        children.add(new PathTreeItem(new PathItem(file, false), PathTreeItem.this.index));
+                    }
+
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException exception) {
+            Railroad.LOGGER.error("Failed to build children for tree item: {}", path, exception);
         }
 
-        return FXCollections.emptyObservableList();
+        children.sort(PathTreeItemComparator.INSTANCE);
+        return children;
+    }
+
+    private enum ChildrenState {
+        NOT_LOADED, LOADING, LOADED
     }
 }
@@ -3,22 +3,29 @@ package dev.railroadide.railroad.ide.projectexplorer;
 import javafx.scene.control.TreeItem;
 
 import java.io.Serializable;
-import java.nio.file.Files;
 import java.util.Comparator;
 
+/**
+ * Orders directories before files, then by name ignoring case. Names that only differ in case are ordered case
+ * sensitively, so no two entries of a directory compare as equal.
+ */
 public class PathTreeItemComparator implements Comparator<TreeItem<PathItem>>, Serializable {
+    public static final PathTreeItemComparator INSTANCE = new PathTreeItemComparator();
+
     @Override
     public int compare(TreeItem<PathItem> item1, TreeItem<PathItem> item2) {
-        boolean isDir1 = Files.isDirectory(item1.getValue().getPath());
-        boolean isDir2 = Files.isDirectory(item2.getValue().getPath());
+        boolean isDir1 = item1.getValue().isDirectory();
+        boolean isDir2 = item2.getValue().isDirectory();
 
         if (isDir1 && !isDir2) {
             return -1;
         } else if (!isDir1 && isDir2) {
             return 1;
         } else {
-            return item1.getValue().getPath().getFileName().toString()
-                .compareToIgnoreCase(item2.getValue().getPath().getFileName().toString());
+            String name1 = item1.getValue().toString();
+            String name2 = item2.getValue().toString();
+            int result = name1.compareToIgnoreCase(name2);
+            return result != 0 ? result : name1.compareTo(name2);
         }
     }
 }
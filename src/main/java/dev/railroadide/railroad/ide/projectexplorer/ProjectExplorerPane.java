@@ -16,8 +16,11 @@ import dev.railroadide.railroad.ide.projectexplorer.dialog.CreateFileDialog;
 import dev.railroadide.railroad.ide.projectexplorer.dialog.DeleteDialog;
 import dev.railroadide.railroad.ide.projectexplorer.task.FileCopyTask;
 import dev.railroadide.railroad.ide.projectexplorer.task.SearchTask;
-import dev.railroadide.railroad.ide.projectexplorer.task.WatchTask;
+import dev.railroadide.railroad.ide.search.FileNameIndex;
+import dev.railroadide.railroad.ide.search.SearchResults;
 import dev.railroadide.railroad.ide.ui.*;
+import dev.railroadide.railroad.ide.watcher.FileChangeBatch;
+import dev.railroadide.railroad.ide.watcher.ProjectFileWatcher;
 import dev.railroadide.railroad.plugin.defaults.DefaultDocument;
 import dev.railroadide.railroad.project.Project;
 import dev.railroadide.railroad.settings.keybinds.KeybindHandler;
@@ -28,9 +31,7 @@ import javafx.application.Platform;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
-import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.concurrent.WorkerStateEvent;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
@@ -38,33 +39,33 @@ import javafx.scene.control.*;
 import javafx.scene.input.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
-import org.jetbrains.annotations.NotNull;
 import org.kordamp.ikonli.fontawesome6.FontAwesomeSolid;
 import org.kordamp.ikonli.javafx.FontIcon;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
-public class ProjectExplorerPane extends RRVBox implements WatchTask.FileChangeListener {
+public class ProjectExplorerPane extends RRVBox {
+    private static final int SEARCH_RESULT_PAGE_SIZE = 200;
+    // Past this, the query is too loose for the results to be worth going through
+    private static final int MAX_SEARCH_RESULT_PAGES = 10;
     private static boolean fileChangeListenerEnabled = true;
     private final ExecutorService executorService = Executors.newFixedThreadPool(3);
     private final StringProperty messageProperty = new SimpleStringProperty();
     private final TreeView<PathItem> treeView = new TreeView<>();
     private final TextField searchField;
-    private final ObservableList<String> searchListItems = FXCollections.observableArrayList();
-    private final StringProperty searchProperty = new SimpleStringProperty();
-    private final List<String> searchList = new ArrayList<>();
+    // The loaded items of the tree by path, entries of items that have since been removed are dropped on lookup
+    private final Map<Path, PathTreeItem> treeItems = new HashMap<>();
+    // Whether the tree holds search results, whose directories only show the matches added to them
+    private boolean searching;
+    private SearchTask searchTask;
 
     public ProjectExplorerPane(Project project, RRBorderPane mainPane) {
-        Path rootPath = Path.of(project.getPathString());
+        Path rootPath = Path.of(project.getPathString()).toAbsolutePath().normalize();
         setPadding(new Insets(0));
         setSpacing(0);
         getStyleClass().add("rr-project-explorer");
@@ -75,7 +76,7 @@ public class ProjectExplorerPane extends RRVBox implements WatchTask.FileChangeL
         var header = createModernHeader(project);
 
         this.treeView.getSelectionModel().setSelectionMode(SelectionMode.SINGLE);
-        this.treeView.setRoot(new PathTreeItem(new PathItem(rootPath)));
+        this.treeView.setRoot(createRoot(rootPath, false));
         this.treeView.setEditable(true);
         this.treeView.getStyleClass().add("rr-tree-view");
         this.treeView.setCellFactory(param -> {
@@ -87,7 +88,7 @@ public class ProjectExplorerPane extends RRVBox implements WatchTask.FileChangeL
         this.treeView.prefHeightProperty().bind(heightProperty().subtract(60));
         this.treeView.setOnKeyReleased(event -> {
             TreeItem<PathItem> selectedItem = this.treeView.getSelectionModel().getSelectedItem();
-            if (selectedItem == null)
+            if (selectedItem == null || selectedItem.getValue().isPlaceholder())
                 return;
 
             PathItem item = selectedItem.getValue();
@@ -152,12 +153,11 @@ public class ProjectExplorerPane extends RRVBox implements WatchTask.FileChangeL
                 return;
             }
         });
-        sortTreeItems(this.treeView.getRoot());
 
+        FileNameIndex.forProject(rootPath);
         handleSearchEvents(rootPath);
 
-        var watchTask = new WatchTask(rootPath, this);
-        this.executorService.submit(watchTask);
+        ProjectFileWatcher.forProject(rootPath).addListener(this::onFilesChanged);
 
         getChildren().addAll(header, this.treeView);
 
@@ -184,8 +184,7 @@ public class ProjectExplorerPane extends RRVBox implements WatchTask.FileChangeL
                 Path path = file.toPath();
 
                 // we need to find the cells that match the path and set them to not cut
-                TreeItem<PathItem> rootItem = treeView.getRoot();
-                TreeItem<PathItem> item = ((ProjectExplorerPane) treeView.getParent()).findOrCreateTreeItem(rootItem, path);
+                TreeItem<PathItem> item = ((ProjectExplorerPane) treeView.getParent()).findTreeItem(path);
                 if (item == null)
                     continue;
 
@@ -311,6 +310,7 @@ public class ProjectExplorerPane extends RRVBox implements WatchTask.FileChangeL
                 Railroad.EVENT_BUS.publish(new FileEvent(document, FileEvent.EventType.ACTIVATED));
 
                 tab.setOnClosed(event -> {
+                    editorContent.close();
                     Railroad.EVENT_BUS.publish(new FileEvent(document, FileEvent.EventType.CLOSED));
                     if (tab.isSelected()) {
                         Railroad.EVENT_BUS.publish(new FileEvent(document, FileEvent.EventType.DEACTIVATED));
@@ -363,6 +363,12 @@ public class ProjectExplorerPane extends RRVBox implements WatchTask.FileChangeL
 
     public static void expandAll(TreeItem<PathItem> treeItem) {
         treeItem.setExpanded(true);
+        if (treeItem instanceof PathTreeItem pathTreeItem) {
+            // Directories are listed in the background, their children are expanded as they come in
+            pathTreeItem.whenChildrenLoaded(() -> pathTreeItem.getChildren().forEach(ProjectExplorerPane::expandAll));
+            return;
+        }
+
         for (TreeItem<PathItem> child : treeItem.getChildren()) {
             expandAll(child);
         }
@@ -370,6 +376,10 @@ public class ProjectExplorerPane extends RRVBox implements WatchTask.FileChangeL
 
     public static void collapseAll(TreeItem<PathItem> treeItem) {
         treeItem.setExpanded(false);
+        // Directories that were never listed have nothing expanded beneath them
+        if (treeItem instanceof PathTreeItem pathTreeItem && !pathTreeItem.isChildrenLoaded())
+            return;
+
         for (TreeItem<PathItem> child : treeItem.getChildren()) {
             collapseAll(child);
         }
@@ -436,31 +446,36 @@ public class ProjectExplorerPane extends RRVBox implements WatchTask.FileChangeL
 
     private void refreshProjectExplorer() {
         Path rootPath = Path.of(this.treeView.getRoot().getValue().getPath().toString());
-        this.treeView.setRoot(new PathTreeItem(new PathItem(rootPath)));
+        this.treeView.setRoot(createRoot(rootPath, false));
         this.treeView.getRoot().setExpanded(true);
-        sortTreeItems(this.treeView.getRoot());
     }
 
-    @Override
-    public void onFileChange(Path path, WatchEvent.Kind<?> kind) {
-        if (!fileChangeListenerEnabled)
+    private PathTreeItem createRoot(Path rootPath, boolean searching) {
+        this.searching = searching;
+        this.treeItems.clear();
+        var root = new PathTreeItem(new PathItem(rootPath), this.treeItems, !searching);
+        this.treeItems.put(rootPath, root);
+        return root;
+    }
+
+    /**
+     * Applies a batch of changes to the tree in one go on the FX thread. Modified files do not change the tree.
+     */
+    private void onFilesChanged(FileChangeBatch batch) {
+        if (!fileChangeListenerEnabled || batch.created().isEmpty() && batch.deleted().isEmpty() && !batch.overflowed())
             return;
 
         Platform.runLater(() -> {
-            // Refresh the tree view based on the kind of event
-            if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
-                addPathToTree(path);
-            } else if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
-                removePathFromTree(path);
-            }/* else if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
-
-            }*/
+            if (batch.overflowed()) {
+                refreshProjectExplorer();
+            } else {
+                batch.deleted().forEach(this::removePathFromTree);
+                batch.created().forEach(this::addPathToTree);
+            }
 
-            String searchValue = searchField.getText();
+            String searchValue = this.searchField.getText();
             if (!searchValue.isBlank()) {
-                var searchTask = new SearchTask(treeView.getRoot().getValue().getPath(), searchValue);
-                searchTask.setOnSucceeded(event -> updateTreeViewWithSearchResults(searchTask.getMatchedPaths()));
-                executorService.submit(searchTask);
+                search(this.treeView.getRoot().getValue().getPath(), searchValue);
             }
         });
     }
@@ -536,10 +551,7 @@ public class ProjectExplorerPane extends RRVBox implements WatchTask.FileChangeL
                     var task = new FileCopyTask(sourcePath, targetPath);
                     this.executorService.submit(task);
 
-                    task.setOnSucceeded(value -> Platform.runLater(() -> {
-                        var item = new PathTreeItem(new PathItem(targetPath));
-                        cell.getTreeItem().getChildren().add(item);
-                    }));
+                    task.setOnSucceeded(value -> Platform.runLater(() -> addPathToTree(targetPath)));
                 }
 
                 success = true;
@@ -552,170 +564,176 @@ public class ProjectExplorerPane extends RRVBox implements WatchTask.FileChangeL
 
     private void handleSearchEvents(Path rootPath) {
         this.searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            this.searchListItems.clear();
-
             if (newValue.isBlank()) {
+                cancelSearch();
                 resetTreeView(rootPath);
                 return;
             }
 
-            var searchTask = new SearchTask(rootPath, newValue);
-            this.searchList.clear();
-            this.searchProperty.bind(searchTask.resultProperty());
-            searchTask.setOnSucceeded((WorkerStateEvent stateEvent) -> {
-                this.searchListItems.addAll(this.searchList);
-                updateTreeViewWithSearchResults(searchTask.getMatchedPaths());
-            });
-
-            this.executorService.submit(searchTask);
+            search(rootPath, newValue);
         });
+    }
 
-        this.searchProperty.addListener((observable, oldValue, newValue) -> {
-            if (newValue != null) {
-                this.searchList.add(newValue);
+    /**
+     * Runs a search, cancelling the one still running for an earlier query.
+     */
+    private void search(Path rootPath, String query) {
+        cancelSearch();
+
+        var task = new SearchTask(rootPath, query);
+        task.setOnSucceeded(event -> {
+            if (this.searchTask == task) {
+                this.searchTask = null;
+                updateTreeViewWithSearchResults(task.getValue());
             }
         });
+
+        this.searchTask = task;
+        this.executorService.submit(task);
     }
 
-    private void updateTreeViewWithSearchResults(List<Path> matchedPaths) {
-        TreeItem<PathItem> rootItem = treeView.getRoot();
-        rootItem.getChildren().clear();
+    private void cancelSearch() {
+        if (this.searchTask != null) {
+            this.searchTask.cancel();
+            this.searchTask = null;
+        }
+    }
 
-        for (Path path : matchedPaths) {
-            TreeItem<PathItem> parentItem = findOrCreateTreeItem(rootItem, path.getParent());
-            if (isMissingPath(parentItem, path)) {
-                TreeItem<PathItem> newItem = new PathTreeItem(new PathItem(path));
-                parentItem.getChildren().add(newItem);
-            }
+    private void updateTreeViewWithSearchResults(SearchResults results) {
+        TreeItem<PathItem> rootItem = createRoot(this.treeView.getRoot().getValue().getPath(), true);
+        this.treeView.setRoot(rootItem);
+        rootItem.setExpanded(true);
+        showSearchResultsPage(rootItem, results, 0);
+    }
+
+    /**
+     * Adds one page of results to the tree, and the next page on a later pulse, so the best matches show up straight
+     * away and the FX thread is never held up by a large result set.
+     */
+    private void showSearchResultsPage(TreeItem<PathItem> rootItem, SearchResults results, int page) {
+        if (this.treeView.getRoot() != rootItem || page >= MAX_SEARCH_RESULT_PAGES)
+            return;
+
+        List<SearchResults.Match> matches = results.page(page, SEARCH_RESULT_PAGE_SIZE);
+        for (SearchResults.Match match : matches) {
+            TreeItem<PathItem> parentItem = findOrCreateTreeItem(rootItem, match.path().getParent());
+            insertChild(parentItem, match.path());
         }
 
-        filterTreeItems(rootItem, matchedPaths);
-        sortTreeItems(rootItem);
-        expandAllFolders(rootItem);
+        if (page + 1 < results.pageCount(SEARCH_RESULT_PAGE_SIZE)) {
+            Platform.runLater(() -> showSearchResultsPage(rootItem, results, page + 1));
+        }
     }
 
     private TreeItem<PathItem> findOrCreateTreeItem(TreeItem<PathItem> rootItem, Path path) {
         if (path == null || path.equals(rootItem.getValue().getPath()))
             return rootItem;
 
-        // Recursively create parent items
-        TreeItem<PathItem> parentItem = findOrCreateTreeItem(rootItem, path.getParent());
-
-        // Check if the current item already exists
-        TreeItem<PathItem> currentItem = findTreeItemRecursive(parentItem, path);
-        if (currentItem == null) {
-            currentItem = new PathTreeItem(new PathItem(path));
-            parentItem.getChildren().add(currentItem);
-        }
+        TreeItem<PathItem> currentItem = findTreeItem(path);
+        if (currentItem != null)
+            return currentItem;
 
-        return currentItem;
+        // Recursively create parent items, expanded so the matches beneath them are visible
+        TreeItem<PathItem> parentItem = findOrCreateTreeItem(rootItem, path.getParent());
+        TreeItem<PathItem> item = insertChild(parentItem, path);
+        item.setExpanded(true);
+        return item;
     }
 
-    private void filterTreeItems(TreeItem<PathItem> parentItem, List<Path> matchedPaths) {
-        if (parentItem != null && !parentItem.getChildren().isEmpty()) {
-            parentItem.getChildren().removeIf(child -> !isPathMatched(child.getValue().getPath(), matchedPaths));
-            for (TreeItem<PathItem> child : parentItem.getChildren()) {
-                filterTreeItems(child, matchedPaths);
+    /**
+     * Adds an item for the path to the already sorted children of the parent, unless there is one.
+     *
+     * @return The item for the path.
+     */
+    private TreeItem<PathItem> insertChild(TreeItem<PathItem> parentItem, Path path) {
+        var item = new PathTreeItem(new PathItem(path), this.treeItems, !this.searching);
+        ObservableList<TreeItem<PathItem>> children = parentItem.getChildren();
+        int index = Collections.binarySearch(children, item, PathTreeItemComparator.INSTANCE);
+        if (index >= 0) {
+            TreeItem<PathItem> existing = children.get(index);
+            if (existing instanceof PathTreeItem pathTreeItem) {
+                this.treeItems.put(path, pathTreeItem);
             }
-        }
-    }
 
-    private boolean isPathMatched(Path path, List<Path> matchedPaths) {
-        for (Path matchedPath : matchedPaths) {
-            if (matchedPath.startsWith(path)) {
-                return true;
-            }
+            return existing;
         }
 
-        return false;
+        children.add(-index - 1, item);
+        this.treeItems.put(path, item);
+        return item;
     }
 
     private void resetTreeView(Path rootPath) {
-        TreeItem<PathItem> rootItem = treeView.getRoot();
-        rootItem.getChildren().clear();
-
-        try {
-            Files.walkFileTree(rootPath, new SimpleFileVisitor<>() {
-                @Override
-                public @NotNull FileVisitResult visitFile(@NotNull Path file, @NotNull BasicFileAttributes attrs) {
-                    addPathToTree(file);
-                    return FileVisitResult.CONTINUE;
-                }
-
-                @Override
-                public @NotNull FileVisitResult preVisitDirectory(@NotNull Path dir, @NotNull BasicFileAttributes attrs) {
-                    addPathToTree(dir);
-                    return FileVisitResult.CONTINUE;
-                }
-            });
-        } catch (IOException exception) {
-            Railroad.LOGGER.error("Error while walking file tree", exception);
-        }
-
-        sortTreeItems(rootItem);
-    }
-
-    private void sortTreeItems(TreeItem<PathItem> parentItem) {
-        if (parentItem != null && !parentItem.getChildren().isEmpty()) {
-            parentItem.getChildren().sort(new PathTreeItemComparator());
-            for (TreeItem<PathItem> child : parentItem.getChildren()) {
-                sortTreeItems(child);
-            }
-        }
+        this.treeView.setRoot(createRoot(rootPath, false));
+        this.treeView.getRoot().setExpanded(true);
     }
 
+    /**
+     * Adds the path to the tree if its directory has been listed already, otherwise listing it will pick it up.
+     */
     private void addPathToTree(Path path) {
         TreeItem<PathItem> parentItem = findTreeItem(path.getParent());
-        if (parentItem != null && isMissingPath(parentItem, path)) {
-            PathItem newItem = new PathItem(path);
-            TreeItem<PathItem> newTreeItem = new PathTreeItem(newItem);
-            parentItem.getChildren().add(newTreeItem);
-            sortTreeItems(parentItem);
+        if (!(parentItem instanceof PathTreeItem pathTreeItem))
+            return;
+
+        if (pathTreeItem.isChildrenLoaded()) {
+            insertChild(parentItem, path);
+        } else {
+            pathTreeItem.relistAfterLoading();
         }
     }
 
     private void removePathFromTree(Path path) {
         TreeItem<PathItem> itemToRemove = findTreeItem(path);
-        if (itemToRemove != null && itemToRemove.getParent() != null) {
-            TreeItem<PathItem> parentItem = itemToRemove.getParent();
-            parentItem.getChildren().remove(itemToRemove);
-            sortTreeItems(parentItem);
+        if (itemToRemove == null) {
+            if (findTreeItem(path.getParent()) instanceof PathTreeItem parentItem) {
+                parentItem.relistAfterLoading();
+            }
+
+            return;
         }
-    }
 
-    private TreeItem<PathItem> findTreeItem(Path path) {
-        return findTreeItemRecursive(treeView.getRoot(), path);
-    }
+        if (itemToRemove.getParent() == null)
+            return;
 
-    private TreeItem<PathItem> findTreeItemRecursive(TreeItem<PathItem> currentItem, Path path) {
-        if (currentItem.getValue().getPath().equals(path)) {
-            return currentItem;
+        ObservableList<TreeItem<PathItem>> siblings = itemToRemove.getParent().getChildren();
+        int index = Collections.binarySearch(siblings, itemToRemove, PathTreeItemComparator.INSTANCE);
+        if (index >= 0 && siblings.get(index) == itemToRemove) {
+            siblings.remove(index);
+        } else {
+            siblings.remove(itemToRemove);
         }
-        for (TreeItem<PathItem> child : currentItem.getChildren()) {
-            TreeItem<PathItem> result = findTreeItemRecursive(child, path);
-            if (result != null) {
-                return result;
-            }
+
+        this.treeItems.remove(path);
+        if (itemToRemove.getValue().isDirectory()) {
+            this.treeItems.keySet().removeIf(key -> key.startsWith(path));
         }
-        return null;
     }
 
-    private void expandAllFolders(TreeItem<PathItem> item) {
-        if (item != null && !item.isLeaf()) {
-            item.setExpanded(true);
-            for (TreeItem<PathItem> child : item.getChildren()) {
-                expandAllFolders(child);
-            }
+    /**
+     * @return The loaded item for the path, found in O(depth) rather than by walking the tree.
+     */
+    private TreeItem<PathItem> findTreeItem(Path path) {
+        if (path == null)
+            return null;
+
+        PathTreeItem item = this.treeItems.get(path);
+        if (item == null)
+            return null;
+
+        if (!path.equals(item.getValue().getPath()) || !isInTree(item)) {
+            this.treeItems.remove(path);
+            return null;
         }
+
+        return item;
     }
 
-    private boolean isMissingPath(TreeItem<PathItem> parentItem, Path path) {
-        for (TreeItem<PathItem> child : parentItem.getChildren()) {
-            if (child.getValue().getPath().equals(path)) {
-                return false;
-            }
+    private boolean isInTree(TreeItem<PathItem> item) {
+        while (item.getParent() != null) {
+            item = item.getParent();
         }
 
-        return true;
+        return item == this.treeView.getRoot();
     }
 }
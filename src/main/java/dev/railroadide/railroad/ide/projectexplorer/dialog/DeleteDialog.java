@@ -1,10 +1,8 @@
 package dev.railroadide.railroad.ide.projectexplorer.dialog;
 
 import dev.railroadide.railroad.Railroad;
-import dev.railroadide.railroad.plugin.defaults.DefaultDocument;
 import dev.railroadide.railroad.utility.FileUtils;
 import dev.railroadide.railroad.window.WindowBuilder;
-import dev.railroadide.railroadpluginapi.events.FileEvent;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -23,8 +21,6 @@ public class DeleteDialog {
                     } else {
                         Files.deleteIfExists(path);
                     }
-
-                    Railroad.EVENT_BUS.publish(new FileEvent(new DefaultDocument(path.getFileName().toString(), path), FileEvent.EventType.DELETED));
                 } catch (IOException exception) {
                     Railroad.LOGGER.error("Failed to delete file or directory: {}", path, exception);
                 }
@@ -0,0 +1,36 @@
+package dev.railroadide.railroad.ide.projectexplorer.task;
+
+import dev.railroadide.railroad.ide.search.ContentIndex;
+import dev.railroadide.railroad.ide.search.ContentQuery;
+import dev.railroadide.railroad.ide.search.FileMatch;
+import javafx.concurrent.Task;
+
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Finds the files of a project containing some text, using the project's {@link ContentIndex}. Matches are handed to
+ * the consumer as they are found, on the search threads, and the task's value is the number of matching files.
+ * Cancelling the task stops the search as well.
+ */
+public class ContentSearchTask extends Task<Integer> {
+    private final Path path;
+    private final ContentQuery query;
+    private final Consumer<FileMatch> consumer;
+
+    public ContentSearchTask(Path path, ContentQuery query, Consumer<FileMatch> consumer) {
+        this.path = path;
+        this.query = query;
+        this.consumer = consumer;
+    }
+
+    @Override
+    protected Integer call() throws Exception {
+        updateProgress(0, 0);
+        updateMessage("Searching...");
+
+        int matchedFiles = ContentIndex.forProject(this.path).search(this.query, this.consumer, this::isCancelled).get();
+        updateMessage("%d files found!".formatted(matchedFiles));
+        return matchedFiles;
+    }
+}
@@ -1,21 +1,18 @@
 package dev.railroadide.railroad.ide.projectexplorer.task;
 
-import javafx.beans.property.SimpleStringProperty;
-import javafx.beans.property.StringProperty;
+import dev.railroadide.railroad.ide.search.FileNameIndex;
+import dev.railroadide.railroad.ide.search.SearchResults;
 import javafx.concurrent.Task;
-import lombok.Getter;
 
-import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.Path;
 
-public class SearchTask extends Task<Void> {
+/**
+ * Finds the files of a project whose names fuzzy match a query, using the project's {@link FileNameIndex}.
+ * Cancelling the task stops the query on the index as well.
+ */
+public class SearchTask extends Task<SearchResults> {
     private final Path path;
     private final String searchQuery;
-    private final StringProperty resultProperty = new SimpleStringProperty();
-    @Getter
-    private final List<Path> matchedPaths = new ArrayList<>();
 
     public SearchTask(Path path, String searchQuery) {
         this.path = path;
@@ -23,31 +20,12 @@ public class SearchTask extends Task<Void> {
     }
 
     @Override
-    protected Void call() throws Exception {
+    protected SearchResults call() throws Exception {
         updateProgress(0, 0);
         updateMessage("Searching...");
 
-        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + this.searchQuery + "*");
-        Files.walkFileTree(this.path, new SimpleFileVisitor<>() {
-            private int count = 0;
-
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                if (matcher.matches(file.getFileName())) {
-                    this.count++;
-                    matchedPaths.add(file);
-                    SearchTask.this.resultProperty.setValue(file.toAbsolutePath().toString());
-                    updateMessage("%d files found!".formatted(this.count));
-                }
-
-                return FileVisitResult.CONTINUE;
-            }
-        });
-
-        return null;
-    }
-
-    public StringProperty resultProperty() {
-        return resultProperty;
+        SearchResults results = FileNameIndex.forProject(this.path).search(this.searchQuery, this::isCancelled).get();
+        updateMessage("%d files found!".formatted(results.size()));
+        return results;
     }
 }
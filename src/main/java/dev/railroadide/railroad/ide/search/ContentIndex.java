@@ -0,0 +1,616 @@
+package dev.railroadide.railroad.ide.search;
+
+import dev.railroadide.railroad.Railroad;
+import dev.railroadide.railroad.config.ConfigHandler;
+import dev.railroadide.railroad.ide.watcher.FileChangeBatch;
+import dev.railroadide.railroad.ide.watcher.ProjectFileWatcher;
+import dev.railroadide.railroad.utility.ShutdownHooks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A trigram index over the text files of a project, for finding text in files.
+ * <p>
+ * The index is a set of {@link IndexSegment} files in the config directory, which outlive the session: when a project
+ * is opened again only the files whose size or modification time changed are read. Directories ignored by the
+ * project's {@link ProjectFileWatcher} are left out, and the watcher's batches keep the index current by writing the
+ * changed files to a new segment. Each file is only searched in the segment it was last written to; segments that
+ * are mostly outdated, and small segments once there are too many of them, are merged by indexing their current files
+ * again.
+ * <p>
+ * A query first narrows each segment down to the files containing every trigram of its literal text, with the
+ * segments looked at in parallel, and then verifies the candidates against the pattern, again in parallel, handing out
+ * each matching file as soon as it is verified.
+ */
+public final class ContentIndex {
+    public static final long MAX_FILE_SIZE = 4 * 1024 * 1024;
+    public static final int MAX_MATCHING_LINES = 10_000;
+    public static final int MAX_LINES_PER_FILE = 100;
+
+    private static final Map<Path, ContentIndex> INDEXES = new ConcurrentHashMap<>();
+    private static final ExecutorService SEARCH_EXECUTOR = Executors.newFixedThreadPool(
+        Math.max(2, Runtime.getRuntime().availableProcessors()),
+        Thread.ofPlatform().name("content-search-", 0).daemon().factory());
+    // How many files are read at once while indexing, which bounds the trigrams held in memory
+    private static final int READ_WINDOW = 256;
+    // How many trigram and file pairs a segment holds at most, a few bytes each on disk
+    private static final int MAX_SEGMENT_PAIRS = 4_000_000;
+    // Segments smaller than this are merged once there are more than MAX_SMALL_SEGMENTS of them
+    private static final long SMALL_SEGMENT_SIZE = 1024 * 1024;
+    private static final int MAX_SMALL_SEGMENTS = 8;
+    private static final int VERIFY_CHUNK_SIZE = 32;
+    private static final int MAX_LINE_LENGTH = 300;
+
+    static {
+        ShutdownHooks.addHook(SEARCH_EXECUTOR::shutdownNow);
+    }
+
+    private final Path projectDir;
+    private final Path indexDir;
+    private final ProjectFileWatcher watcher;
+    private final ExecutorService writer;
+    private final Consumer<FileChangeBatch> fileListener = this::onFilesChanged;
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+
+    // Replaced as a whole by the writer thread, so a query works on the segments as they were when it started
+    private volatile List<IndexSegment> segments = List.of();
+    // The segment each file was last written to, by path relative to the project directory. Only written by the
+    // writer thread, and replaced as a whole when rebuilt so a query never sees it half filled
+    private volatile Map<String, DocumentRef> documents = new ConcurrentHashMap<>();
+    private int nextSegmentNumber;
+
+    private ContentIndex(Path projectDir) {
+        this.projectDir = projectDir;
+        this.indexDir = ConfigHandler.getConfigDirectory()
+            .resolve("search-index")
+            .resolve(projectDir.getFileName() + "-" + Integer.toHexString(projectDir.toString().hashCode()));
+        this.watcher = ProjectFileWatcher.forProject(projectDir);
+        this.writer = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+            .name("content-index-" + projectDir.getFileName())
+            .daemon()
+            .factory());
+    }
+
+    /**
+     * @return The index of the project at the given directory, which is brought up to date the first time it is
+     * requested.
+     */
+    public static ContentIndex forProject(Path projectDir) {
+        Path normalized = projectDir.toAbsolutePath().normalize();
+        return INDEXES.computeIfAbsent(normalized, path -> {
+            var index = new ContentIndex(path);
+            index.watcher.addListener(index.fileListener);
+            index.writer.execute(index::open);
+            return index;
+        });
+    }
+
+    /**
+     * Stops updating the index of the project at the given directory and closes its segments. The segment files are
+     * kept for the next time the project is opened.
+     */
+    public static void close(Path projectDir) {
+        ContentIndex index = INDEXES.remove(projectDir.toAbsolutePath().normalize());
+        if (index != null) {
+            index.watcher.removeListener(index.fileListener);
+            index.writer.execute(() -> index.segments.forEach(ContentIndex::closeQuietly));
+            index.writer.shutdown();
+        }
+    }
+
+    /**
+     * Searches the files of the project. The search runs once the index is up to date.
+     *
+     * @param consumer  Receives each matching file as soon as it is verified, on one of the search threads.
+     * @param cancelled Checked while the search runs, a cancelled search completes with a
+     *                  {@link CancellationException}.
+     * @return The number of matching files.
+     * @throws java.util.regex.PatternSyntaxException If the query is not a valid regular expression.
+     */
+    public CompletableFuture<Integer> search(ContentQuery query, Consumer<FileMatch> consumer, BooleanSupplier cancelled) {
+        Pattern pattern = query.compile();
+        int[] trigrams = query.requiredTrigrams();
+        var matchedFiles = new AtomicInteger();
+        var remainingLines = new AtomicInteger(MAX_MATCHING_LINES);
+        return this.ready.thenCompose(ignored -> {
+            long startTime = System.nanoTime();
+            Set<IndexSegment> searched = Collections.newSetFromMap(new IdentityHashMap<>());
+            return candidates(this.segments, searched, trigrams, cancelled).thenCompose(candidates -> {
+                List<String> paths = List.copyOf(candidates);
+
+                List<CompletableFuture<Void>> verifications = new ArrayList<>();
+                for (int start = 0; start < paths.size(); start += VERIFY_CHUNK_SIZE) {
+                    List<String> chunk = paths.subList(start, Math.min(paths.size(), start + VERIFY_CHUNK_SIZE));
+                    verifications.add(CompletableFuture.runAsync(() -> {
+                        for (String path : chunk) {
+                            if (cancelled.getAsBoolean())
+                                throw new CancellationException("Search for '" + query.text() + "' was cancelled");
+
+                            if (remainingLines.get() <= 0)
+                                return;
+
+                            FileMatch match = verify(path, pattern, remainingLines);
+                            if (match != null) {
+                                matchedFiles.incrementAndGet();
+                                consumer.accept(match);
+                            }
+                        }
+                    }, SEARCH_EXECUTOR));
+                }
+
+                return CompletableFuture.allOf(verifications.toArray(CompletableFuture[]::new)).thenApply(ignored2 -> {
+                    Railroad.LOGGER.debug("Searched for '{}' in {} candidate files, {} matched, in {}ms", query.text(),
+                        paths.size(), matchedFiles.get(), (System.nanoTime() - startTime) / 1_000_000);
+                    return matchedFiles.get();
+                });
+            });
+        });
+    }
+
+    /**
+     * Looks up the files that may match in the segments, in parallel.
+     * <p>
+     * A segment can be closed while it is being read: when it is merged, its files are written to segments this
+     * search has not looked at yet, which are then searched as well. When it is closed because a search thread was
+     * interrupted, it is opened again for later searches and, for this one, all of its current files are verified.
+     *
+     * @param searched The segments already searched, which the given segments are added to.
+     * @return The paths of the current files that may match.
+     */
+    private CompletableFuture<Set<String>> candidates(List<IndexSegment> segments, Set<IndexSegment> searched,
+                                                      int[] trigrams, BooleanSupplier cancelled) {
+        searched.addAll(segments);
+        List<CompletableFuture<List<String>>> candidates = segments.stream()
+            .map(segment -> CompletableFuture.supplyAsync(() -> candidates(segment, trigrams, cancelled), SEARCH_EXECUTOR))
+            .toList();
+
+        return CompletableFuture.allOf(candidates.toArray(CompletableFuture[]::new)).thenCompose(ignored -> {
+            Set<String> paths = new LinkedHashSet<>();
+            boolean closed = false;
+            for (int index = 0; index < segments.size(); index++) {
+                List<String> found = candidates.get(index).join();
+                if (found != null) {
+                    paths.addAll(found);
+                    continue;
+                }
+
+                closed = true;
+                IndexSegment segment = segments.get(index);
+                paths.addAll(currentFiles(segment, segment.textDocuments()));
+                if (this.segments.contains(segment)) {
+                    scheduleReopen(segment);
+                }
+            }
+
+            if (!closed)
+                return CompletableFuture.completedFuture(paths);
+
+            List<IndexSegment> unsearched = this.segments.stream()
+                .filter(segment -> !searched.contains(segment))
+                .toList();
+            return candidates(unsearched, searched, trigrams, cancelled).thenApply(more -> {
+                paths.addAll(more);
+                return paths;
+            });
+        });
+    }
+
+    /**
+     * @return The paths of the current files of the segment that may match, or {@code null} if the segment has been
+     * closed.
+     */
+    private List<String> candidates(IndexSegment segment, int[] trigrams, BooleanSupplier cancelled) {
+        if (cancelled.getAsBoolean())
+            throw new CancellationException("Search was cancelled");
+
+        int[] ids;
+        try {
+            ids = trigrams == null ? segment.textDocuments() : segment.documentsContaining(trigrams);
+        } catch (ClosedChannelException exception) {
+            if (exception instanceof ClosedByInterruptException) {
+                // Otherwise the next segment read on this pooled thread would be closed as well
+                Thread.interrupted();
+            }
+
+            return null;
+        } catch (IOException exception) {
+            Railroad.LOGGER.error("Failed to read search index segment {}", segment.file(), exception);
+            return List.of();
+        }
+
+        return currentFiles(segment, ids);
+    }
+
+    /**
+     * @return The paths of the documents that are still the current copy of their file.
+     */
+    private List<String> currentFiles(IndexSegment segment, int[] ids) {
+        Map<String, DocumentRef> documents = this.documents;
+        List<String> paths = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            String path = segment.path(id);
+            DocumentRef ref = documents.get(path);
+            if (ref != null && ref.segment() == segment && ref.id() == id) {
+                paths.add(path);
+            }
+        }
+
+        return paths;
+    }
+
+    private void scheduleReopen(IndexSegment segment) {
+        try {
+            this.writer.execute(() -> reopen(segment));
+        } catch (RejectedExecutionException exception) {
+            // The index has been closed
+        }
+    }
+
+    /**
+     * Opens a segment again whose channel was closed by an interrupted read, and points its files at the new copy.
+     */
+    private void reopen(IndexSegment closed) {
+        if (!this.segments.contains(closed))
+            return;
+
+        IndexSegment reopened;
+        try {
+            reopened = IndexSegment.open(closed.file());
+        } catch (IOException exception) {
+            Railroad.LOGGER.error("Failed to reopen search index segment {}", closed.file(), exception);
+            return;
+        }
+
+        // The segments first, so a search that still finds the closed one can look at the new copy instead
+        this.segments = this.segments.stream()
+            .map(segment -> segment == closed ? reopened : segment)
+            .toList();
+        this.documents.replaceAll((path, ref) -> ref.segment() == closed ? new DocumentRef(reopened, ref.id()) : ref);
+    }
+
+    /**
+     * Finds the lines of the file matching the pattern, at most one match per line.
+     *
+     * @return The matching lines, or {@code null} if there are none.
+     */
+    private FileMatch verify(String relativePath, Pattern pattern, AtomicInteger remainingLines) {
+        Path path = this.projectDir.resolve(relativePath);
+        String text;
+        try {
+            text = Files.readString(path, StandardCharsets.UTF_8);
+        } catch (IOException exception) {
+            // Deleted since, or not UTF-8 after all
+            return null;
+        }
+
+        List<FileMatch.Line> lines = new ArrayList<>();
+        Matcher matcher = pattern.matcher(text);
+        int lineNumber = 1;
+        int lineStart = 0;
+        int counted = 0;
+        int searchFrom = 0;
+        while (lines.size() < MAX_LINES_PER_FILE && searchFrom <= text.length() && matcher.find(searchFrom)) {
+            int matchStart = matcher.start();
+            for (; counted < matchStart; counted++) {
+                if (text.charAt(counted) == '\n') {
+                    lineNumber++;
+                    lineStart = counted + 1;
+                }
+            }
+
+            int lineEnd = text.indexOf('\n', matchStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+
+            if (remainingLines.getAndDecrement() <= 0)
+                break;
+
+            int contentEnd = lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            lines.add(line(text, lineNumber, lineStart, contentEnd, matchStart, Math.min(matcher.end(), contentEnd)));
+            searchFrom = lineEnd + 1;
+        }
+
+        return lines.isEmpty() ? null : new FileMatch(path, List.copyOf(lines));
+    }
+
+    /**
+     * Cuts a long line down to the part around the match.
+     */
+    private static FileMatch.Line line(String text, int number, int lineStart, int lineEnd, int matchStart, int matchEnd) {
+        int from = lineStart;
+        int to = lineEnd;
+        if (to - from > MAX_LINE_LENGTH) {
+            from = Math.max(lineStart, matchStart - MAX_LINE_LENGTH / 3);
+            to = Math.min(lineEnd, from + MAX_LINE_LENGTH);
+        }
+
+        int start = matchStart - from;
+        int end = Math.max(start, Math.min(matchEnd, to) - from);
+        return new FileMatch.Line(number, matchStart - lineStart, text.substring(from, to), start, end);
+    }
+
+    private void open() {
+        try {
+            Files.createDirectories(this.indexDir);
+            List<IndexSegment> loaded = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.indexDir)) {
+                for (Path file : stream) {
+                    String name = file.getFileName().toString();
+                    if (!name.startsWith("segment-") || !name.endsWith(".seg")) {
+                        // Left behind by an interrupted write
+                        Files.deleteIfExists(file);
+                        continue;
+                    }
+
+                    try {
+                        loaded.add(IndexSegment.open(file));
+                        int number = Integer.parseInt(name.substring("segment-".length(), name.length() - ".seg".length()));
+                        this.nextSegmentNumber = Math.max(this.nextSegmentNumber, number + 1);
+                    } catch (IOException | NumberFormatException exception) {
+                        Railroad.LOGGER.warn("Discarding unreadable search index segment {}", file, exception);
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+
+            this.segments = List.copyOf(loaded);
+            reconcile();
+        } catch (IOException exception) {
+            Railroad.LOGGER.error("Failed to open the search index of {}", this.projectDir, exception);
+        } finally {
+            this.ready.complete(null);
+        }
+    }
+
+    /**
+     * Walks the project and indexes every file whose size or modification time no longer match its segment.
+     */
+    private void reconcile() throws IOException {
+        long startTime = System.currentTimeMillis();
+        Map<String, BasicFileAttributes> files = new HashMap<>();
+        Files.walkFileTree(this.projectDir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+                return ContentIndex.this.watcher.isIgnored(dir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile() && attributes.size() <= MAX_FILE_SIZE) {
+                    files.put(relativize(file), attributes);
+                }
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exception) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        Map<String, DocumentRef> documents = new ConcurrentHashMap<>();
+        // Newer segments first, so a file written to several takes its latest copy
+        List<IndexSegment> newestFirst = new ArrayList<>(this.segments);
+        newestFirst.sort(Comparator.comparing(IndexSegment::file, Comparator.comparingInt(ContentIndex::segmentNumber))
+            .reversed());
+        for (IndexSegment segment : newestFirst) {
+            for (int id = 0; id < segment.documentCount(); id++) {
+                String path = segment.path(id);
+                BasicFileAttributes attributes = files.get(path);
+                if (attributes != null
+                    && attributes.size() == segment.size(id)
+                    && attributes.lastModifiedTime().toMillis() == segment.modifiedTime(id)) {
+                    documents.putIfAbsent(path, new DocumentRef(segment, id));
+                }
+            }
+        }
+
+        this.documents = documents;
+
+        List<String> outdated = files.keySet().stream()
+            .filter(path -> !this.documents.containsKey(path))
+            .toList();
+        int upToDate = this.documents.size();
+        index(outdated);
+        compact();
+
+        Railroad.LOGGER.info("Search index of {} is up to date: {} files unchanged, {} indexed, {} segments, in {}ms",
+            this.projectDir, upToDate, outdated.size(), this.segments.size(), System.currentTimeMillis() - startTime);
+    }
+
+    private void onFilesChanged(FileChangeBatch batch) {
+        this.writer.execute(() -> {
+            try {
+                if (batch.overflowed()) {
+                    reconcile();
+                    return;
+                }
+
+                for (Path path : batch.deleted()) {
+                    String relativePath = relativize(path);
+                    if (this.documents.remove(relativePath) == null) {
+                        // A deleted directory takes every file beneath it along
+                        String prefix = relativePath + "/";
+                        this.documents.keySet().removeIf(indexed -> indexed.startsWith(prefix));
+                    }
+                }
+
+                List<String> changed = new ArrayList<>();
+                for (Path path : batch.changed()) {
+                    if (Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS) && !this.watcher.isIgnored(path)) {
+                        changed.add(relativize(path));
+                    }
+                }
+
+                index(changed);
+                compact();
+            } catch (IOException exception) {
+                Railroad.LOGGER.error("Failed to update the search index of {}", this.projectDir, exception);
+            }
+        });
+    }
+
+    /**
+     * Reads the files in parallel and writes them to new segments, which then hold the current copy of each file.
+     * Files that cannot be read, or have become too large, are dropped from the index.
+     */
+    private void index(List<String> paths) throws IOException {
+        List<IndexSegment.Document> pending = new ArrayList<>();
+        long pendingPairs = 0;
+        for (int start = 0; start < paths.size(); start += READ_WINDOW) {
+            List<CompletableFuture<IndexSegment.Document>> reads = paths
+                .subList(start, Math.min(paths.size(), start + READ_WINDOW))
+                .stream()
+                .map(path -> CompletableFuture.supplyAsync(() -> read(path), SEARCH_EXECUTOR))
+                .toList();
+
+            for (int index = 0; index < reads.size(); index++) {
+                IndexSegment.Document document = reads.get(index).join();
+                if (document == null) {
+                    this.documents.remove(paths.get(start + index));
+                    continue;
+                }
+
+                pending.add(document);
+                pendingPairs += document.trigrams().length;
+                if (pendingPairs >= MAX_SEGMENT_PAIRS) {
+                    writeSegment(pending);
+                    pending.clear();
+                    pendingPairs = 0;
+                }
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            writeSegment(pending);
+        }
+    }
+
+    private IndexSegment.Document read(String relativePath) {
+        Path path = this.projectDir.resolve(relativePath);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attributes.isRegularFile() || attributes.size() > MAX_FILE_SIZE)
+                return null;
+
+            byte[] bytes = Files.readAllBytes(path);
+            long modifiedTime = attributes.lastModifiedTime().toMillis();
+            if (isBinary(bytes))
+                return new IndexSegment.Document(relativePath, attributes.size(), modifiedTime, true, new int[0]);
+
+            return new IndexSegment.Document(relativePath, attributes.size(), modifiedTime, false,
+                Trigrams.of(bytes, bytes.length));
+        } catch (IOException exception) {
+            return null;
+        }
+    }
+
+    private void writeSegment(List<IndexSegment.Document> documents) throws IOException {
+        Path file = this.indexDir.resolve("segment-" + this.nextSegmentNumber++ + ".seg");
+        IndexSegment.write(file, documents);
+        IndexSegment segment = IndexSegment.open(file);
+
+        List<IndexSegment> segments = new ArrayList<>(this.segments);
+        segments.add(segment);
+        this.segments = List.copyOf(segments);
+        for (int id = 0; id < documents.size(); id++) {
+            this.documents.put(documents.get(id).path(), new DocumentRef(segment, id));
+        }
+    }
+
+    /**
+     * Merges the segments whose files are mostly indexed elsewhere by now, and the small segments left behind by
+     * updates once there are too many of them, and deletes segments that no longer hold any current file.
+     */
+    private void compact() throws IOException {
+        Map<IndexSegment, Integer> currentCounts = new IdentityHashMap<>();
+        for (DocumentRef ref : this.documents.values()) {
+            currentCounts.merge(ref.segment(), 1, Integer::sum);
+        }
+
+        List<IndexSegment> small = new ArrayList<>();
+        Set<IndexSegment> merged = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (IndexSegment segment : this.segments) {
+            int current = currentCounts.getOrDefault(segment, 0);
+            if (current * 2 < segment.documentCount()) {
+                merged.add(segment);
+            } else if (Files.size(segment.file()) < SMALL_SEGMENT_SIZE) {
+                small.add(segment);
+            }
+        }
+
+        if (small.size() > MAX_SMALL_SEGMENTS) {
+            merged.addAll(small);
+        }
+
+        if (merged.isEmpty())
+            return;
+
+        List<String> paths = this.documents.entrySet().stream()
+            .filter(entry -> merged.contains(entry.getValue().segment()))
+            .map(Map.Entry::getKey)
+            .toList();
+        index(paths);
+
+        this.segments = this.segments.stream()
+            .filter(segment -> !merged.contains(segment))
+            .toList();
+        for (IndexSegment segment : merged) {
+            closeQuietly(segment);
+            try {
+                Files.deleteIfExists(segment.file());
+            } catch (IOException exception) {
+                // Still held open elsewhere, it is deleted on the next start once nothing refers to it
+                Railroad.LOGGER.debug("Failed to delete search index segment {}", segment.file(), exception);
+            }
+        }
+
+        Railroad.LOGGER.debug("Merged {} search index segments of {}, re-indexing {} files", merged.size(),
+            this.projectDir, paths.size());
+    }
+
+    private String relativize(Path path) {
+        return this.projectDir.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    private static int segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring("segment-".length(), name.length() - ".seg".length()));
+    }
+
+    private static boolean isBinary(byte[] bytes) {
+        int length = Math.min(bytes.length, 8192);
+        for (int index = 0; index < length; index++) {
+            if (bytes[index] == 0)
+                return true;
+        }
+
+        return false;
+    }
+
+    private static void closeQuietly(IndexSegment segment) {
+        try {
+            segment.close();
+        } catch (IOException exception) {
+            Railroad.LOGGER.warn("Failed to close search index segment {}", segment.file(), exception);
+        }
+    }
+
+    private record DocumentRef(IndexSegment segment, int id) {
+    }
+}
@@ -0,0 +1,232 @@
+package dev.railroadide.railroad.ide.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A search for text in the files of a project.
+ *
+ * @param text          The text to find, or a regular expression if {@code regex} is set.
+ * @param regex         Whether the text is a regular expression.
+ * @param caseSensitive Whether the case of letters has to match.
+ */
+public record ContentQuery(String text, boolean regex, boolean caseSensitive) {
+    /**
+     * @return The pattern every match is verified with.
+     * @throws PatternSyntaxException If the query is not a valid regular expression.
+     */
+    public Pattern compile() {
+        int flags = this.caseSensitive ? 0 : Pattern.CASE_INSENSITIVE;
+        return Pattern.compile(this.regex ? this.text : Pattern.quote(this.text), flags);
+    }
+
+    /**
+     * Works out which trigrams a file has to contain to possibly match.
+     * <p>
+     * For a regular expression only the literal text outside of groups, classes and optional parts is used, and
+     * expressions with alternatives or inline flags are not narrowed down at all. Leaving trigrams out only makes the
+     * index return more files to verify, never fewer.
+     *
+     * @return The sorted trigrams, or {@code null} if every file has to be verified.
+     */
+    int[] requiredTrigrams() {
+        List<String> literals = this.regex ? regexLiterals(this.text) : List.of(this.text);
+        if (literals == null)
+            return null;
+
+        // Case insensitive patterns only fold ASCII, but an inline flag could ask for more
+        boolean asciiOnly = this.regex && this.text.contains("(?");
+        int[] trigrams = literals.stream()
+            .flatMapToInt(literal -> Arrays.stream(Trigrams.of(literal, asciiOnly)))
+            .distinct()
+            .sorted()
+            .toArray();
+        return trigrams.length == 0 ? null : trigrams;
+    }
+
+    /**
+     * @return The runs of literal text that every match of the expression contains, or {@code null} if they cannot be
+     * worked out.
+     */
+    private static List<String> regexLiterals(String pattern) {
+        List<String> literals = new ArrayList<>();
+        var current = new StringBuilder();
+        int depth = 0;
+        int index = 0;
+        while (index < pattern.length()) {
+            char character = pattern.charAt(index);
+            switch (character) {
+                case '|' -> {
+                    return null;
+                }
+                case '\\' -> {
+                    if (index + 1 >= pattern.length())
+                        return null;
+
+                    char escaped = pattern.charAt(index + 1);
+                    if (escaped == 'Q') {
+                        int end = pattern.indexOf("\\E", index + 2);
+                        String quoted = pattern.substring(index + 2, end < 0 ? pattern.length() : end);
+                        if (depth == 0) {
+                            current.append(quoted);
+                        }
+
+                        index = end < 0 ? pattern.length() : end + 2;
+                        continue;
+                    }
+
+                    if (Character.isLetterOrDigit(escaped)) {
+                        // A character class, boundary, back reference or encoded character, none of which are decoded
+                        flush(literals, current);
+                        index = skipEscape(pattern, index + 1);
+                        continue;
+                    }
+
+                    if (depth == 0) {
+                        current.append(escaped);
+                    }
+
+                    index += 2;
+                    continue;
+                }
+                case '[' -> {
+                    flush(literals, current);
+                    index = skipClass(pattern, index);
+                    continue;
+                }
+                case '(' -> {
+                    if (pattern.startsWith("(?", index) && !pattern.startsWith("(?:", index))
+                        return null;
+
+                    flush(literals, current);
+                    depth++;
+                }
+                case ')' -> {
+                    flush(literals, current);
+                    depth = Math.max(0, depth - 1);
+                }
+                case '?', '*' -> {
+                    // The character before is optional
+                    dropLast(current);
+                    flush(literals, current);
+                }
+                case '{' -> {
+                    int end = pattern.indexOf('}', index);
+                    if (end < 0)
+                        return null;
+
+                    if (pattern.startsWith("0", index + 1) || pattern.startsWith(",", index + 1)) {
+                        dropLast(current);
+                    }
+
+                    flush(literals, current);
+                    index = end + 1;
+                    continue;
+                }
+                case '+', '.', '^', '$' -> flush(literals, current);
+                default -> {
+                    if (depth == 0) {
+                        current.append(character);
+                    }
+                }
+            }
+
+            index++;
+        }
+
+        flush(literals, current);
+        return literals;
+    }
+
+    /**
+     * @param start The index of the character after the backslash.
+     * @return The index after the whole escape sequence, such as after the digits of {@code \x41} or the name of
+     * {@code \p{Alpha}}.
+     */
+    private static int skipEscape(String pattern, int start) {
+        int index = start + 1;
+        int end = switch (pattern.charAt(start)) {
+            case 'x' -> pattern.startsWith("{", index) ? skipPast(pattern, index, '}') : index + 2;
+            case 'u' -> index + 4;
+            case 'c' -> index + 1;
+            case 'k' -> skipPast(pattern, index, '>');
+            case 'p', 'P', 'N' -> pattern.startsWith("{", index) ? skipPast(pattern, index, '}') : index + 1;
+            case '0' -> {
+                int digits = 0;
+                while (digits < 3 && index + digits < pattern.length()
+                    && pattern.charAt(index + digits) >= '0' && pattern.charAt(index + digits) <= '7') {
+                    digits++;
+                }
+
+                yield index + digits;
+            }
+            default -> {
+                // A back reference takes as many digits as there are groups, so all of them are skipped to be safe
+                if (Character.isDigit(pattern.charAt(start))) {
+                    while (index < pattern.length() && Character.isDigit(pattern.charAt(index))) {
+                        index++;
+                    }
+                }
+
+                yield index;
+            }
+        };
+
+        return Math.min(end, pattern.length());
+    }
+
+    private static int skipPast(String pattern, int start, char character) {
+        int end = pattern.indexOf(character, start);
+        return end < 0 ? pattern.length() : end + 1;
+    }
+
+    private static int skipClass(String pattern, int start) {
+        int index = start + 1;
+        if (index < pattern.length() && pattern.charAt(index) == '^') {
+            index++;
+        }
+
+        // A closing bracket straight after the opening one is part of the class
+        if (index < pattern.length() && pattern.charAt(index) == ']') {
+            index++;
+        }
+
+        int depth = 1;
+        while (index < pattern.length() && depth > 0) {
+            char character = pattern.charAt(index);
+            if (character == '\\') {
+                index++;
+            } else if (character == '[') {
+                depth++;
+            } else if (character == ']') {
+                depth--;
+            }
+
+            index++;
+        }
+
+        return index;
+    }
+
+    private static void dropLast(StringBuilder builder) {
+        if (!builder.isEmpty()) {
+            builder.setLength(builder.length() - 1);
+        }
+
+        // A quantifier applies to the whole code point
+        if (!builder.isEmpty() && Character.isHighSurrogate(builder.charAt(builder.length() - 1))) {
+            builder.setLength(builder.length() - 1);
+        }
+    }
+
+    private static void flush(List<String> literals, StringBuilder current) {
+        if (current.length() >= 3) {
+            literals.add(current.toString());
+        }
+
+        current.setLength(0);
+    }
+}
@@ -0,0 +1,23 @@
+package dev.railroadide.railroad.ide.search;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The lines of one file that match a {@link ContentQuery}.
+ *
+ * @param path  The file.
+ * @param lines The matching lines, in order.
+ */
+public record FileMatch(Path path, List<Line> lines) {
+    /**
+     * @param number The number of the line, starting at 1.
+     * @param column The column in the file the first match on the line starts at, starting at 0.
+     * @param text   The text of the line without its line terminator, cut down to the part around the match if the
+     *               line is long.
+     * @param start  Where the first match on the line starts in {@code text}.
+     * @param end    Where the first match on the line ends in {@code text}.
+     */
+    public record Line(int number, int column, String text, int start, int end) {
+    }
+}
@@ -0,0 +1,239 @@
+package dev.railroadide.railroad.ide.search;
+
+import dev.railroadide.railroad.Railroad;
+import dev.railroadide.railroad.ide.watcher.FileChangeBatch;
+import dev.railroadide.railroad.ide.watcher.ProjectFileWatcher;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * The names of every file in a project, for finding files by a fuzzy query as the user types.
+ * <p>
+ * The project is walked once, skipping the directories its {@link ProjectFileWatcher} ignores, and then kept up to
+ * date from the watcher's batches for as long as the project is open. Queries match the characters of the query in
+ * order anywhere in a file name (or in the path relative to the project, for queries containing a {@code /}) and are
+ * ranked by how well they match: consecutive characters, characters at the start of a word and a short name all score
+ * higher. Everything runs on one thread per project, so a query sees the index between two batches, never during
+ * one.
+ */
+public final class FileNameIndex {
+    private static final Map<Path, FileNameIndex> INDEXES = new ConcurrentHashMap<>();
+    // How many entries are scored between two checks for cancellation
+    private static final int CANCEL_CHECK_INTERVAL = 1024;
+
+    private final Path projectDir;
+    private final ProjectFileWatcher watcher;
+    private final ExecutorService executor;
+    private final Consumer<FileChangeBatch> fileListener = this::onFilesChanged;
+
+    // Only touched on the executor thread. Removed entries leave a null slot that the next file added reuses.
+    private Path[] paths = new Path[1024];
+    private char[][] names = new char[1024][];
+    private char[][] relativePaths = new char[1024][];
+    private int size;
+    private final Map<Path, Integer> slots = new HashMap<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+
+    private FileNameIndex(Path projectDir) {
+        this.projectDir = projectDir;
+        this.watcher = ProjectFileWatcher.forProject(projectDir);
+        this.executor = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+            .name("file-name-index-" + projectDir.getFileName())
+            .daemon()
+            .factory());
+    }
+
+    /**
+     * @return The index of the project at the given directory, which is built the first time it is requested.
+     */
+    public static FileNameIndex forProject(Path projectDir) {
+        Path normalized = projectDir.toAbsolutePath().normalize();
+        return INDEXES.computeIfAbsent(normalized, path -> {
+            var index = new FileNameIndex(path);
+            index.watcher.addListener(index.fileListener);
+            index.executor.execute(index::rebuild);
+            return index;
+        });
+    }
+
+    /**
+     * Stops updating the index of the project at the given directory and releases it.
+     */
+    public static void close(Path projectDir) {
+        FileNameIndex index = INDEXES.remove(projectDir.toAbsolutePath().normalize());
+        if (index != null) {
+            index.watcher.removeListener(index.fileListener);
+            index.executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Finds the files matching a query, best match first. The query runs once the index has been built.
+     *
+     * @param cancelled Checked while the query runs, a cancelled query completes with a {@link CancellationException}.
+     */
+    public CompletableFuture<SearchResults> search(String query, BooleanSupplier cancelled) {
+        return CompletableFuture.supplyAsync(() -> run(query, cancelled), this.executor);
+    }
+
+    private SearchResults run(String query, BooleanSupplier cancelled) {
+        long startTime = System.nanoTime();
+        char[] lowerQuery = query.strip().toLowerCase(Locale.ROOT).toCharArray();
+        boolean matchPath = query.indexOf('/') >= 0 || query.indexOf('\\') >= 0;
+        if (matchPath) {
+            for (int index = 0; index < lowerQuery.length; index++) {
+                if (lowerQuery[index] == '\\') {
+                    lowerQuery[index] = '/';
+                }
+            }
+        }
+
+        // Score in the high bits, slot in the low bits, so sorting the longs ranks the matches
+        long[] matches = new long[64];
+        int matchCount = 0;
+        for (int slot = 0; slot < this.size; slot++) {
+            if (slot % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean())
+                throw new CancellationException("File search for '" + query + "' was cancelled");
+
+            char[] candidate = matchPath ? this.relativePaths[slot] : this.names[slot];
+            if (candidate == null)
+                continue;
+
+            int score = FuzzyMatcher.score(lowerQuery, candidate);
+            if (score == FuzzyMatcher.NO_MATCH)
+                continue;
+
+            if (matchCount == matches.length) {
+                matches = Arrays.copyOf(matches, matchCount * 2);
+            }
+
+            // Negated, so the best score sorts first
+            matches[matchCount++] = ((long) -score << 32) | slot;
+        }
+
+        Arrays.sort(matches, 0, matchCount);
+        List<SearchResults.Match> ranked = new ArrayList<>(matchCount);
+        for (int index = 0; index < matchCount; index++) {
+            int slot = (int) matches[index];
+            ranked.add(new SearchResults.Match(this.paths[slot], (int) -(matches[index] >> 32)));
+        }
+
+        Railroad.LOGGER.debug("Searched {} file names for '{}' ({} matches) in {}ms", this.slots.size(), query,
+            matchCount, (System.nanoTime() - startTime) / 1_000_000);
+        return new SearchResults(query, ranked);
+    }
+
+    private void onFilesChanged(FileChangeBatch batch) {
+        this.executor.execute(() -> {
+            if (batch.overflowed()) {
+                rebuild();
+                return;
+            }
+
+            for (Path path : batch.deleted()) {
+                if (!remove(path)) {
+                    // A deleted directory takes every file beneath it along
+                    for (Path indexed : List.copyOf(this.slots.keySet())) {
+                        if (indexed.startsWith(path)) {
+                            remove(indexed);
+                        }
+                    }
+                }
+            }
+
+            // Files that were replaced count as modified, and may not have been indexed yet
+            for (Path path : batch.changed()) {
+                if (Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)) {
+                    add(path);
+                }
+            }
+        });
+    }
+
+    private void rebuild() {
+        long startTime = System.currentTimeMillis();
+        this.paths = new Path[1024];
+        this.names = new char[1024][];
+        this.relativePaths = new char[1024][];
+        this.size = 0;
+        this.slots.clear();
+        this.freeSlots.clear();
+        try {
+            Files.walkFileTree(this.projectDir, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) {
+                    return FileNameIndex.this.watcher.isIgnored(dir)
+                        ? FileVisitResult.SKIP_SUBTREE
+                        : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    if (attributes.isRegularFile()) {
+                        add(file);
+                    }
+
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exception) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException exception) {
+            Railroad.LOGGER.error("Failed to index file names of {}", this.projectDir, exception);
+        }
+
+        Railroad.LOGGER.info("Indexed {} file names of {} in {}ms", this.slots.size(), this.projectDir,
+            System.currentTimeMillis() - startTime);
+    }
+
+    private void add(Path path) {
+        if (this.slots.containsKey(path))
+            return;
+
+        int slot;
+        if (!this.freeSlots.isEmpty()) {
+            slot = this.freeSlots.pop();
+        } else {
+            if (this.size == this.paths.length) {
+                this.paths = Arrays.copyOf(this.paths, this.size * 2);
+                this.names = Arrays.copyOf(this.names, this.size * 2);
+                this.relativePaths = Arrays.copyOf(this.relativePaths, this.size * 2);
+            }
+
+            slot = this.size++;
+        }
+
+        this.paths[slot] = path;
+        this.names[slot] = path.getFileName().toString().toCharArray();
+        this.relativePaths[slot] = this.projectDir.relativize(path).toString().replace('\\', '/').toCharArray();
+        this.slots.put(path, slot);
+    }
+
+    /**
+     * @return Whether the path was indexed.
+     */
+    private boolean remove(Path path) {
+        Integer slot = this.slots.remove(path);
+        if (slot == null)
+            return false;
+
+        this.paths[slot] = null;
+        this.names[slot] = null;
+        this.relativePaths[slot] = null;
+        this.freeSlots.push(slot);
+        return true;
+    }
+}
@@ -0,0 +1,133 @@
+package dev.railroadide.railroad.ide.search;
+
+/**
+ * Scores how well a query matches a name when its characters are taken in order, but not necessarily next to each
+ * other, e.g. {@code pep} matches {@code ProjectExplorerPane.java}.
+ * <p>
+ * Every matched character is worth a fixed amount, more when it follows the previous matched character or starts a
+ * word (the start of the name, the character after a separator, or an upper case letter after a lower case one).
+ * Characters skipped between two matches and the length of the name count against the score. Of all the ways the
+ * query can be placed in the name, the best scoring one is used.
+ */
+public final class FuzzyMatcher {
+    public static final int NO_MATCH = Integer.MIN_VALUE;
+
+    private static final int MATCH = 16;
+    private static final int CONSECUTIVE = 4;
+    private static final int START_OF_NAME = 20;
+    private static final int AFTER_SEPARATOR = 16;
+    private static final int CAMEL_CASE = 14;
+    private static final int EXACT = 50;
+    // A gap costs more to open than to extend, so one long gap beats several short ones
+    private static final int GAP_START = 3;
+    private static final int GAP_EXTENSION = 1;
+    private static final int LEADING_GAP_LIMIT = 8;
+
+    private FuzzyMatcher() {
+    }
+
+    /**
+     * @param query     The query, in lower case.
+     * @param candidate The name to match, in its original case.
+     * @return The score of the best match, higher is better, or {@link #NO_MATCH} if the query is not a subsequence
+     * of the candidate.
+     */
+    public static int score(char[] query, char[] candidate) {
+        int queryLength = query.length;
+        int length = candidate.length;
+        if (queryLength == 0)
+            return 0;
+
+        if (queryLength > length || !isSubsequence(query, candidate))
+            return NO_MATCH;
+
+        // best[j] is the best score of the query so far with its last character matched at j
+        int[] previous = new int[length];
+        int[] current = new int[length];
+        for (int j = 0; j < length; j++) {
+            previous[j] = matches(query[0], candidate[j])
+                ? MATCH + bonus(candidate, j) - gap(Math.min(j, LEADING_GAP_LIMIT))
+                : NO_MATCH;
+        }
+
+        for (int i = 1; i < queryLength; i++) {
+            // The best previous[k] minus the gap up to j over k < j - 1, carried along j
+            int bestWithGap = NO_MATCH;
+            for (int j = 0; j < length; j++) {
+                int best = NO_MATCH;
+                if (j > 0 && matches(query[i], candidate[j])) {
+                    int bonus = bonus(candidate, j);
+                    if (previous[j - 1] != NO_MATCH) {
+                        best = previous[j - 1] + MATCH + Math.max(CONSECUTIVE, bonus);
+                    }
+
+                    if (bestWithGap != NO_MATCH) {
+                        best = Math.max(best, bestWithGap + MATCH + bonus);
+                    }
+                }
+
+                current[j] = best;
+                if (bestWithGap != NO_MATCH) {
+                    bestWithGap -= GAP_EXTENSION;
+                }
+
+                if (j > 0 && previous[j - 1] != NO_MATCH) {
+                    bestWithGap = Math.max(bestWithGap, previous[j - 1] - GAP_START);
+                }
+            }
+
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        int best = NO_MATCH;
+        for (int score : previous) {
+            best = Math.max(best, score);
+        }
+
+        best -= (length - queryLength) / 2;
+        if (queryLength == length) {
+            best += EXACT;
+        }
+
+        return best;
+    }
+
+    private static int gap(int length) {
+        return length == 0 ? 0 : GAP_START + (length - 1) * GAP_EXTENSION;
+    }
+
+    private static boolean isSubsequence(char[] query, char[] candidate) {
+        int queryIndex = 0;
+        for (int index = 0; index < candidate.length && queryIndex < query.length; index++) {
+            if (matches(query[queryIndex], candidate[index])) {
+                queryIndex++;
+            }
+        }
+
+        return queryIndex == query.length;
+    }
+
+    private static boolean matches(char lowerQuery, char candidate) {
+        return lowerQuery == candidate || lowerQuery == Character.toLowerCase(candidate);
+    }
+
+    private static int bonus(char[] candidate, int index) {
+        if (index == 0)
+            return START_OF_NAME;
+
+        char previous = candidate[index - 1];
+        char current = candidate[index];
+        if (previous == '/' || previous == '\\' || previous == '.' || previous == '_' || previous == '-' || previous == ' ')
+            return AFTER_SEPARATOR;
+
+        if (Character.isUpperCase(current) && Character.isLowerCase(previous))
+            return CAMEL_CASE;
+
+        if (Character.isDigit(current) && !Character.isDigit(previous))
+            return CAMEL_CASE;
+
+        return 0;
+    }
+}
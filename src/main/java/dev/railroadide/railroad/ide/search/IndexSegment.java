@@ -0,0 +1,335 @@
+package dev.railroadide.railroad.ide.search;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One immutable file of a {@link ContentIndex}: a table of the documents it covers and, for every trigram found in
+ * them, the sorted list of the documents containing it.
+ * <p>
+ * The layout is the header ({@link #MAGIC}, {@link #VERSION} and the length of the postings), the postings, the
+ * document table and finally the trigram table. Each posting list is a run of document ids stored as variable length
+ * deltas. The document and trigram tables are read into memory when the segment is opened, and the posting lists are
+ * read from disk as queries need them.
+ */
+final class IndexSegment implements Closeable {
+    private static final int MAGIC = 0x52525449; // RRTI
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final String[] paths;
+    private final long[] sizes;
+    private final long[] modifiedTimes;
+    private final boolean[] binary;
+    private final int[] trigrams;
+    // Offsets of the posting lists from the start of the postings, one more than there are trigrams
+    private final int[] offsets;
+
+    private IndexSegment(Path file, FileChannel channel, String[] paths, long[] sizes, long[] modifiedTimes,
+                         boolean[] binary, int[] trigrams, int[] offsets) {
+        this.file = file;
+        this.channel = channel;
+        this.paths = paths;
+        this.sizes = sizes;
+        this.modifiedTimes = modifiedTimes;
+        this.binary = binary;
+        this.trigrams = trigrams;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Writes the documents to a new segment file. The file is written next to its destination first and moved into
+     * place, so a segment file is either complete or absent.
+     */
+    static void write(Path file, List<Document> documents) throws IOException {
+        long pairCount = 0;
+        for (Document document : documents) {
+            pairCount += document.trigrams().length;
+        }
+
+        // Trigram in the high bits and document in the low bits, so sorting groups the postings by trigram
+        long[] pairs = new long[Math.toIntExact(pairCount)];
+        int pairIndex = 0;
+        for (int id = 0; id < documents.size(); id++) {
+            for (int trigram : documents.get(id).trigrams()) {
+                pairs[pairIndex++] = ((long) trigram << 32) | id;
+            }
+        }
+
+        Arrays.sort(pairs);
+
+        var postings = new ByteArrayOutputStream(Math.max(32, pairs.length + pairs.length / 2));
+        int[] trigrams = new int[64];
+        int[] offsets = new int[65];
+        int trigramCount = 0;
+        int previousTrigram = -1;
+        int previousId = 0;
+        for (long pair : pairs) {
+            int trigram = (int) (pair >>> 32);
+            int id = (int) pair;
+            if (trigram != previousTrigram) {
+                if (trigramCount == trigrams.length) {
+                    trigrams = Arrays.copyOf(trigrams, trigramCount * 2);
+                    offsets = Arrays.copyOf(offsets, trigramCount * 2 + 1);
+                }
+
+                trigrams[trigramCount] = trigram;
+                offsets[trigramCount] = postings.size();
+                trigramCount++;
+                previousTrigram = trigram;
+                previousId = 0;
+            }
+
+            writeVarInt(postings, id - previousId);
+            previousId = id;
+        }
+
+        offsets[trigramCount] = postings.size();
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(postings.size());
+            postings.writeTo(output);
+
+            output.writeInt(documents.size());
+            for (Document document : documents) {
+                output.writeUTF(document.path());
+                output.writeLong(document.size());
+                output.writeLong(document.modifiedTime());
+                output.writeBoolean(document.binary());
+            }
+
+            output.writeInt(trigramCount);
+            for (int index = 0; index < trigramCount; index++) {
+                output.writeInt(trigrams[index]);
+            }
+
+            for (int index = 0; index <= trigramCount; index++) {
+                output.writeInt(offsets[index]);
+            }
+        }
+
+        try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Opens a segment file written by {@link #write(Path, List)}.
+     *
+     * @throws IOException If the file cannot be read or is not a segment of this version.
+     */
+    static IndexSegment open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            var input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+            if (input.readInt() != MAGIC || input.readInt() != VERSION)
+                throw new IOException("Not a search index segment: " + file);
+
+            int postingsLength = input.readInt();
+            input.skipNBytes(postingsLength);
+
+            int documentCount = input.readInt();
+            var paths = new String[documentCount];
+            var sizes = new long[documentCount];
+            var modifiedTimes = new long[documentCount];
+            var binary = new boolean[documentCount];
+            for (int id = 0; id < documentCount; id++) {
+                paths[id] = input.readUTF();
+                sizes[id] = input.readLong();
+                modifiedTimes[id] = input.readLong();
+                binary[id] = input.readBoolean();
+            }
+
+            int trigramCount = input.readInt();
+            var trigrams = new int[trigramCount];
+            for (int index = 0; index < trigramCount; index++) {
+                trigrams[index] = input.readInt();
+            }
+
+            var offsets = new int[trigramCount + 1];
+            for (int index = 0; index <= trigramCount; index++) {
+                offsets[index] = input.readInt();
+            }
+
+            return new IndexSegment(file, channel, paths, sizes, modifiedTimes, binary, trigrams, offsets);
+        } catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception instanceof IOException ioException ? ioException : new IOException(exception);
+        }
+    }
+
+    Path file() {
+        return this.file;
+    }
+
+    int documentCount() {
+        return this.paths.length;
+    }
+
+    /**
+     * @return The path of the document relative to the project directory.
+     */
+    String path(int id) {
+        return this.paths[id];
+    }
+
+    long size(int id) {
+        return this.sizes[id];
+    }
+
+    long modifiedTime(int id) {
+        return this.modifiedTimes[id];
+    }
+
+    /**
+     * @return The ids of the documents that are text, for queries the trigrams cannot narrow down.
+     */
+    int[] textDocuments() {
+        int[] documents = new int[this.paths.length];
+        int count = 0;
+        for (int id = 0; id < this.paths.length; id++) {
+            if (!this.binary[id]) {
+                documents[count++] = id;
+            }
+        }
+
+        return Arrays.copyOf(documents, count);
+    }
+
+    /**
+     * Finds the documents containing every one of the trigrams, reading the shortest posting lists first.
+     *
+     * @param trigrams The trigrams, sorted.
+     * @return The ids of the documents, sorted.
+     */
+    int[] documentsContaining(int[] trigrams) throws IOException {
+        int[] indexes = new int[trigrams.length];
+        for (int index = 0; index < trigrams.length; index++) {
+            int found = Arrays.binarySearch(this.trigrams, trigrams[index]);
+            if (found < 0)
+                return new int[0];
+
+            indexes[index] = found;
+        }
+
+        long[] bySize = new long[indexes.length];
+        for (int index = 0; index < indexes.length; index++) {
+            int found = indexes[index];
+            bySize[index] = ((long) (this.offsets[found + 1] - this.offsets[found]) << 32) | found;
+        }
+
+        Arrays.sort(bySize);
+
+        int[] documents = null;
+        int count = 0;
+        for (long entry : bySize) {
+            int[] postings = readPostings((int) entry);
+            if (documents == null) {
+                documents = postings;
+                count = postings.length;
+            } else {
+                count = intersect(documents, count, postings);
+            }
+
+            if (count == 0)
+                break;
+        }
+
+        return documents == null ? new int[0] : Arrays.copyOf(documents, count);
+    }
+
+    private int[] readPostings(int index) throws IOException {
+        int start = this.offsets[index];
+        int length = this.offsets[index + 1] - start;
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        long position = HEADER_SIZE + (long) start;
+        while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer, position + buffer.position()) < 0)
+                throw new EOFException("Truncated search index segment: " + this.file);
+        }
+
+        buffer.flip();
+        int[] documents = new int[length];
+        int count = 0;
+        int id = 0;
+        while (buffer.hasRemaining()) {
+            id += readVarInt(buffer);
+            documents[count++] = id;
+        }
+
+        return Arrays.copyOf(documents, count);
+    }
+
+    /**
+     * Keeps the entries of the first sorted list that are also in the second, in place.
+     *
+     * @return The number of entries kept.
+     */
+    private static int intersect(int[] documents, int count, int[] other) {
+        int kept = 0;
+        int otherIndex = 0;
+        for (int index = 0; index < count && otherIndex < other.length; index++) {
+            int id = documents[index];
+            while (otherIndex < other.length && other[otherIndex] < id) {
+                otherIndex++;
+            }
+
+            if (otherIndex < other.length && other[otherIndex] == id) {
+                documents[kept++] = id;
+            }
+        }
+
+        return kept;
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream output, int value) {
+        while ((value & ~0x7F) != 0) {
+            output.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        output.write(value);
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte read;
+        do {
+            read = buffer.get();
+            value |= (read & 0x7F) << shift;
+            shift += 7;
+        } while (read < 0);
+
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * A file to be written to a segment.
+     *
+     * @param path         The path of the file relative to the project directory.
+     * @param size         The size of the file when it was read.
+     * @param modifiedTime The modification time of the file when it was read, in milliseconds.
+     * @param binary       Whether the file is binary, which is kept so it is not read again, but never searched.
+     * @param trigrams     The distinct trigrams of the file, sorted, empty for binary files.
+     */
+    record Document(String path, long size, long modifiedTime, boolean binary, int[] trigrams) {
+    }
+}
@@ -0,0 +1,36 @@
+package dev.railroadide.railroad.ide.search;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The files matching a query of a {@link FileNameIndex}, best match first, to be shown a page at a time.
+ *
+ * @param query   The query that was run.
+ * @param matches The matches, ranked.
+ */
+public record SearchResults(String query, List<Match> matches) {
+    public int size() {
+        return this.matches.size();
+    }
+
+    public int pageCount(int pageSize) {
+        return (this.matches.size() + pageSize - 1) / pageSize;
+    }
+
+    /**
+     * @return The matches on the page with the given index, empty past the last page.
+     */
+    public List<Match> page(int index, int pageSize) {
+        int from = Math.min(index * pageSize, this.matches.size());
+        int to = Math.min(from + pageSize, this.matches.size());
+        return this.matches.subList(from, to);
+    }
+
+    /**
+     * @param path  The matching file.
+     * @param score How well it matched, higher is better.
+     */
+    public record Match(Path path, int score) {
+    }
+}
@@ -0,0 +1,77 @@
+package dev.railroadide.railroad.ide.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Splits text into trigrams, the keys of a {@link ContentIndex}.
+ * <p>
+ * A trigram is three consecutive bytes of UTF-8 packed into the low 24 bits of an int. ASCII letters are folded to
+ * lower case first, so the index can narrow down case insensitive searches as well; other characters are kept as they
+ * are.
+ */
+final class Trigrams {
+    // One bit for every possible trigram, reused by each thread to find the distinct trigrams of a file
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private Trigrams() {
+    }
+
+    /**
+     * @return The distinct trigrams of the bytes, sorted.
+     */
+    static int[] of(byte[] bytes, int length) {
+        Scratch scratch = SCRATCH.get();
+        int count = 0;
+        if (length >= 3) {
+            int trigram = (fold(bytes[0]) << 8) | fold(bytes[1]);
+            for (int index = 2; index < length; index++) {
+                trigram = ((trigram << 8) | fold(bytes[index])) & 0xFFFFFF;
+                long bit = 1L << trigram;
+                int word = trigram >>> 6;
+                if ((scratch.seen[word] & bit) != 0)
+                    continue;
+
+                scratch.seen[word] |= bit;
+                if (count == scratch.trigrams.length) {
+                    scratch.trigrams = Arrays.copyOf(scratch.trigrams, count * 2);
+                }
+
+                scratch.trigrams[count++] = trigram;
+            }
+        }
+
+        int[] trigrams = Arrays.copyOf(scratch.trigrams, count);
+        for (int trigram : trigrams) {
+            scratch.seen[trigram >>> 6] = 0;
+        }
+
+        Arrays.sort(trigrams);
+        return trigrams;
+    }
+
+    /**
+     * @param asciiOnly Whether to leave out trigrams containing non-ASCII bytes, which cannot be relied on when a
+     *                  search folds the case of other characters as well.
+     * @return The distinct trigrams of the text, sorted.
+     */
+    static int[] of(String text, boolean asciiOnly) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int[] trigrams = of(bytes, bytes.length);
+        if (!asciiOnly)
+            return trigrams;
+
+        return Arrays.stream(trigrams)
+            .filter(trigram -> (trigram & 0x808080) == 0)
+            .toArray();
+    }
+
+    private static int fold(byte value) {
+        return value >= 'A' && value <= 'Z' ? value + ('a' - 'A') : value & 0xFF;
+    }
+
+    private static final class Scratch {
+        private final long[] seen = new long[(1 << 24) / 64];
+        private int[] trigrams = new int[4096];
+    }
+}
@@ -14,8 +14,8 @@ import com.github.javaparser.ast.stmt.*;
 import com.github.javaparser.ast.type.*;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import dev.railroadide.railroad.Railroad;
+import dev.railroadide.railroad.ide.text.LineOffsets;
 import org.fxmisc.richtext.model.StyleSpans;
-import org.fxmisc.richtext.model.StyleSpansBuilder;
 
 import java.util.*;
 
@@ -35,23 +35,13 @@ public class ASTJavaSyntaxHighlighting {
     }
 
     public static class SyntaxHighlighter extends VoidVisitorAdapter<Void> {
-        private final List<StyleRange> styleRanges = new ArrayList<>();
+        private final IntervalStyleSpansBuilder spansBuilder = new IntervalStyleSpansBuilder();
         private final String text;
+        private final LineOffsets lineOffsets;
 
         public SyntaxHighlighter(String text) {
             this.text = text;
-        }
-
-        private static int getIndex(com.github.javaparser.Position position, String text) {
-            int line = position.line;
-            int column = position.column;
-
-            int index = 0;
-            for (int i = 0; i < line - 1; i++) {
-                index = text.indexOf('\n', index) + 1;
-            }
-
-            return index + column - 1;
+            this.lineOffsets = LineOffsets.of(text);
         }
 
         private static String getStyleClassByNode(Node node) {
@@ -156,36 +146,15 @@ public class ASTJavaSyntaxHighlighting {
         }
 
         public StyleSpans<Collection<String>> computeStyleSpans() {
-            styleRanges.sort(Comparator.comparingInt(styleRange -> styleRange.beginOffset)); // Ensure ranges are in order
-            StyleSpansBuilder<Collection<String>> spansBuilder = new StyleSpansBuilder<>();
-            int lastEnd = 0;
-
-            for (int index = 0; index < styleRanges.size(); index++) {
-                StyleRange styleRange = styleRanges.get(index);
-                StyleRange nextStyleRange = index + 1 < styleRanges.size() ? styleRanges.get(index + 1) : null;
-                if (styleRange.beginOffset > lastEnd) {
-                    spansBuilder.add(Collections.emptyList(), styleRange.beginOffset - lastEnd);
-                }
-
-                int endOffset = nextStyleRange != null ? nextStyleRange.beginOffset - 1 : styleRange.endOffset;
-                spansBuilder.add(Collections.singleton(styleRange.styleClass), (endOffset - styleRange.beginOffset) + 1);
-                lastEnd = endOffset + 1;
-            }
-
-            if (lastEnd < text.length()) {
-                spansBuilder.add(Collections.emptyList(), text.length() - lastEnd);
-            }
-
-            return spansBuilder.create();
+            return this.spansBuilder.create(this.text.length());
         }
 
         private void addStyleRange(Node node) {
             Range range = node.getRange().orElseThrow();
-            int beginOffset = getIndex(range.begin, text);
-            int endOffset = getIndex(range.end, text);
-            String styleClass = getStyleClassByNode(node);
-
-            styleRanges.add(new StyleRange(beginOffset, endOffset, styleClass));
+            // JavaParser positions are 1-based and the end position is inclusive
+            int beginOffset = this.lineOffsets.offsetOf(range.begin.line - 1, range.begin.column - 1);
+            int endOffset = this.lineOffsets.offsetOf(range.end.line - 1, range.end.column - 1) + 1;
+            this.spansBuilder.add(beginOffset, endOffset, getStyleClassByNode(node));
         }
 
         @Override
@@ -769,12 +738,5 @@ public class ASTJavaSyntaxHighlighting {
             super.visit(n, arg);
             addStyleRange(n);
         }
-
-        private record StyleRange(int beginOffset, int endOffset, String styleClass) implements Comparable<StyleRange> {
-            @Override
-            public int compareTo(StyleRange other) {
-                return Integer.compare(this.beginOffset, other.beginOffset);
-            }
-        }
     }
 }
\ No newline at end of file
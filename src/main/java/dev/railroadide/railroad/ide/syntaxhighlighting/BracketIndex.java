@@ -0,0 +1,182 @@
+package dev.railroadide.railroad.ide.syntaxhighlighting;
+
+import java.util.Arrays;
+
+/**
+ * The position of every bracket in a Java source and the bracket it pairs with, so that the match of the bracket at
+ * the caret can be found without scanning the text again.
+ * <p>
+ * Brackets inside comments, strings, text blocks and character literals are skipped. A closing bracket pairs with the
+ * nearest unpaired opening bracket of the same kind, leaving any other unpaired brackets in between unmatched, so one
+ * stray bracket does not throw off every pair after it.
+ */
+public final class BracketIndex {
+    public static final BracketIndex EMPTY = new BracketIndex(new int[0], new int[0], 0);
+
+    private final int[] positions;
+    private final int[] matches;
+    private final int size;
+
+    private BracketIndex(int[] positions, int[] matches, int size) {
+        this.positions = positions;
+        this.matches = matches;
+        this.size = size;
+    }
+
+    public static BracketIndex of(CharSequence text) {
+        var positions = new int[256];
+        var matches = new int[256];
+        int size = 0;
+
+        // Indices into positions of the opening brackets that are still unpaired
+        var open = new int[64];
+        int depth = 0;
+
+        int length = text.length();
+        int index = 0;
+        while (index < length) {
+            char character = text.charAt(index);
+            char next = index + 1 < length ? text.charAt(index + 1) : '\0';
+            if (character == '/' && next == '/') {
+                index = skipLine(text, index);
+                continue;
+            }
+
+            if (character == '/' && next == '*') {
+                index = skipBlockComment(text, index);
+                continue;
+            }
+
+            if (character == '"' || character == '\'') {
+                index = skipLiteral(text, index);
+                continue;
+            }
+
+            if (isBracket(character)) {
+                if (size == positions.length) {
+                    positions = Arrays.copyOf(positions, size * 2);
+                    matches = Arrays.copyOf(matches, size * 2);
+                }
+
+                positions[size] = index;
+                matches[size] = -1;
+                if (isOpening(character)) {
+                    if (depth == open.length) {
+                        open = Arrays.copyOf(open, depth * 2);
+                    }
+
+                    open[depth++] = size;
+                } else {
+                    char opening = openingOf(character);
+                    for (int candidate = depth - 1; candidate >= 0; candidate--) {
+                        if (text.charAt(positions[open[candidate]]) == opening) {
+                            matches[size] = positions[open[candidate]];
+                            matches[open[candidate]] = index;
+                            depth = candidate;
+                            break;
+                        }
+                    }
+                }
+
+                size++;
+            }
+
+            index++;
+        }
+
+        return new BracketIndex(positions, matches, size);
+    }
+
+    /**
+     * @return The offset of the bracket paired with the one at the offset, or -1 if there is no bracket at the offset
+     * or it is unmatched.
+     */
+    public int matchAt(int offset) {
+        int index = Arrays.binarySearch(this.positions, 0, this.size, offset);
+        return index >= 0 ? this.matches[index] : -1;
+    }
+
+    public static boolean isBracket(char character) {
+        return switch (character) {
+            case '(', ')', '[', ']', '{', '}' -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isOpening(char character) {
+        return character == '(' || character == '[' || character == '{';
+    }
+
+    private static char openingOf(char closing) {
+        return switch (closing) {
+            case ')' -> '(';
+            case ']' -> '[';
+            default -> '{';
+        };
+    }
+
+    private static int skipLine(CharSequence text, int index) {
+        while (index < text.length() && text.charAt(index) != '\n' && text.charAt(index) != '\r') {
+            index++;
+        }
+
+        return index;
+    }
+
+    private static int skipBlockComment(CharSequence text, int index) {
+        for (index += 2; index + 1 < text.length(); index++) {
+            if (text.charAt(index) == '*' && text.charAt(index + 1) == '/')
+                return index + 2;
+        }
+
+        return text.length();
+    }
+
+    /**
+     * Skips a string, text block or character literal. An unterminated string or character literal ends at the end of
+     * its line, as it does for the compiler.
+     */
+    private static int skipLiteral(CharSequence text, int index) {
+        char quote = text.charAt(index);
+        if (quote == '"' && startsWith(text, index, "\"\"\""))
+            return skipTextBlock(text, index);
+
+        for (index++; index < text.length(); index++) {
+            char character = text.charAt(index);
+            if (character == '\\') {
+                index++;
+            } else if (character == quote) {
+                return index + 1;
+            } else if (character == '\n' || character == '\r') {
+                return index;
+            }
+        }
+
+        return text.length();
+    }
+
+    private static int skipTextBlock(CharSequence text, int index) {
+        for (index += 3; index < text.length(); index++) {
+            char character = text.charAt(index);
+            if (character == '\\') {
+                index++;
+            } else if (startsWith(text, index, "\"\"\"")) {
+                return index + 3;
+            }
+        }
+
+        return text.length();
+    }
+
+    private static boolean startsWith(CharSequence text, int index, String prefix) {
+        if (index + prefix.length() > text.length())
+            return false;
+
+        for (int offset = 0; offset < prefix.length(); offset++) {
+            if (text.charAt(index + offset) != prefix.charAt(offset))
+                return false;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,174 @@
+package dev.railroadide.railroad.ide.syntaxhighlighting;
+
+import org.fxmisc.richtext.model.StyleSpans;
+import org.fxmisc.richtext.model.StyleSpansBuilder;
+
+import java.util.*;
+
+/**
+ * Builds {@link StyleSpans} from style intervals that may nest, such as the ranges of AST nodes.
+ * <p>
+ * Intervals are kept in flat {@code int} arrays and, for any text shorter than two million characters, sorted as packed
+ * {@code long}s without allocating an object per interval. Where intervals nest, the innermost one wins and the
+ * enclosing style resumes after it ends.
+ */
+public final class IntervalStyleSpansBuilder {
+    private static final int PACKED_LIMIT = 1 << 21;
+
+    private final Map<String, Integer> styleIds = new HashMap<>();
+    private final List<Collection<String>> styles = new ArrayList<>();
+
+    private int[] starts = new int[256];
+    private int[] ends = new int[256];
+    private int[] styleIndices = new int[256];
+    private int size;
+
+    public IntervalStyleSpansBuilder() {
+        this.styles.add(Collections.emptyList());
+        this.styleIds.put("", 0);
+    }
+
+    /**
+     * Adds an interval from {@code start} (inclusive) to {@code end} (exclusive). Empty intervals are ignored.
+     */
+    public void add(int start, int end, String styleClass) {
+        if (end <= start)
+            return;
+
+        if (this.size == this.starts.length) {
+            int capacity = this.size * 2;
+            this.starts = Arrays.copyOf(this.starts, capacity);
+            this.ends = Arrays.copyOf(this.ends, capacity);
+            this.styleIndices = Arrays.copyOf(this.styleIndices, capacity);
+        }
+
+        this.starts[this.size] = start;
+        this.ends[this.size] = end;
+        this.styleIndices[this.size] = this.styleIds.computeIfAbsent(styleClass, key -> {
+            this.styles.add(key.isEmpty() ? Collections.emptyList() : Collections.singleton(key));
+            return this.styles.size() - 1;
+        });
+        this.size++;
+    }
+
+    /**
+     * @param length The length of the text, anything not covered by an interval is left unstyled.
+     */
+    public StyleSpans<Collection<String>> create(int length) {
+        int[] order = sortedOrder(length);
+        var spans = new SpanWriter(this.styles);
+
+        // Indices of the intervals that contain the current position, innermost last
+        var stack = new int[16];
+        int depth = 0;
+        int position = 0;
+        for (int index : order) {
+            int start = Math.min(this.starts[index], length);
+            while (depth > 0 && this.ends[stack[depth - 1]] <= start) {
+                int top = stack[--depth];
+                position = spans.write(position, Math.min(this.ends[top], length), this.styleIndices[top]);
+            }
+
+            position = spans.write(position, start, depth > 0 ? this.styleIndices[stack[depth - 1]] : 0);
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, depth * 2);
+            }
+
+            stack[depth++] = index;
+        }
+
+        while (depth > 0) {
+            int top = stack[--depth];
+            position = spans.write(position, Math.min(this.ends[top], length), this.styleIndices[top]);
+        }
+
+        spans.write(position, length, 0);
+        return spans.create();
+    }
+
+    /**
+     * Sorts by start, and for equal starts the longest interval first so that it encloses the others. Ties keep
+     * insertion order.
+     */
+    private int[] sortedOrder(int length) {
+        var order = new int[this.size];
+        if (length < PACKED_LIMIT && this.size < PACKED_LIMIT) {
+            // start | (limit - end) | index, 21 bits each
+            var keys = new long[this.size];
+            for (int index = 0; index < this.size; index++) {
+                long start = Math.min(this.starts[index], length);
+                long inverseEnd = PACKED_LIMIT - 1 - Math.min(this.ends[index], length);
+                keys[index] = (start << 42) | (inverseEnd << 21) | index;
+            }
+
+            Arrays.sort(keys);
+            for (int index = 0; index < this.size; index++) {
+                order[index] = (int) (keys[index] & (PACKED_LIMIT - 1));
+            }
+
+            return order;
+        }
+
+        Integer[] boxed = new Integer[this.size];
+        for (int index = 0; index < this.size; index++) {
+            boxed[index] = index;
+        }
+
+        Arrays.sort(boxed, Comparator.<Integer>comparingInt(index -> this.starts[index])
+            .thenComparing(index -> this.ends[index], Comparator.reverseOrder()));
+        for (int index = 0; index < this.size; index++) {
+            order[index] = boxed[index];
+        }
+
+        return order;
+    }
+
+    /**
+     * Writes consecutive spans, merging neighbours that share a style.
+     */
+    private static final class SpanWriter {
+        private final StyleSpansBuilder<Collection<String>> builder = new StyleSpansBuilder<>();
+        private final List<Collection<String>> styles;
+        private int pendingStyle = -1;
+        private int pendingLength;
+        private boolean empty = true;
+
+        private SpanWriter(List<Collection<String>> styles) {
+            this.styles = styles;
+        }
+
+        /**
+         * @return The new position, which is {@code end} unless {@code end} lies before {@code position}.
+         */
+        private int write(int position, int end, int style) {
+            if (end <= position)
+                return position;
+
+            if (style != this.pendingStyle) {
+                flush();
+                this.pendingStyle = style;
+            }
+
+            this.pendingLength += end - position;
+            return end;
+        }
+
+        private void flush() {
+            if (this.pendingLength > 0) {
+                this.builder.add(this.styles.get(this.pendingStyle), this.pendingLength);
+                this.empty = false;
+            }
+
+            this.pendingLength = 0;
+        }
+
+        private StyleSpans<Collection<String>> create() {
+            flush();
+            if (this.empty) {
+                this.builder.add(Collections.emptyList(), 0);
+            }
+
+            return this.builder.create();
+        }
+    }
+}
@@ -76,8 +76,9 @@ public class RegexJavaSyntaxHighlighting {
         private static final String BRACE_PATTERN = "[{}]";
         private static final String BRACKET_PATTERN = "[\\[\\]]";
         private static final String SEMICOLON_PATTERN = ";";
-        private static final String STRING_PATTERN = "\"([^\"\\\\]|\\\\.)*\"";
-        private static final String COMMENT_PATTERN = "//[^\n]*" + "|" + "/\\*(.|\\R)*?\\*/";
+        // Neither pattern recurses once per character, which overflows the stack on long strings and comments
+        private static final String STRING_PATTERN = "\"[^\"\\\\]*(\\\\.[^\"\\\\]*)*\"";
+        private static final String COMMENT_PATTERN = "//[^\n]*" + "|" + "/\\*[\\s\\S]*?\\*/";
         private static final String NUMBER_PATTERN = "\\b\\d+(\\.\\d+)?[lLfFdD]?\\b";
         private static final String OPERATOR_PATTERN = "\\+|-|\\*|/|%|==|!=|<|<=|>|>=|&&|\\|\\||!|\\?|:|\\+=|-=|\\*=|/=|%=|&=|\\|=|\\^=|<<=|>>=|>>>=|&|\\||\\^|~|<<|>>|>>>";
         private static final String METHOD_PATTERN = "\\b\\w+\\(";
@@ -1,122 +1,333 @@
 package dev.railroadide.railroad.ide.syntaxhighlighting;
 
 import dev.railroadide.railroad.Railroad;
+import dev.railroadide.railroad.ide.text.TextDocument;
+import dev.railroadide.railroad.ide.text.TextRangeSet;
+import org.fxmisc.richtext.model.PlainTextChange;
 import org.fxmisc.richtext.model.StyleSpans;
 import org.fxmisc.richtext.model.StyleSpansBuilder;
-import org.treesitter.TSNode;
-import org.treesitter.TSParser;
-import org.treesitter.TSTreeCursor;
-import org.treesitter.TreeSitterJava;
+import org.jetbrains.annotations.Nullable;
+import org.treesitter.*;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+/**
+ * Highlights Java source with tree-sitter.
+ * <p>
+ * Source is handed to tree-sitter as UTF-16, so every byte offset in the tree is exactly twice the matching
+ * {@link String} index.
+ */
 public class TreeSitterJavaSyntaxHighlighting {
+    private static final TSLanguage LANGUAGE = new TreeSitterJava();
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
     public static StyleSpans<Collection<String>> computeHighlighting(String text) {
         long start = System.currentTimeMillis();
 
-        var highlighter = new SyntaxHighlighter(text);
-        highlighter.traverseTree(new TSTreeCursor(highlighter.rootNode), highlighter.rootNode);
-
-        var styles = highlighter.spansBuilder.create();
+        TSTree tree = parse(newParser(), null, text);
+        var styles = highlight(tree.getRootNode(), 0, text.length());
         Railroad.LOGGER.debug("Computed highlighting in {} ms", System.currentTimeMillis() - start);
         return styles;
     }
 
-    private static class SyntaxHighlighter {
-        private final StyleSpansBuilder<Collection<String>> spansBuilder = new StyleSpansBuilder<>();
-        private final String text;
-        private final TSNode rootNode;
-        private final List<TSNode> nodes = new ArrayList<>();
-        private int currentPosition;
+    private static TSParser newParser() {
+        var parser = new TSParser();
+        parser.setLanguage(LANGUAGE);
+        return parser;
+    }
 
-        public SyntaxHighlighter(String text) {
-            this.text = text;
+    private static TSTree parse(TSParser parser, @Nullable TSTree oldTree, CharSequence text) {
+        TSReader reader = (buffer, offset, point) -> {
+            int charOffset = offset / 2;
+            int count = Math.min(buffer.length / 2, text.length() - charOffset);
+            for (int index = 0; index < count; index++) {
+                char character = text.charAt(charOffset + index);
+                buffer[index * 2] = (byte) character;
+                buffer[index * 2 + 1] = (byte) (character >> 8);
+            }
 
-            var parser = new TSParser();
-            parser.setLanguage(new TreeSitterJava());
+            return Math.max(count, 0) * 2;
+        };
 
-            var tree = parser.parseString(null, text);
-            this.rootNode = tree.getRootNode();
-        }
+        return parser.parse(new byte[READ_BUFFER_SIZE], oldTree, reader, TSInputEncoding.TSInputEncodingUTF16LE);
+    }
 
-        public void traverseTree(TSTreeCursor cursor, TSNode node) {
-            cursor = cursor == null ? new TSTreeCursor(node) : cursor;
+    /**
+     * Styles the characters between {@code from} and {@code to}, visiting only the parts of the tree that overlap
+     * them.
+     */
+    private static StyleSpans<Collection<String>> highlight(TSNode root, int from, int to) {
+        var spansBuilder = new StyleSpansBuilder<Collection<String>>();
+        int position = from;
 
-            do {
-                TSNode currentNode = cursor.currentNode();
-                String type = currentNode.getType();
-                int start = currentNode.getStartByte();
-                int end = currentNode.getEndByte();
+        var cursor = new TSTreeCursor(root);
+        boolean done = false;
+        while (!done) {
+            TSNode node = cursor.currentNode();
+            int start = node.getStartByte() / 2;
+            int end = node.getEndByte() / 2;
+            // Nodes are visited in document order, so nothing after this one can overlap either
+            if (start >= to && end > start)
+                break;
 
-                if (this.currentPosition < start) {
-                    spansBuilder.add(Collections.emptyList(), start - this.currentPosition);
-                }
+            boolean overlaps = end > from && start < to;
+            boolean isLeaf = node.getChildCount() == 0;
+            // Jump straight to the first child that reaches into the range instead of walking all the ones before it
+            if (overlaps && !isLeaf && cursor.gotoFirstChildForByte(from * 2) >= 0)
+                continue;
 
-                if (!cursor.gotoFirstChild()) {
-                    nodes.add(currentNode);
-
-                    //String atNode = text.substring(start, end);
-                    //System.out.println(type + ": " + atNode);
-
-                    typeSwitch:
-                    switch (type) {
-                        case "line_comment" -> spansBuilder.add(Collections.singleton("comment"), end - start);
-                        case "decimal_integer_literal", "decimal_floating_point_literal" ->
-                            spansBuilder.add(Collections.singleton("number"), end - start);
-                        case "identifier" -> {
-                            // check to see if the identifier is a class name
-
-                            int i = nodes.size() - 1;
-                            while (i >= 0) {
-                                TSTreeCursor copy = cursor.copy();
-                                if (i == nodes.size() - 1) {
-                                    copy.gotoParent();
-                                    copy.gotoNextSibling();
-                                    copy.gotoFirstChild();
-                                    TSNode nextNode = copy.currentNode();
-                                    if (nextNode == null || nextNode.getType().equals(".")) {
-                                        break;
-                                    }
-                                }
-
-                                TSNode n = nodes.get(i);
-                                if (n.getType().equals("identifier") || n.getType().equals(".")) {
-                                    i--;
-                                } else if (n.getType().equals("import")) {
-                                    spansBuilder.add(Collections.singleton("type"), end - start);
-                                    break typeSwitch;
-                                } else {
-                                    break;
-                                }
-                            }
-
-                            spansBuilder.add(Collections.singleton("name"), end - start);
-                        }
-                        case "type_identifier" -> spansBuilder.add(Collections.singleton("type"), end - start);
-                        case "package" -> spansBuilder.add(Collections.singleton("package"), end - start);
-                        case "public", "class", "implements", "static", "final", "private", "protected", "return",
-                             "void_type", "int_type", "double_type", "float_type", "short_type", "byte_type",
-                             "long_type", "boolean_type", "char_type", "instanceof", "if", "for", "do", "while",
-                             "new" -> spansBuilder.add(Collections.singleton("modifier"), end - start);
-                        case "import" -> spansBuilder.add(Collections.singleton("import"), end - start);
-                        case "string_fragment", "\"" -> spansBuilder.add(Collections.singleton("string"), end - start);
-                        default -> spansBuilder.add(Collections.emptyList(), end - start);
+            if (overlaps && isLeaf) {
+                int styleStart = Math.max(start, position);
+                int styleEnd = Math.min(end, to);
+                if (styleStart < styleEnd) {
+                    if (position < styleStart) {
+                        spansBuilder.add(Collections.emptyList(), styleStart - position);
                     }
-                } else {
-                    cursor.gotoParent();
+
+                    String style = styleOf(node);
+                    spansBuilder.add(style == null ? Collections.emptyList() : Collections.singleton(style),
+                        styleEnd - styleStart);
+                    position = styleEnd;
                 }
+            }
 
-                this.currentPosition = end;
+            while (!cursor.gotoNextSibling()) {
+                if (!cursor.gotoParent()) {
+                    done = true;
+                    break;
+                }
+            }
+        }
+
+        // StyleSpansBuilder refuses to create empty spans, so there is always at least one
+        if (position < to || position == from) {
+            spansBuilder.add(Collections.emptyList(), to - position);
+        }
 
-                // Recursively traverse children
-                if (cursor.gotoFirstChild()) {
-                    traverseTree(cursor, currentNode);
-                    cursor.gotoParent();
+        return spansBuilder.create();
+    }
+
+    private static @Nullable String styleOf(TSNode leaf) {
+        return switch (leaf.getType()) {
+            case "line_comment", "block_comment" -> "comment";
+            case "decimal_integer_literal", "decimal_floating_point_literal" -> "number";
+            case "identifier" -> isImportedTypeName(leaf) ? "type" : "name";
+            case "type_identifier" -> "type";
+            case "package" -> "package";
+            case "public", "class", "implements", "static", "final", "private", "protected", "return",
+                 "void_type", "int_type", "double_type", "float_type", "short_type", "byte_type",
+                 "long_type", "boolean_type", "char_type", "instanceof", "if", "for", "do", "while",
+                 "new" -> "modifier";
+            case "import" -> "import";
+            case "string_fragment", "\"" -> "string";
+            default -> null;
+        };
+    }
+
+    /**
+     * @return Whether the identifier is the last part of an import, e.g. {@code List} in {@code java.util.List}.
+     */
+    private static boolean isImportedTypeName(TSNode identifier) {
+        TSNode parent = identifier.getParent();
+        if (parent == null || parent.isNull())
+            return false;
+
+        if (parent.getType().equals("import_declaration"))
+            return true;
+
+        if (!parent.getType().equals("scoped_identifier"))
+            return false;
+
+        TSNode grandparent = parent.getParent();
+        TSNode name = parent.getChildByFieldName("name");
+        return grandparent != null && !grandparent.isNull() && grandparent.getType().equals("import_declaration")
+            && name != null && !name.isNull() && name.getStartByte() == identifier.getStartByte();
+    }
+
+    /**
+     * Keeps the syntax tree of one open document and reparses it incrementally.
+     * <p>
+     * The text is read from the editor's {@link TextDocument}, and the positions tree-sitter needs for each edit come
+     * from its line index, so the highlighter keeps no copy of the text. Edits are queued by
+     * {@link #edit(PlainTextChange)} as they happen and applied to the tree on the next {@link #update(int, int, int)}.
+     * The highlighter remembers which parts of the document are not styled yet (at first all of it, later the edited
+     * ranges and the ranges tree-sitter reports as structurally changed) and styles them piece by piece, visible text
+     * first, so that paragraphs that did not change are never restyled. An update is only valid for the document it
+     * was computed from: if more edits arrived in the meantime it should be dropped, and its range is styled by a later
+     * update instead.
+     */
+    public static final class DocumentHighlighter {
+        private final TSParser parser = newParser();
+        private final TextDocument document;
+        private final Queue<Edit> pendingEdits = new ConcurrentLinkedQueue<>();
+
+        private final TextRangeSet unstyled = new TextRangeSet();
+        private @Nullable TSTree tree;
+        private long appliedVersion;
+
+        /**
+         * Does not parse the document yet, that is left to the first update so it can happen off the FX thread.
+         */
+        public DocumentHighlighter(TextDocument document) {
+            this.document = document;
+            this.appliedVersion = document.version();
+            this.unstyled.add(0, document.length());
+        }
+
+        /**
+         * Queues an edit of the document, once it has been applied to the {@link TextDocument}. This is cheap and
+         * meant to be called for every change, on the FX thread.
+         */
+        public void edit(PlainTextChange change) {
+            int start = change.getPosition();
+            int newEnd = change.getInsertionEnd();
+            // The text before the edit is unchanged, so the start is where it was before the edit too
+            var startPoint = new TSPoint(this.document.lineOf(start), this.document.columnOf(start) * 2);
+            var newEndPoint = new TSPoint(this.document.lineOf(newEnd), this.document.columnOf(newEnd) * 2);
+            TSPoint oldEndPoint = advance(startPoint, change.getRemoved());
+            this.pendingEdits.add(new Edit(
+                new TSInputEdit(start * 2, change.getRemovalEnd() * 2, newEnd * 2, startPoint, oldEndPoint, newEndPoint),
+                this.document.version()));
+        }
+
+        /**
+         * @return Whether an update would have anything to do.
+         */
+        public synchronized boolean needsUpdate() {
+            return !this.pendingEdits.isEmpty() || !this.unstyled.isEmpty();
+        }
+
+        /**
+         * Applies the queued edits, reparses the document reusing the previous tree and styles the next part of the
+         * document that is not styled yet.
+         *
+         * @param visibleStart The offset the text shown in the editor starts at, which is styled first.
+         * @param visibleEnd   The offset the text shown in the editor ends at.
+         * @param maxLength    The most characters to style when nothing visible needs styling.
+         * @return The new styles, or empty if everything is styled, or if the document has an edit that has not been
+         * queued yet, which requests another update once it is.
+         */
+        public synchronized Optional<Update> update(int visibleStart, int visibleEnd, int maxLength) {
+            long startTime = System.nanoTime();
+            TextDocument.Snapshot text = this.document.snapshot();
+            Edit edit;
+            while ((edit = this.pendingEdits.peek()) != null && edit.version() <= text.version()) {
+                this.pendingEdits.poll();
+                applyEdit(edit);
+            }
+
+            if (this.appliedVersion != text.version())
+                return Optional.empty();
+
+            TSTree newTree = parse(this.parser, this.tree, text);
+            if (this.tree != null) {
+                for (TSRange range : TSTree.getChangedRanges(this.tree, newTree)) {
+                    this.unstyled.add(range.getStartByte() / 2, Math.min(range.getEndByte() / 2, text.length()));
                 }
-            } while (cursor.gotoNextSibling());
+            }
+
+            this.tree = newTree;
+            if (this.unstyled.isEmpty())
+                return Optional.empty();
+
+            int from;
+            int to;
+            int visible = firstUnstyledOverlapping(visibleStart, visibleEnd);
+            if (visible >= 0) {
+                from = Math.max(this.unstyled.start(visible), visibleStart);
+                to = Math.min(this.unstyled.end(visible), visibleEnd);
+            } else {
+                // Carry on below the visible text, the text above it is most likely scrolled past already
+                int next = firstUnstyledOverlapping(visibleEnd, Integer.MAX_VALUE);
+                int index = next >= 0 ? next : 0;
+                from = this.unstyled.start(index);
+                to = Math.min(this.unstyled.end(index), from + maxLength);
+            }
+
+            var update = new Update(this.appliedVersion, from, highlight(newTree.getRootNode(), from, to));
+            Railroad.LOGGER.debug("Reparsed and restyled {} of {} characters in {} µs",
+                to - from, text.length(), (System.nanoTime() - startTime) / 1000);
+            return Optional.of(update);
+        }
+
+        /**
+         * @return Whether the update was computed from the document as it is now, so its styles line up.
+         */
+        public boolean isCurrent(Update update) {
+            return update.version() == this.document.version();
+        }
+
+        /**
+         * Marks the range of the update as styled, once it has been applied to the editor.
+         */
+        public synchronized void applied(Update update) {
+            if (update.version() == this.appliedVersion) {
+                this.unstyled.remove(update.start(), update.start() + update.spans().length());
+            }
+        }
+
+        /**
+         * Gives up on styling what is left after an update failed, and drops the tree so the next update parses the
+         * document from scratch. Only text edited from then on is styled again.
+         */
+        public synchronized void discardUnstyled() {
+            this.unstyled.clear();
+            this.tree = null;
+        }
+
+        private int firstUnstyledOverlapping(int start, int end) {
+            for (int index = 0; index < this.unstyled.size(); index++) {
+                if (this.unstyled.start(index) >= end)
+                    return -1;
+
+                if (this.unstyled.end(index) > start)
+                    return index;
+            }
+
+            return -1;
         }
+
+        private void applyEdit(Edit edit) {
+            TSInputEdit inputEdit = edit.inputEdit();
+            // Before the first update there is no tree yet, the first parse sees the edited text instead
+            if (this.tree != null) {
+                this.tree.edit(inputEdit);
+            }
+
+            int start = inputEdit.getStartByte() / 2;
+            int newEnd = inputEdit.getNewEndByte() / 2;
+            this.unstyled.edit(start, inputEdit.getOldEndByte() / 2, newEnd);
+            this.unstyled.add(start, newEnd);
+            this.appliedVersion = edit.version();
+        }
+
+        private static TSPoint advance(TSPoint point, String text) {
+            int lastNewline = text.lastIndexOf('\n');
+            if (lastNewline < 0)
+                return new TSPoint(point.getRow(), point.getColumn() + text.length() * 2);
+
+            int rows = (int) text.chars().filter(character -> character == '\n').count();
+            return new TSPoint(point.getRow() + rows, (text.length() - lastNewline - 1) * 2);
+        }
+
+        /**
+         * @param version The version of the document once the edit was made.
+         */
+        private record Edit(TSInputEdit inputEdit, long version) {
+        }
+    }
+
+    /**
+     * New styles for part of a document.
+     *
+     * @param version The version of the document the styles were computed from.
+     * @param start   The offset the styles start at.
+     * @param spans   The styles, to be applied with {@code setStyleSpans(start, spans)}.
+     */
+    public record Update(long version, int start, StyleSpans<Collection<String>> spans) {
     }
 }
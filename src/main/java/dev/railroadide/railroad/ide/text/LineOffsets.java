@@ -0,0 +1,83 @@
+package dev.railroadide.railroad.ide.text;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * The offset every line of a text starts at, for converting between offsets and line/column positions in
+ * {@code O(log lines)}. Lines and columns are 0-based; {@code \n}, {@code \r\n} and a lone {@code \r} all end a line.
+ */
+public final class LineOffsets {
+    private final int[] lineStarts;
+    private final int lineCount;
+    private final int length;
+
+    LineOffsets(int[] lineStarts, int lineCount, int length) {
+        this.lineStarts = lineStarts;
+        this.lineCount = lineCount;
+        this.length = length;
+    }
+
+    public static LineOffsets of(CharSequence text) {
+        var lineStarts = new int[Math.max(16, text.length() / 32)];
+        int lineCount = 1;
+        int length = text.length();
+        for (int index = 0; index < length; index++) {
+            char character = text.charAt(index);
+            if (character == '\r' && index + 1 < length && text.charAt(index + 1) == '\n') {
+                index++;
+            } else if (character != '\n' && character != '\r') {
+                continue;
+            }
+
+            if (lineCount == lineStarts.length) {
+                lineStarts = Arrays.copyOf(lineStarts, lineStarts.length * 2);
+            }
+
+            lineStarts[lineCount++] = index + 1;
+        }
+
+        return new LineOffsets(lineStarts, lineCount, length);
+    }
+
+    public static LineOffsets of(char[] text) {
+        return of(CharBuffer.wrap(text));
+    }
+
+    public int lineCount() {
+        return this.lineCount;
+    }
+
+    /**
+     * @return The length of the text the offsets were computed from.
+     */
+    public int length() {
+        return this.length;
+    }
+
+    public int lineStart(int line) {
+        return this.lineStarts[line];
+    }
+
+    /**
+     * @return The line the offset is on. Offsets past the end of the text are on the last line.
+     */
+    public int lineOf(int offset) {
+        int index = Arrays.binarySearch(this.lineStarts, 0, this.lineCount, offset);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    public int columnOf(int offset) {
+        return offset - this.lineStarts[lineOf(offset)];
+    }
+
+    /**
+     * @return The offset of the column on the line, clamped to the end of the text.
+     */
+    public int offsetOf(int line, int column) {
+        if (line >= this.lineCount)
+            return this.length;
+
+        return Math.min(this.lineStarts[Math.max(line, 0)] + column, this.length);
+    }
+}
@@ -0,0 +1,413 @@
+package dev.railroadide.railroad.ide.text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The text of an open document as a piece table, with a line index that is kept up to date edit by edit.
+ * <p>
+ * The text is never copied as a whole on an edit: inserted text is appended to a buffer, and the document is a list
+ * of pieces of the original text and of that buffer. {@link #snapshot()} hands out an immutable {@link CharSequence}
+ * view of the current text that costs a copy of the piece list rather than of the text, and stays valid however the
+ * document changes afterwards. Lines end at {@code \n}, as they do in the editor.
+ * <p>
+ * All methods are thread safe. Edits are expected to come from the FX thread, snapshots can be taken from anywhere.
+ */
+public final class TextDocument {
+    // Past this many pieces lookups slow down enough that flattening the text once is the cheaper option
+    private static final int MAX_PIECES = 4096;
+
+    private String original;
+    private AppendBuffer added = new AppendBuffer();
+
+    // A piece is a range of the original text (non-negative start) or of the added text (start encoded as -start - 1)
+    private int[] pieceStarts = new int[16];
+    private int[] pieceLengths = new int[16];
+    private int pieceCount;
+    private int length;
+
+    private int[] lineStarts = new int[16];
+    private int lineCount = 1;
+
+    private long version;
+    private Snapshot snapshot;
+
+    public TextDocument(String text) {
+        reset(text);
+    }
+
+    /**
+     * Replaces the whole text, dropping the edit history the pieces were built from.
+     */
+    public synchronized void reset(String text) {
+        this.original = text;
+        this.added = new AppendBuffer();
+        this.pieceCount = 0;
+        if (!text.isEmpty()) {
+            this.pieceStarts[0] = 0;
+            this.pieceLengths[0] = text.length();
+            this.pieceCount = 1;
+        }
+
+        this.length = text.length();
+        this.lineCount = 1;
+        insertLineStarts(0, text, 0);
+        this.version++;
+        this.snapshot = null;
+    }
+
+    /**
+     * Replaces the text from {@code start} (inclusive) to {@code end} (exclusive) with {@code text}.
+     */
+    public synchronized void replace(int start, int end, String text) {
+        if (start < 0 || end < start || end > this.length)
+            throw new IndexOutOfBoundsException("Range " + start + "-" + end + " is outside of 0-" + this.length);
+
+        removePieces(start, end);
+        if (!text.isEmpty()) {
+            int addedStart = this.added.append(text);
+            insertPiece(start, -addedStart - 1, text.length());
+        }
+
+        this.length += text.length() - (end - start);
+        updateLineStarts(start, end, text);
+        this.version++;
+        this.snapshot = null;
+
+        if (this.pieceCount > MAX_PIECES) {
+            reset(snapshot().toString());
+        }
+    }
+
+    /**
+     * @return The number of edits made to the document, for telling apart snapshots of different contents.
+     */
+    public synchronized long version() {
+        return this.version;
+    }
+
+    public synchronized int length() {
+        return this.length;
+    }
+
+    public synchronized int lineCount() {
+        return this.lineCount;
+    }
+
+    public synchronized int lineStart(int line) {
+        return this.lineStarts[line];
+    }
+
+    /**
+     * @return The 0-based line the offset is on.
+     */
+    public synchronized int lineOf(int offset) {
+        int index = Arrays.binarySearch(this.lineStarts, 0, this.lineCount, offset);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * @return The 0-based column of the offset within its line.
+     */
+    public synchronized int columnOf(int offset) {
+        return offset - this.lineStarts[lineOf(offset)];
+    }
+
+    /**
+     * @return An immutable view of the current text.
+     */
+    public synchronized Snapshot snapshot() {
+        if (this.snapshot == null) {
+            int[] offsets = new int[this.pieceCount + 1];
+            for (int index = 0; index < this.pieceCount; index++) {
+                offsets[index + 1] = offsets[index] + this.pieceLengths[index];
+            }
+
+            this.snapshot = new Snapshot(this.version, this.original, this.added,
+                Arrays.copyOf(this.pieceStarts, this.pieceCount), offsets,
+                new LineOffsets(Arrays.copyOf(this.lineStarts, this.lineCount), this.lineCount, this.length));
+        }
+
+        return this.snapshot;
+    }
+
+    private void removePieces(int start, int end) {
+        if (start == end)
+            return;
+
+        int position = 0;
+        int index = 0;
+        List<int[]> kept = new ArrayList<>(2);
+        int first = -1;
+        int last = -1;
+        while (index < this.pieceCount && position < end) {
+            int pieceEnd = position + this.pieceLengths[index];
+            if (pieceEnd > start) {
+                if (first < 0) {
+                    first = index;
+                }
+
+                last = index;
+                if (position < start) {
+                    kept.add(new int[]{this.pieceStarts[index], start - position});
+                }
+
+                if (pieceEnd > end) {
+                    kept.add(new int[]{shiftStart(this.pieceStarts[index], end - position), pieceEnd - end});
+                }
+            }
+
+            position = pieceEnd;
+            index++;
+        }
+
+        if (first < 0)
+            return;
+
+        replacePieces(first, last + 1, kept);
+    }
+
+    private void insertPiece(int offset, int pieceStart, int pieceLength) {
+        int position = 0;
+        for (int index = 0; index < this.pieceCount; index++) {
+            int pieceEnd = position + this.pieceLengths[index];
+            if (offset == position) {
+                replacePieces(index, index, List.of(new int[]{pieceStart, pieceLength}));
+                return;
+            }
+
+            // Typing appends to the buffer right where the previous piece of it ended, so that piece just grows
+            if (offset == pieceEnd && this.pieceStarts[index] < 0 && pieceStart < 0
+                && this.pieceStarts[index] - this.pieceLengths[index] == pieceStart) {
+                this.pieceLengths[index] += pieceLength;
+                return;
+            }
+
+            if (offset < pieceEnd) {
+                // Split the piece the text is inserted into
+                int before = offset - position;
+                replacePieces(index, index + 1, List.of(
+                    new int[]{this.pieceStarts[index], before},
+                    new int[]{pieceStart, pieceLength},
+                    new int[]{shiftStart(this.pieceStarts[index], before), this.pieceLengths[index] - before}));
+                return;
+            }
+
+            position = pieceEnd;
+        }
+
+        replacePieces(this.pieceCount, this.pieceCount, List.of(new int[]{pieceStart, pieceLength}));
+    }
+
+    private static int shiftStart(int pieceStart, int amount) {
+        return pieceStart >= 0 ? pieceStart + amount : pieceStart - amount;
+    }
+
+    private void replacePieces(int first, int last, List<int[]> pieces) {
+        int newCount = this.pieceCount - (last - first) + pieces.size();
+        if (newCount > this.pieceStarts.length) {
+            int capacity = Math.max(newCount, this.pieceStarts.length * 2);
+            this.pieceStarts = Arrays.copyOf(this.pieceStarts, capacity);
+            this.pieceLengths = Arrays.copyOf(this.pieceLengths, capacity);
+        }
+
+        System.arraycopy(this.pieceStarts, last, this.pieceStarts, first + pieces.size(), this.pieceCount - last);
+        System.arraycopy(this.pieceLengths, last, this.pieceLengths, first + pieces.size(), this.pieceCount - last);
+        for (int index = 0; index < pieces.size(); index++) {
+            this.pieceStarts[first + index] = pieces.get(index)[0];
+            this.pieceLengths[first + index] = pieces.get(index)[1];
+        }
+
+        this.pieceCount = newCount;
+    }
+
+    /**
+     * Drops the line starts inside the replaced text, shifts the ones after it and adds the ones of the inserted text.
+     */
+    private void updateLineStarts(int start, int end, String text) {
+        int firstRemoved = lineOf(start) + 1;
+        int lastRemoved = firstRemoved;
+        while (lastRemoved < this.lineCount && this.lineStarts[lastRemoved] <= end) {
+            lastRemoved++;
+        }
+
+        int delta = text.length() - (end - start);
+        for (int line = lastRemoved; line < this.lineCount; line++) {
+            this.lineStarts[line] += delta;
+        }
+
+        int[] tail = Arrays.copyOfRange(this.lineStarts, lastRemoved, this.lineCount);
+        this.lineCount = firstRemoved;
+        insertLineStarts(start, text, 0);
+        ensureLineCapacity(this.lineCount + tail.length);
+        System.arraycopy(tail, 0, this.lineStarts, this.lineCount, tail.length);
+        this.lineCount += tail.length;
+    }
+
+    private void insertLineStarts(int offset, String text, int from) {
+        for (int index = from; index < text.length(); index++) {
+            if (text.charAt(index) == '\n') {
+                ensureLineCapacity(this.lineCount + 1);
+                this.lineStarts[this.lineCount++] = offset + index + 1;
+            }
+        }
+    }
+
+    private void ensureLineCapacity(int capacity) {
+        if (capacity > this.lineStarts.length) {
+            this.lineStarts = Arrays.copyOf(this.lineStarts, Math.max(capacity, this.lineStarts.length * 2));
+        }
+    }
+
+    /**
+     * Append-only storage for inserted text. It grows in fixed chunks that are never moved, so snapshots can keep
+     * reading the text they refer to while more is appended.
+     */
+    private static final class AppendBuffer {
+        private static final int CHUNK_BITS = 14;
+        private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+        private char[][] chunks = new char[4][];
+        private int length;
+
+        /**
+         * @return The offset the text was appended at.
+         */
+        private int append(String text) {
+            int start = this.length;
+            for (int index = 0; index < text.length(); ) {
+                int chunk = this.length >>> CHUNK_BITS;
+                if (chunk == this.chunks.length) {
+                    this.chunks = Arrays.copyOf(this.chunks, chunk * 2);
+                }
+
+                if (this.chunks[chunk] == null) {
+                    this.chunks[chunk] = new char[CHUNK_SIZE];
+                }
+
+                int offset = this.length & (CHUNK_SIZE - 1);
+                int count = Math.min(CHUNK_SIZE - offset, text.length() - index);
+                text.getChars(index, index + count, this.chunks[chunk], offset);
+                index += count;
+                this.length += count;
+            }
+
+            return start;
+        }
+
+        private static char charAt(char[][] chunks, int index) {
+            return chunks[index >>> CHUNK_BITS][index & (CHUNK_SIZE - 1)];
+        }
+
+        private static void getChars(char[][] chunks, int start, int end, char[] destination, int destinationStart) {
+            for (int index = start; index < end; ) {
+                int offset = index & (CHUNK_SIZE - 1);
+                int count = Math.min(CHUNK_SIZE - offset, end - index);
+                System.arraycopy(chunks[index >>> CHUNK_BITS], offset, destination, destinationStart, count);
+                index += count;
+                destinationStart += count;
+            }
+        }
+    }
+
+    /**
+     * The text of a document at one point in time.
+     */
+    public static final class Snapshot implements CharSequence {
+        private final long version;
+        private final String original;
+        // The chunk array may be replaced as the buffer grows, this one holds every chunk this snapshot refers to
+        private final char[][] addedChunks;
+        private final int[] pieceStarts;
+        private final int[] offsets;
+        private final LineOffsets lineOffsets;
+        private int lastPiece;
+
+        private Snapshot(long version, String original, AppendBuffer added, int[] pieceStarts, int[] offsets,
+                         LineOffsets lineOffsets) {
+            this.version = version;
+            this.original = original;
+            this.addedChunks = added.chunks;
+            this.pieceStarts = pieceStarts;
+            this.offsets = offsets;
+            this.lineOffsets = lineOffsets;
+        }
+
+        /**
+         * @return The version of the document this is a snapshot of.
+         */
+        public long version() {
+            return this.version;
+        }
+
+        public LineOffsets lineOffsets() {
+            return this.lineOffsets;
+        }
+
+        @Override
+        public int length() {
+            return this.offsets[this.offsets.length - 1];
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length())
+                throw new IndexOutOfBoundsException("Index " + index + " is outside of 0-" + length());
+
+            int piece = findPiece(index);
+            int pieceStart = this.pieceStarts[piece];
+            int offset = index - this.offsets[piece];
+            return pieceStart >= 0
+                ? this.original.charAt(pieceStart + offset)
+                : AppendBuffer.charAt(this.addedChunks, -pieceStart - 1 + offset);
+        }
+
+        @Override
+        public String subSequence(int start, int end) {
+            if (start < 0 || end < start || end > length())
+                throw new IndexOutOfBoundsException("Range " + start + "-" + end + " is outside of 0-" + length());
+
+            if (start == end)
+                return "";
+
+            // Copied a piece, or a chunk of the added buffer, at a time
+            var chars = new char[end - start];
+            int position = start;
+            for (int piece = findPiece(start); position < end; piece++) {
+                int pieceStart = this.pieceStarts[piece];
+                int from = position - this.offsets[piece];
+                int to = Math.min(end, this.offsets[piece + 1]) - this.offsets[piece];
+                if (pieceStart >= 0) {
+                    this.original.getChars(pieceStart + from, pieceStart + to, chars, position - start);
+                } else {
+                    AppendBuffer.getChars(this.addedChunks, -pieceStart - 1 + from, -pieceStart - 1 + to, chars,
+                        position - start);
+                }
+
+                position += to - from;
+            }
+
+            return new String(chars);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length());
+        }
+
+        /**
+         * Reading text in order mostly stays within a piece, so the last piece found is tried first.
+         */
+        private int findPiece(int index) {
+            int last = this.lastPiece;
+            if (last < this.pieceStarts.length && this.offsets[last] <= index && index < this.offsets[last + 1])
+                return last;
+
+            int piece = Arrays.binarySearch(this.offsets, 0, this.pieceStarts.length, index);
+            piece = piece >= 0 ? piece : -piece - 2;
+            this.lastPiece = piece;
+            return piece;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package dev.railroadide.railroad.ide.text;
+
+import java.util.Arrays;
+
+/**
+ * A set of disjoint ranges of a text, for tracking which parts of a document still need work. Ranges are kept sorted
+ * in flat {@code int} arrays and follow edits of the text through {@link #edit(int, int, int)}.
+ * <p>
+ * Not thread safe.
+ */
+public final class TextRangeSet {
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private int size;
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return The start of the range at the index, ranges are ordered by their start.
+     */
+    public int start(int index) {
+        return this.starts[index];
+    }
+
+    public int end(int index) {
+        return this.ends[index];
+    }
+
+    /**
+     * Adds the range from {@code start} (inclusive) to {@code end} (exclusive), merging it with the ranges it overlaps
+     * or touches.
+     */
+    public void add(int start, int end) {
+        if (end <= start)
+            return;
+
+        int first = firstEndingAtOrAfter(start);
+        int last = first;
+        while (last < this.size && this.starts[last] <= end) {
+            start = Math.min(start, this.starts[last]);
+            end = Math.max(end, this.ends[last]);
+            last++;
+        }
+
+        replace(first, last, new int[]{start}, new int[]{end});
+    }
+
+    /**
+     * Removes the range from {@code start} (inclusive) to {@code end} (exclusive), splitting a range that contains it.
+     */
+    public void remove(int start, int end) {
+        if (end <= start)
+            return;
+
+        int first = firstEndingAtOrAfter(start + 1);
+        int last = first;
+        while (last < this.size && this.starts[last] < end) {
+            last++;
+        }
+
+        if (first == last)
+            return;
+
+        int[] keptStarts = new int[2];
+        int[] keptEnds = new int[2];
+        int kept = 0;
+        if (this.starts[first] < start) {
+            keptStarts[kept] = this.starts[first];
+            keptEnds[kept++] = start;
+        }
+
+        if (this.ends[last - 1] > end) {
+            keptStarts[kept] = end;
+            keptEnds[kept++] = this.ends[last - 1];
+        }
+
+        replace(first, last, Arrays.copyOf(keptStarts, kept), Arrays.copyOf(keptEnds, kept));
+    }
+
+    /**
+     * Moves the ranges to where they are after the text from {@code start} to {@code oldEnd} was replaced with text
+     * ending at {@code newEnd}. Offsets inside the replaced text move to {@code newEnd}, and ranges that end up empty
+     * are dropped.
+     */
+    public void edit(int start, int oldEnd, int newEnd) {
+        int kept = 0;
+        for (int index = 0; index < this.size; index++) {
+            int rangeStart = shift(this.starts[index], start, oldEnd, newEnd);
+            int rangeEnd = shift(this.ends[index], start, oldEnd, newEnd);
+            if (rangeEnd <= rangeStart)
+                continue;
+
+            // Shifting can only make neighbours touch, never reorder them
+            if (kept > 0 && this.ends[kept - 1] >= rangeStart) {
+                this.ends[kept - 1] = Math.max(this.ends[kept - 1], rangeEnd);
+            } else {
+                this.starts[kept] = rangeStart;
+                this.ends[kept++] = rangeEnd;
+            }
+        }
+
+        this.size = kept;
+    }
+
+    public void clear() {
+        this.size = 0;
+    }
+
+    private static int shift(int offset, int start, int oldEnd, int newEnd) {
+        if (offset <= start)
+            return offset;
+
+        return offset >= oldEnd ? offset + newEnd - oldEnd : newEnd;
+    }
+
+    private int firstEndingAtOrAfter(int offset) {
+        int low = 0;
+        int high = this.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.ends[middle] < offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Replaces the ranges from {@code first} (inclusive) to {@code last} (exclusive) with the given ones.
+     */
+    private void replace(int first, int last, int[] newStarts, int[] newEnds) {
+        int newSize = this.size - (last - first) + newStarts.length;
+        if (newSize > this.starts.length) {
+            int capacity = Math.max(newSize, this.starts.length * 2);
+            this.starts = Arrays.copyOf(this.starts, capacity);
+            this.ends = Arrays.copyOf(this.ends, capacity);
+        }
+
+        System.arraycopy(this.starts, last, this.starts, first + newStarts.length, this.size - last);
+        System.arraycopy(this.ends, last, this.ends, first + newStarts.length, this.size - last);
+        System.arraycopy(newStarts, 0, this.starts, first, newStarts.length);
+        System.arraycopy(newEnds, 0, this.ends, first, newEnds.length);
+        this.size = newSize;
+    }
+}
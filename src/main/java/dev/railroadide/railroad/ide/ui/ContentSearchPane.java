@@ -0,0 +1,249 @@
+package dev.railroadide.railroad.ide.ui;
+
+import dev.railroadide.core.ui.RRBorderPane;
+import dev.railroadide.core.ui.RRHBox;
+import dev.railroadide.core.ui.RRVBox;
+import dev.railroadide.core.ui.localized.LocalizedTextField;
+import dev.railroadide.railroad.Railroad;
+import dev.railroadide.railroad.Services;
+import dev.railroadide.railroad.ide.IDESetup;
+import dev.railroadide.railroad.ide.projectexplorer.PathItem;
+import dev.railroadide.railroad.ide.projectexplorer.ProjectExplorerPane;
+import dev.railroadide.railroad.ide.projectexplorer.task.ContentSearchTask;
+import dev.railroadide.railroad.ide.search.ContentIndex;
+import dev.railroadide.railroad.ide.search.ContentQuery;
+import dev.railroadide.railroad.ide.search.FileMatch;
+import dev.railroadide.railroad.localization.L18n;
+import dev.railroadide.railroad.project.Project;
+import dev.railroadide.railroad.utility.ShutdownHooks;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.*;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.util.Duration;
+
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Finds text in the files of a project and lists the matching lines by file, as they are found.
+ * <p>
+ * A search starts shortly after the query stops changing, cancelling the one before it. Matches arrive from the
+ * search threads and are added to the tree in one go per pulse, however many arrive in between.
+ */
+public class ContentSearchPane extends RRVBox {
+    private static final Duration SEARCH_DELAY = Duration.millis(250);
+
+    private final Project project;
+    private final RRBorderPane mainPane;
+    private final Path projectDir;
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor(Thread.ofPlatform()
+        .name("content-search-task")
+        .daemon()
+        .factory());
+    private final TextField queryField = new LocalizedTextField("railroad.ide.find_in_files.query");
+    private final CheckBox regexBox = new CheckBox(L18n.localize("railroad.ide.find_in_files.regex"));
+    private final CheckBox caseSensitiveBox = new CheckBox(L18n.localize("railroad.ide.find_in_files.match_case"));
+    private final Label statusLabel = new Label();
+    private final TreeView<Result> resultTree = new TreeView<>(new TreeItem<>());
+    private final PauseTransition searchDelay = new PauseTransition(SEARCH_DELAY);
+    private SearchRun currentRun;
+
+    public ContentSearchPane(Project project, RRBorderPane mainPane) {
+        this.project = project;
+        this.mainPane = mainPane;
+        this.projectDir = Path.of(project.getPathString()).toAbsolutePath().normalize();
+        setSpacing(6);
+        setPadding(new Insets(6));
+
+        this.queryField.getStyleClass().add("rr-search-field");
+        HBox.setHgrow(this.queryField, Priority.ALWAYS);
+        var header = new RRHBox(8);
+        header.getChildren().addAll(this.queryField, this.regexBox, this.caseSensitiveBox, this.statusLabel);
+        header.setAlignment(Pos.CENTER_LEFT);
+
+        this.resultTree.setShowRoot(false);
+        this.resultTree.setCellFactory(tree -> new ResultCell());
+        this.resultTree.setOnMouseClicked(event -> {
+            if (event.getButton() == MouseButton.PRIMARY && event.getClickCount() == 2) {
+                openSelected();
+            }
+        });
+        this.resultTree.setOnKeyPressed(event -> {
+            if (event.getCode() == KeyCode.ENTER) {
+                openSelected();
+            }
+        });
+        setVgrow(this.resultTree, Priority.ALWAYS);
+
+        this.searchDelay.setOnFinished(event -> search());
+        this.queryField.textProperty().addListener((observable, oldValue, newValue) -> this.searchDelay.playFromStart());
+        this.queryField.setOnAction(event -> {
+            this.searchDelay.stop();
+            search();
+        });
+        this.regexBox.selectedProperty().addListener((observable, oldValue, newValue) -> search());
+        this.caseSensitiveBox.selectedProperty().addListener((observable, oldValue, newValue) -> search());
+
+        getChildren().addAll(header, this.resultTree);
+
+        // Bring the index up to date in the background, so the first search does not have to wait for it
+        ContentIndex.forProject(this.projectDir);
+
+        ShutdownHooks.addHook(this.executorService::shutdownNow);
+    }
+
+    /**
+     * Puts the cursor in the query field, with the query selected so it can be typed over.
+     */
+    public void focusQuery() {
+        this.queryField.requestFocus();
+        this.queryField.selectAll();
+    }
+
+    private void search() {
+        if (this.currentRun != null) {
+            this.currentRun.task.cancel();
+            this.currentRun = null;
+        }
+
+        this.resultTree.getRoot().getChildren().clear();
+        String text = this.queryField.getText();
+        if (text.isEmpty()) {
+            this.statusLabel.setText("");
+            return;
+        }
+
+        var query = new ContentQuery(text, this.regexBox.isSelected(), this.caseSensitiveBox.isSelected());
+        var run = new SearchRun();
+        run.task = new ContentSearchTask(this.projectDir, query, match -> {
+            run.pending.add(match);
+            if (run.drainScheduled.compareAndSet(false, true)) {
+                Platform.runLater(() -> drain(run));
+            }
+        });
+        run.task.setOnSucceeded(event -> {
+            drain(run);
+            if (this.currentRun == run) {
+                this.statusLabel.setText(L18n.localize("railroad.ide.find_in_files.status.done", run.task.getValue()));
+            }
+        });
+        run.task.setOnFailed(event -> {
+            if (this.currentRun != run)
+                return;
+
+            Throwable exception = run.task.getException();
+            if (exception instanceof PatternSyntaxException syntaxException) {
+                this.statusLabel.setText(L18n.localize("railroad.ide.find_in_files.status.invalid_regex",
+                    syntaxException.getDescription()));
+            } else {
+                Railroad.LOGGER.error("Failed to search for '{}'", text, exception);
+                this.statusLabel.setText(L18n.localize("railroad.ide.find_in_files.status.failed"));
+            }
+        });
+
+        this.currentRun = run;
+        this.statusLabel.setText(L18n.localize("railroad.ide.find_in_files.status.searching"));
+        this.executorService.submit(run.task);
+    }
+
+    /**
+     * Adds the matches that arrived since the last pulse to the tree.
+     */
+    private void drain(SearchRun run) {
+        run.drainScheduled.set(false);
+        if (this.currentRun != run)
+            return;
+
+        FileMatch match;
+        while ((match = run.pending.poll()) != null) {
+            var fileItem = new TreeItem<>(new Result(match, null));
+            for (FileMatch.Line line : match.lines()) {
+                fileItem.getChildren().add(new TreeItem<>(new Result(match, line)));
+            }
+
+            fileItem.setExpanded(true);
+            this.resultTree.getRoot().getChildren().add(fileItem);
+        }
+    }
+
+    /**
+     * Moves to the selected match, in the tab already open for its file if there is one.
+     */
+    private void openSelected() {
+        TreeItem<Result> selected = this.resultTree.getSelectionModel().getSelectedItem();
+        if (selected == null || selected.getValue() == null)
+            return;
+
+        Result result = selected.getValue();
+        Path path = result.match().path();
+        TextEditorPane editor = IDESetup.findTab(this.mainPane,
+                tab -> tab.getContent() instanceof TextEditorPane pane && pane.getFilePath().equals(path))
+            .map(tab -> {
+                tab.getTabPane().getSelectionModel().select(tab);
+                return (TextEditorPane) tab.getContent();
+            })
+            .orElse(null);
+        if (editor == null) {
+            ProjectExplorerPane.openFile(this.project, new PathItem(path), this.mainPane);
+            editor = Services.DOCUMENT_EDITOR_STATE.getActiveEditorPane();
+        }
+
+        if (result.line() != null && editor != null) {
+            int line = Math.min(result.line().number() - 1, editor.getParagraphs().size() - 1);
+            editor.moveTo(line, Math.min(result.line().column(), editor.getParagraphLength(line)));
+            editor.requestFollowCaret();
+            editor.requestFocus();
+        }
+    }
+
+    /**
+     * A row of the result tree: a file, or one of its matching lines.
+     */
+    private record Result(FileMatch match, FileMatch.Line line) {
+    }
+
+    private static final class SearchRun {
+        private final Queue<FileMatch> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean drainScheduled = new AtomicBoolean();
+        private ContentSearchTask task;
+    }
+
+    private final class ResultCell extends TreeCell<Result> {
+        @Override
+        protected void updateItem(Result item, boolean empty) {
+            super.updateItem(item, empty);
+            setText(null);
+            setGraphic(null);
+            if (empty || item == null)
+                return;
+
+            if (item.line() == null) {
+                Path path = item.match().path();
+                setText(ContentSearchPane.this.projectDir.relativize(path) + " (" + item.match().lines().size() + ")");
+                return;
+            }
+
+            FileMatch.Line line = item.line();
+            String text = line.text();
+            var highlighted = new Label(text.substring(line.start(), line.end()));
+            highlighted.getStyleClass().add("search-highlight");
+            var graphic = new HBox();
+            graphic.getChildren().addAll(
+                new Label(line.number() + ": " + text.substring(0, line.start()).stripLeading()),
+                highlighted,
+                new Label(text.substring(line.end())));
+            setGraphic(graphic);
+        }
+    }
+}
@@ -2,10 +2,15 @@ package dev.railroadide.railroad.ide.ui;
 
 import dev.railroadide.core.ui.RRListView;
 import dev.railroadide.railroad.Railroad;
-import dev.railroadide.railroad.ide.classparser.stub.ClassStub;
+import dev.railroadide.railroad.ide.analysis.JavaAnalysisService;
 import dev.railroadide.railroad.ide.indexing.Autocomplete;
-import dev.railroadide.railroad.ide.indexing.Indexes;
+import dev.railroadide.railroad.ide.indexing.MemberTable;
+import dev.railroadide.railroad.ide.indexing.ProjectSymbolIndex;
+import dev.railroadide.railroad.ide.indexing.StandardLibraryIndex;
+import dev.railroadide.railroad.ide.syntaxhighlighting.BracketIndex;
 import dev.railroadide.railroad.ide.syntaxhighlighting.TreeSitterJavaSyntaxHighlighting;
+import dev.railroadide.railroad.ide.text.LineOffsets;
+import dev.railroadide.railroad.ide.text.TextDocument;
 import dev.railroadide.railroad.project.Project;
 import dev.railroadide.railroad.utility.ShutdownHooks;
 import io.github.palexdev.mfxresources.fonts.MFXFontIcon;
@@ -29,36 +34,51 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.TextAlignment;
 import javafx.stage.Popup;
 import javafx.util.Pair;
-import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.compiler.IProblem;
 import org.eclipse.jdt.core.dom.*;
+import org.fxmisc.richtext.Selection;
+import org.fxmisc.richtext.SelectionImpl;
 import org.fxmisc.richtext.event.MouseOverTextEvent;
-import org.fxmisc.richtext.model.StyleSpans;
 import org.jetbrains.annotations.Nullable;
 
 import javax.tools.Diagnostic;
 import javax.tools.DiagnosticCollector;
 import javax.tools.JavaFileObject;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.function.IntFunction;
-import java.util.stream.Collectors;
 
 public class JavaCodeEditorPane extends TextEditorPane {
+    private static final int BACKGROUND_HIGHLIGHTING_CHUNK = 32 * 1024;
+
     private final ExecutorService executor0 = Executors.newFixedThreadPool(2);
     private final ObservableMap<Diagnostic<? extends JavaFileObject>, Popup> errors = FXCollections.observableHashMap();
     private final Map<Integer, Diagnostic.Kind> lineToSeverity = new HashMap<>();
 
-    private final List<ClassStub> stubs = Indexes.scanStandardLibrary();
-    private final Autocomplete autocomplete = new Autocomplete(stubs);
+    private final CompletableFuture<Autocomplete> autocomplete = StandardLibraryIndex.getAutocomplete();
+    private final ProjectSymbolIndex symbolIndex;
+    private final JavaAnalysisService analysisService;
+    private TreeSitterJavaSyntaxHighlighting.DocumentHighlighter highlighter;
+    private @Nullable Task<?> highlightingTask;
+    private boolean highlightingRequested;
+    private final Selection<Collection<String>, String, Collection<String>> caretBracket =
+        new SelectionImpl<>("caret-bracket", this, path -> path.getStyleClass().add("bracket-highlight"));
+    private final Selection<Collection<String>, String, Collection<String>> matchingBracket =
+        new SelectionImpl<>("matching-bracket", this, path -> path.getStyleClass().add("bracket-highlight"));
+    private @Nullable BracketIndex bracketIndex;
+    private long bracketIndexVersion;
     private final AtomicReference<Popup> autoCompletePopup = new AtomicReference<>(null);
-    private final List<String> fullSuggestions = new ArrayList<>();
-    private int dotPosition = -1;
+    private volatile Function<String, List<String>> completionSource = prefix -> List.of();
+    private volatile int completionStart = -1;
     private ChangeListener<String> textListener;
 
     private final Project project;
@@ -67,6 +87,8 @@ public class JavaCodeEditorPane extends TextEditorPane {
         super(item);
 
         this.project = project;
+        this.symbolIndex = ProjectSymbolIndex.forProject(project.getPath());
+        this.analysisService = JavaAnalysisService.forProject(project.getPath());
 
         marginErrors();
 
@@ -79,82 +101,68 @@ public class JavaCodeEditorPane extends TextEditorPane {
     }
 
     private void highlightBracketPairs() {
-        caretPositionProperty().addListener((observable, oldValue, newValue) -> {
-            String text = getText();
-            if (text.isBlank() || newValue < 0 || newValue > text.length())
-                return;
+        addSelection(this.caretBracket);
+        addSelection(this.matchingBracket);
+
+        // The index is rebuilt once typing pauses, until then there are no pairs to show
+        plainTextChanges().subscribe(change -> {
+            this.bracketIndex = null;
+            this.bracketIndexVersion++;
+            updateBracketHighlight();
+        });
+        multiPlainChanges()
+            .successionEnds(Duration.ofMillis(100))
+            .subscribe(ignored -> indexBrackets());
+        caretPositionProperty().addListener((observable, oldValue, newValue) -> updateBracketHighlight());
+        indexBrackets();
+    }
 
-            Map<Character, Character> bracketPairs = Map.of(
-                '(', ')',
-                '{', '}',
-                '[', ']',
-                ')', '(',
-                '}', '{',
-                ']', '['
-            );
-
-            char currentChar = newValue < text.length() ? text.charAt(newValue) : '\0';
-            if (!bracketPairs.containsKey(currentChar) && newValue > 0) {
-                currentChar = text.charAt(newValue - 1);
-                newValue--;
+    private void indexBrackets() {
+        long version = this.bracketIndexVersion;
+        CharSequence text = this.document.snapshot();
+        Task<BracketIndex> task = new Task<>() {
+            @Override
+            protected BracketIndex call() {
+                return BracketIndex.of(text);
             }
+        };
 
-            if (!bracketPairs.containsKey(currentChar)) {
-                clearBracketHighlights();
+        task.setOnSucceeded(event -> {
+            if (version != this.bracketIndexVersion)
                 return;
-            }
-
-            boolean forward = (currentChar == '(' || currentChar == '{' || currentChar == '[');
 
-            highlightMatchingBracket(text, newValue, currentChar, bracketPairs.get(currentChar), forward);
+            this.bracketIndex = task.getValue();
+            updateBracketHighlight();
         });
+        task.setOnFailed(event -> Railroad.LOGGER.error("Failed to index brackets", task.getException()));
+        executor0.submit(task);
     }
 
-    private void highlightMatchingBracket(String text, int position, char currentChar, char matchingBracket, boolean lookForward) {
-        int matchPos = findMatchingBracketPosition(text, position, currentChar, matchingBracket, lookForward);
-        clearBracketHighlights();
-
-        if (matchPos != -1) {
-            setStyleClass(position, position + 1, "bracket-highlight");
-            setStyleClass(matchPos, matchPos + 1, "bracket-highlight");
-        }
-    }
-
-    private int findMatchingBracketPosition(String text, int pos, char open, char close, boolean forward) {
-        int balance = 0;
-        int length = text.length();
-
-        if (forward) {
-            for (int index = pos; index < length; index++) {
-                char c = text.charAt(index);
-                if (c == open)
-                    balance++;
-                else if (c == close)
-                    balance--;
-
-                if (balance == 0)
-                    return index;
-            }
-        } else {
-            for (int index = pos; index >= 0; index--) {
-                char c = text.charAt(index);
-                if (c == open)
-                    balance--;
-                else if (c == close)
-                    balance++;
-
-                if (balance == 0)
-                    return index;
+    /**
+     * Highlights the bracket at or just before the caret and its match. This only moves the bracket selections, the
+     * syntax highlighting is left alone.
+     */
+    private void updateBracketHighlight() {
+        int caret = getCaretPosition();
+        int bracket = -1;
+        int match = -1;
+        if (this.bracketIndex != null) {
+            bracket = caret;
+            match = this.bracketIndex.matchAt(caret);
+            if (match < 0 && caret > 0) {
+                bracket = caret - 1;
+                match = this.bracketIndex.matchAt(bracket);
             }
         }
 
-        return -1;
-    }
+        if (match < 0) {
+            this.caretBracket.deselect();
+            this.matchingBracket.deselect();
+            return;
+        }
 
-    private void clearBracketHighlights() {
-        int length = getLength();
-        setStyle(0, length, Collections.emptyList());
-        applyHighlighting(computeHighlighting(getText()));
+        this.caretBracket.selectRange(bracket, bracket + 1);
+        this.matchingBracket.selectRange(match, match + 1);
     }
 
     private void marginErrors() {
@@ -209,12 +217,13 @@ public class JavaCodeEditorPane extends TextEditorPane {
     private void codeCompletion() {
         plainTextChanges()
             .successionEnds(Duration.ofMillis(500))
-            .retainLatestUntilLater(executor0)
             .filter(change -> !change.getInserted().equals(change.getRemoved()))
             .subscribe(change -> {
                 String inserted = change.getInserted();
                 if (inserted.endsWith(".")) {
                     showAutoComplete(change.getPosition());
+                } else if (!inserted.isEmpty() && Character.isJavaIdentifierPart(inserted.charAt(inserted.length() - 1))) {
+                    showClassCompletion(change.getInsertionEnd());
                 }
             });
 
@@ -226,9 +235,8 @@ public class JavaCodeEditorPane extends TextEditorPane {
         });
     }
 
-    private @Nullable Pair<Integer, Integer> getIdentifierRangeBeforeDot(int dotPosition) {
-        String text = getText();
-        if (dotPosition < 0 || text.charAt(dotPosition) != '.') {
+    private @Nullable Pair<Integer, Integer> getIdentifierRangeBeforeDot(CharSequence text, int dotPosition) {
+        if (dotPosition < 0 || dotPosition >= text.length() || text.charAt(dotPosition) != '.') {
             return null;
         }
 
@@ -240,34 +248,29 @@ public class JavaCodeEditorPane extends TextEditorPane {
         return new Pair<>(start, dotPosition - start + 1);
     }
 
+    /**
+     * Analyses the text as it is now and shows the members of the expression before the dot at the position. The
+     * analysis is shared with the diagnostics of the same text, and nothing waits for it on the editor's threads.
+     */
     private void showAutoComplete(int position) {
-        ASTParser parser = ASTParser.newParser(AST.JLS21);
-        parser.setSource(getText().toCharArray());
-        parser.setKind(ASTParser.K_COMPILATION_UNIT);
-        parser.setResolveBindings(true);
-        parser.setBindingsRecovery(true);
-        parser.setStatementsRecovery(true);
-        parser.setUnitName(filePath.getFileName().toString());
-        String[] classpathEntries = new String[0];
-        try {
-            var javaHome = Path.of(System.getProperty("java.home"));
-            var jmodsDir = javaHome.resolve("jmods");
-            if (Files.isDirectory(jmodsDir)) {
-                try (var stream = Files.list(jmodsDir)) {
-                    classpathEntries = stream
-                        .map(Path::toString)
-                        .toArray(String[]::new);
+        TextDocument.Snapshot snapshot = this.document.snapshot();
+        CompletableFuture.supplyAsync(snapshot::toString, executor0)
+            .thenCompose(text -> this.analysisService.analyze(filePath, text))
+            .thenAcceptAsync(analysis -> showAutoComplete(analysis.unit(), snapshot, position), executor0)
+            .exceptionally(throwable -> {
+                if (isCancellation(throwable)) {
+                    Railroad.LOGGER.debug("Skipping completion, the analysis of {} was superseded", filePath);
+                } else {
+                    Railroad.LOGGER.error("Failed to complete code in {}", filePath, throwable);
                 }
-            }
-        } catch (Exception exception) {
-            Railroad.LOGGER.error("Failed to resolve JDK modules", exception);
-        }
-
-        parser.setEnvironment(classpathEntries, null, null, false);
 
-        CompilationUnit compilationUnit = (CompilationUnit) parser.createAST(null);
+                hideAutoComplete();
+                return null;
+            });
+    }
 
-        Pair<Integer, Integer> range = getIdentifierRangeBeforeDot(position);
+    private void showAutoComplete(CompilationUnit compilationUnit, CharSequence source, int position) {
+        Pair<Integer, Integer> range = getIdentifierRangeBeforeDot(source, position);
         if (range == null) {
             hideAutoComplete();
             return;
@@ -287,27 +290,77 @@ public class JavaCodeEditorPane extends TextEditorPane {
             return;
         }
 
-        List<String> suggestions = new ArrayList<>();
         if (node instanceof ExpressionStatement statement) {
             node = statement.getExpression();
         }
 
-        if (node instanceof Expression expr) {
-            ITypeBinding binding = expr.resolveTypeBinding();
-            if (binding != null) {
-                String typeName = binding.getQualifiedName();
-                suggestions.addAll(this.autocomplete.suggestMembers(typeName, ""));
-            }
+        if (!(node instanceof Expression expr) || expr.resolveTypeBinding() == null) {
+            hideAutoComplete();
+            return;
         }
 
+        ITypeBinding erasure = expr.resolveTypeBinding().getErasure();
+        String typeName = erasure.getBinaryName() != null ? erasure.getBinaryName() : erasure.getQualifiedName();
+        // Until the JDK index is built, the project index still knows the project's and its dependencies' classes
+        Autocomplete jdk = this.autocomplete.getNow(null);
+        MemberTable members = jdk != null ? jdk.getMembers(typeName) : MemberTable.EMPTY;
+        if (members.isEmpty()) {
+            members = this.symbolIndex.getMembers(typeName);
+        }
+
+        showSuggestions(position + 1, members::findNames);
+    }
+
+    /**
+     * Offers the class names of the project, its dependencies and the JDK that match the capitalised identifier
+     * ending at the position, unless suggestions are already showing.
+     */
+    private void showClassCompletion(int position) {
+        Popup currentPopup = this.autoCompletePopup.get();
+        if (currentPopup != null && currentPopup.isShowing())
+            return;
+
+        CharSequence text = this.document.snapshot();
+        if (position > text.length())
+            return;
+
+        int start = position;
+        while (start > 0 && Character.isJavaIdentifierPart(text.charAt(start - 1))) {
+            start--;
+        }
+
+        if (position - start < 2 || !Character.isUpperCase(text.charAt(start)) || (start > 0 && text.charAt(start - 1) == '.'))
+            return;
+
+        int identifierStart = start;
+        CompletableFuture.runAsync(() -> showSuggestions(identifierStart,
+                prefix -> this.symbolIndex.getClassCompletions(prefix, Autocomplete.DEFAULT_LIMIT)), executor0)
+            .exceptionally(throwable -> {
+                Railroad.LOGGER.error("Failed to complete class names in {}", filePath, throwable);
+                return null;
+            });
+    }
+
+    /**
+     * Shows the suggestions for the identifier starting at the position, and keeps filtering them as it is typed.
+     *
+     * @param source Finds the suggestions for the part of the identifier typed so far.
+     */
+    private void showSuggestions(int start, Function<String, List<String>> source) {
+        CharSequence text = this.document.snapshot();
+        int end = start;
+        while (end < text.length() && Character.isJavaIdentifierPart(text.charAt(end))) {
+            end++;
+        }
+
+        List<String> suggestions = source.apply(text.subSequence(start, end).toString());
         if (suggestions.isEmpty()) {
             hideAutoComplete();
             return;
         }
 
-        this.fullSuggestions.clear();
-        this.fullSuggestions.addAll(suggestions);
-        this.dotPosition = position;
+        this.completionSource = source;
+        this.completionStart = start;
 
         Platform.runLater(() -> {
             var popup = new Popup();
@@ -318,8 +371,7 @@ public class JavaCodeEditorPane extends TextEditorPane {
                 String selected = listView.getSelectionModel().getSelectedItem();
                 if (selected != null) {
                     int currentCaret = getCaretPosition();
-                    int startPos = this.dotPosition + 1; // After the dot
-                    replaceText(startPos, currentCaret, selected); // Replace prefix with selection
+                    replaceText(this.completionStart, currentCaret, selected); // Replace prefix with selection
                     hideAutoComplete();
                 }
             });
@@ -334,17 +386,10 @@ public class JavaCodeEditorPane extends TextEditorPane {
                 Popup currentPopup = autoCompletePopup.get();
                 if (currentPopup != null && currentPopup.isShowing()) {
                     int currentCaret = getCaretPosition();
-                    if (currentCaret > dotPosition && getText().charAt(dotPosition) == '.') {
-                        String prefix = "";
-                        if (currentCaret > dotPosition + 1) {
-                            prefix = getText().substring(dotPosition + 1, currentCaret);
-                        }
-
-                        final String finalPrefix = prefix;
-                        List<String> filtered = fullSuggestions.stream()
-                            .filter(s -> s.startsWith(finalPrefix))
-                            .collect(Collectors.toList());
-                        listView.getItems().setAll(filtered);
+                    CharSequence current = this.document.snapshot();
+                    String prefix = currentCaret >= completionStart ? current.subSequence(completionStart, currentCaret).toString() : null;
+                    if (prefix != null && prefix.chars().allMatch(Character::isJavaIdentifierPart)) {
+                        listView.getItems().setAll(completionSource.apply(prefix));
                     } else {
                         hideAutoComplete();
                     }
@@ -372,20 +417,23 @@ public class JavaCodeEditorPane extends TextEditorPane {
     }
 
     private void errorHighlighting() {
-        Task<DiagnosticCollector<JavaFileObject>> task = requestErrorDiagnostics();
-        task.setOnSucceeded(event -> applyErrorHighlighting(task.getValue()));
-        task.setOnFailed(event -> Railroad.LOGGER.error("Failed to compile", task.getException()));
+        requestErrorDiagnostics().whenCompleteAsync((diagnostics, throwable) -> {
+            if (throwable == null) {
+                applyErrorHighlighting(diagnostics);
+            } else {
+                logDiagnosticsFailure(throwable);
+            }
+        }, Platform::runLater);
 
         plainTextChanges()
             .successionEnds(Duration.ofMillis(500))
-            .retainLatestUntilLater(executor0)
-            .supplyTask(this::requestErrorDiagnostics)
+            .supplyCompletionStage(this::requestErrorDiagnostics)
             .awaitLatest(plainTextChanges())
-            .filterMap(throwable -> {
-                if (throwable.isSuccess()) {
-                    return throwable.toOptional();
+            .filterMap(result -> {
+                if (result.isSuccess()) {
+                    return result.toOptional();
                 } else {
-                    Railroad.LOGGER.error("Failed to compile", throwable.getFailure());
+                    logDiagnosticsFailure(result.getFailure());
                     return Optional.empty();
                 }
             })
@@ -398,26 +446,14 @@ public class JavaCodeEditorPane extends TextEditorPane {
         });
     }
 
-    private Task<DiagnosticCollector<JavaFileObject>> requestErrorDiagnostics() {
-        Task<DiagnosticCollector<JavaFileObject>> task = new Task<>() {
-            @Override
-            protected DiagnosticCollector<JavaFileObject> call() {
-                long startTime = System.currentTimeMillis();
-
-                char[] source = getText().toCharArray();
-
-                ASTParser parser = ASTParser.newParser(AST.JLS21);
-                parser.setKind(ASTParser.K_COMPILATION_UNIT);
-                Map<String, String> options = JavaCore.getOptions();
-                JavaCore.setComplianceOptions(JavaCore.VERSION_21, options);
-                parser.setCompilerOptions(options);
-                parser.setSource(source);
-                CompilationUnit unit = (CompilationUnit) parser.createAST(null);
-
-                IProblem[] problems = unit.getProblems();
-
+    private CompletionStage<DiagnosticCollector<JavaFileObject>> requestErrorDiagnostics() {
+        TextDocument.Snapshot snapshot = this.document.snapshot();
+        return CompletableFuture.supplyAsync(snapshot::toString, executor0)
+            .thenCompose(text -> analysisService.analyze(filePath, text))
+            .thenApplyAsync(analysis -> {
+                LineOffsets lineOffsets = snapshot.lineOffsets();
                 DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
-                for (IProblem problem : problems) {
+                for (IProblem problem : analysis.problems()) {
                     Diagnostic.Kind kind = problem.isError() ? Diagnostic.Kind.ERROR :
                         (problem.isWarning() ? Diagnostic.Kind.WARNING : Diagnostic.Kind.OTHER);
                     if (kind == Diagnostic.Kind.OTHER) continue;
@@ -425,19 +461,30 @@ public class JavaCodeEditorPane extends TextEditorPane {
                     int start = problem.getSourceStart();
                     int end = problem.getSourceEnd() + 1;
                     long line = problem.getSourceLineNumber();
-                    long column = computeColumn(source, start);
+                    long column = lineOffsets.columnOf(start) + 1;
                     String message = problem.getMessage();
 
                     diagnostics.report(new ProblemDiagnostic(kind, start, end, line, column, message));
                 }
 
-                Railroad.LOGGER.debug("Error diagnostics took {}ms", System.currentTimeMillis() - startTime);
                 return diagnostics;
-            }
-        };
+            }, executor0);
+    }
 
-        executor0.submit(task);
-        return task;
+    private void logDiagnosticsFailure(Throwable throwable) {
+        // A newer edit replaced the text before it was analysed, the diagnostics of that text follow
+        if (isCancellation(throwable)) {
+            Railroad.LOGGER.debug("Skipping diagnostics, the analysis of {} was superseded", filePath);
+            return;
+        }
+
+        Railroad.LOGGER.error("Failed to compile", throwable);
+    }
+
+    private static boolean isCancellation(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+            ? throwable.getCause() : throwable;
+        return cause instanceof CancellationException;
     }
 
     private void applyErrorHighlighting(DiagnosticCollector<JavaFileObject> diagnostics) {
@@ -509,55 +556,79 @@ public class JavaCodeEditorPane extends TextEditorPane {
         Railroad.LOGGER.debug("Error highlighting took {}ms", System.currentTimeMillis() - startTime);
     }
 
-    private static long computeColumn(char[] source, int position) {
-        int column = 1;
-        for (int i = position - 1; i >= 0; i--) {
-            char c = source[i];
-            if (c == '\n' || c == '\r') {
-                break;
-            }
-            column++;
-        }
-        return column;
-    }
-
     private void syntaxHighlight() {
-        applyHighlighting(computeHighlighting(getText()));
+        this.highlighter = new TreeSitterJavaSyntaxHighlighting.DocumentHighlighter(this.document);
+        plainTextChanges().subscribe(this.highlighter::edit);
         multiPlainChanges()
-            .successionEnds(Duration.ofMillis(500))
-            .retainLatestUntilLater(executor0)
-            .supplyTask(this::computeHighlightingAsync)
-            .awaitLatest(multiPlainChanges())
-            .filterMap(throwable -> {
-                if (throwable.isSuccess()) {
-                    return throwable.toOptional();
-                } else {
-                    Railroad.LOGGER.error("Failed to compute highlighting", throwable.getFailure());
-                    return Optional.empty();
-                }
-            })
-            .subscribe(this::applyHighlighting);
+            .successionEnds(Duration.ofMillis(100))
+            .subscribe(ignored -> requestHighlighting());
+        // Scrolling to text that is not styled yet styles it ahead of the rest of the document
+        viewportDirtyEvents()
+            .successionEnds(Duration.ofMillis(50))
+            .subscribe(ignored -> requestHighlighting());
+        requestHighlighting();
     }
 
-    private Task<StyleSpans<Collection<String>>> computeHighlightingAsync() {
-        String text = getText();
-        Task<StyleSpans<Collection<String>>> task = new Task<>() {
+    /**
+     * Styles the next part of the document that needs it, and keeps going in the background until all of it is
+     * styled. Only one highlighting task runs at a time, requests made while it runs are picked up once it is done.
+     */
+    private void requestHighlighting() {
+        if (this.highlightingTask != null) {
+            this.highlightingRequested = true;
+            return;
+        }
+
+        int visibleStart = 0;
+        int visibleEnd = 0;
+        if (!getVisibleParagraphs().isEmpty()) {
+            int lastVisible = lastVisibleParToAllParIndex();
+            visibleStart = getAbsolutePosition(firstVisibleParToAllParIndex(), 0);
+            visibleEnd = getAbsolutePosition(lastVisible, getParagraphLength(lastVisible));
+        }
+
+        int finalVisibleStart = visibleStart;
+        int finalVisibleEnd = visibleEnd;
+        Task<Optional<TreeSitterJavaSyntaxHighlighting.Update>> task = new Task<>() {
             @Override
-            protected StyleSpans<Collection<String>> call() {
-                return computeHighlighting(text);
+            protected Optional<TreeSitterJavaSyntaxHighlighting.Update> call() {
+                return highlighter.update(finalVisibleStart, finalVisibleEnd, BACKGROUND_HIGHLIGHTING_CHUNK);
             }
         };
 
+        task.setOnSucceeded(event -> {
+            task.getValue().ifPresent(this::applyHighlighting);
+            onHighlightingDone();
+        });
+        task.setOnFailed(event -> {
+            Railroad.LOGGER.error("Failed to compute highlighting", task.getException());
+            // Retrying straight away would most likely fail the same way, so only a new edit or scroll tries again
+            this.highlighter.discardUnstyled();
+            this.highlightingTask = null;
+            if (this.highlightingRequested) {
+                requestHighlighting();
+            }
+        });
+
+        this.highlightingTask = task;
+        this.highlightingRequested = false;
         executor0.submit(task);
-        return task;
     }
 
-    private void applyHighlighting(StyleSpans<Collection<String>> highlighting) {
-        setStyleSpans(0, highlighting);
+    private void onHighlightingDone() {
+        this.highlightingTask = null;
+        if (this.highlightingRequested || this.highlighter.needsUpdate()) {
+            requestHighlighting();
+        }
     }
 
-    private StyleSpans<Collection<String>> computeHighlighting(String text) {
-        return TreeSitterJavaSyntaxHighlighting.computeHighlighting(text);
+    private void applyHighlighting(TreeSitterJavaSyntaxHighlighting.Update update) {
+        // Edits made while the update was computed shift its range, a later update styles it instead
+        if (!this.highlighter.isCurrent(update))
+            return;
+
+        setStyleSpans(update.start(), update.spans());
+        this.highlighter.applied(update);
     }
 
     private record ProblemDiagnostic(Kind kind, int start, int end, long line, long column,
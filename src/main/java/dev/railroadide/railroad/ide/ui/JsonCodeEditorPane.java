@@ -110,10 +110,10 @@ public class JsonCodeEditorPane extends TextEditorPane {
     }
 
     private boolean isInsideString(int position) {
-        String text = getText().substring(0, position);
+        CharSequence text = this.document.snapshot();
         boolean inString = false;
         boolean escaped = false;
-        for (int i = 0; i < text.length(); i++) {
+        for (int i = 0; i < position; i++) {
             char c = text.charAt(i);
             if (escaped) {
                 escaped = false;
@@ -133,15 +133,12 @@ public class JsonCodeEditorPane extends TextEditorPane {
                 return;
 
             int pos = getCaretPosition();
-            String text = getText();
+            CharSequence text = this.document.snapshot();
 
-            String before = text.substring(0, pos);
-            String after = text.substring(pos);
-
-            int lineStart = before.lastIndexOf('\n') + 1;
+            int lineStart = this.document.lineStart(this.document.lineOf(pos));
             StringBuilder baseIndent = new StringBuilder();
-            while (lineStart < before.length()) {
-                char c = before.charAt(lineStart);
+            while (lineStart < pos) {
+                char c = text.charAt(lineStart);
                 if (c == ' ' || c == '\t') {
                     baseIndent.append(c);
                     lineStart++;
@@ -150,8 +147,8 @@ public class JsonCodeEditorPane extends TextEditorPane {
                 }
             }
 
-            char prev = pos > 0 ? before.charAt(pos - 1) : '\0';
-            char next = !after.isEmpty() ? after.charAt(0) : '\0';
+            char prev = pos > 0 ? text.charAt(pos - 1) : '\0';
+            char next = pos < text.length() ? text.charAt(pos) : '\0';
 
             boolean special = (prev == '{' && next == '}') || (prev == '[' && next == ']');
             if (special) {
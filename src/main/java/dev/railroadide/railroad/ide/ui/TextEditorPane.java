@@ -1,12 +1,13 @@
 package dev.railroadide.railroad.ide.ui;
 
 import dev.railroadide.railroad.Railroad;
+import dev.railroadide.railroad.ide.DocumentSaveService;
+import dev.railroadide.railroad.ide.text.TextDocument;
 import dev.railroadide.railroad.plugin.defaults.DefaultDocument;
-import dev.railroadide.railroad.utility.ShutdownHooks;
 import dev.railroadide.railroadpluginapi.events.FileEvent;
 import dev.railroadide.railroadpluginapi.events.FileModifiedEvent;
+import javafx.application.Platform;
 import javafx.scene.input.KeyCode;
-import javafx.util.Pair;
 import org.fxmisc.richtext.CodeArea;
 import org.fxmisc.richtext.LineNumberFactory;
 import org.fxmisc.richtext.model.PlainTextChange;
@@ -14,15 +15,21 @@ import org.fxmisc.richtext.model.PlainTextChange;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardWatchEventKinds;
 import java.time.Duration;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class TextEditorPane extends CodeArea {
     private static final int[] FONT_SIZES = {6, 8, 10, 12, 14, 16, 18, 20, 24, 26, 28, 30, 36, 40, 48, 56, 60};
     protected final Path filePath;
-    private final ExecutorService changeExecutor = Executors.newSingleThreadExecutor();
+    /**
+     * Mirrors the text of the editor, for reading it without copying it out of the editor.
+     */
+    protected final TextDocument document = new TextDocument("");
+    private final Queue<FileModifiedEvent.Change> pendingChanges = new ConcurrentLinkedQueue<>();
+    private DocumentSaveService.Registration saveRegistration;
     private int fontSizeIndex = 5;
 
     public TextEditorPane(Path item) {
@@ -31,28 +38,30 @@ public class TextEditorPane extends CodeArea {
         setParagraphGraphicFactory(LineNumberFactory.get(this));
         setMouseOverTextDelay(Duration.ofMillis(500));
 
+        // Subscribed before anything else, so the document is up to date for every other subscriber
+        plainTextChanges().subscribe(this::updateDocument);
         listenForChanges();
         resizableFont();
 
         moveTo(0);
     }
 
-    private static FileModifiedEvent.Change getChange(String text, PlainTextChange change) {
-        String inserted = change.getInserted();
-        String removed = change.getRemoved();
+    /**
+     * Applies the change to the document, and records it for the next {@link FileModifiedEvent} with its range taken
+     * from the document as it was at the time.
+     */
+    private void updateDocument(PlainTextChange change) {
         int position = change.getPosition();
-        int netLength = change.getNetLength();
+        this.document.replace(position, change.getRemovalEnd(), change.getInserted());
 
-        Pair<Integer, Integer> startPos = getLineAndColumn(text, position);
-        Pair<Integer, Integer> endPos = getLineAndColumn(text, position + netLength);
-
-        return new FileModifiedEvent.Change(
+        int end = Math.max(0, Math.min(position + change.getNetLength(), this.document.length()));
+        this.pendingChanges.add(new FileModifiedEvent.Change(
             getChangeType(change),
-            removed,
-            inserted,
+            change.getRemoved(),
+            change.getInserted(),
             new FileModifiedEvent.Range(
-                startPos.getKey(), startPos.getValue(),
-                endPos.getKey(), endPos.getValue()));
+                this.document.lineOf(position), this.document.columnOf(position),
+                this.document.lineOf(end), this.document.columnOf(end))));
     }
 
     private static FileModifiedEvent.Change.Type getChangeType(PlainTextChange change) {
@@ -68,22 +77,6 @@ public class TextEditorPane extends CodeArea {
         }
     }
 
-    private static Pair<Integer, Integer> getLineAndColumn(String text, int position) {
-        int line = 0;
-        int column = 0;
-
-        for (int i = 0; i < position && i < text.length(); i++) {
-            if (text.charAt(i) == '\n') {
-                line++;
-                column = 0;
-            } else {
-                column++;
-            }
-        }
-
-        return new Pair<>(line, column);
-    }
-
     private void resizableFont() {
         updateFontSizeClass();
 
@@ -109,65 +102,58 @@ public class TextEditorPane extends CodeArea {
         getStyleClass().add("text-editor-font-size-" + FONT_SIZES[fontSizeIndex]);
     }
 
+    public Path getFilePath() {
+        return this.filePath;
+    }
+
+    /**
+     * Saves any pending edits and stops watching the file, once the editor is closed.
+     */
+    public void close() {
+        if (this.saveRegistration != null) {
+            this.saveRegistration.close();
+        }
+    }
+
     private void listenForChanges() {
         try {
-            replaceText(0, 0, Files.readString(this.filePath));
-
-            try (var watcher = this.filePath.getFileSystem().newWatchService()) {
-                this.filePath.getParent().register(watcher, StandardWatchEventKinds.ENTRY_MODIFY);
-
-                ExecutorService executor1 = Executors.newSingleThreadExecutor();
-                executor1.submit(() -> {
-                    while (!Thread.interrupted()) {
-                        try {
-                            var key = watcher.take();
-                            for (var event : key.pollEvents()) {
-                                if (event.context().equals(this.filePath.getFileName())) {
-                                    String content = Files.readString(this.filePath);
-                                    String text = getText();
-                                    if (!text.equals(content)) {
-                                        replaceText(0, 0, content);
-                                    }
-                                }
-                            }
-                            key.reset();
-                        } catch (InterruptedException exception) {
-                            Railroad.LOGGER.error("File watcher interrupted", exception);
-                        } catch (IOException exception) {
-                            Railroad.LOGGER.error("Failed to watch file", exception);
-                        }
-                    }
-                });
-
-                ShutdownHooks.addHook(executor1::shutdown);
-            } catch (IOException exception) {
-                Railroad.LOGGER.error("Failed to watch file", exception);
-            }
-
-            multiPlainChanges()
-                .successionEnds(Duration.ofMillis(500))
-                .retainLatestUntilLater(changeExecutor)
-                .map(changes -> changes.stream()
-                    .map(change -> TextEditorPane.getChange(getText(), change))
-                    .toList())
-                .subscribe(changes -> {
-                    var document = new DefaultDocument(this.filePath.getFileName().toString(), this.filePath);
-                    Railroad.EVENT_BUS.publish(new FileModifiedEvent(document, changes));
-
-                    String text = getText();
-                    try {
-                        if (!Files.readString(this.filePath).equals(text)) {
-                            Files.writeString(this.filePath, text);
-                            Railroad.EVENT_BUS.publish(new FileEvent(
-                                document,
-                                FileEvent.EventType.SAVED));
-                        }
-                    } catch (IOException exception) {
-                        Railroad.LOGGER.error("Failed to write file", exception);
-                    }
-                });
+            replaceText(Files.readString(this.filePath));
         } catch (IOException exception) {
             Railroad.LOGGER.error("Failed to read file", exception);
+            return;
+        } finally {
+            // Loading the file is not an edit, so it must not show up in the first FileModifiedEvent
+            this.pendingChanges.clear();
         }
+
+        var document = new DefaultDocument(this.filePath.getFileName().toString(), this.filePath);
+        this.saveRegistration = DocumentSaveService.getInstance().register(this.filePath, this.document,
+            new DocumentSaveService.Listener() {
+                @Override
+                public void saved() {
+                    Railroad.EVENT_BUS.publish(new FileEvent(document, FileEvent.EventType.SAVED));
+                }
+
+                @Override
+                public void changedOutside(String content) {
+                    Platform.runLater(() -> {
+                        replaceText(content);
+                        saveRegistration.markSaved();
+                    });
+                }
+            });
+
+        plainTextChanges().subscribe(ignored -> this.saveRegistration.edited());
+        multiPlainChanges()
+            .successionEnds(Duration.ofMillis(500))
+            .subscribe(ignored -> {
+                List<FileModifiedEvent.Change> changes = new ArrayList<>();
+                FileModifiedEvent.Change change;
+                while ((change = this.pendingChanges.poll()) != null) {
+                    changes.add(change);
+                }
+
+                Railroad.EVENT_BUS.publish(new FileModifiedEvent(document, changes));
+            });
     }
 }
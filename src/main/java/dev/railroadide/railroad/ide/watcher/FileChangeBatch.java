@@ -0,0 +1,33 @@
+package dev.railroadide.railroad.ide.watcher;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The changes to the files of a project over one batching window of a {@link ProjectFileWatcher}. Each path appears in
+ * at most one of the sets: a file created and deleted again within the window does not appear at all, and a file
+ * deleted and created again counts as modified.
+ *
+ * @param projectDir The directory of the project that was watched.
+ * @param created    The files and directories that were created.
+ * @param deleted    The files and directories that were deleted.
+ * @param modified   The files whose content changed.
+ * @param overflowed Whether the file system dropped events, in which case the sets are incomplete and anything
+ *                   derived from the project's files should be rebuilt.
+ */
+public record FileChangeBatch(Path projectDir, Set<Path> created, Set<Path> deleted, Set<Path> modified,
+                              boolean overflowed) {
+    /**
+     * @return The created and modified paths, which are the ones whose content has to be read again.
+     */
+    public Set<Path> changed() {
+        Set<Path> changed = new HashSet<>(this.created);
+        changed.addAll(this.modified);
+        return changed;
+    }
+
+    public boolean isEmpty() {
+        return this.created.isEmpty() && this.deleted.isEmpty() && this.modified.isEmpty() && !this.overflowed;
+    }
+}
@@ -0,0 +1,392 @@
+package dev.railroadide.railroad.ide.watcher;
+
+import dev.railroadide.railroad.Railroad;
+import dev.railroadide.railroad.plugin.defaults.DefaultDocument;
+import dev.railroadide.railroad.settings.Settings;
+import dev.railroadide.railroad.settings.handler.SettingsHandler;
+import dev.railroadide.railroad.utility.ShutdownHooks;
+import dev.railroadide.railroadpluginapi.events.FileEvent;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches every directory of one project with a single {@link WatchService}, and hands the changes out in batches.
+ * <p>
+ * Events are coalesced until nothing has changed for {@link #QUIET_PERIOD}, or for at most {@link #MAX_DELAY} while
+ * changes keep coming, so a build that writes thousands of files produces a handful of batches rather than thousands
+ * of events. Directories matching the ignored patterns (build output, {@code .gradle}, {@code run} and so on, see
+ * {@link Settings#FILE_WATCHER_IGNORED_PATHS}) are not watched at all.
+ * <p>
+ * Listeners are called on the watcher thread and should hand any real work off to their own thread. Deleted files are
+ * also published to plugins as {@link FileEvent}s.
+ */
+public final class ProjectFileWatcher {
+    public static final Duration QUIET_PERIOD = Duration.ofMillis(100);
+    public static final Duration MAX_DELAY = Duration.ofSeconds(1);
+    // How long the watcher thread waits for events while idle, before checking whether the ignored patterns changed
+    private static final Duration IDLE_POLL_INTERVAL = Duration.ofSeconds(1);
+
+    private static final Map<Path, ProjectFileWatcher> WATCHERS = new ConcurrentHashMap<>();
+    private static final List<Consumer<FileChangeBatch>> GLOBAL_LISTENERS = new CopyOnWriteArrayList<>();
+
+    static {
+        ShutdownHooks.addHook(() -> List.copyOf(WATCHERS.keySet()).forEach(ProjectFileWatcher::close));
+    }
+
+    private final Path projectDir;
+    private final WatchService watcher;
+    private final List<Consumer<FileChangeBatch>> listeners = new CopyOnWriteArrayList<>();
+    private volatile List<PathMatcher> ignoredPatterns;
+    private volatile boolean closed;
+
+    // Only touched on the watcher thread
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+    private final Map<Path, Change> pending = new LinkedHashMap<>();
+    private boolean overflowed;
+    private long firstPendingEvent;
+    private long lastPendingEvent;
+
+    private ProjectFileWatcher(Path projectDir) throws IOException {
+        this.projectDir = projectDir;
+        this.watcher = projectDir.getFileSystem().newWatchService();
+        this.ignoredPatterns = compilePatterns(SettingsHandler.getValue(Settings.FILE_WATCHER_IGNORED_PATHS));
+        Thread.ofPlatform()
+            .name("project-watcher-" + projectDir.getFileName())
+            .daemon()
+            .start(this::run);
+    }
+
+    /**
+     * @return The watcher of the project at the given directory, which starts watching the first time it is
+     * requested.
+     */
+    public static ProjectFileWatcher forProject(Path projectDir) {
+        Path normalized = projectDir.toAbsolutePath().normalize();
+        return WATCHERS.computeIfAbsent(normalized, path -> {
+            try {
+                return new ProjectFileWatcher(path);
+            } catch (IOException exception) {
+                throw new IllegalStateException("Failed to watch project " + path, exception);
+            }
+        });
+    }
+
+    /**
+     * Stops watching the project at the given directory. Changes still waiting for their batch are dropped.
+     */
+    public static void close(Path projectDir) {
+        ProjectFileWatcher watcher = WATCHERS.remove(projectDir.toAbsolutePath().normalize());
+        if (watcher == null)
+            return;
+
+        watcher.closed = true;
+        try {
+            watcher.watcher.close();
+        } catch (IOException exception) {
+            Railroad.LOGGER.warn("Failed to close the watcher of {}", watcher.projectDir, exception);
+        }
+    }
+
+    /**
+     * Adds a listener that receives the batches of every project, for things that span projects such as open
+     * editors.
+     */
+    public static void addGlobalListener(Consumer<FileChangeBatch> listener) {
+        GLOBAL_LISTENERS.add(listener);
+    }
+
+    /**
+     * Applies a new value of {@link Settings#FILE_WATCHER_IGNORED_PATHS} to every watcher. Listeners then receive an
+     * overflowed batch, as the files that were ignored before are unknown to them.
+     */
+    public static void reloadIgnoredPatterns(String patterns) {
+        List<PathMatcher> matchers = compilePatterns(patterns);
+        for (ProjectFileWatcher watcher : WATCHERS.values()) {
+            // Picked up by the watcher thread, which owns the keys, the next time it wakes up
+            watcher.ignoredPatterns = matchers;
+        }
+    }
+
+    public Path getProjectDir() {
+        return this.projectDir;
+    }
+
+    public void addListener(Consumer<FileChangeBatch> listener) {
+        this.listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<FileChangeBatch> listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * @return Whether the path is inside an ignored directory, or is one. Paths outside the project are never
+     * ignored.
+     */
+    public boolean isIgnored(Path path) {
+        if (!path.startsWith(this.projectDir) || path.equals(this.projectDir))
+            return false;
+
+        Path relative = this.projectDir.relativize(path);
+        List<PathMatcher> matchers = this.ignoredPatterns;
+        for (int count = 1; count <= relative.getNameCount(); count++) {
+            Path prefix = relative.subpath(0, count);
+            for (PathMatcher matcher : matchers) {
+                if (matcher.matches(prefix))
+                    return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void run() {
+        List<PathMatcher> appliedPatterns = this.ignoredPatterns;
+        registerAll(this.projectDir);
+        while (true) {
+            WatchKey key;
+            try {
+                long timeout = this.pending.isEmpty() && !this.overflowed
+                    ? IDLE_POLL_INTERVAL.toNanos()
+                    : nanosUntilDispatch();
+                key = this.watcher.poll(timeout, TimeUnit.NANOSECONDS);
+            } catch (ClosedWatchServiceException exception) {
+                return;
+            } catch (InterruptedException exception) {
+                if (this.closed)
+                    return;
+
+                key = null;
+            }
+
+            if (appliedPatterns != this.ignoredPatterns) {
+                appliedPatterns = this.ignoredPatterns;
+                reregisterAll();
+            }
+
+            if (key != null) {
+                collectEvents(key);
+            }
+
+            if ((!this.pending.isEmpty() || this.overflowed) && nanosUntilDispatch() <= 0) {
+                dispatch();
+            }
+        }
+    }
+
+    private long nanosUntilDispatch() {
+        long now = System.nanoTime();
+        return Math.min(this.lastPendingEvent + QUIET_PERIOD.toNanos(), this.firstPendingEvent + MAX_DELAY.toNanos())
+            - now;
+    }
+
+    private void collectEvents(WatchKey key) {
+        Path directory = this.keys.get(key);
+        if (directory == null) {
+            key.cancel();
+            return;
+        }
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                this.overflowed = true;
+                notePendingEvent();
+                continue;
+            }
+
+            if (!(event.context() instanceof Path name))
+                continue;
+
+            Path path = directory.resolve(name);
+            if (isIgnored(path))
+                continue;
+
+            if (event.kind() == ENTRY_CREATE) {
+                record(path, Change.CREATED);
+                if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                    // Files created before the directory was registered would go unnoticed otherwise
+                    registerAll(path);
+                }
+            } else if (event.kind() == ENTRY_DELETE) {
+                record(path, Change.DELETED);
+            } else if (!Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                record(path, Change.MODIFIED);
+            }
+        }
+
+        if (!key.reset()) {
+            this.keys.remove(key);
+        }
+    }
+
+    private void record(Path path, Change change) {
+        Change merged = Change.merge(this.pending.remove(path), change);
+        if (merged != null) {
+            this.pending.put(path, merged);
+        } else if (this.pending.isEmpty() && !this.overflowed) {
+            // The changes cancelled out, so the next one starts a new batch rather than joining this empty one
+            this.firstPendingEvent = 0;
+            return;
+        }
+
+        notePendingEvent();
+    }
+
+    private void notePendingEvent() {
+        long now = System.nanoTime();
+        if (this.firstPendingEvent == 0) {
+            this.firstPendingEvent = now;
+        }
+
+        this.lastPendingEvent = now;
+    }
+
+    private void dispatch() {
+        Set<Path> created = new LinkedHashSet<>();
+        Set<Path> deleted = new LinkedHashSet<>();
+        Set<Path> modified = new LinkedHashSet<>();
+        this.pending.forEach((path, change) -> (switch (change) {
+            case CREATED -> created;
+            case DELETED -> deleted;
+            case MODIFIED -> modified;
+        }).add(path));
+
+        var batch = new FileChangeBatch(this.projectDir, Collections.unmodifiableSet(created),
+            Collections.unmodifiableSet(deleted), Collections.unmodifiableSet(modified), this.overflowed);
+        this.pending.clear();
+        this.overflowed = false;
+        this.firstPendingEvent = 0;
+        if (batch.isEmpty())
+            return;
+
+        for (Consumer<FileChangeBatch> listener : this.listeners) {
+            notify(listener, batch);
+        }
+
+        for (Consumer<FileChangeBatch> listener : GLOBAL_LISTENERS) {
+            notify(listener, batch);
+        }
+
+        for (Path path : deleted) {
+            Railroad.EVENT_BUS.publish(new FileEvent(new DefaultDocument(path.getFileName().toString(), path),
+                FileEvent.EventType.DELETED));
+        }
+    }
+
+    private void notify(Consumer<FileChangeBatch> listener, FileChangeBatch batch) {
+        try {
+            listener.accept(batch);
+        } catch (RuntimeException exception) {
+            Railroad.LOGGER.error("File change listener failed for {}", this.projectDir, exception);
+        }
+    }
+
+    private void registerAll(Path start) {
+        // Everything found by the initial walk was there before watching started, so it is no change
+        boolean recordCreated = !start.equals(this.projectDir);
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    if (isIgnored(dir))
+                        return FileVisitResult.SKIP_SUBTREE;
+
+                    if (recordCreated && !dir.equals(start)) {
+                        record(dir, Change.CREATED);
+                    }
+
+                    register(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (recordCreated) {
+                        record(file, Change.CREATED);
+                    }
+
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exception) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException exception) {
+            Railroad.LOGGER.error("Failed to watch {}", start, exception);
+        }
+    }
+
+    private void register(Path directory) throws IOException {
+        // Registering a directory again hands back its existing key
+        this.keys.put(directory.register(this.watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), directory);
+    }
+
+    /**
+     * Drops the directories that are ignored now, and watches the ones that no longer are.
+     */
+    private void reregisterAll() {
+        this.keys.entrySet().removeIf(entry -> {
+            if (!isIgnored(entry.getValue()))
+                return false;
+
+            entry.getKey().cancel();
+            return true;
+        });
+
+        registerAll(this.projectDir);
+        // Whatever was ignored before is unknown to every listener, so have them start over
+        this.overflowed = true;
+        notePendingEvent();
+    }
+
+    private static List<PathMatcher> compilePatterns(String patterns) {
+        if (patterns == null || patterns.isBlank())
+            return List.of();
+
+        FileSystem fileSystem = FileSystems.getDefault();
+        List<PathMatcher> matchers = new ArrayList<>();
+        for (String pattern : patterns.split(",")) {
+            String trimmed = pattern.trim();
+            if (trimmed.isEmpty())
+                continue;
+
+            try {
+                matchers.add(fileSystem.getPathMatcher("glob:" + trimmed));
+            } catch (IllegalArgumentException exception) {
+                Railroad.LOGGER.warn("Ignoring invalid file watcher pattern {}", trimmed, exception);
+            }
+        }
+
+        return List.copyOf(matchers);
+    }
+
+    private enum Change {
+        CREATED, MODIFIED, DELETED;
+
+        /**
+         * @return What the two changes amount to together, or null if they cancel out.
+         */
+        private static Change merge(Change previous, Change next) {
+            if (previous == null)
+                return next;
+
+            return switch (previous) {
+                case CREATED -> next == DELETED ? null : CREATED;
+                case MODIFIED -> next == DELETED ? DELETED : MODIFIED;
+                case DELETED -> next == DELETED ? DELETED : MODIFIED;
+            };
+        }
+    }
+}
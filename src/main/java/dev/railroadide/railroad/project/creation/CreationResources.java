@@ -0,0 +1,38 @@
+package dev.railroadide.railroad.project.creation;
+
+import dev.railroadide.core.project.ProjectContext;
+import dev.railroadide.core.project.creation.CreationStep;
+
+/**
+ * The resources the built-in {@link CreationStep}s read and write. Files are named by their path in the project
+ * under {@link #PROJECT}, and values of the project context and data under {@code context} and {@code data}.
+ */
+public final class CreationResources {
+    public static final String PROJECT = "project";
+    public static final String GRADLE_PROPERTIES = PROJECT + "/gradle.properties";
+    public static final String BUILD_GRADLE = PROJECT + "/build.gradle";
+    public static final String SETTINGS_GRADLE = PROJECT + "/settings.gradle";
+    public static final String FORGE_MDK_ARCHIVE = PROJECT + "/forge-mdk.zip";
+    public static final String FORGE_MDK_CHECKSUM = PROJECT + "/forge-mdk.zip.sha256";
+    public static final String FABRIC_EXAMPLE_MOD_ARCHIVE = PROJECT + "/example-mod.zip";
+    public static final String MAIN_JAVA = PROJECT + "/src/main/java";
+    public static final String MAIN_RESOURCES = PROJECT + "/src/main/resources";
+    public static final String CLIENT_SOURCES = PROJECT + "/src/client";
+    public static final String CLIENT_JAVA = CLIENT_SOURCES + "/java";
+    public static final String MODS_TOML = MAIN_RESOURCES + "/META-INF/mods.toml";
+    public static final String ACCESS_TRANSFORMER = MAIN_RESOURCES + "/META-INF/accesstransformer.cfg";
+    // Named after the mod, so these stand for whichever file it is
+    public static final String MIXINS_JSON = MAIN_RESOURCES + "/mixins.json";
+    public static final String CLIENT_MIXINS_JSON = CLIENT_SOURCES + "/resources/mixins.json";
+
+    private CreationResources() {
+    }
+
+    public static String context(ProjectContext.Key<?> key) {
+        return "context/" + key.name();
+    }
+
+    public static String data(String key) {
+        return "data/" + key;
+    }
+}
@@ -42,8 +42,9 @@ public final class DefaultProjectCreationPipelineService implements ProjectCreat
             registry.addAll(
                 new CreateDirectoriesStep(services.get(FilesService.class)),
                 new ResolveFabricMdkVersionStep(),
+                new FetchGradleTemplatesStep(services.get(HttpService.class), services.get(FilesService.class), "dev", false),
                 new DownloadFabricExampleModStep(
-                    services.get(HttpService.class), services.get(FilesService.class),
+                    services.get(ArtifactCacheService.class), services.get(FilesService.class),
                     services.get(ZipService.class), services.get(ChecksumService.class)),
                 new ExtractFabricExampleModStep(services.get(FilesService.class), services.get(ZipService.class)),
                 new UpdateGradlePropertiesStep(services.get(FilesService.class)),
@@ -51,25 +52,23 @@ public final class DefaultProjectCreationPipelineService implements ProjectCreat
                 new UpdateFabricModJsonStep(services.get(FilesService.class)),
                 new RenameMixinsStep(services.get(FilesService.class)),
                 new RenameClassesStep(services.get(FilesService.class)),
-                new UpdateGradleFilesStep(services.get(FilesService.class), services.get(HttpService.class),
-                    services.get(TemplateEngineService.class), "dev", false),
+                new UpdateGradleFilesStep(services.get(FilesService.class), services.get(TemplateEngineService.class), false),
                 new RunGenSourcesStep(services.get(GradleService.class)),
                 new InitGitStep(services.get(GitService.class))
             );
         } else if (type.equals(ProjectTypeRegistry.FORGE) || type.equals(ProjectTypeRegistry.NEOFORGE)) {
             registry.addAll(
                 new CreateDirectoriesStep(services.get(FilesService.class)),
+                new FetchGradleTemplatesStep(services.get(HttpService.class), services.get(FilesService.class), "dev", true),
                 new DownloadForgeMdkStep(
-                    services.get(HttpService.class), services.get(FilesService.class),
-                    services.get(ZipService.class), services.get(ChecksumService.class)),
+                    services.get(ArtifactCacheService.class), services.get(FilesService.class),
+                    services.get(ZipService.class)),
                 new ExtractForgeMdkStep(services.get(FilesService.class), services.get(ZipService.class)),
                 new UpdateGradlePropertiesStep(services.get(FilesService.class)),
                 new RenamePackagesStep(services.get(FilesService.class)),
                 new UpdateForgeModsTomlStep(services.get(FilesService.class)),
                 new RenameClassesStep(services.get(FilesService.class)),
-                new UpdateGradleFilesStep(
-                    services.get(FilesService.class), services.get(HttpService.class),
-                    services.get(TemplateEngineService.class), "dev", true),
+                new UpdateGradleFilesStep(services.get(FilesService.class), services.get(TemplateEngineService.class), true),
                 new CreateMixinsJsonStep(services.get(FilesService.class)),
                 new CreateAccessTransformerStep(services.get(FilesService.class)),
                 new SetupForgeGradleWrapperStep(services.get(GradleService.class)),
@@ -8,4 +8,6 @@ public class ProjectContextKeys {
     public static final ProjectContext.Key<MinecraftVersion> MDK_VERSION = new ProjectContext.Key<>("mdk_version");
     public static final ProjectContext.Key<String> EXAMPLE_MOD_BRANCH = new ProjectContext.Key<>("example_mod_branch");
     public static final ProjectContext.Key<FabricModJson> FABRIC_MOD_JSON = new ProjectContext.Key<>("fabric_mod_json");
+    public static final ProjectContext.Key<String> BUILD_GRADLE_TEMPLATE = new ProjectContext.Key<>("build_gradle_template");
+    public static final ProjectContext.Key<String> SETTINGS_GRADLE_TEMPLATE = new ProjectContext.Key<>("settings_gradle_template");
 }
@@ -0,0 +1,305 @@
+package dev.railroadide.railroad.project.creation.service;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import dev.railroadide.core.project.creation.service.ArtifactCacheService;
+import dev.railroadide.core.project.creation.service.HttpService;
+import dev.railroadide.logger.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Keeps artifacts in a directory, named by their SHA-256, with an index of the URL each was last downloaded from.
+ * <p>
+ * Stored artifacts are hashed again as they are copied out, and one that no longer matches its name is downloaded
+ * again. Once the store grows past its maximum size, the artifacts used least recently are deleted, going by their
+ * modification time, which is updated whenever one is used.
+ */
+public final class FileArtifactCacheService implements ArtifactCacheService {
+    private static final String ALGORITHM = "SHA-256";
+    private static final String INDEX_FILE = "index.json";
+    private static final String BLOBS_DIRECTORY = "blobs";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private final HttpService http;
+    private final Path directory;
+    private final Path blobsDirectory;
+    private final LongSupplier maxSize;
+    private final Logger logger;
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+    // Held to read or add artifacts, and exclusively to evict them, so one is not deleted while it is being copied
+    private final ReadWriteLock storeLock = new ReentrantReadWriteLock();
+    private Map<String, UrlEntry> urls;
+
+    /**
+     * @param directory The directory of the store, created when it is first used.
+     * @param maxSize   The size in bytes the store is kept under, read whenever an artifact is added.
+     */
+    public FileArtifactCacheService(HttpService http, Path directory, LongSupplier maxSize, Logger logger) {
+        this.http = http;
+        this.directory = directory;
+        this.blobsDirectory = directory.resolve(BLOBS_DIRECTORY);
+        this.maxSize = maxSize;
+        this.logger = logger;
+    }
+
+    @Override
+    public void fetch(URI uri, Path dest, String sha256) throws IOException {
+        String expected = sha256.toLowerCase(Locale.ROOT);
+        synchronized (lockFor(uri)) {
+            if (copyFromStore(expected, dest)) {
+                this.logger.debug("Using stored artifact {} for {}", expected, uri);
+                return;
+            }
+
+            String actual = downloadToStore(uri, expected);
+            if (!copyFromStore(actual, dest))
+                throw new IOException("Downloaded artifact " + actual + " is missing from the store");
+        }
+
+        evictQuietly();
+    }
+
+    @Override
+    public String fetch(URI uri, Path dest, Duration maxAge) throws IOException {
+        String sha256;
+        synchronized (lockFor(uri)) {
+            UrlEntry entry;
+            synchronized (this) {
+                entry = urls().get(uri.toString());
+            }
+
+            if (entry != null && Duration.ofMillis(System.currentTimeMillis() - entry.fetchedAt()).compareTo(maxAge) <= 0
+                && copyFromStore(entry.sha256(), dest)) {
+                this.logger.debug("Using stored artifact {} for {}", entry.sha256(), uri);
+                return entry.sha256();
+            }
+
+            sha256 = downloadToStore(uri, null);
+            if (!copyFromStore(sha256, dest))
+                throw new IOException("Downloaded artifact " + sha256 + " is missing from the store");
+        }
+
+        evictQuietly();
+        return sha256;
+    }
+
+    private Object lockFor(URI uri) {
+        return this.locks.computeIfAbsent(uri.toString(), key -> new Object());
+    }
+
+    /**
+     * Copies a stored artifact to the destination, checking it still matches its checksum.
+     *
+     * @return Whether the artifact was stored and intact. One that is not is deleted.
+     */
+    private boolean copyFromStore(String sha256, Path dest) throws IOException {
+        Path blob = this.blobsDirectory.resolve(sha256);
+        this.storeLock.readLock().lock();
+        try {
+            if (!Files.isRegularFile(blob))
+                return false;
+
+            MessageDigest digest = newDigest();
+            Path temporary = Files.createTempFile(dest.getParent(), ".artifact", TEMPORARY_SUFFIX);
+            try {
+                try (InputStream in = Files.newInputStream(blob);
+                     OutputStream out = new DigestOutputStream(Files.newOutputStream(temporary), digest)) {
+                    in.transferTo(out);
+                }
+
+                if (!HexFormat.of().formatHex(digest.digest()).equals(sha256)) {
+                    this.logger.warn("Stored artifact {} is corrupt, deleting it", sha256);
+                    Files.deleteIfExists(blob);
+                    return false;
+                }
+
+                Files.move(temporary, dest, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+
+            Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } finally {
+            this.storeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Downloads an artifact into the store and records the URL it came from.
+     *
+     * @param expected The SHA-256 the artifact must have, or null to accept any.
+     * @return The SHA-256 of the artifact.
+     */
+    private String downloadToStore(URI uri, String expected) throws IOException {
+        // Loading the index clears out old downloads, which must happen before this one starts
+        urls();
+        Files.createDirectories(this.blobsDirectory);
+        Path temporary = Files.createTempFile(this.blobsDirectory, "download", TEMPORARY_SUFFIX);
+        try {
+            this.logger.info("Downloading {} into the artifact store", uri);
+            String sha256 = this.http.download(uri, temporary, ALGORITHM).toLowerCase(Locale.ROOT);
+            if (expected != null && !sha256.equals(expected))
+                throw new IOException("Checksum mismatch for " + uri + ": expected " + expected + " but was " + sha256);
+
+            this.storeLock.readLock().lock();
+            try {
+                Files.move(temporary, this.blobsDirectory.resolve(sha256), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                this.storeLock.readLock().unlock();
+            }
+
+            synchronized (this) {
+                urls().put(uri.toString(), new UrlEntry(sha256, System.currentTimeMillis()));
+                saveIndex();
+            }
+
+            return sha256;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Evicts artifacts once one has been fetched, which has already reached its destination by then, so a failure
+     * here is only logged.
+     */
+    private void evictQuietly() {
+        try {
+            evict();
+        } catch (IOException | UncheckedIOException exception) {
+            this.logger.warn("Failed to evict artifacts from the artifact store", exception);
+        }
+    }
+
+    /**
+     * Deletes the least recently used artifacts until the store is under its maximum size, and forgets the URLs of
+     * the deleted ones.
+     */
+    private void evict() throws IOException {
+        long maxSize = this.maxSize.getAsLong();
+        this.storeLock.writeLock().lock();
+        try {
+            List<Blob> blobs = new ArrayList<>();
+            long total = 0;
+            try (Stream<Path> files = Files.list(this.blobsDirectory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    if (file.getFileName().toString().endsWith(TEMPORARY_SUFFIX))
+                        continue;
+
+                    long size = Files.size(file);
+                    blobs.add(new Blob(file, size, Files.getLastModifiedTime(file).toMillis()));
+                    total += size;
+                }
+            }
+
+            if (total <= maxSize)
+                return;
+
+            blobs.sort(Comparator.comparingLong(Blob::lastUsed));
+            Set<String> deleted = new HashSet<>();
+            for (Blob blob : blobs) {
+                if (total <= maxSize)
+                    break;
+
+                Files.deleteIfExists(blob.file());
+                deleted.add(blob.file().getFileName().toString());
+                total -= blob.size();
+            }
+
+            this.logger.info("Evicted {} artifacts from the artifact store", deleted.size());
+            synchronized (this) {
+                urls().values().removeIf(entry -> deleted.contains(entry.sha256()));
+                saveIndex();
+            }
+        } finally {
+            this.storeLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return The URLs downloaded into the store, read from the index the first time they are needed. Downloads left
+     * behind by a previous run are deleted at the same time.
+     */
+    private synchronized Map<String, UrlEntry> urls() throws IOException {
+        if (this.urls != null)
+            return this.urls;
+
+        this.urls = new HashMap<>();
+        Path index = this.directory.resolve(INDEX_FILE);
+        if (Files.isRegularFile(index)) {
+            try {
+                Map<String, UrlEntry> read = GSON.fromJson(Files.readString(index),
+                    new TypeToken<Map<String, UrlEntry>>() {}.getType());
+                if (read != null) {
+                    this.urls.putAll(read);
+                }
+            } catch (JsonParseException exception) {
+                this.logger.warn("Artifact store index is invalid, starting a new one", exception);
+            }
+        }
+
+        if (Files.isDirectory(this.blobsDirectory)) {
+            try (Stream<Path> files = Files.list(this.blobsDirectory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    if (file.getFileName().toString().endsWith(TEMPORARY_SUFFIX)) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+        }
+
+        this.urls.values().removeIf(entry -> !Files.isRegularFile(this.blobsDirectory.resolve(entry.sha256())));
+        return this.urls;
+    }
+
+    private synchronized void saveIndex() throws IOException {
+        Files.createDirectories(this.directory);
+        Path index = this.directory.resolve(INDEX_FILE);
+        Path temporary = index.resolveSibling(INDEX_FILE + TEMPORARY_SUFFIX);
+        Files.writeString(temporary, GSON.toJson(this.urls));
+        try {
+            Files.move(temporary, index, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(temporary, index, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(ALGORITHM + " is not available", exception);
+        }
+    }
+
+    /**
+     * @param sha256    The SHA-256 of the artifact last downloaded from the URL.
+     * @param fetchedAt When it was downloaded, in milliseconds since the epoch.
+     */
+    private record UrlEntry(String sha256, long fetchedAt) {
+    }
+
+    private record Blob(Path file, long size, long lastUsed) {
+    }
+}
@@ -2,37 +2,33 @@ package dev.railroadide.railroad.project.creation.service;
 
 import dev.railroadide.core.project.creation.service.ChecksumService;
 
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
+import java.util.HexFormat;
 
 public class MessageDigestChecksumService implements ChecksumService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     @Override
     public String compute(Path file, String algorithm) throws Exception {
         MessageDigest digest = MessageDigest.getInstance(algorithm);
-        try (InputStream in = Files.newInputStream(file)) {
-            in.transferTo(new OutputStream() {
-                @Override
-                public void write(int b) {
-                    digest.update((byte) b);
-                }
-            });
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
         }
 
-        byte[] hash = digest.digest();
-        return toHex(hash);
+        return HexFormat.of().formatHex(digest.digest());
     }
 
     @Override
     public boolean verify(Path file, String algorithm, String expectedHex) throws Exception {
         return compute(file, algorithm).equalsIgnoreCase(expectedHex);
     }
-
-    private static String toHex(byte[] bytes) {
-        var sb = new StringBuilder();
-        for (byte b : bytes) sb.append(String.format("%02x", b));
-        return sb.toString();
-    }
 }
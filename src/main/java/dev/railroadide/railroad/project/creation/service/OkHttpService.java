@@ -13,11 +13,35 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.HexFormat;
 
 public record OkHttpService(OkHttpClient client) implements HttpService {
     @Override
     public void download(URI uri, Path dest) throws IOException {
+        download(uri, dest, (MessageDigest) null);
+    }
+
+    @Override
+    public String download(URI uri, Path dest, String algorithm) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalArgumentException("Unknown checksum algorithm: " + algorithm, exception);
+        }
+
+        download(uri, dest, digest);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @param digest Updated with the content as it is written, if set.
+     */
+    private void download(URI uri, Path dest, MessageDigest digest) throws IOException {
         int attempt = 0;
         while (true) {
             attempt++;
@@ -28,8 +52,13 @@ public record OkHttpService(OkHttpClient client) implements HttpService {
                 }
 
                 var tmpFile = Files.createTempFile(dest.getParent(), ".dl", ".tmp");
+                if (digest != null) {
+                    // A retried download starts over
+                    digest.reset();
+                }
+
                 try (var in = response.body().byteStream(); var out = Files.newOutputStream(tmpFile)) {
-                    in.transferTo(out);
+                    in.transferTo(digest != null ? new DigestOutputStream(out, digest) : out);
                 }
 
                 Files.move(tmpFile, dest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
@@ -4,9 +4,11 @@ import dev.railroadide.core.project.ProjectContext;
 import dev.railroadide.core.project.creation.CreationStep;
 import dev.railroadide.core.project.creation.ProgressReporter;
 import dev.railroadide.core.project.creation.service.FilesService;
+import dev.railroadide.railroad.project.creation.CreationResources;
 import dev.railroadide.railroad.project.data.ForgeProjectKeys;
 
 import java.nio.file.Path;
+import java.util.Set;
 
 public record CreateAccessTransformerStep(FilesService files) implements CreationStep {
     @Override
@@ -19,6 +21,11 @@ public record CreateAccessTransformerStep(FilesService files) implements Creatio
         return "railroad.project.creation.task.create_access_transformer";
     }
 
+    @Override
+    public Set<String> writes() {
+        return Set.of(CreationResources.ACCESS_TRANSFORMER);
+    }
+
     @Override
     public void run(ProjectContext ctx, ProgressReporter reporter) throws Exception {
         if (!ctx.data().getAsBoolean(ForgeProjectKeys.USE_ACCESS_TRANSFORMER, false)) {
@@ -4,8 +4,10 @@ import dev.railroadide.core.project.ProjectContext;
 import dev.railroadide.core.project.creation.CreationStep;
 import dev.railroadide.core.project.creation.ProgressReporter;
 import dev.railroadide.core.project.creation.service.FilesService;
+import dev.railroadide.railroad.project.creation.CreationResources;
 
 import java.nio.file.Path;
+import java.util.Set;
 
 public record CreateDirectoriesStep(FilesService files) implements CreationStep {
     @Override
@@ -18,6 +20,11 @@ public record CreateDirectoriesStep(FilesService files) implements CreationStep
         return "railroad.project.creation.task.creating_directory";
     }
 
+    @Override
+    public Set<String> writes() {
+        return Set.of(CreationResources.PROJECT);
+    }
+
     @Override
     public void run(ProjectContext ctx, ProgressReporter reporter) throws Exception {
         reporter.info("Creating project directory...");
@@ -6,6 +6,7 @@ import dev.railroadide.core.project.creation.ProgressReporter;
 import dev.railroadide.core.project.creation.mixin.MixinConfig;
 import dev.railroadide.core.project.creation.service.FilesService;
 import dev.railroadide.railroad.Railroad;
+import dev.railroadide.railroad.project.creation.CreationResources;
 import dev.railroadide.railroad.project.data.ForgeProjectKeys;
 import dev.railroadide.railroad.project.data.MavenProjectKeys;
 import dev.railroadide.railroad.project.data.MinecraftProjectKeys;
@@ -13,6 +14,7 @@ import dev.railroadide.railroad.project.data.MinecraftProjectKeys;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.Set;
 
 public record CreateMixinsJsonStep(FilesService files) implements CreationStep {
     @Override
@@ -25,6 +27,11 @@ public record CreateMixinsJsonStep(FilesService files) implements CreationStep {
         return "railroad.project.creation.task.create_mixins_json";
     }
 
+    @Override
+    public Set<String> writes() {
+        return Set.of(CreationResources.MIXINS_JSON);
+    }
+
     @Override
     public void run(ProjectContext ctx, ProgressReporter reporter) throws Exception {
         if (ctx.data().getAsBoolean(ForgeProjectKeys.USE_MIXINS, false)) {
@@ -3,21 +3,27 @@ package dev.railroadide.railroad.project.creation.step;
 import dev.railroadide.core.project.ProjectContext;
 import dev.railroadide.core.project.creation.CreationStep;
 import dev.railroadide.core.project.creation.ProgressReporter;
+import dev.railroadide.core.project.creation.service.ArtifactCacheService;
 import dev.railroadide.core.project.creation.service.ChecksumService;
 import dev.railroadide.core.project.creation.service.FilesService;
-import dev.railroadide.core.project.creation.service.HttpService;
 import dev.railroadide.core.project.creation.service.ZipService;
 import dev.railroadide.core.switchboard.pojo.MinecraftVersion;
+import dev.railroadide.railroad.project.creation.CreationResources;
 import dev.railroadide.railroad.project.creation.ProjectContextKeys;
 
 import java.net.URI;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
 
 /**
  * @param checksum TODO: Possibly consider holding some known checksums for example mods?
  */
-public record DownloadFabricExampleModStep(HttpService http, FilesService files, ZipService zip,
+public record DownloadFabricExampleModStep(ArtifactCacheService artifacts, FilesService files, ZipService zip,
                                            ChecksumService checksum) implements CreationStep {
+    // The example mod is downloaded from the head of a branch, so a stored copy is only trusted for so long
+    private static final Duration MAX_AGE = Duration.ofDays(1);
+
     @Override
     public String id() {
         return "railroad:download_fabric_example_mod";
@@ -28,6 +34,16 @@ public record DownloadFabricExampleModStep(HttpService http, FilesService files,
         return "railroad.project.creation.task.downloading_example_mod";
     }
 
+    @Override
+    public Set<String> reads() {
+        return Set.of(CreationResources.context(ProjectContextKeys.MDK_VERSION));
+    }
+
+    @Override
+    public Set<String> writes() {
+        return Set.of(CreationResources.FABRIC_EXAMPLE_MOD_ARCHIVE);
+    }
+
     @Override
     public void run(ProjectContext ctx, ProgressReporter reporter) throws Exception {
         MinecraftVersion mcVersion = ctx.get(ProjectContextKeys.MDK_VERSION);
@@ -35,6 +51,6 @@ public record DownloadFabricExampleModStep(HttpService http, FilesService files,
         Path zipPath = ctx.projectDir().resolve("example-mod.zip");
 
         reporter.info("Downloading example mod from " + url);
-        http.download(url, zipPath);
+        artifacts.fetch(url, zipPath, MAX_AGE);
     }
 }
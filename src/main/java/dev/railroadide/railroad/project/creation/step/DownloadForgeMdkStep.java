@@ -3,17 +3,23 @@ package dev.railroadide.railroad.project.creation.step;
 import dev.railroadide.core.project.ProjectContext;
 import dev.railroadide.core.project.creation.CreationStep;
 import dev.railroadide.core.project.creation.ProgressReporter;
-import dev.railroadide.core.project.creation.service.ChecksumService;
+import dev.railroadide.core.project.creation.service.ArtifactCacheService;
 import dev.railroadide.core.project.creation.service.FilesService;
-import dev.railroadide.core.project.creation.service.HttpService;
 import dev.railroadide.core.project.creation.service.ZipService;
+import dev.railroadide.railroad.project.creation.CreationResources;
 import dev.railroadide.railroad.project.data.ForgeProjectKeys;
 
 import java.net.URI;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
+
+public record DownloadForgeMdkStep(ArtifactCacheService artifacts, FilesService files,
+                                   ZipService zip) implements CreationStep {
+    // Published artifacts never change, so their checksums can be kept for as long as the store keeps them
+    private static final Duration CHECKSUM_MAX_AGE = ChronoUnit.FOREVER.getDuration();
 
-public record DownloadForgeMdkStep(HttpService http, FilesService files, ZipService zip,
-                                   ChecksumService checksum) implements CreationStep {
     @Override
     public String id() {
         return "railroad:download_forge_mdk";
@@ -24,6 +30,11 @@ public record DownloadForgeMdkStep(HttpService http, FilesService files, ZipServ
         return "railroad.project.creation.task.download_forge_mdk";
     }
 
+    @Override
+    public Set<String> writes() {
+        return Set.of(CreationResources.FORGE_MDK_ARCHIVE, CreationResources.FORGE_MDK_CHECKSUM);
+    }
+
     @Override
     public void run(ProjectContext ctx, ProgressReporter reporter) throws Exception {
         reporter.info("Downloading Forge MDK...");
@@ -37,20 +48,12 @@ public record DownloadForgeMdkStep(HttpService http, FilesService files, ZipServ
         String mdkUrl = "https://maven.minecraftforge.net/net/minecraftforge/forge/" + forgeVersion + "/forge-" + forgeVersion + "-mdk.zip";
         String sha256Url = mdkUrl + ".sha256";
         Path mdkPath = projectDir.resolve("forge-mdk.zip");
-        http.download(new URI(mdkUrl), mdkPath);
-
-        reporter.info("Verifying Forge MDK checksum...");
         Path mdkSha256Path = projectDir.resolve("forge-mdk.zip.sha256");
-        http.download(new URI(sha256Url), mdkSha256Path);
+        artifacts.fetch(new URI(sha256Url), mdkSha256Path, CHECKSUM_MAX_AGE);
         String expectedChecksum = files.readString(mdkSha256Path).trim();
-        if (!checksum.verify(mdkPath, "SHA-256", expectedChecksum)) {
-            reporter.info("Cleaning up invalid Forge MDK files...");
-            files.delete(mdkPath);
-            files.delete(mdkSha256Path);
-            throw new IllegalStateException("Downloaded Forge MDK checksum does not match expected value");
-        }
-
-        reporter.info("Cleanup temporary files...");
         files.delete(mdkSha256Path);
+
+        // Verified against the checksum as it is copied out of the artifact store, or downloaded into it
+        artifacts.fetch(new URI(mdkUrl), mdkPath, expectedChecksum);
     }
 }
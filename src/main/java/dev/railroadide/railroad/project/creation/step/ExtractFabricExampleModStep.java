@@ -5,10 +5,12 @@ import dev.railroadide.core.project.creation.CreationStep;
 import dev.railroadide.core.project.creation.ProgressReporter;
 import dev.railroadide.core.project.creation.service.FilesService;
 import dev.railroadide.core.project.creation.service.ZipService;
+import dev.railroadide.railroad.project.creation.CreationResources;
 import dev.railroadide.railroad.project.creation.ProjectContextKeys;
 
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.Set;
 
 public record ExtractFabricExampleModStep(FilesService files, ZipService zip) implements CreationStep {
     @Override
@@ -21,6 +23,16 @@ public record ExtractFabricExampleModStep(FilesService files, ZipService zip) im
         return "railroad.project.creation.task.extracting_example_mod";
     }
 
+    @Override
+    public Set<String> reads() {
+        return Set.of(CreationResources.context(ProjectContextKeys.EXAMPLE_MOD_BRANCH));
+    }
+
+    @Override
+    public Set<String> writes() {
+        return Set.of(CreationResources.PROJECT);
+    }
+
     @Override
     public void run(ProjectContext ctx, ProgressReporter reporter) throws Exception {
         Path projectDir = ctx.projectDir();
@@ -5,8 +5,10 @@ import dev.railroadide.core.project.creation.CreationStep;
 import dev.railroadide.core.project.creation.ProgressReporter;
 import dev.railroadide.core.project.creation.service.FilesService;
 import dev.railroadide.core.project.creation.service.ZipService;
+import dev.railroadide.railroad.project.creation.CreationResources;
 
 import java.nio.file.Path;
+import java.util.Set;
 
 public record ExtractForgeMdkStep(FilesService files, ZipService zip) implements CreationStep {
     @Override
@@ -19,6 +21,11 @@ public record ExtractForgeMdkStep(FilesService files, ZipService zip) implements
         return "railroad.project.creation.task.extracting_forge_mdk";
     }
 
+    @Override
+    public Set<String> writes() {
+        return Set.of(CreationResources.PROJECT);
+    }
+
     @Override
     public void run(ProjectContext ctx, ProgressReporter reporter) throws Exception {
         Path projectDir = ctx.projectDir();
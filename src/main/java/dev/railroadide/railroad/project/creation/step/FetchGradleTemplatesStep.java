@@ -0,0 +1,87 @@
+package dev.railroadide.railroad.project.creation.step;
+
+import dev.railroadide.core.project.ProjectContext;
+import dev.railroadide.core.project.creation.CreationStep;
+import dev.railroadide.core.project.creation.ProgressReporter;
+import dev.railroadide.core.project.creation.service.FilesService;
+import dev.railroadide.core.project.creation.service.HttpService;
+import dev.railroadide.core.switchboard.pojo.MinecraftVersion;
+import dev.railroadide.railroad.project.creation.CreationResources;
+import dev.railroadide.railroad.project.creation.ProjectContextKeys;
+import dev.railroadide.railroad.project.data.MinecraftProjectKeys;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * Downloads the templates {@link UpdateGradleFilesStep} fills in, into the project context rather than the project,
+ * so they can be fetched while the MDK is downloaded and extracted.
+ */
+public record FetchGradleTemplatesStep(HttpService http, FilesService files, String branch,
+                                       boolean includeSettingsGradle) implements CreationStep {
+    private static final String TEMPLATE_BUILD_GRADLE_URL = "https://raw.githubusercontent.com/Railroad-Team/Railroad/%s/templates/fabric/%s/template_build.gradle";
+    private static final String TEMPLATE_SETTINGS_GRADLE_URL = "https://raw.githubusercontent.com/Railroad-Team/Railroad/%s/templates/fabric/%s/template_settings.gradle";
+
+    @Override
+    public String id() {
+        return "railroad:fetch_gradle_templates";
+    }
+
+    @Override
+    public String translationKey() {
+        return "railroad.project.creation.task.fetch_gradle_templates";
+    }
+
+    @Override
+    public Set<String> reads() {
+        return Set.of(CreationResources.context(ProjectContextKeys.MDK_VERSION));
+    }
+
+    @Override
+    public Set<String> writes() {
+        return Set.of(
+            CreationResources.context(ProjectContextKeys.BUILD_GRADLE_TEMPLATE),
+            CreationResources.context(ProjectContextKeys.SETTINGS_GRADLE_TEMPLATE));
+    }
+
+    @Override
+    public void run(ProjectContext ctx, ProgressReporter reporter) throws Exception {
+        reporter.info("Downloading template build.gradle...");
+        ctx.put(ProjectContextKeys.BUILD_GRADLE_TEMPLATE, fetchTemplate(ctx, TEMPLATE_BUILD_GRADLE_URL, "build.gradle"));
+        if (includeSettingsGradle) {
+            reporter.info("Downloading template settings.gradle...");
+            ctx.put(ProjectContextKeys.SETTINGS_GRADLE_TEMPLATE, fetchTemplate(ctx, TEMPLATE_SETTINGS_GRADLE_URL, "settings.gradle"));
+        }
+    }
+
+    private String fetchTemplate(ProjectContext ctx, String urlFormat, String name) throws Exception {
+        MinecraftVersion mdkVersion = ctx.get(ProjectContextKeys.MDK_VERSION);
+        if (mdkVersion == null)
+            throw new IllegalStateException("MDK version not set in project context");
+
+        String templateUrl = urlFormat.formatted(branch, mdkVersion.id().substring("1.".length()));
+        if (http.isNotFound(new URI(templateUrl))) {
+            MinecraftVersion minecraftVersion = ctx.data().get(MinecraftProjectKeys.MINECRAFT_VERSION, MinecraftVersion.class);
+            if (minecraftVersion == null)
+                throw new IllegalStateException("Minecraft version not set in project context");
+
+            templateUrl = urlFormat.formatted(branch, minecraftVersion.id().substring("1.".length()));
+            if (http.isNotFound(new URI(templateUrl)))
+                throw new IllegalStateException("Template " + name + " not found for version " + mdkVersion.id() + " or " + minecraftVersion.id());
+        }
+
+        Path templatePath = Files.createTempFile("template_", "_" + name);
+        try {
+            http.download(new URI(templateUrl), templatePath);
+            String templateContent = files.readString(templatePath);
+            if (!templateContent.startsWith("// fileName: "))
+                throw new IllegalStateException("Invalid template " + name + " file: missing fileName metadata");
+
+            return templateContent;
+        } finally {
+            files.delete(templatePath);
+        }
+    }
+}
@@ -9,11 +9,13 @@ import dev.railroadide.core.project.ProjectContext;
 import dev.railroadide.core.project.creation.CreationStep;
 import dev.railroadide.core.project.creation.ProgressReporter;
 import dev.railroadide.core.project.creation.service.FilesService;
+import dev.railroadide.railroad.project.creation.CreationResources;
 import dev.railroadide.railroad.project.data.FabricProjectKeys;
 import dev.railroadide.railroad.project.data.MavenProjectKeys;
 import dev.railroadide.railroad.project.data.MinecraftProjectKeys;
 
 import java.nio.file.Path;
+import java.util.Set;
 
 public record RenameClassesStep(FilesService files) implements CreationStep {
     private static final PrinterConfiguration DEFAULT_PRINTER_CONFIGURATION = new DefaultPrinterConfiguration()
@@ -33,6 +35,11 @@ public record RenameClassesStep(FilesService files) implements CreationStep {
         return "railroad.project.creation.task.renaming_classes";
     }
 
+    @Override
+    public Set<String> writes() {
+        return Set.of(CreationResources.MAIN_JAVA, CreationResources.CLIENT_JAVA);
+    }
+
     @Override
     public void run(ProjectContext ctx, ProgressReporter reporter) throws Exception {
         reporter.info("Renaming main class...");
@@ -6,11 +6,13 @@ import dev.railroadide.core.project.creation.ProgressReporter;
 import dev.railroadide.core.project.creation.mixin.MixinConfig;
 import dev.railroadide.core.project.creation.service.FilesService;
 import dev.railroadide.railroad.Railroad;
+import dev.railroadide.railroad.project.creation.CreationResources;
 import dev.railroadide.railroad.project.data.FabricProjectKeys;
 import dev.railroadide.railroad.project.data.MavenProjectKeys;
 import dev.railroadide.railroad.project.data.MinecraftProjectKeys;
 
 import java.nio.file.Path;
+import java.util.Set;
 
 public record RenameMixinsStep(FilesService files) implements CreationStep {
     @Override
@@ -23,6 +25,11 @@ public record RenameMixinsStep(FilesService files) implements CreationStep {
         return "railroad.project.creation.task.rename-mixins";
     }
 
+    @Override
+    public Set<String> writes() {
+        return Set.of(CreationResources.MIXINS_JSON, CreationResources.CLIENT_MIXINS_JSON);
+    }
+
     @Override
     public void run(ProjectContext ctx, ProgressReporter reporter) throws Exception {
         reporter.info("Renaming mixin configuration files...");
@@ -4,11 +4,13 @@ import dev.railroadide.core.project.ProjectContext;
 import dev.railroadide.core.project.creation.CreationStep;
 import dev.railroadide.core.project.creation.ProgressReporter;
 import dev.railroadide.core.project.creation.service.FilesService;
+import dev.railroadide.railroad.project.creation.CreationResources;
 import dev.railroadide.railroad.project.data.FabricProjectKeys;
 import dev.railroadide.railroad.project.data.MavenProjectKeys;
 import dev.railroadide.railroad.project.data.MinecraftProjectKeys;
 
 import java.nio.file.Path;
+import java.util.Set;
 
 public record RenamePackagesStep(FilesService files) implements CreationStep {
     @Override
@@ -21,6 +23,11 @@ public record RenamePackagesStep(FilesService files) implements CreationStep {
         return "railroad.project.creation.task.renaming_packages";
     }
 
+    @Override
+    public Set<String> writes() {
+        return Set.of(CreationResources.MAIN_JAVA, CreationResources.CLIENT_SOURCES);
+    }
+
     @Override
     public void run(ProjectContext ctx, ProgressReporter reporter) throws Exception {
         Path projectDir = ctx.projectDir();
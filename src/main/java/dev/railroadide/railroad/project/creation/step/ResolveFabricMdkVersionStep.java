@@ -4,6 +4,7 @@ import dev.railroadide.core.project.ProjectContext;
 import dev.railroadide.core.project.creation.CreationStep;
 import dev.railroadide.core.project.creation.ProgressReporter;
 import dev.railroadide.core.switchboard.pojo.MinecraftVersion;
+import dev.railroadide.railroad.project.creation.CreationResources;
 import dev.railroadide.railroad.project.creation.ProjectContextKeys;
 import dev.railroadide.railroad.project.data.MinecraftProjectKeys;
 import dev.railroadide.railroad.switchboard.SwitchboardRepositories;
@@ -12,6 +13,7 @@ import org.jetbrains.annotations.NotNull;
 import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 public final class ResolveFabricMdkVersionStep implements CreationStep {
@@ -25,6 +27,13 @@ public final class ResolveFabricMdkVersionStep implements CreationStep {
         return "railroad.project.creation.task.resolving_mdk_version";
     }
 
+    @Override
+    public Set<String> writes() {
+        return Set.of(
+            CreationResources.context(ProjectContextKeys.MDK_VERSION),
+            CreationResources.context(ProjectContextKeys.EXAMPLE_MOD_BRANCH));
+    }
+
     @Override
     public void run(ProjectContext ctx, ProgressReporter reporter) {
         MinecraftVersion requested = ctx.data().get(MinecraftProjectKeys.MINECRAFT_VERSION, MinecraftVersion.class);
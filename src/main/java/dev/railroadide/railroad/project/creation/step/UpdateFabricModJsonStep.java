@@ -14,6 +14,7 @@ import dev.railroadide.core.switchboard.pojo.FabricLoaderVersion;
 import dev.railroadide.core.switchboard.pojo.MinecraftVersion;
 import dev.railroadide.railroad.Railroad;
 import dev.railroadide.railroad.project.LicenseRegistry;
+import dev.railroadide.railroad.project.creation.CreationResources;
 import dev.railroadide.railroad.project.creation.ProjectContextKeys;
 import dev.railroadide.railroad.project.data.FabricProjectKeys;
 import dev.railroadide.railroad.project.data.MavenProjectKeys;
@@ -33,6 +34,14 @@ public record UpdateFabricModJsonStep(FilesService files) implements CreationSte
         return "railroad.project.creation.task.update_fabric_mod_json";
     }
 
+    @Override
+    public Set<String> writes() {
+        return Set.of(
+            CreationResources.MAIN_RESOURCES,
+            CreationResources.context(ProjectContextKeys.FABRIC_MOD_JSON),
+            CreationResources.data(FabricProjectKeys.ACCESS_WIDENER_PATH));
+    }
+
     @Override
     public void run(ProjectContext ctx, ProgressReporter reporter) throws Exception {
         reporter.info("Deleting assets directory...");
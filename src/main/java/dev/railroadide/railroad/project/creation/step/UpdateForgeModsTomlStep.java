@@ -6,11 +6,13 @@ import dev.railroadide.core.project.creation.CreationStep;
 import dev.railroadide.core.project.creation.ProgressReporter;
 import dev.railroadide.core.project.creation.service.FilesService;
 import dev.railroadide.railroad.project.DisplayTest;
+import dev.railroadide.railroad.project.creation.CreationResources;
 import dev.railroadide.railroad.project.data.ForgeProjectKeys;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 public record UpdateForgeModsTomlStep(FilesService files) implements CreationStep {
@@ -26,6 +28,11 @@ public record UpdateForgeModsTomlStep(FilesService files) implements CreationSte
         return "railroad.project.creation.task.update_forge_mods_toml";
     }
 
+    @Override
+    public Set<String> writes() {
+        return Set.of(CreationResources.MODS_TOML);
+    }
+
     @Override
     public void run(ProjectContext ctx, ProgressReporter reporter) throws Exception {
         reporter.info("Updating mods.toml...");
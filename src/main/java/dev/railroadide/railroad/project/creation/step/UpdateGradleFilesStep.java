@@ -6,29 +6,25 @@ import dev.railroadide.core.project.ProjectType;
 import dev.railroadide.core.project.creation.CreationStep;
 import dev.railroadide.core.project.creation.ProgressReporter;
 import dev.railroadide.core.project.creation.service.FilesService;
-import dev.railroadide.core.project.creation.service.HttpService;
 import dev.railroadide.core.project.creation.service.TemplateEngineService;
 import dev.railroadide.core.project.minecraft.MappingChannel;
-import dev.railroadide.core.switchboard.pojo.MinecraftVersion;
 import dev.railroadide.railroad.project.MappingChannelRegistry;
 import dev.railroadide.railroad.project.ProjectTypeRegistry;
+import dev.railroadide.railroad.project.creation.CreationResources;
 import dev.railroadide.railroad.project.creation.ProjectContextKeys;
 import dev.railroadide.railroad.project.data.FabricProjectKeys;
 import dev.railroadide.railroad.project.data.ForgeProjectKeys;
 import dev.railroadide.railroad.project.data.MinecraftProjectKeys;
 import groovy.lang.Binding;
 
-import java.net.URI;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
-public record UpdateGradleFilesStep(FilesService files, HttpService http, TemplateEngineService templateEngine,
-                                    String branch, boolean includeSettingsGradle) implements CreationStep {
-    private static final String TEMPLATE_BUILD_GRADLE_URL = "https://raw.githubusercontent.com/Railroad-Team/Railroad/%s/templates/fabric/%s/template_build.gradle";
-    private static final String TEMPLATE_SETTINGS_GRADLE_URL = "https://raw.githubusercontent.com/Railroad-Team/Railroad/%s/templates/fabric/%s/template_settings.gradle";
-
+public record UpdateGradleFilesStep(FilesService files, TemplateEngineService templateEngine,
+                                    boolean includeSettingsGradle) implements CreationStep {
     @Override
     public String id() {
         return "railroad:update_gradle_files";
@@ -40,84 +36,38 @@ public record UpdateGradleFilesStep(FilesService files, HttpService http, Templa
     }
 
     @Override
-    public void run(ProjectContext ctx, ProgressReporter reporter) throws Exception {
-        updateBuildGradle(ctx, reporter);
-        if (includeSettingsGradle)
-            updateSettingsGradle(ctx, reporter);
+    public Set<String> reads() {
+        return Set.of(
+            CreationResources.context(ProjectContextKeys.BUILD_GRADLE_TEMPLATE),
+            CreationResources.context(ProjectContextKeys.SETTINGS_GRADLE_TEMPLATE),
+            CreationResources.data(FabricProjectKeys.ACCESS_WIDENER_PATH));
     }
 
-    private void updateBuildGradle(ProjectContext ctx, ProgressReporter reporter) throws Exception {
-        reporter.info("Downloading template build.gradle...");
-
-        Path projectDir = ctx.projectDir();
-        Path buildGradlePath = projectDir.resolve("build.gradle");
-
-        MinecraftVersion mdkVersion = ctx.get(ProjectContextKeys.MDK_VERSION);
-        if (mdkVersion == null)
-            throw new IllegalStateException("MDK version not set in project context");
-
-        String templateBuildGradleUrl = TEMPLATE_BUILD_GRADLE_URL.formatted(branch, mdkVersion.id().substring("1.".length()));
-        if (http.isNotFound(new URI(templateBuildGradleUrl))) {
-            MinecraftVersion minecraftVersion = ctx.data().get(MinecraftProjectKeys.MINECRAFT_VERSION, MinecraftVersion.class);
-            if (minecraftVersion == null)
-                throw new IllegalStateException("Minecraft version not set in project context");
-
-            templateBuildGradleUrl = TEMPLATE_BUILD_GRADLE_URL.formatted(branch, minecraftVersion.id().substring("1.".length()));
-            if (http.isNotFound(new URI(templateBuildGradleUrl)))
-                throw new IllegalStateException("Template build.gradle not found for version " + mdkVersion.id() + " or " + minecraftVersion.id());
-        }
-
-        Path templateBuildGradlePath = buildGradlePath.resolveSibling("template_build.gradle");
-        http.download(new URI(templateBuildGradleUrl), templateBuildGradlePath);
-
-        reporter.info("Updating build.gradle...");
-        String templateContent = files.readString(templateBuildGradlePath);
-        if (!templateContent.startsWith("// fileName: "))
-            throw new IllegalStateException("Invalid template build.gradle file: missing fileName metadata");
-
-        updateContent(ctx, projectDir, buildGradlePath, templateBuildGradlePath, templateContent);
+    @Override
+    public Set<String> writes() {
+        return Set.of(CreationResources.BUILD_GRADLE, CreationResources.SETTINGS_GRADLE);
     }
 
-    private void updateSettingsGradle(ProjectContext ctx, ProgressReporter reporter) throws Exception {
-        reporter.info("Downloading template settings.gradle...");
-
-        Path projectDir = ctx.projectDir();
-        Path settingsGradlePath = projectDir.resolve("settings.gradle");
-
-        MinecraftVersion mdkVersion = ctx.get(ProjectContextKeys.MDK_VERSION);
-        if (mdkVersion == null)
-            throw new IllegalStateException("MDK version not set in project context");
-
-        String templateSettingsGradleUrl = TEMPLATE_SETTINGS_GRADLE_URL.formatted(branch, mdkVersion.id().substring("1.".length()));
-        if (http.isNotFound(new URI(templateSettingsGradleUrl))) {
-            MinecraftVersion minecraftVersion = ctx.data().get(MinecraftProjectKeys.MINECRAFT_VERSION, MinecraftVersion.class);
-            if (minecraftVersion == null)
-                throw new IllegalStateException("Minecraft version not set in project context");
-
-            templateSettingsGradleUrl = TEMPLATE_SETTINGS_GRADLE_URL.formatted(branch, minecraftVersion.id().substring("1.".length()));
-            if (http.isNotFound(new URI(templateSettingsGradleUrl)))
-                throw new IllegalStateException("Template settings.gradle not found for version " + mdkVersion.id() + " or " + minecraftVersion.id());
+    @Override
+    public void run(ProjectContext ctx, ProgressReporter reporter) throws Exception {
+        reporter.info("Updating build.gradle...");
+        updateContent(ctx, ctx.projectDir().resolve("build.gradle"), ctx.get(ProjectContextKeys.BUILD_GRADLE_TEMPLATE));
+        if (includeSettingsGradle) {
+            reporter.info("Updating settings.gradle...");
+            updateContent(ctx, ctx.projectDir().resolve("settings.gradle"), ctx.get(ProjectContextKeys.SETTINGS_GRADLE_TEMPLATE));
         }
-
-        Path templateSettingsGradlePath = settingsGradlePath.resolveSibling("template_settings.gradle");
-        http.download(new URI(templateSettingsGradleUrl), templateSettingsGradlePath);
-
-        reporter.info("Updating settings.gradle...");
-        String templateContent = files.readString(templateSettingsGradlePath);
-        if (!templateContent.startsWith("// fileName: "))
-            throw new IllegalStateException("Invalid template settings.gradle file: missing fileName metadata");
-
-        updateContent(ctx, projectDir, settingsGradlePath, templateSettingsGradlePath, templateContent);
     }
 
-    private void updateContent(ProjectContext ctx, Path projectDir, Path settingsGradlePath, Path templateSettingsGradlePath, String templateContent) throws Exception {
+    private void updateContent(ProjectContext ctx, Path gradlePath, String templateContent) throws Exception {
+        if (templateContent == null)
+            throw new IllegalStateException("Template " + gradlePath.getFileName() + " was not fetched");
+
         Map<String, Object> args = createGradleBindings(ctx.data());
         var binding = new Binding(args);
-        binding.setVariable("defaultName", projectDir.relativize(settingsGradlePath.toAbsolutePath()).toString());
+        binding.setVariable("defaultName", ctx.projectDir().relativize(gradlePath.toAbsolutePath()).toString());
 
         String updatedContent = templateEngine.apply(templateContent, args);
-        files.writeString(settingsGradlePath, updatedContent);
-        files.delete(templateSettingsGradlePath);
+        files.writeString(gradlePath, updatedContent);
     }
 
     private static Map<String, Object> createGradleBindings(ProjectData data) {
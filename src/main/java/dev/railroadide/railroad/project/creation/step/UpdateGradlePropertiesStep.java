@@ -13,6 +13,7 @@ import dev.railroadide.core.switchboard.pojo.MinecraftVersion;
 import dev.railroadide.railroad.project.LicenseRegistry;
 import dev.railroadide.railroad.project.MappingChannelRegistry;
 import dev.railroadide.railroad.project.ProjectTypeRegistry;
+import dev.railroadide.railroad.project.creation.CreationResources;
 import dev.railroadide.railroad.project.data.FabricProjectKeys;
 import dev.railroadide.railroad.project.data.MavenProjectKeys;
 import dev.railroadide.railroad.project.data.MinecraftProjectKeys;
@@ -20,6 +21,7 @@ import dev.railroadide.railroad.project.data.MinecraftProjectKeys;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Locale;
+import java.util.Set;
 
 public record UpdateGradlePropertiesStep(FilesService files) implements CreationStep {
     @Override
@@ -32,6 +34,11 @@ public record UpdateGradlePropertiesStep(FilesService files) implements Creation
         return "railroad.project.creation.task.updating_gradle";
     }
 
+    @Override
+    public Set<String> writes() {
+        return Set.of(CreationResources.GRADLE_PROPERTIES);
+    }
+
     @Override
     public void run(ProjectContext ctx, ProgressReporter reporter) throws IOException {
         Path propsFile = ctx.projectDir().resolve("gradle.properties");
@@ -6,6 +6,7 @@ import dev.railroadide.core.settings.DefaultSettingCodecs;
 import dev.railroadide.core.settings.Setting;
 import dev.railroadide.core.settings.SettingCategory;
 import dev.railroadide.core.settings.keybinds.KeybindData;
+import dev.railroadide.railroad.ide.watcher.ProjectFileWatcher;
 import dev.railroadide.railroad.localization.L18n;
 import dev.railroadide.railroad.localization.Languages;
 import dev.railroadide.railroad.plugin.PluginManager;
@@ -53,6 +54,15 @@ public final class Settings {
         .defaultValue(true)
         .build());
 
+    public static final Setting<String> FILE_WATCHER_IGNORED_PATHS = registerSetting(Setting.builder(String.class, "railroad:ignored_paths")
+        .treePath("ide")
+        .category(SettingCategory.simple("railroad:ide.file_watcher"))
+        .codec(DefaultSettingCodecs.STRING)
+        .defaultValue("build, **/build, .gradle, run, .git")
+        .addListener((oldValue, newValue) -> ProjectFileWatcher.reloadIgnoredPatterns(newValue))
+        .canBeNull(true)
+        .build());
+
     public static final Setting<Boolean> SWITCH_TO_IDE_AFTER_IMPORT = registerSetting(Setting.builder(Boolean.class, "railroad:switch_to_ide_after_import")
         .treePath("projects")
         .category(SettingCategory.simple("railroad:projects.import"))
@@ -84,6 +94,14 @@ public final class Settings {
         .canBeNull(true)
         .build());
 
+    public static final Setting<Integer> ARTIFACT_CACHE_SIZE = registerSetting(Setting.builder(Integer.class, "railroad:projects.artifact_cache_size")
+        .treePath("projects")
+        .category(SettingCategory.simple("railroad:projects.artifact_cache"))
+        .codec(DefaultSettingCodecs.INTEGER)
+        .defaultValue(1024)
+        .canBeNull(false)
+        .build());
+
     public static final Setting<Map<String, List<KeybindData>>> KEYBINDS = registerSetting(Setting.builder(new TypeToken<Map<String, List<KeybindData>>>() {
         }, "railroad:keybinds")
         .hasTitle(false)
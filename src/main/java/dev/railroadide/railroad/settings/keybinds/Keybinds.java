@@ -5,6 +5,7 @@ import dev.railroadide.core.settings.keybinds.KeybindCategory;
 import dev.railroadide.core.settings.keybinds.KeybindContexts;
 import dev.railroadide.railroad.ide.projectexplorer.PathItem;
 import dev.railroadide.railroad.ide.projectexplorer.ProjectExplorerPane;
+import dev.railroadide.railroad.ide.ui.ContentSearchPane;
 import javafx.scene.control.TreeView;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyCombination;
@@ -32,6 +33,17 @@ public class Keybinds {
         })
         .build());
 
+    public static final Keybind FIND_IN_FILES = KeybindHandler.registerKeybind(Keybind.builder()
+        .id("railroad:find_in_files")
+        .category(new KeybindCategory("railroad:general", "railroad.settings.keybinds.category.general"))
+        .addDefaultKey(KeyCode.F, KeyCombination.SHORTCUT_DOWN, KeyCombination.SHIFT_DOWN)
+        .addAction(KeybindContexts.of("railroad:ide"), node -> {
+            if (node.getProperties().get(ContentSearchPane.class) instanceof Runnable showFindInFiles) {
+                showFindInFiles.run();
+            }
+        })
+        .build());
+
     public static void initialize() {
     }
 }
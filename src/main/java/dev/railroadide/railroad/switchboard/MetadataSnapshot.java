@@ -0,0 +1,14 @@
+package dev.railroadide.railroad.switchboard;
+
+import com.google.gson.JsonElement;
+
+import java.util.Map;
+
+/**
+ * Many Switchboard responses in one document, so a cold cache can be filled with a single request.
+ *
+ * @param generatedAt When the responses were fetched, in milliseconds since the epoch, or 0 if unknown.
+ * @param entries     The responses, by the cache key the repositories store them under.
+ */
+public record MetadataSnapshot(long generatedAt, Map<String, JsonElement> entries) {
+}
@@ -2,6 +2,8 @@ package dev.railroadide.railroad.switchboard;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import dev.railroadide.core.switchboard.cache.ConditionalFetcher;
+import dev.railroadide.core.switchboard.cache.FetchResult;
 import dev.railroadide.core.switchboard.pojo.FabricLoaderVersion;
 import dev.railroadide.core.switchboard.pojo.MinecraftVersion;
 import dev.railroadide.core.switchboard.pojo.ParchmentVersion;
@@ -11,10 +13,23 @@ import okhttp3.*;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-
-public record SwitchboardClient(String baseUrl) {
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Requests metadata from Switchboard. Each method returns a {@link ConditionalFetcher}, which makes the request when it
+ * is given the ETag of the cached response, if there is one.
+ *
+ * @param baseUrl    The URL the endpoints are resolved against.
+ * @param httpClient The client the requests are made with.
+ * @param gson       Supplies the Gson responses are parsed with, looked up only once a response has to be parsed.
+ */
+public record SwitchboardClient(String baseUrl, OkHttpClient httpClient, Supplier<Gson> gson) {
     public static final TypeToken<List<String>> LIST_OF_STRINGS = new TypeToken<>() {
     };
     public static final TypeToken<List<FabricLoaderVersion>> LIST_OF_FABRIC_LOADER_VERSIONS = new TypeToken<>() {
@@ -24,154 +39,169 @@ public record SwitchboardClient(String baseUrl) {
     public static final TypeToken<Map<String, List<ParchmentVersion>>> MAP_OF_PARCHMENT_VERSIONS = new TypeToken<>() {
     };
 
+    public SwitchboardClient {
+        baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+    }
+
     public SwitchboardClient(String baseUrl) {
-        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        this(baseUrl, Railroad.HTTP_CLIENT, () -> ServiceLocator.getService(Gson.class));
     }
 
-    public CompletableFuture<List<MinecraftVersion>> fetchMinecraftVersions() {
+    public ConditionalFetcher<List<MinecraftVersion>> fetchMinecraftVersions() {
         return getJson("minecraft/versions", new TypeToken<>() {
         });
     }
 
-    private <T> CompletableFuture<T> getJson(String endpoint, TypeToken<T> clazz) {
-        Call call = Railroad.HTTP_CLIENT.newCall(new Request.Builder().get().url(this.baseUrl + endpoint).build());
-        CompletableFuture<T> future = new CompletableFuture<>();
-        call.enqueue(new JsonCallback<>(future, clazz));
-        return future;
+    /**
+     * @return A fetcher that requests the endpoint, sending the ETag it is given as {@code If-None-Match} so an unchanged
+     * response is answered with 304 Not Modified rather than downloaded and parsed again.
+     */
+    private <T> ConditionalFetcher<T> getJson(String endpoint, TypeToken<T> clazz) {
+        return etag -> {
+            var request = new Request.Builder().get().url(this.baseUrl + endpoint);
+            if (etag != null) {
+                request.header("If-None-Match", etag);
+            }
+
+            Call call = this.httpClient.newCall(request.build());
+            CompletableFuture<FetchResult<T>> future = new CompletableFuture<>();
+            call.enqueue(new JsonCallback<>(future, clazz, this.gson));
+            return future;
+        };
     }
 
-    private <T> CompletableFuture<T> getJson(String endpoint, Class<T> clazz) {
+    private <T> ConditionalFetcher<T> getJson(String endpoint, Class<T> clazz) {
         return getJson(endpoint, TypeToken.get(clazz));
     }
 
-    public CompletableFuture<Optional<MinecraftVersion>> fetchMinecraftVersionById(String id) {
-        return getJson("minecraft/versions/" + id.toLowerCase(Locale.ROOT), MinecraftVersion.class).thenApply(Optional::of);
+    public ConditionalFetcher<MinecraftVersion> fetchMinecraftVersionById(String id) {
+        return getJson("minecraft/versions/" + id.toLowerCase(Locale.ROOT), MinecraftVersion.class);
     }
 
-    public CompletableFuture<MinecraftVersion> fetchLatestMinecraftVersion() {
+    public ConditionalFetcher<MinecraftVersion> fetchLatestMinecraftVersion() {
         return getJson("minecraft/latest", MinecraftVersion.class);
     }
 
-    public CompletableFuture<MinecraftVersion> fetchLatestMinecraftVersionOfType(MinecraftVersion.Type type) {
+    public ConditionalFetcher<MinecraftVersion> fetchLatestMinecraftVersionOfType(MinecraftVersion.Type type) {
         return getJson("minecraft/latest/" + type.name().toLowerCase(Locale.ROOT), MinecraftVersion.class);
     }
 
-    public CompletableFuture<List<String>> fetchForgeVersions() {
+    public ConditionalFetcher<List<String>> fetchForgeVersions() {
         return getJson("forge/versions", LIST_OF_STRINGS);
     }
 
-    public CompletableFuture<List<String>> fetchForgeVersions(String minecraftVersionId) {
+    public ConditionalFetcher<List<String>> fetchForgeVersions(String minecraftVersionId) {
         Objects.requireNonNull(minecraftVersionId, "minecraftVersionId");
         return getJson("forge/versions/" + minecraftVersionId.toLowerCase(Locale.ROOT), LIST_OF_STRINGS);
     }
 
-    public CompletableFuture<String> fetchLatestForgeVersion() {
+    public ConditionalFetcher<String> fetchLatestForgeVersion() {
         return fetchLatestForgeVersion(false);
     }
 
-    public CompletableFuture<String> fetchLatestForgeVersion(boolean includePrereleases) {
+    public ConditionalFetcher<String> fetchLatestForgeVersion(boolean includePrereleases) {
         String endpoint = "forge/latest";
         if (includePrereleases)
             endpoint += "?includePrereleases=true";
 
-        return getJson(endpoint, VersionResponse.class).thenApply(VersionResponse::version);
+        return getJson(endpoint, VersionResponse.class).map(VersionResponse::version);
     }
 
-    public CompletableFuture<String> fetchLatestForgeVersion(String minecraftVersionId) {
+    public ConditionalFetcher<String> fetchLatestForgeVersion(String minecraftVersionId) {
         return fetchLatestForgeVersion(minecraftVersionId, false);
     }
 
-    public CompletableFuture<String> fetchLatestForgeVersion(String minecraftVersionId, boolean includePrereleases) {
+    public ConditionalFetcher<String> fetchLatestForgeVersion(String minecraftVersionId, boolean includePrereleases) {
         Objects.requireNonNull(minecraftVersionId, "minecraftVersionId");
         String endpoint = "forge/latest/" + minecraftVersionId.toLowerCase(Locale.ROOT);
         if (includePrereleases)
             endpoint += "?includePrereleases=true";
 
-        return getJson(endpoint, VersionResponse.class).thenApply(VersionResponse::version);
+        return getJson(endpoint, VersionResponse.class).map(VersionResponse::version);
     }
 
-    public CompletableFuture<List<String>> fetchNeoforgeVersions() {
+    public ConditionalFetcher<List<String>> fetchNeoforgeVersions() {
         return getJson("neoforge/versions", LIST_OF_STRINGS);
     }
 
-    public CompletableFuture<List<String>> fetchNeoforgeVersions(String minecraftVersionId) {
+    public ConditionalFetcher<List<String>> fetchNeoforgeVersions(String minecraftVersionId) {
         Objects.requireNonNull(minecraftVersionId, "minecraftVersionId");
         return getJson("neoforge/versions/" + minecraftVersionId.toLowerCase(Locale.ROOT), LIST_OF_STRINGS);
     }
 
-    public CompletableFuture<String> fetchLatestNeoforgeVersion() {
+    public ConditionalFetcher<String> fetchLatestNeoforgeVersion() {
         return fetchLatestNeoforgeVersion(false);
     }
 
-    public CompletableFuture<String> fetchLatestNeoforgeVersion(boolean includePrereleases) {
+    public ConditionalFetcher<String> fetchLatestNeoforgeVersion(boolean includePrereleases) {
         String endpoint = "neoforge/latest";
         if (includePrereleases)
             endpoint += "?includePrereleases=true";
 
-        return getJson(endpoint, VersionResponse.class).thenApply(VersionResponse::version);
+        return getJson(endpoint, VersionResponse.class).map(VersionResponse::version);
     }
 
-    public CompletableFuture<String> fetchLatestNeoforgeVersion(String minecraftVersionId) {
+    public ConditionalFetcher<String> fetchLatestNeoforgeVersion(String minecraftVersionId) {
         return fetchLatestNeoforgeVersion(minecraftVersionId, false);
     }
 
-    public CompletableFuture<String> fetchLatestNeoforgeVersion(String minecraftVersionId, boolean includePrereleases) {
+    public ConditionalFetcher<String> fetchLatestNeoforgeVersion(String minecraftVersionId, boolean includePrereleases) {
         Objects.requireNonNull(minecraftVersionId, "minecraftVersionId");
         String endpoint = "neoforge/latest/" + minecraftVersionId.toLowerCase(Locale.ROOT);
         if (includePrereleases)
             endpoint += "?includePrereleases=true";
 
-        return getJson(endpoint, VersionResponse.class).thenApply(VersionResponse::version);
+        return getJson(endpoint, VersionResponse.class).map(VersionResponse::version);
     }
 
-    public CompletableFuture<List<String>> fetchFabricApiVersions() {
+    public ConditionalFetcher<List<String>> fetchFabricApiVersions() {
         return getJson("fabric/api/versions", LIST_OF_STRINGS);
     }
 
-    public CompletableFuture<List<String>> fetchFabricApiVersions(String minecraftVersionId) {
+    public ConditionalFetcher<List<String>> fetchFabricApiVersions(String minecraftVersionId) {
         Objects.requireNonNull(minecraftVersionId, "minecraftVersionId");
         return getJson("fabric/api/versions/" + minecraftVersionId.toLowerCase(Locale.ROOT), LIST_OF_STRINGS);
     }
 
-    public CompletableFuture<String> fetchLatestFabricApiVersion() {
+    public ConditionalFetcher<String> fetchLatestFabricApiVersion() {
         return fetchLatestFabricApiVersion(false);
     }
 
-    public CompletableFuture<String> fetchLatestFabricApiVersion(boolean includePrereleases) {
+    public ConditionalFetcher<String> fetchLatestFabricApiVersion(boolean includePrereleases) {
         String endpoint = "fabric/api/latest";
         if (includePrereleases)
             endpoint += "?includePrereleases=true";
 
-        return getJson(endpoint, VersionResponse.class).thenApply(VersionResponse::version);
+        return getJson(endpoint, VersionResponse.class).map(VersionResponse::version);
     }
 
-    public CompletableFuture<String> fetchLatestFabricApiVersion(String minecraftVersionId) {
+    public ConditionalFetcher<String> fetchLatestFabricApiVersion(String minecraftVersionId) {
         return fetchLatestFabricApiVersion(minecraftVersionId, false);
     }
 
-    public CompletableFuture<String> fetchLatestFabricApiVersion(String minecraftVersionId, boolean includePrereleases) {
+    public ConditionalFetcher<String> fetchLatestFabricApiVersion(String minecraftVersionId, boolean includePrereleases) {
         Objects.requireNonNull(minecraftVersionId, "minecraftVersionId");
         String endpoint = "fabric/api/latest/" + minecraftVersionId.toLowerCase(Locale.ROOT);
         if (includePrereleases)
             endpoint += "?includePrereleases=true";
 
-        return getJson(endpoint, VersionResponse.class).thenApply(VersionResponse::version);
+        return getJson(endpoint, VersionResponse.class).map(VersionResponse::version);
     }
 
-    public CompletableFuture<List<FabricLoaderVersion>> fetchFabricLoaderVersions() {
+    public ConditionalFetcher<List<FabricLoaderVersion>> fetchFabricLoaderVersions() {
         return getJson("fabric/loader/versions", LIST_OF_FABRIC_LOADER_VERSIONS);
     }
 
-    public CompletableFuture<List<FabricLoaderVersion>> fetchFabricLoaderVersions(String minecraftVersionId) {
+    public ConditionalFetcher<List<FabricLoaderVersion>> fetchFabricLoaderVersions(String minecraftVersionId) {
         Objects.requireNonNull(minecraftVersionId, "minecraftVersionId");
         return getJson("fabric/loader/versions/" + minecraftVersionId.toLowerCase(Locale.ROOT), LIST_OF_FABRIC_LOADER_VERSIONS);
     }
 
-    public CompletableFuture<FabricLoaderVersion> fetchLatestFabricLoaderVersion() {
+    public ConditionalFetcher<FabricLoaderVersion> fetchLatestFabricLoaderVersion() {
         return fetchLatestFabricLoaderVersion(false);
     }
 
-    public CompletableFuture<FabricLoaderVersion> fetchLatestFabricLoaderVersion(boolean includePrereleases) {
+    public ConditionalFetcher<FabricLoaderVersion> fetchLatestFabricLoaderVersion(boolean includePrereleases) {
         String endpoint = "fabric/loader/latest";
         if (includePrereleases)
             endpoint += "?includePrereleases=true";
@@ -179,11 +209,11 @@ public record SwitchboardClient(String baseUrl) {
         return getJson(endpoint, FabricLoaderVersion.class);
     }
 
-    public CompletableFuture<FabricLoaderVersion> fetchLatestFabricLoaderVersion(String minecraftVersionId) {
+    public ConditionalFetcher<FabricLoaderVersion> fetchLatestFabricLoaderVersion(String minecraftVersionId) {
         return fetchLatestFabricLoaderVersion(minecraftVersionId, false);
     }
 
-    public CompletableFuture<FabricLoaderVersion> fetchLatestFabricLoaderVersion(String minecraftVersionId, boolean includePrereleases) {
+    public ConditionalFetcher<FabricLoaderVersion> fetchLatestFabricLoaderVersion(String minecraftVersionId, boolean includePrereleases) {
         Objects.requireNonNull(minecraftVersionId, "minecraftVersionId");
         String endpoint = "fabric/loader/latest/" + minecraftVersionId.toLowerCase(Locale.ROOT);
         if (includePrereleases)
@@ -192,78 +222,83 @@ public record SwitchboardClient(String baseUrl) {
         return getJson(endpoint, FabricLoaderVersion.class);
     }
 
-    public CompletableFuture<List<String>> fetchYarnVersions() {
+    public ConditionalFetcher<List<String>> fetchYarnVersions() {
         return getJson("yarn/versions", LIST_OF_STRINGS);
     }
 
-    public CompletableFuture<List<String>> fetchYarnVersions(String minecraftVersionId) {
+    public ConditionalFetcher<List<String>> fetchYarnVersions(String minecraftVersionId) {
         Objects.requireNonNull(minecraftVersionId, "minecraftVersionId");
         return getJson("yarn/versions/" + minecraftVersionId.toLowerCase(Locale.ROOT), LIST_OF_STRINGS);
     }
 
-    public CompletableFuture<String> fetchLatestYarnVersion() {
-        return getJson("yarn/latest", VersionResponse.class).thenApply(VersionResponse::version);
+    public ConditionalFetcher<String> fetchLatestYarnVersion() {
+        return getJson("yarn/latest", VersionResponse.class).map(VersionResponse::version);
     }
 
-    public CompletableFuture<String> fetchLatestYarnVersion(String minecraftVersionId) {
+    public ConditionalFetcher<String> fetchLatestYarnVersion(String minecraftVersionId) {
         Objects.requireNonNull(minecraftVersionId, "minecraftVersionId");
-        return getJson("yarn/latest/" + minecraftVersionId.toLowerCase(Locale.ROOT), VersionResponse.class).thenApply(VersionResponse::version);
+        return getJson("yarn/latest/" + minecraftVersionId.toLowerCase(Locale.ROOT), VersionResponse.class).map(VersionResponse::version);
     }
 
-    public CompletableFuture<List<String>> fetchMcpVersions() {
+    public ConditionalFetcher<List<String>> fetchMcpVersions() {
         return getJson("mcp/versions", LIST_OF_STRINGS);
     }
 
-    public CompletableFuture<List<String>> fetchMcpVersions(String minecraftVersionId) {
+    public ConditionalFetcher<List<String>> fetchMcpVersions(String minecraftVersionId) {
         Objects.requireNonNull(minecraftVersionId, "minecraftVersionId");
         return getJson("mcp/versions/" + minecraftVersionId.toLowerCase(Locale.ROOT), LIST_OF_STRINGS);
     }
 
-    public CompletableFuture<String> fetchLatestMcpVersion() {
-        return getJson("mcp/latest", VersionResponse.class).thenApply(VersionResponse::version);
+    public ConditionalFetcher<String> fetchLatestMcpVersion() {
+        return getJson("mcp/latest", VersionResponse.class).map(VersionResponse::version);
     }
 
-    public CompletableFuture<String> fetchLatestMcpVersion(String minecraftVersionId) {
+    public ConditionalFetcher<String> fetchLatestMcpVersion(String minecraftVersionId) {
         Objects.requireNonNull(minecraftVersionId, "minecraftVersionId");
-        return getJson("mcp/latest/" + minecraftVersionId.toLowerCase(Locale.ROOT), VersionResponse.class).thenApply(VersionResponse::version);
+        return getJson("mcp/latest/" + minecraftVersionId.toLowerCase(Locale.ROOT), VersionResponse.class).map(VersionResponse::version);
     }
 
-    public CompletableFuture<List<String>> fetchMojmapVersions() {
+    public ConditionalFetcher<List<String>> fetchMojmapVersions() {
         return getJson("mojmap/versions", LIST_OF_STRINGS);
     }
 
-    public CompletableFuture<List<String>> fetchMojmapVersions(String minecraftVersionId) {
+    public ConditionalFetcher<List<String>> fetchMojmapVersions(String minecraftVersionId) {
         Objects.requireNonNull(minecraftVersionId, "minecraftVersionId");
         return getJson("mojmap/versions/" + minecraftVersionId.toLowerCase(Locale.ROOT), LIST_OF_STRINGS);
     }
 
-    public CompletableFuture<String> fetchLatestMojmapVersion() {
-        return getJson("mojmap/latest", VersionResponse.class).thenApply(VersionResponse::version);
+    public ConditionalFetcher<String> fetchLatestMojmapVersion() {
+        return getJson("mojmap/latest", VersionResponse.class).map(VersionResponse::version);
     }
 
-    public CompletableFuture<List<ParchmentVersion>> fetchParchmentVersions() {
+    public ConditionalFetcher<List<ParchmentVersion>> fetchParchmentVersions() {
         return getJson("parchment/versions", LIST_OF_PARCHMENT_VERSIONS);
     }
 
-    public CompletableFuture<List<ParchmentVersion>> fetchParchmentVersions(String minecraftVersionId) {
+    public ConditionalFetcher<List<ParchmentVersion>> fetchParchmentVersions(String minecraftVersionId) {
         Objects.requireNonNull(minecraftVersionId, "minecraftVersionId");
         return getJson("parchment/versions/" + minecraftVersionId.toLowerCase(Locale.ROOT), LIST_OF_PARCHMENT_VERSIONS);
     }
 
-    public CompletableFuture<ParchmentVersion> fetchLatestParchmentVersion() {
+    public ConditionalFetcher<ParchmentVersion> fetchLatestParchmentVersion() {
         return getJson("parchment/latest", ParchmentVersion.class);
     }
 
-    public CompletableFuture<ParchmentVersion> fetchLatestParchmentVersion(String minecraftVersionId) {
+    public ConditionalFetcher<ParchmentVersion> fetchLatestParchmentVersion(String minecraftVersionId) {
         Objects.requireNonNull(minecraftVersionId, "minecraftVersionId");
         return getJson("parchment/latest/" + minecraftVersionId.toLowerCase(Locale.ROOT), ParchmentVersion.class);
     }
 
-    public CompletableFuture<Map<String, List<ParchmentVersion>>> fetchGroupedParchmentVersions() {
+    public ConditionalFetcher<Map<String, List<ParchmentVersion>>> fetchGroupedParchmentVersions() {
         return getJson("parchment/grouped", MAP_OF_PARCHMENT_VERSIONS);
     }
 
-    public record JsonCallback<T>(CompletableFuture<T> future, TypeToken<T> clazz) implements Callback {
+    public ConditionalFetcher<MetadataSnapshot> fetchSnapshot() {
+        return getJson("snapshot", MetadataSnapshot.class);
+    }
+
+    public record JsonCallback<T>(CompletableFuture<FetchResult<T>> future, TypeToken<T> clazz,
+                                  Supplier<Gson> gson) implements Callback {
         @Override
         public void onFailure(@NotNull Call call, @NotNull IOException exception) {
             future.completeExceptionally(exception);
@@ -272,18 +307,36 @@ public record SwitchboardClient(String baseUrl) {
         @Override
         public void onResponse(@NotNull Call call, @NotNull Response response) {
             try (response) {
+                String etag = response.header("ETag");
+                if (response.code() == 304) {
+                    future.complete(FetchResult.notModified(etag));
+                    return;
+                }
+
                 if (!response.isSuccessful()) {
                     future.completeExceptionally(new RuntimeException("Request failed with code: " + response.code()));
                     return;
                 }
 
                 ResponseBody body = Objects.requireNonNull(response.body());
-                T result = ServiceLocator.getService(Gson.class).fromJson(body.charStream(), clazz.getType());
-                future.complete(result);
+                T result = gson.get().fromJson(openReader(body), clazz.getType());
+                future.complete(FetchResult.of(result, etag));
             } catch (Exception exception) {
                 future.completeExceptionally(exception);
             }
         }
+
+        /**
+         * OkHttp already decompresses responses sent with {@code Content-Encoding: gzip}; this also handles documents
+         * that are themselves gzipped, such as the metadata snapshot.
+         */
+        private static Reader openReader(ResponseBody body) throws IOException {
+            MediaType contentType = body.contentType();
+            if (contentType != null && contentType.subtype().equals("gzip"))
+                return new InputStreamReader(new GZIPInputStream(body.byteStream()), StandardCharsets.UTF_8);
+
+            return body.charStream();
+        }
     }
 
     private record VersionResponse(String version) {
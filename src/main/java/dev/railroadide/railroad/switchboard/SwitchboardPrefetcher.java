@@ -0,0 +1,140 @@
+package dev.railroadide.railroad.switchboard;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import dev.railroadide.core.switchboard.SwitchboardRepository;
+import dev.railroadide.core.switchboard.cache.CacheKeySpec;
+import dev.railroadide.core.switchboard.cache.CacheManager;
+import dev.railroadide.core.switchboard.cache.MetadataCacheEntry;
+import dev.railroadide.core.utility.ServiceLocator;
+import dev.railroadide.railroad.Railroad;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Warms the Switchboard caches ahead of time, so the lists the project creation wizard shows are there when it opens.
+ * <p>
+ * If nothing is cached yet, the metadata snapshot is loaded first, filling most keys with one request and one write.
+ * The lookups are then made, at most {@code concurrency} at a time; the ones the snapshot filled are answered from
+ * the cache.
+ */
+public class SwitchboardPrefetcher {
+    private final SwitchboardClient client;
+    private final CacheManager cache;
+    private final int concurrency;
+
+    public SwitchboardPrefetcher(SwitchboardClient client, CacheManager cache, int concurrency) {
+        if (concurrency < 1)
+            throw new IllegalArgumentException("Concurrency must be at least 1, was " + concurrency);
+
+        this.client = client;
+        this.cache = cache;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * @param coldKey A key that is only missing from the cache if it has never been filled.
+     * @param tasks   The lookups to make, each started when it is called. A task may add more tasks to the queue.
+     */
+    public CompletableFuture<Void> prefetch(String coldKey, Queue<Supplier<CompletableFuture<?>>> tasks) {
+        long start = System.nanoTime();
+        return loadSnapshotIfCold(coldKey)
+            .exceptionally(throwable -> {
+                Railroad.LOGGER.warn("Failed to load Switchboard metadata snapshot", throwable);
+                return null;
+            })
+            .thenCompose(ignored -> {
+                var lanes = new CompletableFuture<?>[this.concurrency];
+                for (int lane = 0; lane < lanes.length; lane++) {
+                    lanes[lane] = runNext(tasks);
+                }
+
+                return CompletableFuture.allOf(lanes);
+            })
+            .thenRun(() -> Railroad.LOGGER.info("Prefetched Switchboard metadata in {} ms", (System.nanoTime() - start) / 1_000_000));
+    }
+
+    private CompletableFuture<Void> loadSnapshotIfCold(String coldKey) {
+        Optional<CacheKeySpec<?>> spec = findKeySpec(coldKey);
+        if (spec.isEmpty())
+            return CompletableFuture.completedFuture(null);
+
+        return this.cache.getIncludingExpired(coldKey, spec.get().type()).thenCompose(cached -> {
+            if (cached.isPresent())
+                return CompletableFuture.completedFuture(null);
+
+            return this.client.fetchSnapshot().fetch(null).thenAccept(result -> {
+                if (result.data() != null) {
+                    fill(result.data());
+                }
+            });
+        });
+    }
+
+    /**
+     * Caches every entry of the snapshot that a repository recognises, in one write.
+     */
+    public void fill(MetadataSnapshot snapshot) {
+        if (snapshot.entries() == null)
+            return;
+
+        Instant fetchedAt = snapshot.generatedAt() > 0 ? Instant.ofEpochMilli(snapshot.generatedAt()) : Instant.now();
+        Gson gson = ServiceLocator.getService(Gson.class);
+        Map<String, MetadataCacheEntry<?>> entries = new HashMap<>();
+        for (Map.Entry<String, JsonElement> entry : snapshot.entries().entrySet()) {
+            Optional<CacheKeySpec<?>> spec = findKeySpec(entry.getKey());
+            if (spec.isEmpty()) {
+                Railroad.LOGGER.debug("Skipping unknown Switchboard snapshot key: {}", entry.getKey());
+                continue;
+            }
+
+            try {
+                entries.put(entry.getKey(), toEntry(gson, spec.get(), entry.getValue(), fetchedAt));
+            } catch (RuntimeException exception) {
+                Railroad.LOGGER.warn("Skipping malformed Switchboard snapshot entry: {}", entry.getKey(), exception);
+            }
+        }
+
+        this.cache.putAll(entries);
+        Railroad.LOGGER.info("Filled {} Switchboard cache entries from snapshot", entries.size());
+    }
+
+    private static <T> MetadataCacheEntry<T> toEntry(Gson gson, CacheKeySpec<T> spec, JsonElement json, Instant fetchedAt) {
+        T data = gson.fromJson(json, spec.type());
+        return new MetadataCacheEntry<>(data, fetchedAt, spec.type(), spec.policy().ttl(), null);
+    }
+
+    private static Optional<CacheKeySpec<?>> findKeySpec(String key) {
+        for (SwitchboardRepository repository : SwitchboardRepository.REGISTRY.values()) {
+            Optional<CacheKeySpec<?>> spec = repository.getKeySpec(key);
+            if (spec.isPresent())
+                return spec;
+        }
+
+        return Optional.empty();
+    }
+
+    private static CompletableFuture<Void> runNext(Queue<Supplier<CompletableFuture<?>>> tasks) {
+        Supplier<CompletableFuture<?>> task = tasks.poll();
+        if (task == null)
+            return CompletableFuture.completedFuture(null);
+
+        CompletableFuture<?> future;
+        try {
+            future = task.get();
+        } catch (RuntimeException exception) {
+            future = CompletableFuture.failedFuture(exception);
+        }
+
+        return future.handle((result, throwable) -> {
+            if (throwable != null) {
+                Railroad.LOGGER.warn("Failed to prefetch Switchboard metadata", throwable);
+            }
+
+            return null;
+        }).thenCompose(ignored -> runNext(tasks));
+    }
+}
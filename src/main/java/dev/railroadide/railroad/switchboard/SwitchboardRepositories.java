@@ -5,17 +5,25 @@ import dev.railroadide.core.switchboard.cache.CacheManager;
 import dev.railroadide.core.switchboard.cache.impl.DelegatingCacheManager;
 import dev.railroadide.core.switchboard.cache.impl.JsonCacheManager;
 import dev.railroadide.core.switchboard.cache.impl.SqlCacheManager;
+import dev.railroadide.core.switchboard.pojo.MinecraftVersion;
 import dev.railroadide.railroad.Railroad;
 import dev.railroadide.railroad.config.ConfigHandler;
 import dev.railroadide.railroad.switchboard.repositories.*;
+import dev.railroadide.railroad.utility.ShutdownHooks;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
 
 public final class SwitchboardRepositories {
     private static final SwitchboardClient CLIENT = new SwitchboardClient("https://switchboard.railroadide.dev/");
+    private static final int PREFETCH_CONCURRENCY = 4;
     private static final CacheManager CACHE_MANAGER;
 
     static {
@@ -48,6 +56,39 @@ public final class SwitchboardRepositories {
         // NO-OP: accessing this class ensures the repositories are registered.
     }
 
+    /**
+     * Starts filling the caches of the lists the project creation wizard shows first, in the background.
+     *
+     * @see SwitchboardPrefetcher
+     */
+    public static CompletableFuture<Void> prefetch() {
+        Queue<Supplier<CompletableFuture<?>>> tasks = new ConcurrentLinkedQueue<>();
+        tasks.addAll(List.of(
+            MINECRAFT::getAllVersions,
+            () -> MINECRAFT.getLatest(MinecraftVersion.Type.RELEASE).thenAccept(latest -> {
+                // Queued behind the other lists, for the version the wizard selects to begin with
+                if (latest != null) {
+                    String id = latest.id();
+                    tasks.add(() -> FORGE.getVersionsFor(id));
+                    tasks.add(() -> NEOFORGE.getVersionsFor(id));
+                    tasks.add(() -> FABRIC_API.getVersionsFor(id));
+                    tasks.add(() -> FABRIC_LOADER.getVersionsFor(id));
+                    tasks.add(() -> PARCHMENT.getVersionsFor(id));
+                }
+            }),
+            FORGE::getAllVersions,
+            NEOFORGE::getAllVersions,
+            FABRIC_API::getAllVersions,
+            FABRIC_LOADER::getAllVersions,
+            YARN::getAllVersions,
+            MOJMAP::getAllVersions,
+            MCP::getAllVersions,
+            PARCHMENT::getAllVersions
+        ));
+
+        return new SwitchboardPrefetcher(CLIENT, CACHE_MANAGER, PREFETCH_CONCURRENCY).prefetch("mc:versions", tasks);
+    }
+
     private static CacheManager createCacheManager() throws SQLException {
         Path dbPath = ConfigHandler.getConfigDirectory().resolve("switchboard.db");
         if (Files.notExists(dbPath)) {
@@ -58,7 +99,9 @@ public final class SwitchboardRepositories {
             }
         }
 
-        return new DelegatingCacheManager(new SqlCacheManager(dbPath));
+        var sqlCacheManager = new SqlCacheManager(dbPath);
+        ShutdownHooks.addHook(sqlCacheManager::close);
+        return new DelegatingCacheManager(sqlCacheManager);
     }
 
     @SuppressWarnings("unchecked")
@@ -1,7 +1,11 @@
 package dev.railroadide.railroad.switchboard.repositories;
 
 import dev.railroadide.core.switchboard.SwitchboardRepository;
+import dev.railroadide.core.switchboard.cache.CacheKeySpec;
 import dev.railroadide.core.switchboard.cache.CacheManager;
+import dev.railroadide.core.switchboard.cache.CachePolicy;
+import dev.railroadide.core.switchboard.cache.CacheStats;
+import dev.railroadide.core.switchboard.cache.impl.RecordingCacheManager;
 import dev.railroadide.railroad.switchboard.SwitchboardClient;
 
 import java.time.Duration;
@@ -12,17 +16,37 @@ import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
-public record FabricApiVersionRepository(SwitchboardClient client, CacheManager cache)
+public record FabricApiVersionRepository(SwitchboardClient client, RecordingCacheManager cache)
     implements SwitchboardRepository {
-    private static final Duration VERSIONS_TTL = Duration.ofHours(12);
-    private static final Duration LATEST_TTL = Duration.ofHours(1);
+    private static final CachePolicy VERSIONS_POLICY = CachePolicy.staleWhileRevalidate(Duration.ofHours(12), Duration.ofDays(7));
+    private static final CachePolicy LATEST_POLICY = CachePolicy.staleWhileRevalidate(Duration.ofHours(1), Duration.ofDays(1));
+
+    public FabricApiVersionRepository(SwitchboardClient client, CacheManager cache) {
+        this(client, new RecordingCacheManager(cache));
+    }
+
+    @Override
+    public CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
+    @Override
+    public Optional<CacheKeySpec<?>> getKeySpec(String key) {
+        if (CacheKeySpec.matches(key, "fabric:api:versions"))
+            return Optional.of(new CacheKeySpec<>(SwitchboardClient.LIST_OF_STRINGS, VERSIONS_POLICY));
+
+        if (CacheKeySpec.matches(key, "fabric:api:latest"))
+            return Optional.of(CacheKeySpec.of(String.class, LATEST_POLICY));
+
+        return Optional.empty();
+    }
 
     public CompletableFuture<List<String>> getAllVersions() {
         return cache.getOrFetch(
             "fabric:api:versions",
             SwitchboardClient.LIST_OF_STRINGS,
-            VERSIONS_TTL,
-            client::fetchFabricApiVersions
+            VERSIONS_POLICY,
+            client.fetchFabricApiVersions()
         );
     }
 
@@ -38,8 +62,8 @@ public record FabricApiVersionRepository(SwitchboardClient client, CacheManager
         return cache.getOrFetch(
             key,
             SwitchboardClient.LIST_OF_STRINGS,
-            VERSIONS_TTL,
-            () -> client.fetchFabricApiVersions(normalized)
+            VERSIONS_POLICY,
+            client.fetchFabricApiVersions(normalized)
         );
     }
 
@@ -56,8 +80,8 @@ public record FabricApiVersionRepository(SwitchboardClient client, CacheManager
         return cache.getOrFetch(
             key,
             String.class,
-            LATEST_TTL,
-            () -> client.fetchLatestFabricApiVersion(includePrereleases)
+            LATEST_POLICY,
+            client.fetchLatestFabricApiVersion(includePrereleases)
         );
     }
 
@@ -81,8 +105,8 @@ public record FabricApiVersionRepository(SwitchboardClient client, CacheManager
         return cache.getOrFetch(
             key,
             String.class,
-            LATEST_TTL,
-            () -> client.fetchLatestFabricApiVersion(normalized, includePrereleases)
+            LATEST_POLICY,
+            client.fetchLatestFabricApiVersion(normalized, includePrereleases)
         );
     }
 
@@ -1,7 +1,11 @@
 package dev.railroadide.railroad.switchboard.repositories;
 
 import dev.railroadide.core.switchboard.SwitchboardRepository;
+import dev.railroadide.core.switchboard.cache.CacheKeySpec;
 import dev.railroadide.core.switchboard.cache.CacheManager;
+import dev.railroadide.core.switchboard.cache.CachePolicy;
+import dev.railroadide.core.switchboard.cache.CacheStats;
+import dev.railroadide.core.switchboard.cache.impl.RecordingCacheManager;
 import dev.railroadide.core.switchboard.pojo.FabricLoaderVersion;
 import dev.railroadide.railroad.switchboard.SwitchboardClient;
 
@@ -9,20 +13,41 @@ import java.time.Duration;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
-public record FabricLoaderVersionRepository(SwitchboardClient client, CacheManager cache)
+public record FabricLoaderVersionRepository(SwitchboardClient client, RecordingCacheManager cache)
     implements SwitchboardRepository {
-    private static final Duration VERSIONS_TTL = Duration.ofHours(12);
-    private static final Duration LATEST_TTL = Duration.ofHours(1);
+    private static final CachePolicy VERSIONS_POLICY = CachePolicy.staleWhileRevalidate(Duration.ofHours(12), Duration.ofDays(7));
+    private static final CachePolicy LATEST_POLICY = CachePolicy.staleWhileRevalidate(Duration.ofHours(1), Duration.ofDays(1));
+
+    public FabricLoaderVersionRepository(SwitchboardClient client, CacheManager cache) {
+        this(client, new RecordingCacheManager(cache));
+    }
+
+    @Override
+    public CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
+    @Override
+    public Optional<CacheKeySpec<?>> getKeySpec(String key) {
+        if (CacheKeySpec.matches(key, "fabric:loader:versions"))
+            return Optional.of(new CacheKeySpec<>(SwitchboardClient.LIST_OF_FABRIC_LOADER_VERSIONS, VERSIONS_POLICY));
+
+        if (CacheKeySpec.matches(key, "fabric:loader:latest"))
+            return Optional.of(CacheKeySpec.of(FabricLoaderVersion.class, LATEST_POLICY));
+
+        return Optional.empty();
+    }
 
     public CompletableFuture<List<FabricLoaderVersion>> getAllVersions() {
         return cache.getOrFetch(
             "fabric:loader:versions",
             SwitchboardClient.LIST_OF_FABRIC_LOADER_VERSIONS,
-            VERSIONS_TTL,
-            client::fetchFabricLoaderVersions
+            VERSIONS_POLICY,
+            client.fetchFabricLoaderVersions()
         );
     }
 
@@ -38,8 +63,8 @@ public record FabricLoaderVersionRepository(SwitchboardClient client, CacheManag
         return cache.getOrFetch(
             key,
             SwitchboardClient.LIST_OF_FABRIC_LOADER_VERSIONS,
-            VERSIONS_TTL,
-            () -> client.fetchFabricLoaderVersions(normalized)
+            VERSIONS_POLICY,
+            client.fetchFabricLoaderVersions(normalized)
         );
     }
 
@@ -56,8 +81,8 @@ public record FabricLoaderVersionRepository(SwitchboardClient client, CacheManag
         return cache.getOrFetch(
             key,
             FabricLoaderVersion.class,
-            LATEST_TTL,
-            () -> client.fetchLatestFabricLoaderVersion(includePrereleases)
+            LATEST_POLICY,
+            client.fetchLatestFabricLoaderVersion(includePrereleases)
         );
     }
 
@@ -81,8 +106,8 @@ public record FabricLoaderVersionRepository(SwitchboardClient client, CacheManag
         return cache.getOrFetch(
             key,
             FabricLoaderVersion.class,
-            LATEST_TTL,
-            () -> client.fetchLatestFabricLoaderVersion(normalized, includePrereleases)
+            LATEST_POLICY,
+            client.fetchLatestFabricLoaderVersion(normalized, includePrereleases)
         ).thenApply(fabricLoaderVersion -> fabricLoaderVersion.version() == null ? null : fabricLoaderVersion);
     }
 
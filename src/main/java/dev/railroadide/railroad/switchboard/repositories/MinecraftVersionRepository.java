@@ -2,7 +2,11 @@ package dev.railroadide.railroad.switchboard.repositories;
 
 import com.google.gson.reflect.TypeToken;
 import dev.railroadide.core.switchboard.SwitchboardRepository;
+import dev.railroadide.core.switchboard.cache.CacheKeySpec;
 import dev.railroadide.core.switchboard.cache.CacheManager;
+import dev.railroadide.core.switchboard.cache.CachePolicy;
+import dev.railroadide.core.switchboard.cache.CacheStats;
+import dev.railroadide.core.switchboard.cache.impl.RecordingCacheManager;
 import dev.railroadide.core.switchboard.pojo.MinecraftVersion;
 import dev.railroadide.railroad.switchboard.SwitchboardClient;
 
@@ -13,15 +17,43 @@ import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
-public record MinecraftVersionRepository(SwitchboardClient client, CacheManager cache)
+public record MinecraftVersionRepository(SwitchboardClient client, RecordingCacheManager cache)
     implements SwitchboardRepository {
+    private static final TypeToken<List<MinecraftVersion>> MINECRAFT_VERSIONS = new TypeToken<>() {
+    };
+    private static final CachePolicy VERSIONS_POLICY = CachePolicy.staleWhileRevalidate(Duration.ofHours(12), Duration.ofDays(7));
+    private static final CachePolicy VERSION_POLICY = CachePolicy.staleWhileRevalidate(Duration.ofDays(7), Duration.ofDays(30));
+    private static final CachePolicy LATEST_POLICY = CachePolicy.staleWhileRevalidate(Duration.ofHours(1), Duration.ofDays(1));
+
+    public MinecraftVersionRepository(SwitchboardClient client, CacheManager cache) {
+        this(client, new RecordingCacheManager(cache));
+    }
+
+    @Override
+    public CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
+    @Override
+    public Optional<CacheKeySpec<?>> getKeySpec(String key) {
+        if (CacheKeySpec.matches(key, "mc:versions"))
+            return Optional.of(new CacheKeySpec<>(MINECRAFT_VERSIONS, VERSIONS_POLICY));
+
+        if (CacheKeySpec.matches(key, "mc:version"))
+            return Optional.of(CacheKeySpec.of(MinecraftVersion.class, VERSION_POLICY));
+
+        if (CacheKeySpec.matches(key, "mc:latest"))
+            return Optional.of(CacheKeySpec.of(MinecraftVersion.class, LATEST_POLICY));
+
+        return Optional.empty();
+    }
+
     public CompletableFuture<List<MinecraftVersion>> getAllVersions() {
         return cache.getOrFetch(
             "mc:versions",
-            new TypeToken<List<MinecraftVersion>>() {
-            },
-            Duration.ofHours(12),
-            client::fetchMinecraftVersions
+            MINECRAFT_VERSIONS,
+            VERSIONS_POLICY,
+            client.fetchMinecraftVersions()
         );
     }
 
@@ -34,8 +66,8 @@ public record MinecraftVersionRepository(SwitchboardClient client, CacheManager
         return cache.getOrFetchOptional(
             key,
             MinecraftVersion.class,
-            Duration.ofDays(7),
-            () -> client.fetchMinecraftVersionById(id)
+            VERSION_POLICY,
+            client.fetchMinecraftVersionById(id)
         );
     }
 
@@ -47,8 +79,8 @@ public record MinecraftVersionRepository(SwitchboardClient client, CacheManager
         return cache.getOrFetch(
             "mc:latest",
             MinecraftVersion.class,
-            Duration.ofHours(1),
-            client::fetchLatestMinecraftVersion
+            LATEST_POLICY,
+            client.fetchLatestMinecraftVersion()
         );
     }
 
@@ -61,8 +93,8 @@ public record MinecraftVersionRepository(SwitchboardClient client, CacheManager
         return cache.getOrFetch(
             key,
             MinecraftVersion.class,
-            Duration.ofHours(1),
-            () -> client.fetchLatestMinecraftVersionOfType(type)
+            LATEST_POLICY,
+            client.fetchLatestMinecraftVersionOfType(type)
         );
     }
 
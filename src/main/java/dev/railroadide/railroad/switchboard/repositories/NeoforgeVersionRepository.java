@@ -1,27 +1,52 @@
 package dev.railroadide.railroad.switchboard.repositories;
 
 import dev.railroadide.core.switchboard.SwitchboardRepository;
+import dev.railroadide.core.switchboard.cache.CacheKeySpec;
 import dev.railroadide.core.switchboard.cache.CacheManager;
+import dev.railroadide.core.switchboard.cache.CachePolicy;
+import dev.railroadide.core.switchboard.cache.CacheStats;
+import dev.railroadide.core.switchboard.cache.impl.RecordingCacheManager;
 import dev.railroadide.railroad.switchboard.SwitchboardClient;
 
 import java.time.Duration;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
-public record NeoforgeVersionRepository(SwitchboardClient client, CacheManager cache)
+public record NeoforgeVersionRepository(SwitchboardClient client, RecordingCacheManager cache)
     implements SwitchboardRepository {
-    private static final Duration VERSIONS_TTL = Duration.ofHours(12);
-    private static final Duration LATEST_TTL = Duration.ofHours(1);
+    private static final CachePolicy VERSIONS_POLICY = CachePolicy.staleWhileRevalidate(Duration.ofHours(12), Duration.ofDays(7));
+    private static final CachePolicy LATEST_POLICY = CachePolicy.staleWhileRevalidate(Duration.ofHours(1), Duration.ofDays(1));
+
+    public NeoforgeVersionRepository(SwitchboardClient client, CacheManager cache) {
+        this(client, new RecordingCacheManager(cache));
+    }
+
+    @Override
+    public CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
+    @Override
+    public Optional<CacheKeySpec<?>> getKeySpec(String key) {
+        if (CacheKeySpec.matches(key, "neoforge:versions"))
+            return Optional.of(new CacheKeySpec<>(SwitchboardClient.LIST_OF_STRINGS, VERSIONS_POLICY));
+
+        if (CacheKeySpec.matches(key, "neoforge:latest"))
+            return Optional.of(CacheKeySpec.of(String.class, LATEST_POLICY));
+
+        return Optional.empty();
+    }
 
     public CompletableFuture<List<String>> getAllVersions() {
         return cache.getOrFetch(
             "neoforge:versions",
             SwitchboardClient.LIST_OF_STRINGS,
-            VERSIONS_TTL,
-            client::fetchNeoforgeVersions
+            VERSIONS_POLICY,
+            client.fetchNeoforgeVersions()
         );
     }
 
@@ -37,8 +62,8 @@ public record NeoforgeVersionRepository(SwitchboardClient client, CacheManager c
         return cache.getOrFetch(
             key,
             SwitchboardClient.LIST_OF_STRINGS,
-            VERSIONS_TTL,
-            () -> client.fetchNeoforgeVersions(normalized)
+            VERSIONS_POLICY,
+            client.fetchNeoforgeVersions(normalized)
         );
     }
 
@@ -55,8 +80,8 @@ public record NeoforgeVersionRepository(SwitchboardClient client, CacheManager c
         return cache.getOrFetch(
             key,
             String.class,
-            LATEST_TTL,
-            () -> client.fetchLatestNeoforgeVersion(includePrereleases)
+            LATEST_POLICY,
+            client.fetchLatestNeoforgeVersion(includePrereleases)
         );
     }
 
@@ -80,8 +105,8 @@ public record NeoforgeVersionRepository(SwitchboardClient client, CacheManager c
         return cache.getOrFetch(
             key,
             String.class,
-            LATEST_TTL,
-            () -> client.fetchLatestNeoforgeVersion(normalized, includePrereleases)
+            LATEST_POLICY,
+            client.fetchLatestNeoforgeVersion(normalized, includePrereleases)
         );
     }
 
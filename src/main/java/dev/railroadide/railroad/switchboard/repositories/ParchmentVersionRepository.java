@@ -1,7 +1,11 @@
 package dev.railroadide.railroad.switchboard.repositories;
 
 import dev.railroadide.core.switchboard.SwitchboardRepository;
+import dev.railroadide.core.switchboard.cache.CacheKeySpec;
 import dev.railroadide.core.switchboard.cache.CacheManager;
+import dev.railroadide.core.switchboard.cache.CachePolicy;
+import dev.railroadide.core.switchboard.cache.CacheStats;
+import dev.railroadide.core.switchboard.cache.impl.RecordingCacheManager;
 import dev.railroadide.core.switchboard.pojo.ParchmentVersion;
 import dev.railroadide.railroad.switchboard.SwitchboardClient;
 
@@ -10,20 +14,44 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
-public record ParchmentVersionRepository(SwitchboardClient client, CacheManager cache)
+public record ParchmentVersionRepository(SwitchboardClient client, RecordingCacheManager cache)
     implements SwitchboardRepository {
-    private static final Duration VERSIONS_TTL = Duration.ofHours(12);
-    private static final Duration LATEST_TTL = Duration.ofHours(1);
+    private static final CachePolicy VERSIONS_POLICY = CachePolicy.staleWhileRevalidate(Duration.ofHours(12), Duration.ofDays(7));
+    private static final CachePolicy LATEST_POLICY = CachePolicy.staleWhileRevalidate(Duration.ofHours(1), Duration.ofDays(1));
+
+    public ParchmentVersionRepository(SwitchboardClient client, CacheManager cache) {
+        this(client, new RecordingCacheManager(cache));
+    }
+
+    @Override
+    public CacheStats getCacheStats() {
+        return cache.getStats();
+    }
+
+    @Override
+    public Optional<CacheKeySpec<?>> getKeySpec(String key) {
+        if (CacheKeySpec.matches(key, "parchment:versions"))
+            return Optional.of(new CacheKeySpec<>(SwitchboardClient.LIST_OF_PARCHMENT_VERSIONS, VERSIONS_POLICY));
+
+        if (CacheKeySpec.matches(key, "parchment:latest"))
+            return Optional.of(CacheKeySpec.of(ParchmentVersion.class, LATEST_POLICY));
+
+        if (CacheKeySpec.matches(key, "parchment:grouped"))
+            return Optional.of(new CacheKeySpec<>(SwitchboardClient.MAP_OF_PARCHMENT_VERSIONS, VERSIONS_POLICY));
+
+        return Optional.empty();
+    }
 
     public CompletableFuture<List<ParchmentVersion>> getAllVersions() {
         return cache.getOrFetch(
             "parchment:versions",
             SwitchboardClient.LIST_OF_PARCHMENT_VERSIONS,
-            VERSIONS_TTL,
-            client::fetchParchmentVersions
+            VERSIONS_POLICY,
+            client.fetchParchmentVersions()
         );
     }
 
@@ -39,8 +67,8 @@ public record ParchmentVersionRepository(SwitchboardClient client, CacheManager
         return cache.getOrFetch(
             key,
             SwitchboardClient.LIST_OF_PARCHMENT_VERSIONS,
-            VERSIONS_TTL,
-            () -> client.fetchParchmentVersions(normalized)
+            VERSIONS_POLICY,
+            client.fetchParchmentVersions(normalized)
         );
     }
 
@@ -52,8 +80,8 @@ public record ParchmentVersionRepository(SwitchboardClient client, CacheManager
         return cache.getOrFetch(
             "parchment:latest",
             ParchmentVersion.class,
-            LATEST_TTL,
-            client::fetchLatestParchmentVersion
+            LATEST_POLICY,
+            client.fetchLatestParchmentVersion()
         );
     }
 
@@ -69,8 +97,8 @@ public record ParchmentVersionRepository(SwitchboardClient client, CacheManager
         return cache.getOrFetch(
             key,
             ParchmentVersion.class,
-            LATEST_TTL,
-            () -> client.fetchLatestParchmentVersion(normalized)
+            LATEST_POLICY,
+            client.fetchLatestParchmentVersion(normalized)
         );
     }
 
@@ -82,8 +110,8 @@ public record ParchmentVersionRepository(SwitchboardClient client, CacheManager
         return cache.getOrFetch(
             "parchment:grouped",
             SwitchboardClient.MAP_OF_PARCHMENT_VERSIONS,
-            VERSIONS_TTL,
-            client::fetchGroupedParchmentVersions
+            VERSIONS_POLICY,
+            client.fetchGroupedParchmentVersions()
         );
     }
 
@@ -7,19 +7,35 @@ import org.kordamp.ikonli.javafx.FontIcon;
 import java.awt.*;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.CopyOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.util.Comparator;
+import java.util.*;
 import java.util.List;
+import java.util.concurrent.*;
 import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
 public final class FileUtils {
+    private static final int UNZIP_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private static final int UNZIP_BUFFER_SIZE = 64 * 1024;
+    private static final ExecutorService UNZIP_EXECUTOR = Executors.newFixedThreadPool(UNZIP_THREADS, Thread.ofPlatform()
+        .name("unzip-worker-", 0)
+        .daemon()
+        .factory());
+    // One buffer per unzip thread is all that is ever in use at once
+    private static final BlockingQueue<byte[]> UNZIP_BUFFERS = new ArrayBlockingQueue<>(UNZIP_THREADS);
+
+    static {
+        ShutdownHooks.addHook(UNZIP_EXECUTOR::shutdownNow);
+    }
+
     private FileUtils() {
         // Utility class, no instantiation
     }
@@ -85,33 +101,68 @@ public final class FileUtils {
 
     /**
      * Unzips a ZIP file to a specified directory.
+     * <p>
+     * The entries are read through random access and written in parallel, each through a buffer taken from a small
+     * pool rather than allocated per entry. The directories are created up front, so the files can be written in any
+     * order.
      *
      * @param fileZip the path to the ZIP file
      * @param dstDir  the destination directory where the contents will be extracted
      * @throws IOException if an error occurs during unzipping
      */
     public static void unzipFile(Path fileZip, Path dstDir) throws IOException {
-        try (var zipInputStream = new ZipInputStream(Files.newInputStream(fileZip))) {
-            ZipEntry zipEntry = zipInputStream.getNextEntry();
-            while (zipEntry != null) {
+        try (var zipFile = new ZipFile(fileZip.toFile())) {
+            Set<Path> directories = new TreeSet<>();
+            Map<ZipEntry, Path> files = new LinkedHashMap<>();
+            for (ZipEntry zipEntry : Collections.list(zipFile.entries())) {
                 Path newFile = resolveZipEntryPath(dstDir, zipEntry);
                 if (zipEntry.isDirectory()) {
-                    Files.createDirectories(newFile);
-                    if (!Files.isDirectory(newFile))
-                        throw new IOException("Failed to create directory " + newFile);
+                    directories.add(newFile);
                 } else {
-                    Path parent = newFile.getParent();
-                    Files.createDirectories(parent);
-                    if (!Files.isDirectory(parent))
-                        throw new IOException("Failed to create directory " + parent);
+                    directories.add(newFile.getParent());
+                    files.put(zipEntry, newFile);
+                }
+            }
+
+            for (Path directory : directories) {
+                Files.createDirectories(directory);
+                if (!Files.isDirectory(directory))
+                    throw new IOException("Failed to create directory " + directory);
+            }
 
-                    Files.copy(zipInputStream, newFile, StandardCopyOption.REPLACE_EXISTING);
+            List<CompletableFuture<Void>> extractions = new ArrayList<>(files.size());
+            files.forEach((zipEntry, newFile) -> extractions.add(CompletableFuture.runAsync(() -> {
+                try {
+                    extractEntry(zipFile, zipEntry, newFile);
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
                 }
+            }, UNZIP_EXECUTOR)));
+
+            try {
+                CompletableFuture.allOf(extractions.toArray(CompletableFuture[]::new)).join();
+            } catch (CompletionException exception) {
+                if (exception.getCause() instanceof UncheckedIOException uncheckedIOException)
+                    throw uncheckedIOException.getCause();
 
-                zipEntry = zipInputStream.getNextEntry();
+                throw new IOException("Failed to unzip " + fileZip, exception.getCause());
             }
+        }
+    }
 
-            zipInputStream.closeEntry();
+    private static void extractEntry(ZipFile zipFile, ZipEntry zipEntry, Path newFile) throws IOException {
+        byte[] buffer = UNZIP_BUFFERS.poll();
+        if (buffer == null) {
+            buffer = new byte[UNZIP_BUFFER_SIZE];
+        }
+
+        try (InputStream in = zipFile.getInputStream(zipEntry); OutputStream out = Files.newOutputStream(newFile)) {
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+        } finally {
+            UNZIP_BUFFERS.offer(buffer);
         }
     }
 
@@ -267,7 +318,14 @@ public final class FileUtils {
      * @return a Node representing the icon for the file type
      */
     public static Node getIcon(Path path) {
-        if (Files.isDirectory(path))
+        return getIcon(path, Files.isDirectory(path));
+    }
+
+    /**
+     * @param directory Whether the path is a directory, for callers that know already and want to skip the lookup.
+     */
+    public static Node getIcon(Path path, boolean directory) {
+        if (directory)
             return new FontIcon(FontAwesomeRegular.FOLDER);
 
         String extension = getExtension(path.toString());
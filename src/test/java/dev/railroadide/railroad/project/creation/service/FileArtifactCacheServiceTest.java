@@ -0,0 +1,168 @@
+package dev.railroadide.railroad.project.creation.service;
+
+import com.sun.net.httpserver.HttpServer;
+import dev.railroadide.logger.Logger;
+import dev.railroadide.logger.LoggerManager;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileArtifactCacheServiceTest {
+    private static final Logger LOGGER = LoggerManager.create(FileArtifactCacheServiceTest.class).build();
+
+    private final Map<String, byte[]> contents = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> downloads = new ConcurrentHashMap<>();
+    private HttpServer server;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            byte[] content = this.contents.get(path);
+            if (content == null) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+
+            this.downloads.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+            exchange.sendResponseHeaders(200, content.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(content);
+            }
+        });
+        this.server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        this.server.stop(0);
+    }
+
+    @Test
+    void storedArtifactIsNotDownloadedAgain() throws IOException {
+        byte[] content = serve("/first.zip", "first");
+        var cache = newCache(Long.MAX_VALUE);
+
+        cache.fetch(uri("/first.zip"), this.directory.resolve("a.zip"), sha256(content));
+        cache.fetch(uri("/first.zip"), this.directory.resolve("b.zip"), sha256(content));
+
+        assertEquals(1, downloads("/first.zip"));
+        assertArrayEquals(content, Files.readAllBytes(this.directory.resolve("a.zip")));
+        assertArrayEquals(content, Files.readAllBytes(this.directory.resolve("b.zip")));
+    }
+
+    @Test
+    void artifactWithoutChecksumIsReusedWithinMaxAge() throws IOException {
+        byte[] content = serve("/versions.json", "{}");
+        var cache = newCache(Long.MAX_VALUE);
+
+        String first = cache.fetch(uri("/versions.json"), this.directory.resolve("a.json"), Duration.ofHours(1));
+        String second = cache.fetch(uri("/versions.json"), this.directory.resolve("b.json"), Duration.ofHours(1));
+        cache.fetch(uri("/versions.json"), this.directory.resolve("c.json"), Duration.ZERO);
+
+        assertEquals(sha256(content), first);
+        assertEquals(first, second);
+        assertEquals(2, downloads("/versions.json"));
+    }
+
+    @Test
+    void checksumMismatchIsRejected() throws IOException {
+        serve("/first.zip", "first");
+        var cache = newCache(Long.MAX_VALUE);
+        Path dest = this.directory.resolve("a.zip");
+        String expected = sha256("something else".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, () -> cache.fetch(uri("/first.zip"), dest, expected));
+        assertFalse(Files.exists(dest));
+        try (var blobs = Files.list(this.directory.resolve("store").resolve("blobs"))) {
+            assertEquals(0, blobs.count());
+        }
+    }
+
+    @Test
+    void missingArtifactFails() {
+        var cache = newCache(Long.MAX_VALUE);
+
+        assertThrows(IOException.class,
+            () -> cache.fetch(uri("/missing.zip"), this.directory.resolve("a.zip"), Duration.ofHours(1)));
+        assertFalse(Files.exists(this.directory.resolve("a.zip")));
+    }
+
+    @Test
+    void leastRecentlyUsedArtifactIsEvicted() throws IOException {
+        byte[] first = serve("/first.zip", "a".repeat(100));
+        byte[] second = serve("/second.zip", "b".repeat(100));
+        byte[] third = serve("/third.zip", "c".repeat(100));
+        Path blobs = this.directory.resolve("store").resolve("blobs");
+        var cache = newCache(200);
+
+        cache.fetch(uri("/first.zip"), this.directory.resolve("first.zip"), sha256(first));
+        cache.fetch(uri("/second.zip"), this.directory.resolve("second.zip"), sha256(second));
+        long now = System.currentTimeMillis();
+        Files.setLastModifiedTime(blobs.resolve(sha256(first)), FileTime.fromMillis(now - 20_000));
+        Files.setLastModifiedTime(blobs.resolve(sha256(second)), FileTime.fromMillis(now - 10_000));
+
+        // Using the first artifact makes the second one the least recently used
+        cache.fetch(uri("/first.zip"), this.directory.resolve("first.zip"), sha256(first));
+        cache.fetch(uri("/third.zip"), this.directory.resolve("third.zip"), sha256(third));
+
+        assertTrue(Files.exists(blobs.resolve(sha256(first))));
+        assertFalse(Files.exists(blobs.resolve(sha256(second))));
+        assertTrue(Files.exists(blobs.resolve(sha256(third))));
+        assertEquals(1, downloads("/first.zip"));
+    }
+
+    private FileArtifactCacheService newCache(long maxSize) {
+        return new FileArtifactCacheService(new OkHttpService(new OkHttpClient()), this.directory.resolve("store"),
+            () -> maxSize, LOGGER);
+    }
+
+    private byte[] serve(String path, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        this.contents.put(path, bytes);
+        return bytes;
+    }
+
+    private int downloads(String path) {
+        AtomicInteger count = this.downloads.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + this.server.getAddress().getPort() + path);
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
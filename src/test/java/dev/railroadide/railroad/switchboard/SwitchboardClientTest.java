@@ -0,0 +1,111 @@
+package dev.railroadide.railroad.switchboard;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpServer;
+import dev.railroadide.core.switchboard.cache.FetchResult;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SwitchboardClientTest {
+    private static final String ETAG = "\"v1\"";
+    private static final String VERSIONS = "[\"1.0\",\"1.1\"]";
+
+    // The If-None-Match header of each request, or an empty string if it had none
+    private final Queue<String> sentEtags = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger parses = new AtomicInteger();
+    private HttpServer server;
+    private SwitchboardClient client;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/forge/versions", exchange -> {
+            String etag = exchange.getRequestHeaders().getFirst("If-None-Match");
+            this.sentEtags.add(etag == null ? "" : etag);
+            exchange.getResponseHeaders().add("ETag", ETAG);
+            if (ETAG.equals(etag)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+
+            byte[] body = VERSIONS.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        this.server.createContext("/neoforge/versions", exchange -> {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        this.server.start();
+
+        String baseUrl = "http://localhost:" + this.server.getAddress().getPort();
+        this.client = new SwitchboardClient(baseUrl, new OkHttpClient(), () -> {
+            this.parses.incrementAndGet();
+            return new Gson();
+        });
+    }
+
+    @AfterEach
+    void stopServer() {
+        this.server.stop(0);
+    }
+
+    @Test
+    void responseIsParsedWithItsEtag() {
+        FetchResult<List<String>> result = this.client.fetchForgeVersions().fetch(null).join();
+
+        assertFalse(result.notModified());
+        assertEquals(List.of("1.0", "1.1"), result.data());
+        assertEquals(ETAG, result.etag());
+        assertEquals(List.of(""), List.copyOf(this.sentEtags));
+        assertEquals(1, this.parses.get());
+    }
+
+    @Test
+    void cachedEtagIsSentAsIfNoneMatch() {
+        FetchResult<List<String>> result = this.client.fetchForgeVersions().fetch(ETAG).join();
+
+        assertEquals(List.of(ETAG), List.copyOf(this.sentEtags));
+        assertTrue(result.notModified());
+        assertEquals(ETAG, result.etag());
+    }
+
+    @Test
+    void notModifiedResponseIsNotParsed() {
+        FetchResult<List<String>> first = this.client.fetchForgeVersions().fetch(null).join();
+        FetchResult<List<String>> second = this.client.fetchForgeVersions().fetch(first.etag()).join();
+
+        assertTrue(second.notModified());
+        assertNull(second.data());
+        assertEquals(List.of("", ETAG), List.copyOf(this.sentEtags));
+        assertEquals(1, this.parses.get());
+    }
+
+    @Test
+    void failedResponseFailsTheFetch() {
+        var exception = assertThrows(CompletionException.class,
+            () -> this.client.fetchNeoforgeVersions().fetch(null).join());
+
+        assertTrue(exception.getCause().getMessage().contains("500"));
+        assertEquals(0, this.parses.get());
+    }
+}